@@ -18,13 +18,19 @@ package hu.bme.mit.theta.analysis.algorithm;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static java.util.stream.Collectors.toList;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Optional;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.OptionalInt;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.PartialOrd;
@@ -33,18 +39,72 @@ import hu.bme.mit.theta.analysis.State;
 /**
  * Represents an abstract reachability graph (ARG). See the related class
  * ArgBuilder.
+ * <p>
+ * The structure of the ARG is stored in primitive arrays indexed by the index of
+ * the nodes (parent, siblings, covering, flags, etc.), and states and actions
+ * are kept in separate arrays. ArgNode and ArgEdge objects are lightweight
+ * views created on demand, therefore they should be compared with equals.
+ * Indices of pruned nodes are released and reused by new nodes, while node ids
+ * are never reused.
  */
 public final class ARG<S extends State, A extends Action> {
 
-	private final Collection<ArgNode<S, A>> initNodes;
+	static final int NONE = -1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final byte EXPANDED = 1;
+	private static final byte TARGET = 2;
+	private static final byte PRUNED = 4;
+
+	private final Collection<Integer> initNodes;
+	private final Collection<ArgNode<S, A>> reopenedNodes;
 	boolean initialized; // Set by ArgBuilder
 	private int nextId = 0;
+	private int nextIndex = 0;
+	private long size = 0;
+	private int[] freeIndices;
+	private int freeCount = 0;
 	final PartialOrd<S> partialOrd;
 
+	private int[] ids;
+	private Object[] states;
+	private Object[] actions; // Action of the incoming edge
+	private int[] depths;
+	private int[] parents;
+	private int[] firstChildren;
+	private int[] lastChildren;
+	private int[] prevSiblings;
+	private int[] nextSiblings;
+	private int[] coveringNodes;
+	private int[] firstCoveredNodes;
+	private int[] prevCoveredNodes;
+	private int[] nextCoveredNodes;
+	private byte[] flags;
+
 	private ARG(final PartialOrd<S> partialOrd) {
-		initNodes = new HashSet<>();
+		initNodes = new LinkedHashSet<>();
+		reopenedNodes = new ArrayList<>();
 		this.partialOrd = partialOrd;
 		this.initialized = false;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(final int capacity) {
+		freeIndices = new int[capacity];
+		ids = new int[capacity];
+		states = new Object[capacity];
+		actions = new Object[capacity];
+		depths = new int[capacity];
+		parents = new int[capacity];
+		firstChildren = new int[capacity];
+		lastChildren = new int[capacity];
+		prevSiblings = new int[capacity];
+		nextSiblings = new int[capacity];
+		coveringNodes = new int[capacity];
+		firstCoveredNodes = new int[capacity];
+		prevCoveredNodes = new int[capacity];
+		nextCoveredNodes = new int[capacity];
+		flags = new byte[capacity];
 	}
 
 	public static <S extends State, A extends Action> ARG<S, A> create(final PartialOrd<S> partialOrd) {
@@ -54,7 +114,7 @@ public final class ARG<S extends State, A extends Action> {
 	////
 
 	public Stream<ArgNode<S, A>> getInitNodes() {
-		return initNodes.stream();
+		return initNodes.stream().map(this::node);
 	}
 
 	public Stream<S> getInitStates() {
@@ -62,15 +122,15 @@ public final class ARG<S extends State, A extends Action> {
 	}
 
 	public Stream<ArgNode<S, A>> getNodes() {
-		return getInitNodes().flatMap(ArgNode::descendants);
+		return descendants(initNodes);
 	}
 
 	public Stream<ArgNode<S, A>> getUnsafeNodes() {
-		return getInitNodes().flatMap(ArgNode::unexcludedDescendants).filter(ArgNode::isTarget);
+		return preorder(initNodes, true).filter(ArgNode::isTarget);
 	}
 
 	public Stream<ArgNode<S, A>> getIncompleteNodes() {
-		return getInitNodes().flatMap(ArgNode::unexcludedDescendants).filter(n -> !n.isExpanded());
+		return preorder(initNodes, true).filter(n -> !n.isExpanded());
 	}
 
 	////
@@ -102,9 +162,9 @@ public final class ARG<S extends State, A extends Action> {
 
 	public ArgNode<S, A> createInitNode(final S initState, final boolean target) {
 		checkNotNull(initState);
-		final ArgNode<S, A> initNode = createNode(initState, 0, target);
+		final int initNode = createNode(initState, NONE, null, target);
 		initNodes.add(initNode);
-		return initNode;
+		return node(initNode);
 	}
 
 	public ArgNode<S, A> createSuccNode(final ArgNode<S, A> node, final A action, final S succState,
@@ -114,42 +174,141 @@ public final class ARG<S extends State, A extends Action> {
 		checkNotNull(succState);
 		checkArgument(node.arg == this, "Node does not belong to this ARG");
 		checkArgument(!node.isTarget(), "Node is target");
-		final ArgNode<S, A> succNode = createNode(succState, node.getDepth() + 1, target);
-		createEdge(node, action, succNode);
-		return succNode;
+		return node(createNode(succState, node.index, action, target));
 	}
 
-	private ArgNode<S, A> createNode(final S state, final int depth, final boolean target) {
-		final ArgNode<S, A> node = new ArgNode<>(this, state, nextId, depth, target);
+	private int createNode(final S state, final int parent, final A action, final boolean target) {
+		final int index;
+		if (freeCount > 0) {
+			freeCount--;
+			index = freeIndices[freeCount];
+		} else {
+			index = nextIndex;
+			ensureCapacity(index + 1);
+			nextIndex = nextIndex + 1;
+		}
+		ids[index] = nextId;
+		states[index] = state;
+		actions[index] = action;
+		depths[index] = parent == NONE ? 0 : depths[parent] + 1;
+		parents[index] = parent;
+		firstChildren[index] = NONE;
+		lastChildren[index] = NONE;
+		prevSiblings[index] = NONE;
+		nextSiblings[index] = NONE;
+		coveringNodes[index] = NONE;
+		firstCoveredNodes[index] = NONE;
+		prevCoveredNodes[index] = NONE;
+		nextCoveredNodes[index] = NONE;
+		flags[index] = target ? TARGET : 0;
+		if (parent != NONE) {
+			linkChild(parent, index);
+		}
 		nextId = nextId + 1;
-		return node;
+		size = size + 1;
+		return index;
 	}
 
-	private ArgEdge<S, A> createEdge(final ArgNode<S, A> source, final A action, final ArgNode<S, A> target) {
-		final ArgEdge<S, A> edge = new ArgEdge<>(source, action, target);
-		source.outEdges.add(edge);
-		target.inEdge = Optional.of(edge);
-		return edge;
+	private void ensureCapacity(final int capacity) {
+		if (capacity <= states.length) {
+			return;
+		}
+		final int newCapacity = Math.max(capacity, states.length * 2);
+		freeIndices = Arrays.copyOf(freeIndices, newCapacity);
+		ids = Arrays.copyOf(ids, newCapacity);
+		states = Arrays.copyOf(states, newCapacity);
+		actions = Arrays.copyOf(actions, newCapacity);
+		depths = Arrays.copyOf(depths, newCapacity);
+		parents = Arrays.copyOf(parents, newCapacity);
+		firstChildren = Arrays.copyOf(firstChildren, newCapacity);
+		lastChildren = Arrays.copyOf(lastChildren, newCapacity);
+		prevSiblings = Arrays.copyOf(prevSiblings, newCapacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, newCapacity);
+		coveringNodes = Arrays.copyOf(coveringNodes, newCapacity);
+		firstCoveredNodes = Arrays.copyOf(firstCoveredNodes, newCapacity);
+		prevCoveredNodes = Arrays.copyOf(prevCoveredNodes, newCapacity);
+		nextCoveredNodes = Arrays.copyOf(nextCoveredNodes, newCapacity);
+		flags = Arrays.copyOf(flags, newCapacity);
+	}
+
+	private void linkChild(final int parent, final int child) {
+		final int last = lastChildren[parent];
+		prevSiblings[child] = last;
+		nextSiblings[child] = NONE;
+		if (last == NONE) {
+			firstChildren[parent] = child;
+		} else {
+			nextSiblings[last] = child;
+		}
+		lastChildren[parent] = child;
+	}
+
+	private void unlinkChild(final int parent, final int child) {
+		final int prev = prevSiblings[child];
+		final int next = nextSiblings[child];
+		if (prev == NONE) {
+			firstChildren[parent] = next;
+		} else {
+			nextSiblings[prev] = next;
+		}
+		if (next == NONE) {
+			lastChildren[parent] = prev;
+		} else {
+			prevSiblings[next] = prev;
+		}
+		prevSiblings[child] = NONE;
+		nextSiblings[child] = NONE;
 	}
 
 	/**
-	 * Removes a node along with its subtree.
+	 * Removes a node along with its subtree. The parent of the node and the
+	 * nodes that were covered by the subtree become incomplete, see
+	 * {@link #takeReopenedNodes()}.
 	 */
 	public void prune(final ArgNode<S, A> node) {
 		checkNotNull(node);
 		checkArgument(node.arg == this, "Node does not belong to this ARG");
-		if (node.getInEdge().isPresent()) {
-			final ArgEdge<S, A> edge = node.getInEdge().get();
-			final ArgNode<S, A> parent = edge.getSource();
-			parent.outEdges.remove(edge);
-			parent.expanded = false;
+		checkArgument(!node.isPruned(), "Node is already pruned");
+		final int index = node.index;
+		final int[] subtree = subtree(index);
+		for (final int n : subtree) {
+			flags[n] |= PRUNED;
+		}
+		size = size - subtree.length;
+
+		final int parent = parents[index];
+		if (parent != NONE) {
+			unlinkChild(parent, index);
+			flags[parent] &= ~EXPANDED;
+			reopenedNodes.add(node(parent));
 		} else {
-			assert initNodes.contains(node);
-			initNodes.remove(node);
+			assert initNodes.contains(index);
+			initNodes.remove(index);
 			this.initialized = false;
 		}
-		node.descendants().forEach(ArgNode::unsetCoveringNode);
-		node.descendants().forEach(ArgNode::clearCoveredNodes);
+		for (final int n : subtree) {
+			unsetCoveringNode(n);
+			for (int c = firstCoveredNodes[n]; c != NONE; c = nextCoveredNodes[c]) {
+				if (!hasFlag(c, PRUNED)) {
+					reopenedNodes.add(node(c));
+				}
+			}
+			clearCoveredNodes(n);
+		}
+		for (final int n : subtree) {
+			release(n);
+		}
+	}
+
+	/**
+	 * Releases the index of a pruned node for reuse, dropping its state and
+	 * action.
+	 */
+	private void release(final int index) {
+		states[index] = null;
+		actions[index] = null;
+		freeIndices[freeCount] = index;
+		freeCount++;
 	}
 
 	/**
@@ -157,17 +316,42 @@ public final class ARG<S extends State, A extends Action> {
 	 */
 	public void pruneAll() {
 		initNodes.clear();
+		reopenedNodes.clear();
+		size = 0;
+		nextIndex = 0;
+		freeCount = 0;
+		allocate(INITIAL_CAPACITY);
 		this.initialized = false;
 	}
 
+	/**
+	 * Gets the nodes that became incomplete due to pruning since the last
+	 * call, i.e., parents of pruned nodes and nodes that were covered by a
+	 * pruned node. Nodes that were pruned since then are not included. This
+	 * allows algorithms to continue exploration without traversing the ARG.
+	 */
+	public Collection<ArgNode<S, A>> takeReopenedNodes() {
+		final Collection<ArgNode<S, A>> result = new LinkedHashSet<>();
+		for (final ArgNode<S, A> n : reopenedNodes) {
+			if (!n.isPruned()) {
+				result.add(n);
+			}
+		}
+		reopenedNodes.clear();
+		return result;
+	}
+
 	public void minimize() {
-		initNodes.forEach(this::minimizeSubTree);
+		new ArrayList<>(initNodes).forEach(this::minimizeSubTree);
 	}
 
-	private void minimizeSubTree(final ArgNode<S, A> node) {
-		final Stream<ArgNode<S, A>> children = node.children().collect(toList()).stream();
-		if (node.isExcluded()) {
-			children.forEach(this::prune);
+	private void minimizeSubTree(final int node) {
+		final List<Integer> children = new ArrayList<>();
+		for (int c = firstChildren[node]; c != NONE; c = nextSiblings[c]) {
+			children.add(c);
+		}
+		if (isExcluded(node)) {
+			children.forEach(c -> prune(node(c)));
 		} else {
 			children.forEach(this::minimizeSubTree);
 		}
@@ -186,7 +370,7 @@ public final class ARG<S extends State, A extends Action> {
 	 * Gets the size of the ARG, i.e., the number of nodes.
 	 */
 	public long size() {
-		return getNodes().count();
+		return size;
 	}
 
 	/**
@@ -195,7 +379,7 @@ public final class ARG<S extends State, A extends Action> {
 	 * ARG.
 	 */
 	public int getDepth() {
-		final OptionalInt maxOpt = getNodes().mapToInt(ArgNode::getDepth).max();
+		final OptionalInt maxOpt = Arrays.stream(subtrees(initNodes)).map(n -> depths[n]).max();
 		checkState(maxOpt.isPresent(), "Depth is undefined for an empty ARG.");
 		return maxOpt.getAsInt();
 	}
@@ -204,9 +388,296 @@ public final class ARG<S extends State, A extends Action> {
 	 * Gets the mean branching factor of the expanded nodes.
 	 */
 	public double getMeanBranchingFactor() {
-		final Stream<ArgNode<S, A>> nodesToCalculate = getNodes().filter(ArgNode::isExpanded);
-		final double mean = nodesToCalculate.mapToDouble(n -> n.getOutEdges().count()).average().orElse(0);
-		return mean;
+		return Arrays.stream(subtrees(initNodes)).filter(n -> hasFlag(n, EXPANDED)).mapToDouble(this::countChildren)
+				.average().orElse(0);
+	}
+
+	//// Node view support
+
+	ArgNode<S, A> node(final int index) {
+		return new ArgNode<>(this, index, ids[index]);
+	}
+
+	@SuppressWarnings("unchecked")
+	S getState(final int index) {
+		return (S) states[index];
+	}
+
+	void setState(final int index, final S state) {
+		states[index] = state;
+	}
+
+	@SuppressWarnings("unchecked")
+	A getAction(final int index) {
+		return (A) actions[index];
+	}
+
+	int getDepth(final int index) {
+		return depths[index];
+	}
+
+	int getParent(final int index) {
+		return parents[index];
+	}
+
+	int getFirstChild(final int index) {
+		return firstChildren[index];
+	}
+
+	int getNextSibling(final int index) {
+		return nextSiblings[index];
+	}
+
+	int getCoveringNode(final int index) {
+		return coveringNodes[index];
+	}
+
+	int getFirstCoveredNode(final int index) {
+		return firstCoveredNodes[index];
+	}
+
+	int getNextCoveredNode(final int index) {
+		return nextCoveredNodes[index];
+	}
+
+	boolean isExpanded(final int index) {
+		return hasFlag(index, EXPANDED);
+	}
+
+	void setExpanded(final int index) {
+		flags[index] |= EXPANDED;
+	}
+
+	boolean isTarget(final int index) {
+		return hasFlag(index, TARGET);
+	}
+
+	/**
+	 * Checks if the node with the given id is pruned. Its index might have
+	 * been reused by another node since then, or even released by
+	 * {@link #pruneAll()}.
+	 */
+	boolean isPruned(final int index, final int id) {
+		return index >= nextIndex || ids[index] != id || hasFlag(index, PRUNED);
+	}
+
+	boolean isSubsumed(final int index) {
+		return coveringNodes[index] != NONE || getState(index).isBottom();
+	}
+
+	boolean isExcluded(final int index) {
+		for (int n = index; n != NONE; n = parents[n]) {
+			if (isSubsumed(n)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	void setCoveringNode(final int index, final int coveringNode) {
+		unsetCoveringNode(index);
+		coveringNodes[index] = coveringNode;
+		final int first = firstCoveredNodes[coveringNode];
+		prevCoveredNodes[index] = NONE;
+		nextCoveredNodes[index] = first;
+		if (first != NONE) {
+			prevCoveredNodes[first] = index;
+		}
+		firstCoveredNodes[coveringNode] = index;
+	}
+
+	void unsetCoveringNode(final int index) {
+		final int coveringNode = coveringNodes[index];
+		if (coveringNode == NONE) {
+			return;
+		}
+		final int prev = prevCoveredNodes[index];
+		final int next = nextCoveredNodes[index];
+		if (prev == NONE) {
+			firstCoveredNodes[coveringNode] = next;
+		} else {
+			nextCoveredNodes[prev] = next;
+		}
+		if (next != NONE) {
+			prevCoveredNodes[next] = prev;
+		}
+		coveringNodes[index] = NONE;
+		prevCoveredNodes[index] = NONE;
+		nextCoveredNodes[index] = NONE;
+	}
+
+	void clearCoveredNodes(final int index) {
+		int c = firstCoveredNodes[index];
+		while (c != NONE) {
+			final int next = nextCoveredNodes[c];
+			coveringNodes[c] = NONE;
+			prevCoveredNodes[c] = NONE;
+			nextCoveredNodes[c] = NONE;
+			c = next;
+		}
+		firstCoveredNodes[index] = NONE;
+	}
+
+	int countChildren(final int index) {
+		int count = 0;
+		for (int c = firstChildren[index]; c != NONE; c = nextSiblings[c]) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the indices of the subtree rooted at a node in preorder.
+	 */
+	int[] subtree(final int index) {
+		return subtrees(Arrays.asList(index));
+	}
+
+	private int[] subtrees(final Collection<Integer> roots) {
+		final PrimitiveIterator.OfInt iterator = new PreorderIterator(roots, false);
+		int[] result = new int[16];
+		int count = 0;
+		while (iterator.hasNext()) {
+			if (count == result.length) {
+				result = Arrays.copyOf(result, count * 2);
+			}
+			result[count] = iterator.nextInt();
+			count++;
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Gets the nodes of the subtrees rooted at the given nodes. Each root is
+	 * followed by its children, and then by the proper descendants of its
+	 * children in the same way, i.e., n0, n00, n01, n000, n001, n010, etc.
+	 */
+	Stream<ArgNode<S, A>> descendants(final Collection<Integer> roots) {
+		final Spliterator.OfInt spliterator = Spliterators.spliteratorUnknownSize(
+				new DescendantIterator(roots), Spliterator.ORDERED | Spliterator.DISTINCT);
+		return StreamSupport.intStream(spliterator, false).mapToObj(this::node);
+	}
+
+	/**
+	 * Gets the nodes of the subtrees rooted at the given nodes in preorder.
+	 * If unexcluded is true, subsumed nodes and their subtrees are skipped.
+	 */
+	Stream<ArgNode<S, A>> preorder(final Collection<Integer> roots, final boolean unexcluded) {
+		final Spliterator.OfInt spliterator = Spliterators.spliteratorUnknownSize(
+				new PreorderIterator(roots, unexcluded), Spliterator.ORDERED | Spliterator.DISTINCT);
+		return StreamSupport.intStream(spliterator, false).mapToObj(this::node);
+	}
+
+	private boolean hasFlag(final int index, final byte flag) {
+		return (flags[index] & flag) != 0;
+	}
+
+	private final class PreorderIterator implements PrimitiveIterator.OfInt {
+		private int[] stack;
+		private int top;
+		private final boolean unexcluded;
+
+		private PreorderIterator(final Collection<Integer> roots, final boolean unexcluded) {
+			this.unexcluded = unexcluded;
+			stack = new int[Math.max(16, roots.size())];
+			top = 0;
+			final Integer[] rootArray = roots.toArray(new Integer[0]);
+			for (int i = rootArray.length - 1; i >= 0; i--) {
+				stack[top] = rootArray[i];
+				top++;
+			}
+			skipSubsumed();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return top > 0;
+		}
+
+		@Override
+		public int nextInt() {
+			if (top == 0) {
+				throw new NoSuchElementException();
+			}
+			top--;
+			final int index = stack[top];
+			for (int c = lastChildren[index]; c != NONE; c = prevSiblings[c]) {
+				if (top == stack.length) {
+					stack = Arrays.copyOf(stack, top * 2);
+				}
+				stack[top] = c;
+				top++;
+			}
+			skipSubsumed();
+			return index;
+		}
+
+		private void skipSubsumed() {
+			if (unexcluded) {
+				while (top > 0 && isSubsumed(stack[top - 1])) {
+					top--;
+				}
+			}
+		}
+	}
+
+	private final class DescendantIterator implements PrimitiveIterator.OfInt {
+		private final Integer[] roots;
+		private int nextRoot;
+		// Listed nodes whose children are not listed yet
+		private int[] stack;
+		private int top;
+		// Next node among the children being listed
+		private int next;
+
+		private DescendantIterator(final Collection<Integer> roots) {
+			this.roots = roots.toArray(new Integer[0]);
+			nextRoot = 0;
+			stack = new int[16];
+			top = 0;
+			next = NONE;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == NONE && top > 0) {
+				top--;
+				final int parent = stack[top];
+				next = firstChildren[parent];
+				// The children of the first child are listed first
+				for (int c = lastChildren[parent]; c != NONE; c = prevSiblings[c]) {
+					if (firstChildren[c] != NONE) {
+						push(c);
+					}
+				}
+			}
+			return next != NONE || nextRoot < roots.length;
+		}
+
+		@Override
+		public int nextInt() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (next != NONE) {
+				final int index = next;
+				next = nextSiblings[index];
+				return index;
+			} else {
+				final int index = roots[nextRoot];
+				nextRoot++;
+				push(index);
+				return index;
+			}
+		}
+
+		private void push(final int index) {
+			if (top == stack.length) {
+				stack = Arrays.copyOf(stack, top * 2);
+			}
+			stack[top] = index;
+			top++;
+		}
 	}
 
 }
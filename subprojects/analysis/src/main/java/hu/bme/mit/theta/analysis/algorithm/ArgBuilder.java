@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -86,10 +87,20 @@ public final class ArgBuilder<S extends State, A extends Action, P extends Prec>
 	}
 
 	public Collection<ArgNode<S, A>> expand(final ArgNode<S, A> node, final P prec) {
+		return applyExpansion(computeExpansion(node, prec));
+	}
+
+	/**
+	 * Computes the successors of a node without modifying the ARG. The result
+	 * can be added to the ARG later by {@link #applyExpansion(Expansion)}.
+	 * Expansions of different nodes can be computed concurrently, as long as
+	 * each thread uses its own ArgBuilder and the ARG is not modified meanwhile.
+	 */
+	public Expansion<S, A> computeExpansion(final ArgNode<S, A> node, final P prec) {
 		checkNotNull(node);
 		checkNotNull(prec);
 
-		final Collection<ArgNode<S, A>> newSuccNodes = new ArrayList<>();
+		final Expansion<S, A> expansion = new Expansion<>(node);
 		final S state = node.getState();
 		final Collection<? extends A> actions = lts.getEnabledActionsFor(state);
 		final TransFunc<S, ? super A, ? super P> transFunc = analysis.getTransFunc();
@@ -101,14 +112,32 @@ public final class ArgBuilder<S extends State, A extends Action, P extends Prec>
 				}
 				// Only add state if there is no covering sibling (with the same action)
 				if (node.getSuccNodes().noneMatch(n -> n.getInEdge().get().getAction().equals(action) &&
-						analysis.getPartialOrd().isLeq(succState, n.getState()))) {
+						analysis.getPartialOrd().isLeq(succState, n.getState())) &&
+						expansion.succs.stream().noneMatch(s -> s.action.equals(action) &&
+								analysis.getPartialOrd().isLeq(succState, s.state))) {
 					final boolean isTarget = target.test(succState);
-					final ArgNode<S, A> newNode = node.arg.createSuccNode(node, action, succState, isTarget);
-					newSuccNodes.add(newNode);
+					expansion.succs.add(new Succ<>(action, succState, isTarget));
 				}
 			}
 		}
-		node.expanded = true;
+
+		return expansion;
+	}
+
+	/**
+	 * Adds the successors of a previously computed expansion to the ARG and
+	 * marks the node as expanded.
+	 */
+	public Collection<ArgNode<S, A>> applyExpansion(final Expansion<S, A> expansion) {
+		checkNotNull(expansion);
+		final ArgNode<S, A> node = expansion.node;
+
+		final Collection<ArgNode<S, A>> newSuccNodes = new ArrayList<>();
+		for (final Succ<S, A> succ : expansion.succs) {
+			final ArgNode<S, A> newNode = node.arg.createSuccNode(node, succ.action, succ.state, succ.target);
+			newSuccNodes.add(newNode);
+		}
+		node.arg.setExpanded(node.index);
 
 		return newSuccNodes;
 	}
@@ -122,4 +151,33 @@ public final class ArgBuilder<S extends State, A extends Action, P extends Prec>
 		}
 	}
 
+	/**
+	 * Successors of a node, computed but not yet added to the ARG.
+	 */
+	public static final class Expansion<S extends State, A extends Action> {
+		private final ArgNode<S, A> node;
+		private final List<Succ<S, A>> succs;
+
+		private Expansion(final ArgNode<S, A> node) {
+			this.node = node;
+			this.succs = new ArrayList<>();
+		}
+
+		public ArgNode<S, A> getNode() {
+			return node;
+		}
+	}
+
+	private static final class Succ<S extends State, A extends Action> {
+		private final A action;
+		private final S state;
+		private final boolean target;
+
+		private Succ(final A action, final S state, final boolean target) {
+			this.action = action;
+			this.state = state;
+			this.target = target;
+		}
+	}
+
 }
@@ -117,7 +117,7 @@ public final class ArgChecker {
 
 	private static <S extends State, A extends Action> Collection<S> getSuccStatesOfNodeForAction(
 			final ArgNode<? extends S, ? extends A> node, final A action) {
-		return node.outEdges.stream().filter(e -> e.getAction().equals(action)).map(e -> e.getTarget().getState())
+		return node.getOutEdges().filter(e -> e.getAction().equals(action)).map(e -> e.getTarget().getState())
 				.collect(toList());
 	}
 
@@ -42,4 +42,23 @@ public final class ArgEdge<S extends State, A extends Action> {
 		return action;
 	}
 
+	////
+
+	@Override
+	public int hashCode() {
+		return 31 * source.hashCode() + target.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof ArgEdge) {
+			final ArgEdge<?, ?> that = (ArgEdge<?, ?>) obj;
+			return this.source.equals(that.source) && this.target.equals(that.target);
+		} else {
+			return false;
+		}
+	}
+
 }
@@ -20,46 +20,36 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.common.Utils;
 
+/**
+ * Represents a node of an ARG. Nodes are views of the primitive storage of
+ * the ARG at a given index. Indices of pruned nodes are reused, so nodes are
+ * identified by the ARG and their id, which is unique and increases in the
+ * order of creation. Pruned nodes can only be queried with
+ * {@link #isPruned()}.
+ */
 public final class ArgNode<S extends State, A extends Action> {
 
 	private static final int HASH_SEED = 8543;
-	private volatile int hashCode = 0;
 
 	final ARG<S, A> arg;
 
+	final int index;
 	private final int id;
-	private final int depth;
-	private final boolean target;
-
-	private S state;
-
-	Optional<ArgEdge<S, A>> inEdge; // Set by ARG
-	final Collection<ArgEdge<S, A>> outEdges;
 
-	Optional<ArgNode<S, A>> coveringNode; // Set by ARG
-	final Collection<ArgNode<S, A>> coveredNodes;
-
-	boolean expanded; // Set by ArgBuilder
-
-	ArgNode(final ARG<S, A> arg, final S state, final int id, final int depth, final boolean target) {
+	ArgNode(final ARG<S, A> arg, final int index, final int id) {
 		this.arg = arg;
-		this.state = state;
+		this.index = index;
 		this.id = id;
-		this.depth = depth;
-		this.target = target;
-		inEdge = Optional.empty();
-		outEdges = new ArrayList<>();
-		coveringNode = Optional.empty();
-		coveredNodes = new HashSet<>();
-		expanded = false;
 	}
 
 	////
@@ -73,21 +63,26 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * depth(parent) + 1 otherwise.
 	 */
 	public int getDepth() {
-		return depth;
+		return arg.getDepth(index);
 	}
 
 	public S getState() {
-		return state;
+		return arg.getState(index);
 	}
 
 	public void setState(final S state) {
 		checkNotNull(state);
-		this.state = state;
+		arg.setState(index, state);
 	}
 
 	public boolean mayCover(final ArgNode<S, A> node) {
 		if (arg.partialOrd.isLeq(node.getState(), this.getState())) {
-			return ancestors().noneMatch(n -> n.equals(node) || n.isSubsumed());
+			for (int n = index; n != ARG.NONE; n = arg.getParent(n)) {
+				if ((node.arg == arg && n == node.index) || arg.isSubsumed(n)) {
+					return false;
+				}
+			}
+			return true;
 		} else {
 			return false;
 		}
@@ -96,27 +91,23 @@ public final class ArgNode<S extends State, A extends Action> {
 	public void setCoveringNode(final ArgNode<S, A> node) {
 		checkNotNull(node);
 		checkArgument(node.arg == this.arg, "Nodes belong to different ARGs");
-		unsetCoveringNode();
-		coveringNode = Optional.of(node);
-		node.coveredNodes.add(this);
+		arg.setCoveringNode(index, node.index);
 	}
 
 	public void unsetCoveringNode() {
-		if (coveringNode.isPresent()) {
-			coveringNode.get().coveredNodes.remove(this);
-			coveringNode = Optional.empty();
-		}
+		arg.unsetCoveringNode(index);
 	}
 
 	public void clearCoveredNodes() {
-		coveredNodes.forEach(n -> n.coveringNode = Optional.empty());
-		coveredNodes.clear();
+		arg.clearCoveredNodes(index);
 	}
 
 	public void cover(final ArgNode<S, A> node) {
 		checkArgument(!node.isExcluded(), "Node is not excluded");
-		final Collection<ArgNode<S, A>> oldCoveredNodes = new ArrayList<>(coveredNodes);
-		descendants().forEach(ArgNode::clearCoveredNodes);
+		final Collection<ArgNode<S, A>> oldCoveredNodes = getCoveredNodes().collect(ImmutableList.toImmutableList());
+		for (final int n : arg.subtree(index)) {
+			arg.clearCoveredNodes(n);
+		}
 		setCoveringNode(node);
 		oldCoveredNodes.forEach(n -> n.setCoveringNode(node));
 	}
@@ -124,29 +115,41 @@ public final class ArgNode<S extends State, A extends Action> {
 	////
 
 	public Optional<ArgNode<S, A>> getParent() {
-		return inEdge.map(ArgEdge::getSource);
+		final int parent = arg.getParent(index);
+		return parent == ARG.NONE ? Optional.empty() : Optional.of(arg.node(parent));
 	}
 
 	public Optional<ArgEdge<S, A>> getInEdge() {
-		return inEdge;
+		final int parent = arg.getParent(index);
+		return parent == ARG.NONE ? Optional.empty()
+				: Optional.of(new ArgEdge<>(arg.node(parent), arg.getAction(index), this));
 	}
 
 	public Stream<ArgEdge<S, A>> getOutEdges() {
+		final List<ArgEdge<S, A>> outEdges = new ArrayList<>();
+		for (int c = arg.getFirstChild(index); c != ARG.NONE; c = arg.getNextSibling(c)) {
+			outEdges.add(new ArgEdge<>(this, arg.getAction(c), arg.node(c)));
+		}
 		return outEdges.stream();
 	}
 
 	public Optional<ArgNode<S, A>> getCoveringNode() {
-		return coveringNode;
+		final int coveringNode = arg.getCoveringNode(index);
+		return coveringNode == ARG.NONE ? Optional.empty() : Optional.of(arg.node(coveringNode));
 	}
 
 	public Stream<ArgNode<S, A>> getCoveredNodes() {
+		final List<ArgNode<S, A>> coveredNodes = new ArrayList<>();
+		for (int c = arg.getFirstCoveredNode(index); c != ARG.NONE; c = arg.getNextCoveredNode(c)) {
+			coveredNodes.add(arg.node(c));
+		}
 		return coveredNodes.stream();
 	}
 
 	////
 
 	public Stream<ArgNode<S, A>> getSuccNodes() {
-		return getOutEdges().map(ArgEdge::getTarget);
+		return children();
 	}
 
 	public Stream<S> getSuccStates() {
@@ -160,14 +163,14 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * node.
 	 */
 	public boolean isCovered() {
-		return coveringNode.isPresent();
+		return arg.getCoveringNode(index) != ARG.NONE;
 	}
 
 	/**
 	 * Checks if the node is not a bottom state.
 	 */
 	public boolean isFeasible() {
-		return !state.isBottom();
+		return !getState().isBottom();
 	}
 
 	/**
@@ -175,7 +178,7 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * feasible.
 	 */
 	public boolean isSubsumed() {
-		return isCovered() || !isFeasible();
+		return arg.isSubsumed(index);
 	}
 
 	/**
@@ -183,7 +186,7 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * excluded parent.
 	 */
 	public boolean isExcluded() {
-		return ancestors().anyMatch(ArgNode::isSubsumed);
+		return arg.isExcluded(index);
 	}
 
 	/**
@@ -191,21 +194,28 @@ public final class ArgNode<S extends State, A extends Action> {
 	 * is an error state).
 	 */
 	public boolean isTarget() {
-		return target;
+		return arg.isTarget(index);
 	}
 
 	/**
 	 * Checks if the node is expanded, i.e., all of its successors are present.
 	 */
 	public boolean isExpanded() {
-		return expanded;
+		return arg.isExpanded(index);
+	}
+
+	/**
+	 * Checks if the node was removed from the ARG by pruning.
+	 */
+	public boolean isPruned() {
+		return arg.isPruned(index, id);
 	}
 
 	/**
 	 * Checks if the node is leaf, i.e., it has no successors.
 	 */
 	public boolean isLeaf() {
-		return outEdges.isEmpty();
+		return arg.getFirstChild(index) == ARG.NONE;
 	}
 
 	/**
@@ -225,7 +235,11 @@ public final class ArgNode<S extends State, A extends Action> {
 	////
 
 	public Stream<ArgNode<S, A>> properAncestors() {
-		return getParent().map(p -> Stream.concat(Stream.of(p), p.properAncestors())).orElse(Stream.empty());
+		final List<ArgNode<S, A>> ancestors = new ArrayList<>(getDepth());
+		for (int n = arg.getParent(index); n != ARG.NONE; n = arg.getParent(n)) {
+			ancestors.add(arg.node(n));
+		}
+		return ancestors.stream();
 	}
 
 	public Stream<ArgNode<S, A>> ancestors() {
@@ -233,30 +247,26 @@ public final class ArgNode<S extends State, A extends Action> {
 	}
 
 	public Stream<ArgNode<S, A>> children() {
-		return outEdges.stream().map(ArgEdge::getTarget);
+		final List<ArgNode<S, A>> children = new ArrayList<>();
+		for (int c = arg.getFirstChild(index); c != ARG.NONE; c = arg.getNextSibling(c)) {
+			children.add(arg.node(c));
+		}
+		return children.stream();
 	}
 
 	public Stream<ArgNode<S, A>> properDescendants() {
-		return Stream.concat(this.children(), this.children().flatMap(ArgNode::properDescendants));
+		return descendants().skip(1);
 	}
 
 	public Stream<ArgNode<S, A>> descendants() {
-		return Stream.concat(Stream.of(this), this.properDescendants());
+		return arg.descendants(ImmutableList.of(index));
 	}
 
 	public Stream<ArgNode<S, A>> unexcludedDescendants() {
 		if (this.isExcluded()) {
 			return Stream.empty();
 		} else {
-			return unexcludedDescendantsOfNode();
-		}
-	}
-
-	private Stream<ArgNode<S, A>> unexcludedDescendantsOfNode() {
-		if (this.isSubsumed()) {
-			return Stream.empty();
-		} else {
-			return Stream.concat(Stream.of(this), this.children().flatMap(ArgNode::unexcludedDescendantsOfNode));
+			return arg.preorder(ImmutableList.of(index), true);
 		}
 	}
 
@@ -264,23 +274,24 @@ public final class ArgNode<S extends State, A extends Action> {
 
 	@Override
 	public int hashCode() {
-		int result = hashCode;
-		if (result == 0) {
-			result = HASH_SEED;
-			result = 31 * result + id;
-			hashCode = result;
-		}
-		return result;
+		return 31 * HASH_SEED + id;
 	}
 
 	@Override
 	public boolean equals(final Object obj) {
-		return super.equals(obj);
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof ArgNode) {
+			final ArgNode<?, ?> that = (ArgNode<?, ?>) obj;
+			return this.arg == that.arg && this.id == that.id;
+		} else {
+			return false;
+		}
 	}
 
 	@Override
 	public String toString() {
-		return Utils.lispStringBuilder("ArgNode").add(id).body().add(state).toString();
+		return Utils.lispStringBuilder("ArgNode").add(id).body().add(getState()).toString();
 	}
 
 }
@@ -0,0 +1,184 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder.Expansion;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+
+/**
+ * Exploration loop shared by {@link BasicAbstractor} and
+ * {@link ParallelAbstractor}. Nodes are removed from the waitlist in batches
+ * of at most batchSize nodes and closed one by one. The nodes of the batch
+ * that remain open are then expanded together by an {@link Expander}, and
+ * their successors are added to the ARG in the order of the batch. With a
+ * batch size of 1 this is the usual node-by-node exploration. The reached set
+ * and the waitlist are kept between subsequent checks of the same ARG. If the
+ * ARG grows over its size limit, the exploration is aborted with an
+ * {@link ArgSizeLimitExceededException}.
+ */
+final class ArgExplorer<S extends State, A extends Action, P extends Prec> {
+
+	/**
+	 * Computes the expansions of the nodes of a batch, in the order of the
+	 * batch, without modifying the ARG.
+	 */
+	interface Expander<S extends State, A extends Action, P extends Prec> {
+		List<Expansion<S, A>> expand(List<ArgNode<S, A>> batch, P prec);
+	}
+
+	private final ArgBuilder<S, A, P> argBuilder;
+	private final PersistentReachedSet<S, A> reachedSet;
+	private final StopCriterion<S, A> stopCriterion;
+	private final int batchSize;
+	// 0 means unlimited
+	private final int maxArgSize;
+	private final Logger logger;
+
+	ArgExplorer(final ArgBuilder<S, A, P> argBuilder, final Function<? super S, ?> projection,
+				final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex,
+				final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion,
+				final int batchSize, final int maxArgSize, final Logger logger) {
+		checkArgument(batchSize > 0, "Batch size must be positive");
+		checkArgument(maxArgSize >= 0, "ARG size limit must not be negative");
+		this.argBuilder = checkNotNull(argBuilder);
+		this.reachedSet = new PersistentReachedSet<>(projection, reachedSetIndex, checkNotNull(waitlist));
+		this.stopCriterion = checkNotNull(stopCriterion);
+		this.batchSize = batchSize;
+		this.maxArgSize = maxArgSize;
+		this.logger = checkNotNull(logger);
+	}
+
+	/**
+	 * Explores the ARG with the given precision, using the ArgBuilder of this
+	 * explorer for initializing the ARG and for adding the expansions.
+	 */
+	AbstractorResult check(final ARG<S, A> arg, final P prec, final Expander<S, A, P> expander) {
+		checkNotNull(arg);
+		checkNotNull(prec);
+		logger.write(Level.DETAIL, "|  |  Precision: %s%n", prec);
+
+		final boolean reinitialized = !arg.isInitialized();
+		if (reinitialized) {
+			logger.write(Level.SUBSTEP, "|  |  (Re)initializing ARG...");
+			argBuilder.init(arg, prec);
+			logger.write(Level.SUBSTEP, "done%n");
+		}
+
+		assert arg.isInitialized();
+
+		logger.write(Level.INFO, "|  |  Starting ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
+				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
+		logger.write(Level.SUBSTEP, "|  |  Building ARG...");
+
+		reachedSet.update(arg, reinitialized);
+
+		if (!stopCriterion.canStop(arg)) {
+			explore(arg, prec, expander);
+		}
+
+		logger.write(Level.SUBSTEP, "done%n");
+		logger.write(Level.INFO, "|  |  Finished ARG: %d nodes, %d incomplete, %d unsafe%n", arg.size(),
+				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
+
+		if (arg.isSafe()) {
+			checkState(arg.isComplete(), "Returning incomplete ARG as safe");
+			return AbstractorResult.safe();
+		} else {
+			return AbstractorResult.unsafe();
+		}
+	}
+
+	private void explore(final ARG<S, A> arg, final P prec, final Expander<S, A, P> expander) {
+		boolean stop = false;
+		while (!stop) {
+			final List<ArgNode<S, A>> batch = new ArrayList<>();
+			ArgNode<S, A> node;
+			while (!stop && batch.size() < batchSize && (node = reachedSet.poll()) != null) {
+				close(node, reachedSet.getCandidates(node));
+				if (!node.isSubsumed() && !node.isTarget()) {
+					batch.add(node);
+				} else {
+					stop = stopCriterion.canStop(arg, ImmutableList.of());
+				}
+			}
+
+			if (stop) {
+				reachedSet.reopen(batch);
+			}
+			if (stop || batch.isEmpty()) {
+				return;
+			}
+			if (Thread.currentThread().isInterrupted()) {
+				// The nodes are kept so that the reached set stays consistent
+				reachedSet.reopen(batch);
+				throw new CancellationException("ARG exploration cancelled");
+			}
+
+			final List<Expansion<S, A>> expansions = expander.expand(batch, prec);
+			for (int i = 0; i < expansions.size(); i++) {
+				if (stop) {
+					// Remaining nodes of the batch are left unexpanded for the next check
+					reachedSet.reopen(batch.subList(i, batch.size()));
+					return;
+				}
+				final Collection<ArgNode<S, A>> newNodes = argBuilder.applyExpansion(expansions.get(i));
+				reachedSet.addNew(newNodes);
+				if (maxArgSize > 0 && arg.size() > maxArgSize) {
+					reachedSet.reopen(batch.subList(i + 1, batch.size()));
+					throw new ArgSizeLimitExceededException(String.format(
+							"ARG has %d nodes during exploration, limit is %d", arg.size(), maxArgSize));
+				}
+				stop = stopCriterion.canStop(arg, newNodes);
+			}
+		}
+	}
+
+	private void close(final ArgNode<S, A> node, final Collection<ArgNode<S, A>> candidates) {
+		if (!node.isLeaf()) {
+			return;
+		}
+		for (final ArgNode<S, A> candidate : candidates) {
+			if (candidate.mayCover(node)) {
+				node.cover(candidate);
+				return;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+/**
+ * Exception thrown by {@link CegarChecker} if the ARG grows over its limit.
+ */
+public final class ArgSizeLimitExceededException extends RuntimeException {
+	private static final long serialVersionUID = -3195370651622957404L;
+
+	public ArgSizeLimitExceededException(final String message) {
+		super(message);
+	}
+}
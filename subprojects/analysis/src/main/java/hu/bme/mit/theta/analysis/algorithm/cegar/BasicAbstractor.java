@@ -16,11 +16,12 @@
 package hu.bme.mit.theta.analysis.algorithm.cegar;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Preconditions.checkState;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.util.concurrent.CancellationException;
 import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Prec;
@@ -30,32 +31,37 @@ import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
-import hu.bme.mit.theta.analysis.reachedset.Partition;
+import hu.bme.mit.theta.analysis.reachedset.ListReachedSetIndex;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 import hu.bme.mit.theta.analysis.waitlist.FifoWaitlist;
 import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
-import hu.bme.mit.theta.common.logging.Logger.Level;
 
 /**
- * Basic implementation for the abstractor, relying on an ArgBuilder.
+ * Basic implementation for the abstractor, relying on an ArgBuilder. The
+ * reached set and the waitlist are kept between subsequent checks of the same
+ * ARG, so that after a refinement only the pruned parts are explored again.
+ * Interrupting the thread cancels the exploration with a
+ * {@link CancellationException}, and exceeding the ARG size limit aborts it
+ * with an {@link ArgSizeLimitExceededException}.
  */
 public final class BasicAbstractor<S extends State, A extends Action, P extends Prec> implements Abstractor<S, A, P> {
 
 	private final ArgBuilder<S, A, P> argBuilder;
-	private final Function<? super S, ?> projection;
 	private final Waitlist<ArgNode<S, A>> waitlist;
-	private final StopCriterion<S, A> stopCriterion;
-	private final Logger logger;
+	private final ArgExplorer<S, A, P> explorer;
 
 	private BasicAbstractor(final ArgBuilder<S, A, P> argBuilder, final Function<? super S, ?> projection,
-							final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion, final Logger logger) {
+							final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex,
+							final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion,
+							final int maxArgSize, final Logger logger) {
 		this.argBuilder = checkNotNull(argBuilder);
-		this.projection = checkNotNull(projection);
 		this.waitlist = checkNotNull(waitlist);
-		this.stopCriterion = checkNotNull(stopCriterion);
-		this.logger = checkNotNull(logger);
+		// Nodes are expanded one by one
+		this.explorer = new ArgExplorer<>(argBuilder, projection, reachedSetIndex, waitlist, stopCriterion, 1, maxArgSize,
+				logger);
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> Builder<S, A, P> builder(
@@ -70,67 +76,8 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 
 	@Override
 	public AbstractorResult check(final ARG<S, A> arg, final P prec) {
-		checkNotNull(arg);
-		checkNotNull(prec);
-		logger.write(Level.DETAIL, "|  |  Precision: %s%n", prec);
-
-		if (!arg.isInitialized()) {
-			logger.write(Level.SUBSTEP, "|  |  (Re)initializing ARG...");
-			argBuilder.init(arg, prec);
-			logger.write(Level.SUBSTEP, "done%n");
-		}
-
-		assert arg.isInitialized();
-
-		logger.write(Level.INFO, "|  |  Starting ARG: %d nodes, %d incomplete, %d unsafe%n", arg.getNodes().count(),
-				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
-		logger.write(Level.SUBSTEP, "|  |  Building ARG...");
-
-		final Partition<ArgNode<S, A>, ?> reachedSet = Partition.of(n -> projection.apply(n.getState()));
-		waitlist.clear();
-
-		reachedSet.addAll(arg.getNodes());
-		waitlist.addAll(arg.getIncompleteNodes());
-
-		if (!stopCriterion.canStop(arg)) {
-			while (!waitlist.isEmpty()) {
-				final ArgNode<S, A> node = waitlist.remove();
-
-				Collection<ArgNode<S, A>> newNodes = Collections.emptyList();
-				close(node, reachedSet.get(node));
-				if (!node.isSubsumed() && !node.isTarget()) {
-					newNodes = argBuilder.expand(node, prec);
-					reachedSet.addAll(newNodes);
-					waitlist.addAll(newNodes);
-				}
-				if (stopCriterion.canStop(arg, newNodes)) break;
-			}
-		}
-
-		logger.write(Level.SUBSTEP, "done%n");
-		logger.write(Level.INFO, "|  |  Finished ARG: %d nodes, %d incomplete, %d unsafe%n", arg.getNodes().count(),
-				arg.getIncompleteNodes().count(), arg.getUnsafeNodes().count());
-
-		waitlist.clear(); // Optimization
-
-		if (arg.isSafe()) {
-			checkState(arg.isComplete(), "Returning incomplete ARG as safe");
-			return AbstractorResult.safe();
-		} else {
-			return AbstractorResult.unsafe();
-		}
-	}
-
-	private void close(final ArgNode<S, A> node, final Collection<ArgNode<S, A>> candidates) {
-		if (!node.isLeaf()) {
-			return;
-		}
-		for (final ArgNode<S, A> candidate : candidates) {
-			if (candidate.mayCover(node)) {
-				node.cover(candidate);
-				return;
-			}
-		}
+		return explorer.check(arg, prec,
+				(batch, p) -> ImmutableList.of(argBuilder.computeExpansion(batch.get(0), p)));
 	}
 
 	@Override
@@ -141,15 +88,19 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 	public static final class Builder<S extends State, A extends Action, P extends Prec> {
 		private final ArgBuilder<S, A, P> argBuilder;
 		private Function<? super S, ?> projection;
+		private Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex;
 		private Waitlist<ArgNode<S, A>> waitlist;
 		private StopCriterion<S, A> stopCriterion;
+		private int maxArgSize;
 		private Logger logger;
 
 		private Builder(final ArgBuilder<S, A, P> argBuilder) {
 			this.argBuilder = argBuilder;
 			this.projection = s -> 0;
+			this.reachedSetIndex = ListReachedSetIndex::create;
 			this.waitlist = FifoWaitlist.create();
 			this.stopCriterion = StopCriterions.firstCex();
+			this.maxArgSize = 0;
 			this.logger = NullLogger.getInstance();
 		}
 
@@ -158,6 +109,16 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 			return this;
 		}
 
+		/**
+		 * Index used for finding the covering candidates of a node within its
+		 * partition (given by the projection).
+		 */
+		public Builder<S, A, P> reachedSetIndex(
+				final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+			this.reachedSetIndex = reachedSetIndex;
+			return this;
+		}
+
 		public Builder<S, A, P> waitlist(final Waitlist<ArgNode<S, A>> waitlist) {
 			this.waitlist = waitlist;
 			return this;
@@ -168,13 +129,22 @@ public final class BasicAbstractor<S extends State, A extends Action, P extends
 			return this;
 		}
 
+		/**
+		 * Maximal number of nodes in the ARG, 0 means unlimited.
+		 */
+		public Builder<S, A, P> maxArgSize(final int maxArgSize) {
+			this.maxArgSize = maxArgSize;
+			return this;
+		}
+
 		public Builder<S, A, P> logger(final Logger logger) {
 			this.logger = logger;
 			return this;
 		}
 
 		public BasicAbstractor<S, A, P> build() {
-			return new BasicAbstractor<>(argBuilder, projection, waitlist, stopCriterion, logger);
+			return new BasicAbstractor<>(argBuilder, projection, reachedSetIndex, waitlist, stopCriterion, maxArgSize,
+					logger);
 		}
 	}
 
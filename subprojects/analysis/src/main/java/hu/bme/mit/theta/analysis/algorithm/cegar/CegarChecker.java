@@ -15,11 +15,17 @@
  */
 package hu.bme.mit.theta.analysis.algorithm.cegar;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Prec;
@@ -27,6 +33,7 @@ import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
@@ -37,27 +44,65 @@ import hu.bme.mit.theta.common.logging.Logger.Level;
  * that uses an Abstractor to explore the abstract state space and a Refiner to
  * check counterexamples and refine them if needed. It also provides certain
  * statistics about its execution.
+ * <p>
+ * The loop can be cancelled cooperatively by interrupting its thread, in which
+ * case a {@link CancellationException} is thrown. Optionally, the size of the
+ * ARG can be limited, which is checked after each abstraction step and results
+ * in an {@link ArgSizeLimitExceededException}. The limit should also be given
+ * to the abstractor (see {@link BasicAbstractor.Builder#maxArgSize}), which
+ * then aborts the exploration as soon as it is exceeded. The statistics of the
+ * components of the abstractor and the refiner (e.g., the partial order) can
+ * also be included in the statistics of the loop.
  */
 public final class CegarChecker<S extends State, A extends Action, P extends Prec> implements SafetyChecker<S, A, P> {
 
 	private final Abstractor<S, A, P> abstractor;
 	private final Refiner<S, A, P> refiner;
 	private final Logger logger;
+	private final int maxArgSize;
+	private final List<? extends Supplier<? extends Statistics>> componentStatistics;
 
-	private CegarChecker(final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger) {
+	private CegarChecker(final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger,
+						 final int maxArgSize, final List<? extends Supplier<? extends Statistics>> componentStatistics) {
+		checkArgument(maxArgSize >= 0, "ARG size limit must not be negative");
 		this.abstractor = checkNotNull(abstractor);
 		this.refiner = checkNotNull(refiner);
 		this.logger = checkNotNull(logger);
+		this.maxArgSize = maxArgSize;
+		this.componentStatistics = checkNotNull(componentStatistics);
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
 			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner) {
-		return new CegarChecker<>(abstractor, refiner, NullLogger.getInstance());
+		return new CegarChecker<>(abstractor, refiner, NullLogger.getInstance(), 0, ImmutableList.of());
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
 			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger) {
-		return new CegarChecker<>(abstractor, refiner, logger);
+		return new CegarChecker<>(abstractor, refiner, logger, 0, ImmutableList.of());
+	}
+
+	/**
+	 * Create a CEGAR loop that stops if the ARG has more than the given
+	 * number of nodes (0 is unlimited).
+	 */
+	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
+			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger,
+			final int maxArgSize) {
+		return new CegarChecker<>(abstractor, refiner, logger, maxArgSize, ImmutableList.of());
+	}
+
+	/**
+	 * Create a CEGAR loop that stops if the ARG has more than the given
+	 * number of nodes (0 is unlimited) and includes the statistics of the
+	 * given components in its own statistics (see {@link CegarStatistics}).
+	 * The list is not copied, so components created later (e.g., the checkers
+	 * of a parallel refiner) can still add their statistics to it.
+	 */
+	public static <S extends State, A extends Action, P extends Prec> CegarChecker<S, A, P> create(
+			final Abstractor<S, A, P> abstractor, final Refiner<S, A, P> refiner, final Logger logger,
+			final int maxArgSize, final List<? extends Supplier<? extends Statistics>> componentStatistics) {
+		return new CegarChecker<>(abstractor, refiner, logger, maxArgSize, componentStatistics);
 	}
 
 	@Override
@@ -71,17 +116,29 @@ public final class CegarChecker<S extends State, A extends Action, P extends Pre
 		final ARG<S, A> arg = abstractor.createArg();
 		P prec = initPrec;
 		int iteration = 0;
+		final List<Long> reusedNodes = new ArrayList<>();
+		final List<Long> rebuiltNodes = new ArrayList<>();
 		do {
 			++iteration;
+			checkCancelled(iteration);
 
 			logger.write(Level.MAINSTEP, "Iteration %d%n", iteration);
 			logger.write(Level.MAINSTEP, "| Checking abstraction...%n");
 			final long abstractorStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+			final long argSizeBefore = arg.size();
 			abstractorResult = abstractor.check(arg, prec);
 			abstractorTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - abstractorStartTime;
+			reusedNodes.add(argSizeBefore);
+			rebuiltNodes.add(arg.size() - argSizeBefore);
 			logger.write(Level.MAINSTEP, "| Checking abstraction done, result: %s%n", abstractorResult);
 
+			if (maxArgSize > 0 && arg.size() > maxArgSize) {
+				throw new ArgSizeLimitExceededException(String.format(
+						"ARG has %d nodes in iteration %d, limit is %d", arg.size(), iteration, maxArgSize));
+			}
+
 			if (abstractorResult.isUnsafe()) {
+				checkCancelled(iteration);
 				logger.write(Level.MAINSTEP, "| Refining abstraction...%n");
 				final long refinerStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
 				refinerResult = refiner.refine(arg, prec);
@@ -98,7 +155,7 @@ public final class CegarChecker<S extends State, A extends Action, P extends Pre
 		stopwatch.stop();
 		SafetyResult<S, A> cegarResult = null;
 		final CegarStatistics stats = new CegarStatistics(stopwatch.elapsed(TimeUnit.MILLISECONDS), abstractorTime,
-				refinerTime, iteration);
+				refinerTime, iteration, reusedNodes, rebuiltNodes, getComponentStatistics());
 
 		assert abstractorResult.isSafe() || (refinerResult != null && refinerResult.isUnsafe());
 
@@ -114,6 +171,20 @@ public final class CegarChecker<S extends State, A extends Action, P extends Pre
 		return cegarResult;
 	}
 
+	private List<Statistics> getComponentStatistics() {
+		final List<Statistics> statistics = new ArrayList<>();
+		for (final Supplier<? extends Statistics> supplier : componentStatistics) {
+			statistics.add(supplier.get());
+		}
+		return statistics;
+	}
+
+	private static void checkCancelled(final int iteration) {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("CEGAR loop cancelled in iteration " + iteration);
+		}
+	}
+
 	@Override
 	public String toString() {
 		return Utils.lispStringBuilder(getClass().getSimpleName()).add(abstractor).add(refiner).toString();
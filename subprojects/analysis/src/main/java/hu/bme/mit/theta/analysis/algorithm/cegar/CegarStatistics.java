@@ -15,26 +15,78 @@
  */
 package hu.bme.mit.theta.analysis.algorithm.cegar;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.analysis.algorithm.Statistics;
 
 /**
- * Represents statistics collected by the CegarChecker algorithm.
+ * Represents statistics collected by the CegarChecker algorithm. The
+ * statistics of the components (e.g., the partial order or the refiner) are
+ * included after the statistics of the loop with the values they had when the
+ * loop terminated. Numeric values of the same key reported by multiple
+ * components (e.g., the partial orders of multiple abstractor threads) are
+ * summed.
  */
 public final class CegarStatistics extends Statistics {
 	private final long algorithmTimeMs;
 	private final long abstractorTimeMs;
 	private final long refinerTimeMs;
 	private final int iterations;
+	private final List<Long> reusedNodes;
+	private final List<Long> rebuiltNodes;
 
 	public CegarStatistics(final long algorithmTimeMs, final long abstractorTimeMs, final long refinerTimeMs,
 						   final int iterations) {
+		this(algorithmTimeMs, abstractorTimeMs, refinerTimeMs, iterations, ImmutableList.of(), ImmutableList.of());
+	}
+
+	public CegarStatistics(final long algorithmTimeMs, final long abstractorTimeMs, final long refinerTimeMs,
+						   final int iterations, final List<Long> reusedNodes, final List<Long> rebuiltNodes) {
+		this(algorithmTimeMs, abstractorTimeMs, refinerTimeMs, iterations, reusedNodes, rebuiltNodes,
+				ImmutableList.of());
+	}
+
+	public CegarStatistics(final long algorithmTimeMs, final long abstractorTimeMs, final long refinerTimeMs,
+						   final int iterations, final List<Long> reusedNodes, final List<Long> rebuiltNodes,
+						   final List<? extends Statistics> componentStatistics) {
 		this.algorithmTimeMs = algorithmTimeMs;
 		this.abstractorTimeMs = abstractorTimeMs;
 		this.refinerTimeMs = refinerTimeMs;
 		this.iterations = iterations;
+		this.reusedNodes = ImmutableList.copyOf(reusedNodes);
+		this.rebuiltNodes = ImmutableList.copyOf(rebuiltNodes);
 
 		addStat("AlgorithmTimeMs", this::getAlgorithmTimeMs);
 		addStat("Iterations", this::getIterations);
+		addStat("ReusedNodes", this::getReusedNodes);
+		addStat("RebuiltNodes", this::getRebuiltNodes);
+
+		final Map<String, Object> componentValues = new LinkedHashMap<>();
+		for (final Statistics statistics : componentStatistics) {
+			for (final String key : statistics.keySet()) {
+				final Object value = statistics.get(key);
+				componentValues.merge(key, value, CegarStatistics::sum);
+			}
+		}
+		componentValues.forEach((key, value) -> addStat(key, () -> value));
+	}
+
+	private static Object sum(final Object value1, final Object value2) {
+		if (isIntegral(value1) && isIntegral(value2)) {
+			return ((Number) value1).longValue() + ((Number) value2).longValue();
+		} else if (value1 instanceof Number && value2 instanceof Number) {
+			return ((Number) value1).doubleValue() + ((Number) value2).doubleValue();
+		} else {
+			return value2;
+		}
+	}
+
+	private static boolean isIntegral(final Object value) {
+		return value instanceof Long || value instanceof Integer;
 	}
 
 	public long getAlgorithmTimeMs() {
@@ -53,4 +105,20 @@ public final class CegarStatistics extends Statistics {
 		return iterations;
 	}
 
+	/**
+	 * Gets the number of ARG nodes kept from the previous iterations at the
+	 * beginning of each iteration.
+	 */
+	public List<Long> getReusedNodes() {
+		return reusedNodes;
+	}
+
+	/**
+	 * Gets the number of ARG nodes created by the abstractor in each
+	 * iteration.
+	 */
+	public List<Long> getRebuiltNodes() {
+		return rebuiltNodes;
+	}
+
 }
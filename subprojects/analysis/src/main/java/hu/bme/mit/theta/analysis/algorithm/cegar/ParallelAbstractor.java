@@ -0,0 +1,237 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.Prec;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder.Expansion;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
+import hu.bme.mit.theta.analysis.reachedset.ListReachedSetIndex;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
+import hu.bme.mit.theta.analysis.waitlist.FifoWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * Abstractor that expands the nodes of the frontier on multiple threads. Each
+ * thread has its own ArgBuilder (and thus its own analysis and solver). Nodes
+ * are removed from the waitlist in batches and closed sequentially, then their
+ * successors are computed in parallel, and finally the successors are added
+ * to the ARG sequentially in the order of the batch. Therefore the ARG is only
+ * modified by a single thread and the result does not depend on scheduling.
+ * The first ArgBuilder is also used for initializing the ARG. Similarly to
+ * {@link BasicAbstractor}, the reached set and the waitlist are kept between
+ * subsequent checks of the same ARG. Interrupting the calling thread cancels
+ * the exploration with a {@link CancellationException}, and exceeding the ARG
+ * size limit aborts it with an {@link ArgSizeLimitExceededException}.
+ * <p>
+ * Since every node of a batch is closed before any of them is expanded, a
+ * node cannot be covered by the successors of an earlier node of the same
+ * batch. Therefore, with a batch size greater than 1 (even on a single
+ * thread), coverage and the shape of the ARG may differ from that of
+ * {@link BasicAbstractor}. With a batch size of 1 the ARG is the same.
+ */
+public final class ParallelAbstractor<S extends State, A extends Action, P extends Prec> implements Abstractor<S, A, P> {
+
+	private final List<ArgBuilder<S, A, P>> argBuilders;
+	private final Waitlist<ArgNode<S, A>> waitlist;
+	private final ArgExplorer<S, A, P> explorer;
+
+	private ParallelAbstractor(final List<ArgBuilder<S, A, P>> argBuilders, final Function<? super S, ?> projection,
+							   final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex,
+							   final Waitlist<ArgNode<S, A>> waitlist, final StopCriterion<S, A> stopCriterion,
+							   final int batchSize, final int maxArgSize, final Logger logger) {
+		checkArgument(!argBuilders.isEmpty(), "At least one ArgBuilder is required");
+		this.argBuilders = ImmutableList.copyOf(argBuilders);
+		this.waitlist = checkNotNull(waitlist);
+		this.explorer = new ArgExplorer<>(this.argBuilders.get(0), projection, reachedSetIndex, waitlist,
+				stopCriterion, batchSize, maxArgSize, logger);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> Builder<S, A, P> builder(
+			final List<ArgBuilder<S, A, P>> argBuilders) {
+		return new Builder<>(argBuilders);
+	}
+
+	@Override
+	public ARG<S, A> createArg() {
+		return argBuilders.get(0).createArg();
+	}
+
+	@Override
+	public AbstractorResult check(final ARG<S, A> arg, final P prec) {
+		final ExecutorService executor = Executors.newFixedThreadPool(argBuilders.size());
+		try {
+			return explorer.check(arg, prec, (batch, p) -> computeExpansions(executor, batch, p));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Expansion<S, A>> computeExpansions(final ExecutorService executor, final List<ArgNode<S, A>> batch,
+													final P prec) {
+		final int nThreads = Math.min(argBuilders.size(), batch.size());
+		final List<Future<List<Expansion<S, A>>>> futures = new ArrayList<>(nThreads);
+		// Thread i expands nodes i, i + nThreads, i + 2 * nThreads, ... of the batch
+		for (int i = 0; i < nThreads; i++) {
+			final ArgBuilder<S, A, P> argBuilder = argBuilders.get(i);
+			final int first = i;
+			final Callable<List<Expansion<S, A>>> task = () -> {
+				final List<Expansion<S, A>> expansions = new ArrayList<>();
+				for (int j = first; j < batch.size(); j += nThreads) {
+					expansions.add(argBuilder.computeExpansion(batch.get(j), prec));
+				}
+				return expansions;
+			};
+			futures.add(executor.submit(task));
+		}
+
+		final List<List<Expansion<S, A>>> results = new ArrayList<>(nThreads);
+		for (final Future<List<Expansion<S, A>>> future : futures) {
+			results.add(getResult(future));
+		}
+
+		// Restore the order of the batch
+		final List<Expansion<S, A>> expansions = new ArrayList<>(batch.size());
+		for (int j = 0; j < batch.size(); j++) {
+			expansions.add(results.get(j % nThreads).get(j / nThreads));
+		}
+		return expansions;
+	}
+
+	private static <T> T getResult(final Future<T> future) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			final CancellationException cancelled = new CancellationException("ARG exploration cancelled");
+			cancelled.initCause(e);
+			throw cancelled;
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(waitlist).add(argBuilders.size()).toString();
+	}
+
+	public static final class Builder<S extends State, A extends Action, P extends Prec> {
+		private final List<ArgBuilder<S, A, P>> argBuilders;
+		private Function<? super S, ?> projection;
+		private Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex;
+		private Waitlist<ArgNode<S, A>> waitlist;
+		private StopCriterion<S, A> stopCriterion;
+		private int batchSize;
+		private int maxArgSize;
+		private Logger logger;
+
+		private Builder(final List<ArgBuilder<S, A, P>> argBuilders) {
+			this.argBuilders = argBuilders;
+			this.projection = s -> 0;
+			this.reachedSetIndex = ListReachedSetIndex::create;
+			this.waitlist = FifoWaitlist.create();
+			this.stopCriterion = StopCriterions.firstCex();
+			this.batchSize = argBuilders.size();
+			this.maxArgSize = 0;
+			this.logger = NullLogger.getInstance();
+		}
+
+		public Builder<S, A, P> projection(final Function<? super S, ?> projection) {
+			this.projection = projection;
+			return this;
+		}
+
+		/**
+		 * Index used for finding the covering candidates of a node within its
+		 * partition (given by the projection).
+		 */
+		public Builder<S, A, P> reachedSetIndex(
+				final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+			this.reachedSetIndex = reachedSetIndex;
+			return this;
+		}
+
+		public Builder<S, A, P> waitlist(final Waitlist<ArgNode<S, A>> waitlist) {
+			this.waitlist = waitlist;
+			return this;
+		}
+
+		public Builder<S, A, P> stopCriterion(final StopCriterion<S, A> stopCriterion) {
+			this.stopCriterion = stopCriterion;
+			return this;
+		}
+
+		/**
+		 * Maximal number of nodes removed from the waitlist and expanded
+		 * together. Defaults to the number of threads.
+		 */
+		public Builder<S, A, P> batchSize(final int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * Maximal number of nodes in the ARG, 0 means unlimited.
+		 */
+		public Builder<S, A, P> maxArgSize(final int maxArgSize) {
+			this.maxArgSize = maxArgSize;
+			return this;
+		}
+
+		public Builder<S, A, P> logger(final Logger logger) {
+			this.logger = logger;
+			return this;
+		}
+
+		public ParallelAbstractor<S, A, P> build() {
+			return new ParallelAbstractor<>(argBuilders, projection, reachedSetIndex, waitlist, stopCriterion, batchSize,
+					maxArgSize, logger);
+		}
+	}
+
+}
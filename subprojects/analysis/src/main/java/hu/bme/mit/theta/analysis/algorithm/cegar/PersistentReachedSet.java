@@ -0,0 +1,120 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import hu.bme.mit.theta.analysis.Action;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.reachedset.Partition;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
+
+/**
+ * Reached set and waitlist of an abstractor that are kept between subsequent
+ * checks of the same ARG. After a refinement only the nodes reopened by
+ * pruning are added to the waitlist, instead of traversing the whole ARG.
+ * Pruned nodes are not removed eagerly from the reached set: they are filtered
+ * from the candidates and the reached set is rebuilt when they dominate it.
+ */
+final class PersistentReachedSet<S extends State, A extends Action> {
+
+	private final Function<? super S, ?> projection;
+	private final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex;
+	private final Waitlist<ArgNode<S, A>> waitlist;
+
+	private ARG<S, A> arg;
+	private Partition<ArgNode<S, A>, ?> reachedSet;
+	private long reachedSetSize;
+
+	PersistentReachedSet(final Function<? super S, ?> projection,
+						 final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex,
+						 final Waitlist<ArgNode<S, A>> waitlist) {
+		this.projection = checkNotNull(projection);
+		this.reachedSetIndex = checkNotNull(reachedSetIndex);
+		this.waitlist = checkNotNull(waitlist);
+		this.arg = null;
+		this.reachedSet = null;
+		this.reachedSetSize = 0;
+	}
+
+	/**
+	 * Prepares the reached set and the waitlist for exploring an initialized
+	 * ARG. Everything is rebuilt if the ARG is checked for the first time, if
+	 * it was (re)initialized or if it contains too many pruned nodes,
+	 * otherwise only the reopened nodes are added to the waitlist.
+	 */
+	void update(final ARG<S, A> arg, final boolean reinitialized) {
+		checkNotNull(arg);
+		final Collection<ArgNode<S, A>> reopenedNodes = arg.takeReopenedNodes();
+		if (arg != this.arg || reinitialized || reachedSetSize > 2 * arg.size()) {
+			this.arg = arg;
+			reachedSet = Partition.of(n -> projection.apply(n.getState()), reachedSetIndex);
+			reachedSetSize = 0;
+			waitlist.clear();
+			addAll(arg.getNodes().collect(toList()));
+			waitlist.addAll(arg.getIncompleteNodes());
+		} else {
+			waitlist.addAll(reopenedNodes);
+		}
+	}
+
+	/**
+	 * Gets the next node to be explored, or null if there is none. Nodes that
+	 * were pruned or expanded since they were added are skipped.
+	 */
+	ArgNode<S, A> poll() {
+		while (!waitlist.isEmpty()) {
+			final ArgNode<S, A> node = waitlist.remove();
+			if (!node.isPruned() && !node.isExpanded()) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	void addAll(final Collection<ArgNode<S, A>> nodes) {
+		reachedSet.addAll(nodes);
+		reachedSetSize += nodes.size();
+	}
+
+	/**
+	 * Adds new nodes both to the reached set and the waitlist.
+	 */
+	void addNew(final Collection<ArgNode<S, A>> nodes) {
+		addAll(nodes);
+		waitlist.addAll(nodes);
+	}
+
+	/**
+	 * Puts back nodes to the waitlist that were removed but not expanded.
+	 */
+	void reopen(final Collection<ArgNode<S, A>> nodes) {
+		waitlist.addAll(nodes);
+	}
+
+	Collection<ArgNode<S, A>> getCandidates(final ArgNode<S, A> node) {
+		return reachedSet.get(node).stream().filter(n -> !n.isPruned()).collect(toList());
+	}
+
+}
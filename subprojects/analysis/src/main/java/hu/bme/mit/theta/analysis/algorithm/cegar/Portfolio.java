@@ -0,0 +1,244 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+
+/**
+ * Runs several safety checkers (typically differently configured CEGAR loops)
+ * on separate threads and returns the result of the first one that finishes.
+ * The other members are then cancelled by interrupting their threads, which
+ * {@link CegarChecker} and the abstractors check cooperatively. Each member
+ * should create its own solvers, preferably inside its supplier, so that
+ * members do not share any state.
+ * <p>
+ * Each member can have a time budget, after which it is cancelled. Memory
+ * cannot be attributed to threads of a single JVM, so the memory budget of a
+ * member is the size limit of its ARG (see
+ * {@link CegarChecker#create(Abstractor, Refiner, Logger, int)}), which is
+ * enforced by the member itself. A member that exceeds this limit or runs out
+ * of memory is dropped and the others continue.
+ * <p>
+ * Member threads are daemon threads, so that a member that does not react to
+ * cancellation (e.g., because it is blocked in a solver call) does not keep the
+ * JVM alive.
+ */
+public final class Portfolio {
+
+	/**
+	 * Outcome of a member of the portfolio.
+	 */
+	public enum Outcome {
+		WON, CANCELLED, TIMEOUT, OUT_OF_MEMORY, FAILED
+	}
+
+	private final List<Member> members;
+	private final Logger logger;
+	private PortfolioStatistics stats;
+
+	private Portfolio(final List<Member> members, final Logger logger) {
+		checkArgument(!members.isEmpty(), "At least one member is required");
+		this.members = ImmutableList.copyOf(members);
+		this.logger = checkNotNull(logger);
+		this.stats = null;
+	}
+
+	public static Portfolio create(final List<Member> members) {
+		return new Portfolio(members, NullLogger.getInstance());
+	}
+
+	public static Portfolio create(final List<Member> members, final Logger logger) {
+		return new Portfolio(members, logger);
+	}
+
+	/**
+	 * Run the members and return the result of the first one that finishes.
+	 * Throws an exception if none of the members finish within their budget.
+	 */
+	public SafetyResult<?, ?> check() {
+		final int n = members.size();
+		final ExecutorService executor = Executors.newFixedThreadPool(n,
+				new ThreadFactoryBuilder().setDaemon(true).setNameFormat("portfolio-%d").build());
+		final CompletionService<SafetyResult<?, ?>> completionService = new ExecutorCompletionService<>(executor);
+		final List<Future<SafetyResult<?, ?>>> futures = new ArrayList<>(n);
+		final Outcome[] outcomes = new Outcome[n];
+		final long[] timesMs = new long[n];
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		SafetyResult<?, ?> result = null;
+		int winner = -1;
+
+		try {
+			for (final Member member : members) {
+				futures.add(completionService.submit(member.checker::get));
+			}
+			logger.write(Level.MAINSTEP, "Portfolio started with %d members%n", n);
+
+			int running = n;
+			while (running > 0 && result == null) {
+				final long now = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+				long nextDeadline = Long.MAX_VALUE;
+				for (int i = 0; i < n; i++) {
+					final long timeoutMs = members.get(i).timeoutMs;
+					if (outcomes[i] != null || timeoutMs == 0) {
+						continue;
+					}
+					if (now >= timeoutMs) {
+						futures.get(i).cancel(true);
+						finish(i, Outcome.TIMEOUT, now, outcomes, timesMs);
+						running--;
+					} else {
+						nextDeadline = Math.min(nextDeadline, timeoutMs);
+					}
+				}
+				if (running == 0) {
+					break;
+				}
+
+				final Future<SafetyResult<?, ?>> done = nextDeadline == Long.MAX_VALUE ? completionService.take()
+						: completionService.poll(nextDeadline - now, TimeUnit.MILLISECONDS);
+				if (done == null) {
+					continue;
+				}
+				final int i = futures.indexOf(done);
+				if (outcomes[i] != null) {
+					// Already cancelled because of its time budget
+					continue;
+				}
+				running--;
+				try {
+					result = done.get();
+					winner = i;
+					finish(i, Outcome.WON, stopwatch.elapsed(TimeUnit.MILLISECONDS), outcomes, timesMs);
+				} catch (final ExecutionException e) {
+					final Throwable cause = e.getCause();
+					finish(i, outcomeOf(cause), stopwatch.elapsed(TimeUnit.MILLISECONDS), outcomes, timesMs);
+					logger.write(Level.INFO, "|  %s: %s%n", cause.getClass().getSimpleName(), cause.getMessage());
+				}
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			final CancellationException cancelled = new CancellationException("Portfolio cancelled");
+			cancelled.initCause(e);
+			throw cancelled;
+		} finally {
+			// Interrupts the losers, which stop at their next cancellation check
+			executor.shutdownNow();
+			for (int i = 0; i < n; i++) {
+				if (outcomes[i] == null) {
+					finish(i, Outcome.CANCELLED, stopwatch.elapsed(TimeUnit.MILLISECONDS), outcomes, timesMs);
+				}
+			}
+			stopwatch.stop();
+			stats = new PortfolioStatistics(winner == -1 ? "" : members.get(winner).name,
+					stopwatch.elapsed(TimeUnit.MILLISECONDS), members.stream().map(m -> m.name).collect(toList()), Arrays.asList(outcomes), timesMs);
+		}
+
+		if (result == null) {
+			throw new IllegalStateException("No member of the portfolio finished within its budget");
+		}
+		logger.write(Level.RESULT, "%s%n", result);
+		logger.write(Level.INFO, "%s%n", stats);
+		return result;
+	}
+
+	private void finish(final int i, final Outcome outcome, final long timeMs, final Outcome[] outcomes,
+						final long[] timesMs) {
+		outcomes[i] = outcome;
+		timesMs[i] = timeMs;
+		logger.write(Level.SUBSTEP, "| Member %s: %s after %d ms%n", members.get(i).name, outcome, timeMs);
+	}
+
+	private static Outcome outcomeOf(final Throwable cause) {
+		if (cause instanceof ArgSizeLimitExceededException || cause instanceof OutOfMemoryError) {
+			return Outcome.OUT_OF_MEMORY;
+		} else {
+			return Outcome.FAILED;
+		}
+	}
+
+	/**
+	 * Gets the statistics of the last check, or null if there was no check.
+	 */
+	public PortfolioStatistics getStatistics() {
+		return stats;
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(members.stream().map(m -> m.name))
+				.toString();
+	}
+
+	public static final class Member {
+		private final String name;
+		private final Supplier<? extends SafetyResult<?, ?>> checker;
+		private final long timeoutMs;
+
+		private Member(final String name, final Supplier<? extends SafetyResult<?, ?>> checker,
+					   final long timeoutMs) {
+			checkArgument(timeoutMs >= 0, "Timeout must not be negative");
+			this.name = checkNotNull(name);
+			this.checker = checkNotNull(checker);
+			this.timeoutMs = timeoutMs;
+		}
+
+		/**
+		 * Create a member from a supplier that builds and runs a checker.
+		 *
+		 * @param name      Name of the member (e.g., its configuration)
+		 * @param checker   Supplier of the result
+		 * @param timeoutMs Time budget in milliseconds (0 is unlimited)
+		 */
+		public static Member of(final String name, final Supplier<? extends SafetyResult<?, ?>> checker,
+								final long timeoutMs) {
+			return new Member(name, checker, timeoutMs);
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public long getTimeoutMs() {
+			return timeoutMs;
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Longs;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Portfolio.Outcome;
+
+/**
+ * Statistics of a {@link Portfolio}: the winner, the total time and the
+ * outcome and time of each member.
+ */
+public final class PortfolioStatistics extends Statistics {
+	private final String winner;
+	private final long timeMs;
+	private final List<String> members;
+	private final List<Outcome> outcomes;
+	private final List<Long> timesMs;
+
+	PortfolioStatistics(final String winner, final long timeMs, final List<String> members,
+						final List<Outcome> outcomes, final long[] timesMs) {
+		checkArgument(members.size() == outcomes.size() && members.size() == timesMs.length);
+		this.winner = winner;
+		this.timeMs = timeMs;
+		this.members = ImmutableList.copyOf(members);
+		this.outcomes = ImmutableList.copyOf(outcomes);
+		this.timesMs = ImmutableList.copyOf(Longs.asList(timesMs));
+
+		addStat("Winner", this::getWinner);
+		addStat("TimeMs", this::getTimeMs);
+		for (int i = 0; i < members.size(); i++) {
+			final int index = i;
+			addStat(members.get(i), () -> this.outcomes.get(index) + " (" + this.timesMs.get(index) + " ms)");
+		}
+	}
+
+	/**
+	 * Gets the name of the winner, or an empty string if no member finished.
+	 */
+	public String getWinner() {
+		return winner;
+	}
+
+	public long getTimeMs() {
+		return timeMs;
+	}
+
+	public List<String> getMembers() {
+		return members;
+	}
+
+	public List<Outcome> getOutcomes() {
+		return outcomes;
+	}
+
+	public List<Long> getTimesMs() {
+		return timesMs;
+	}
+
+}
@@ -0,0 +1,529 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.anytype.IteExpr;
+import hu.bme.mit.theta.core.type.anytype.RefExpr;
+import hu.bme.mit.theta.core.type.booltype.AndExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
+import hu.bme.mit.theta.core.type.booltype.IffExpr;
+import hu.bme.mit.theta.core.type.booltype.ImplyExpr;
+import hu.bme.mit.theta.core.type.booltype.NotExpr;
+import hu.bme.mit.theta.core.type.booltype.OrExpr;
+import hu.bme.mit.theta.core.type.booltype.XorExpr;
+import hu.bme.mit.theta.core.type.inttype.IntAddExpr;
+import hu.bme.mit.theta.core.type.inttype.IntDivExpr;
+import hu.bme.mit.theta.core.type.inttype.IntEqExpr;
+import hu.bme.mit.theta.core.type.inttype.IntGeqExpr;
+import hu.bme.mit.theta.core.type.inttype.IntGtExpr;
+import hu.bme.mit.theta.core.type.inttype.IntLeqExpr;
+import hu.bme.mit.theta.core.type.inttype.IntLitExpr;
+import hu.bme.mit.theta.core.type.inttype.IntLtExpr;
+import hu.bme.mit.theta.core.type.inttype.IntModExpr;
+import hu.bme.mit.theta.core.type.inttype.IntMulExpr;
+import hu.bme.mit.theta.core.type.inttype.IntNegExpr;
+import hu.bme.mit.theta.core.type.inttype.IntNeqExpr;
+import hu.bme.mit.theta.core.type.inttype.IntPosExpr;
+import hu.bme.mit.theta.core.type.inttype.IntSubExpr;
+
+/**
+ * Pre-resolved evaluator for an expression over the variables of a
+ * {@link CompiledStmts} frame. Variables are read from slots of the frame,
+ * operators are resolved once at compile time and constant subexpressions are
+ * folded.
+ * <p>
+ * Evaluation returns a literal only if {@link hu.bme.mit.theta.core.utils.ExprUtils#simplify}
+ * would simplify the expression to the same literal under the same values,
+ * and null otherwise. A null result does not mean that the expression cannot
+ * be simplified to a literal (e.g., x - x), only that the caller has to fall
+ * back to the simplifier.
+ */
+abstract class CompiledExpr {
+
+	private static final CompiledExpr UNKNOWN = new Unknown();
+
+	private CompiledExpr() {
+	}
+
+	abstract LitExpr<?> eval(LitExpr<?>[] frame);
+
+	boolean isConstant() {
+		return false;
+	}
+
+	static CompiledExpr compile(final Expr<?> expr, final ToIntFunction<Decl<?>> slotOf) {
+		final CompiledExpr compiled = compileNonFolded(expr, slotOf);
+		if (compiled.isConstant()) {
+			return compiled;
+		}
+		if (compiled.isFoldable()) {
+			try {
+				final LitExpr<?> value = compiled.eval(null);
+				if (value != null) {
+					return new Const(value);
+				}
+			} catch (final ArithmeticException e) {
+				// Division by zero is reported when (and if) the expression is evaluated
+			}
+		}
+		return compiled;
+	}
+
+	private static CompiledExpr compileNonFolded(final Expr<?> expr, final ToIntFunction<Decl<?>> slotOf) {
+		if (expr instanceof LitExpr) {
+			return new Const((LitExpr<?>) expr);
+		} else if (expr instanceof RefExpr) {
+			return new Load(slotOf.applyAsInt(((RefExpr<?>) expr).getDecl()));
+		} else if (expr instanceof NotExpr) {
+			return new Not(compile(((NotExpr) expr).getOp(), slotOf));
+		} else if (expr instanceof AndExpr) {
+			return new And(compileAll(((AndExpr) expr).getOps(), slotOf));
+		} else if (expr instanceof OrExpr) {
+			return new Or(compileAll(((OrExpr) expr).getOps(), slotOf));
+		} else if (expr instanceof ImplyExpr) {
+			final ImplyExpr imply = (ImplyExpr) expr;
+			return new Imply(compile(imply.getLeftOp(), slotOf), compile(imply.getRightOp(), slotOf));
+		} else if (expr instanceof IffExpr) {
+			final IffExpr iff = (IffExpr) expr;
+			return new BinaryBool(compile(iff.getLeftOp(), slotOf), compile(iff.getRightOp(), slotOf), false);
+		} else if (expr instanceof XorExpr) {
+			final XorExpr xor = (XorExpr) expr;
+			return new BinaryBool(compile(xor.getLeftOp(), slotOf), compile(xor.getRightOp(), slotOf), true);
+		} else if (expr instanceof IteExpr) {
+			final IteExpr<?> ite = (IteExpr<?>) expr;
+			return new Ite(compile(ite.getCond(), slotOf), compile(ite.getThen(), slotOf),
+					compile(ite.getElse(), slotOf));
+		} else if (expr instanceof IntAddExpr) {
+			return new IntAdd(compileAll(((IntAddExpr) expr).getOps(), slotOf));
+		} else if (expr instanceof IntMulExpr) {
+			return new IntMul(compileAll(((IntMulExpr) expr).getOps(), slotOf));
+		} else if (expr instanceof IntPosExpr) {
+			return compile(((IntPosExpr) expr).getOp(), slotOf);
+		} else if (expr instanceof IntNegExpr) {
+			return new IntNeg(compile(((IntNegExpr) expr).getOp(), slotOf));
+		} else if (expr instanceof IntSubExpr) {
+			final IntSubExpr sub = (IntSubExpr) expr;
+			return new IntBinary(IntOp.SUB, compile(sub.getLeftOp(), slotOf), compile(sub.getRightOp(), slotOf));
+		} else if (expr instanceof IntDivExpr) {
+			final IntDivExpr div = (IntDivExpr) expr;
+			return new IntBinary(IntOp.DIV, compile(div.getLeftOp(), slotOf), compile(div.getRightOp(), slotOf));
+		} else if (expr instanceof IntModExpr) {
+			final IntModExpr mod = (IntModExpr) expr;
+			return new IntBinary(IntOp.MOD, compile(mod.getLeftOp(), slotOf), compile(mod.getRightOp(), slotOf));
+		} else if (expr instanceof IntEqExpr) {
+			final IntEqExpr eq = (IntEqExpr) expr;
+			return new IntBinary(IntOp.EQ, compile(eq.getLeftOp(), slotOf), compile(eq.getRightOp(), slotOf));
+		} else if (expr instanceof IntNeqExpr) {
+			final IntNeqExpr neq = (IntNeqExpr) expr;
+			return new IntBinary(IntOp.NEQ, compile(neq.getLeftOp(), slotOf), compile(neq.getRightOp(), slotOf));
+		} else if (expr instanceof IntLtExpr) {
+			final IntLtExpr lt = (IntLtExpr) expr;
+			return new IntBinary(IntOp.LT, compile(lt.getLeftOp(), slotOf), compile(lt.getRightOp(), slotOf));
+		} else if (expr instanceof IntLeqExpr) {
+			final IntLeqExpr leq = (IntLeqExpr) expr;
+			return new IntBinary(IntOp.LEQ, compile(leq.getLeftOp(), slotOf), compile(leq.getRightOp(), slotOf));
+		} else if (expr instanceof IntGtExpr) {
+			final IntGtExpr gt = (IntGtExpr) expr;
+			return new IntBinary(IntOp.GT, compile(gt.getLeftOp(), slotOf), compile(gt.getRightOp(), slotOf));
+		} else if (expr instanceof IntGeqExpr) {
+			final IntGeqExpr geq = (IntGeqExpr) expr;
+			return new IntBinary(IntOp.GEQ, compile(geq.getLeftOp(), slotOf), compile(geq.getRightOp(), slotOf));
+		} else {
+			// Everything else is left to the simplifier
+			return UNKNOWN;
+		}
+	}
+
+	private static CompiledExpr[] compileAll(final List<? extends Expr<?>> ops,
+											 final ToIntFunction<Decl<?>> slotOf) {
+		final CompiledExpr[] result = new CompiledExpr[ops.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = compile(ops.get(i), slotOf);
+		}
+		return result;
+	}
+
+	private boolean isFoldable() {
+		for (final CompiledExpr op : getOps()) {
+			if (!op.isConstant()) {
+				return false;
+			}
+		}
+		return !(this instanceof Load) && !(this instanceof Unknown);
+	}
+
+	CompiledExpr[] getOps() {
+		return new CompiledExpr[0];
+	}
+
+	////
+
+	private static final class Unknown extends CompiledExpr {
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			return null;
+		}
+	}
+
+	private static final class Const extends CompiledExpr {
+		private final LitExpr<?> value;
+
+		private Const(final LitExpr<?> value) {
+			this.value = value;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			return value;
+		}
+
+		@Override
+		boolean isConstant() {
+			return true;
+		}
+	}
+
+	private static final class Load extends CompiledExpr {
+		private final int slot;
+
+		private Load(final int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			return frame[slot];
+		}
+	}
+
+	private static final class Not extends CompiledExpr {
+		private final CompiledExpr op;
+
+		private Not(final CompiledExpr op) {
+			this.op = op;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> value = op.eval(frame);
+			if (value == null) {
+				return null;
+			}
+			return Bool(!((BoolLitExpr) value).getValue());
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{op};
+		}
+	}
+
+	private static final class And extends CompiledExpr {
+		private final CompiledExpr[] ops;
+
+		private And(final CompiledExpr[] ops) {
+			this.ops = ops;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			boolean unknown = false;
+			for (final CompiledExpr op : ops) {
+				final LitExpr<?> value = op.eval(frame);
+				if (value == null) {
+					unknown = true;
+				} else if (!((BoolLitExpr) value).getValue()) {
+					return False();
+				}
+			}
+			return unknown ? null : True();
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return ops;
+		}
+	}
+
+	private static final class Or extends CompiledExpr {
+		private final CompiledExpr[] ops;
+
+		private Or(final CompiledExpr[] ops) {
+			this.ops = ops;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			// The simplifier treats an empty disjunction as true
+			if (ops.length == 0) {
+				return True();
+			}
+			boolean unknown = false;
+			for (final CompiledExpr op : ops) {
+				final LitExpr<?> value = op.eval(frame);
+				if (value == null) {
+					unknown = true;
+				} else if (((BoolLitExpr) value).getValue()) {
+					return True();
+				}
+			}
+			return unknown ? null : False();
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return ops;
+		}
+	}
+
+	private static final class Imply extends CompiledExpr {
+		private final CompiledExpr leftOp;
+		private final CompiledExpr rightOp;
+
+		private Imply(final CompiledExpr leftOp, final CompiledExpr rightOp) {
+			this.leftOp = leftOp;
+			this.rightOp = rightOp;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> left = leftOp.eval(frame);
+			if (left != null && !((BoolLitExpr) left).getValue()) {
+				return True();
+			}
+			final LitExpr<?> right = rightOp.eval(frame);
+			if (right != null && ((BoolLitExpr) right).getValue()) {
+				return True();
+			}
+			if (left == null || right == null) {
+				return null;
+			}
+			return False();
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{leftOp, rightOp};
+		}
+	}
+
+	private static final class BinaryBool extends CompiledExpr {
+		private final CompiledExpr leftOp;
+		private final CompiledExpr rightOp;
+		private final boolean xor;
+
+		private BinaryBool(final CompiledExpr leftOp, final CompiledExpr rightOp, final boolean xor) {
+			this.leftOp = leftOp;
+			this.rightOp = rightOp;
+			this.xor = xor;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> left = leftOp.eval(frame);
+			if (left == null) {
+				return null;
+			}
+			final LitExpr<?> right = rightOp.eval(frame);
+			if (right == null) {
+				return null;
+			}
+			final boolean equal = ((BoolLitExpr) left).getValue() == ((BoolLitExpr) right).getValue();
+			return Bool(equal != xor);
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{leftOp, rightOp};
+		}
+	}
+
+	private static final class Ite extends CompiledExpr {
+		private final CompiledExpr cond;
+		private final CompiledExpr then;
+		private final CompiledExpr elze;
+
+		private Ite(final CompiledExpr cond, final CompiledExpr then, final CompiledExpr elze) {
+			this.cond = cond;
+			this.then = then;
+			this.elze = elze;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> condValue = cond.eval(frame);
+			if (condValue == null) {
+				return null;
+			}
+			return ((BoolLitExpr) condValue).getValue() ? then.eval(frame) : elze.eval(frame);
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{cond, then, elze};
+		}
+	}
+
+	private static final class IntAdd extends CompiledExpr {
+		private final CompiledExpr[] ops;
+
+		private IntAdd(final CompiledExpr[] ops) {
+			this.ops = ops;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			BigInteger sum = BigInteger.ZERO;
+			for (final CompiledExpr op : ops) {
+				final LitExpr<?> value = op.eval(frame);
+				if (value == null) {
+					return null;
+				}
+				sum = sum.add(((IntLitExpr) value).getValue());
+			}
+			return Int(sum);
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return ops;
+		}
+	}
+
+	private static final class IntMul extends CompiledExpr {
+		private final CompiledExpr[] ops;
+
+		private IntMul(final CompiledExpr[] ops) {
+			this.ops = ops;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			BigInteger prod = BigInteger.ONE;
+			boolean unknown = false;
+			for (final CompiledExpr op : ops) {
+				final LitExpr<?> value = op.eval(frame);
+				if (value == null) {
+					unknown = true;
+				} else {
+					prod = prod.multiply(((IntLitExpr) value).getValue());
+					// A zero factor makes the product zero, even if other factors are unknown
+					if (prod.signum() == 0) {
+						return Int(BigInteger.ZERO);
+					}
+				}
+			}
+			return unknown ? null : Int(prod);
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return ops;
+		}
+	}
+
+	private static final class IntNeg extends CompiledExpr {
+		private final CompiledExpr op;
+
+		private IntNeg(final CompiledExpr op) {
+			this.op = op;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> value = op.eval(frame);
+			if (value == null) {
+				return null;
+			}
+			return ((IntLitExpr) value).neg();
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{op};
+		}
+	}
+
+	private enum IntOp {
+		SUB, DIV, MOD, EQ, NEQ, LT, LEQ, GT, GEQ
+	}
+
+	private static final class IntBinary extends CompiledExpr {
+		private final IntOp op;
+		private final CompiledExpr leftOp;
+		private final CompiledExpr rightOp;
+
+		private IntBinary(final IntOp op, final CompiledExpr leftOp, final CompiledExpr rightOp) {
+			this.op = op;
+			this.leftOp = leftOp;
+			this.rightOp = rightOp;
+		}
+
+		@Override
+		LitExpr<?> eval(final LitExpr<?>[] frame) {
+			final LitExpr<?> left = leftOp.eval(frame);
+			if (left == null) {
+				return null;
+			}
+			final LitExpr<?> right = rightOp.eval(frame);
+			if (right == null) {
+				return null;
+			}
+			final IntLitExpr leftLit = (IntLitExpr) left;
+			final IntLitExpr rightLit = (IntLitExpr) right;
+			switch (op) {
+				case SUB:
+					return leftLit.sub(rightLit);
+				case DIV:
+					return leftLit.div(rightLit);
+				case MOD:
+					return leftLit.mod(rightLit);
+				case EQ:
+					return Bool(leftLit.compareTo(rightLit) == 0);
+				case NEQ:
+					return Bool(leftLit.compareTo(rightLit) != 0);
+				case LT:
+					return Bool(leftLit.compareTo(rightLit) < 0);
+				case LEQ:
+					return Bool(leftLit.compareTo(rightLit) <= 0);
+				case GT:
+					return Bool(leftLit.compareTo(rightLit) > 0);
+				case GEQ:
+					return Bool(leftLit.compareTo(rightLit) >= 0);
+				default:
+					throw new AssertionError();
+			}
+		}
+
+		@Override
+		CompiledExpr[] getOps() {
+			return new CompiledExpr[]{leftOp, rightOp};
+		}
+	}
+
+}
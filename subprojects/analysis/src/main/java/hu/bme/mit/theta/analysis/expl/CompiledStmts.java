@@ -0,0 +1,369 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import hu.bme.mit.theta.analysis.expl.StmtApplier.ApplyResult;
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.MutableValuation;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.stmt.AssignStmt;
+import hu.bme.mit.theta.core.stmt.AssumeStmt;
+import hu.bme.mit.theta.core.stmt.HavocStmt;
+import hu.bme.mit.theta.core.stmt.NonDetStmt;
+import hu.bme.mit.theta.core.stmt.OrtStmt;
+import hu.bme.mit.theta.core.stmt.SequenceStmt;
+import hu.bme.mit.theta.core.stmt.SkipStmt;
+import hu.bme.mit.theta.core.stmt.Stmt;
+import hu.bme.mit.theta.core.stmt.StmtVisitor;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.Type;
+import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
+import hu.bme.mit.theta.core.utils.StmtUtils;
+
+/**
+ * A list of statements compiled for repeated application in the explicit
+ * domain. Each variable of the statements gets a slot in a frame (an array of
+ * literals, null meaning unknown), and the statements are translated into a
+ * tree of pre-resolved operations over the frame. Applying a compiled statement
+ * gives the same result as {@link StmtApplier#apply}, but only falls back to
+ * the simplifier if the fast evaluation cannot decide the result.
+ */
+final class CompiledStmts {
+
+	private final VarDecl<?>[] vars;
+	private final CompiledStmt[] stmts;
+
+	private CompiledStmts(final List<? extends Stmt> stmts) {
+		checkNotNull(stmts);
+		this.vars = StmtUtils.getVars(stmts).toArray(new VarDecl<?>[0]);
+		final Map<Decl<?>, Integer> slots = new HashMap<>();
+		for (int i = 0; i < vars.length; i++) {
+			slots.put(vars[i], i);
+		}
+		final Compiler compiler = new Compiler(vars, slots);
+		this.stmts = new CompiledStmt[stmts.size()];
+		for (int i = 0; i < this.stmts.length; i++) {
+			this.stmts[i] = stmts.get(i).accept(compiler, null);
+		}
+	}
+
+	public static CompiledStmts compile(final List<? extends Stmt> stmts) {
+		return new CompiledStmts(stmts);
+	}
+
+	public int size() {
+		return stmts.length;
+	}
+
+	/**
+	 * Create a frame holding the values of the variables of the statements in a valuation.
+	 */
+	public LitExpr<?>[] load(final Valuation val) {
+		final LitExpr<?>[] frame = new LitExpr<?>[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			frame[i] = val.eval(vars[i]).orElse(null);
+		}
+		return frame;
+	}
+
+	/**
+	 * Write the values of a frame back to a valuation, touching only entries that changed.
+	 */
+	public void store(final LitExpr<?>[] frame, final MutableValuation val) {
+		for (int i = 0; i < vars.length; i++) {
+			final LitExpr<?> oldValue = val.eval(vars[i]).orElse(null);
+			final LitExpr<?> newValue = frame[i];
+			if (newValue == null) {
+				if (oldValue != null) {
+					val.remove(vars[i]);
+				}
+			} else if (!newValue.equals(oldValue)) {
+				val.put(vars[i], newValue);
+			}
+		}
+	}
+
+	/**
+	 * Write the values of a frame to a builder. Variables without a slot in
+	 * the builder are dropped.
+	 */
+	public void store(final LitExpr<?>[] frame, final ExplValuation.Builder builder) {
+		for (int i = 0; i < vars.length; i++) {
+			if (frame[i] == null) {
+				builder.remove(vars[i]);
+			} else {
+				builder.put(vars[i], frame[i]);
+			}
+		}
+	}
+
+	/**
+	 * Apply the statement with the given index to a frame.
+	 */
+	public ApplyResult apply(final int index, final LitExpr<?>[] frame, final boolean approximate) {
+		return stmts[index].apply(frame, approximate);
+	}
+
+	////
+
+	private abstract static class CompiledStmt {
+		abstract ApplyResult apply(LitExpr<?>[] frame, boolean approximate);
+	}
+
+	private static final class Skip extends CompiledStmt {
+		private static final Skip INSTANCE = new Skip();
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			return ApplyResult.SUCCESS;
+		}
+	}
+
+	private static final class Havoc extends CompiledStmt {
+		private final int slot;
+
+		private Havoc(final int slot) {
+			this.slot = slot;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			frame[slot] = null;
+			return ApplyResult.SUCCESS;
+		}
+	}
+
+	private static final class Assign extends CompiledStmt {
+		private final int slot;
+		private final CompiledExpr expr;
+		private final Fallback fallback;
+
+		private Assign(final int slot, final CompiledExpr expr, final Fallback fallback) {
+			this.slot = slot;
+			this.expr = expr;
+			this.fallback = fallback;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			final LitExpr<?> value = expr.eval(frame);
+			if (value != null) {
+				frame[slot] = value;
+				return ApplyResult.SUCCESS;
+			} else {
+				return fallback.apply(frame, approximate);
+			}
+		}
+	}
+
+	private static final class Assume extends CompiledStmt {
+		private final CompiledExpr cond;
+		private final Fallback fallback;
+
+		private Assume(final CompiledExpr cond, final Fallback fallback) {
+			this.cond = cond;
+			this.fallback = fallback;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			final LitExpr<?> value = cond.eval(frame);
+			if (value == null) {
+				return fallback.apply(frame, approximate);
+			} else if (((BoolLitExpr) value).getValue()) {
+				return ApplyResult.SUCCESS;
+			} else {
+				return ApplyResult.BOTTOM;
+			}
+		}
+	}
+
+	private static final class Sequence extends CompiledStmt {
+		private final CompiledStmt[] stmts;
+
+		private Sequence(final CompiledStmt[] stmts) {
+			this.stmts = stmts;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			final LitExpr<?>[] copy = frame.clone();
+			for (final CompiledStmt stmt : stmts) {
+				final ApplyResult res = stmt.apply(copy, approximate);
+				if (res == ApplyResult.BOTTOM || res == ApplyResult.FAILURE) {
+					return res;
+				}
+			}
+			System.arraycopy(copy, 0, frame, 0, frame.length);
+			return ApplyResult.SUCCESS;
+		}
+	}
+
+	private static final class NonDet extends CompiledStmt {
+		private final CompiledStmt[] stmts;
+
+		private NonDet(final CompiledStmt[] stmts) {
+			this.stmts = stmts;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			LitExpr<?>[] first = null;
+			LitExpr<?>[][] others = null;
+			int successes = 0;
+			for (int i = 0; i < stmts.length; i++) {
+				final LitExpr<?>[] branch = frame.clone();
+				final ApplyResult res = stmts[i].apply(branch, approximate);
+				if (res == ApplyResult.FAILURE) {
+					return ApplyResult.FAILURE;
+				}
+				if (res == ApplyResult.SUCCESS) {
+					if (successes == 0) {
+						first = branch;
+					} else {
+						if (others == null) {
+							others = new LitExpr<?>[stmts.length - 1][];
+						}
+						others[successes - 1] = branch;
+					}
+					successes++;
+				}
+			}
+
+			if (successes == 0) {
+				return ApplyResult.BOTTOM;
+			} else if (successes == 1) {
+				System.arraycopy(first, 0, frame, 0, frame.length);
+				return ApplyResult.SUCCESS;
+			} else if (approximate) {
+				// Keep the values of the first successful branch that all other branches agree on
+				for (int slot = 0; slot < frame.length; slot++) {
+					final LitExpr<?> value = first[slot];
+					if (value != null) {
+						for (int j = 0; j < successes - 1; j++) {
+							if (!value.equals(others[j][slot])) {
+								first[slot] = null;
+								break;
+							}
+						}
+					}
+				}
+				System.arraycopy(first, 0, frame, 0, frame.length);
+				return ApplyResult.SUCCESS;
+			} else {
+				return ApplyResult.FAILURE;
+			}
+		}
+	}
+
+	/**
+	 * Applies the original statement with {@link StmtApplier} on a valuation
+	 * built from the frame. Only the variables of the statements are relevant,
+	 * so the frame contains everything the simplifier can read.
+	 */
+	private static final class Fallback extends CompiledStmt {
+		private final Stmt stmt;
+		private final VarDecl<?>[] vars;
+
+		private Fallback(final Stmt stmt, final VarDecl<?>[] vars) {
+			this.stmt = stmt;
+			this.vars = vars;
+		}
+
+		@Override
+		ApplyResult apply(final LitExpr<?>[] frame, final boolean approximate) {
+			final MutableValuation val = new MutableValuation();
+			for (int i = 0; i < vars.length; i++) {
+				if (frame[i] != null) {
+					val.put(vars[i], frame[i]);
+				}
+			}
+			final ApplyResult res = StmtApplier.apply(stmt, val, approximate);
+			for (int i = 0; i < vars.length; i++) {
+				frame[i] = val.eval(vars[i]).orElse(null);
+			}
+			return res;
+		}
+	}
+
+	private static final class Compiler implements StmtVisitor<Void, CompiledStmt> {
+		private final VarDecl<?>[] vars;
+		private final Map<Decl<?>, Integer> slots;
+
+		private Compiler(final VarDecl<?>[] vars, final Map<Decl<?>, Integer> slots) {
+			this.vars = vars;
+			this.slots = slots;
+		}
+
+		private int slotOf(final Decl<?> decl) {
+			final Integer slot = slots.get(decl);
+			checkNotNull(slot, "No slot for " + decl);
+			return slot;
+		}
+
+		@Override
+		public CompiledStmt visit(final SkipStmt stmt, final Void param) {
+			return Skip.INSTANCE;
+		}
+
+		@Override
+		public CompiledStmt visit(final AssumeStmt stmt, final Void param) {
+			return new Assume(CompiledExpr.compile(stmt.getCond(), this::slotOf), new Fallback(stmt, vars));
+		}
+
+		@Override
+		public <DeclType extends Type> CompiledStmt visit(final AssignStmt<DeclType> stmt, final Void param) {
+			return new Assign(slotOf(stmt.getVarDecl()), CompiledExpr.compile(stmt.getExpr(), this::slotOf),
+					new Fallback(stmt, vars));
+		}
+
+		@Override
+		public <DeclType extends Type> CompiledStmt visit(final HavocStmt<DeclType> stmt, final Void param) {
+			return new Havoc(slotOf(stmt.getVarDecl()));
+		}
+
+		@Override
+		public CompiledStmt visit(final SequenceStmt stmt, final Void param) {
+			return new Sequence(compileAll(stmt.getStmts()));
+		}
+
+		@Override
+		public CompiledStmt visit(final NonDetStmt stmt, final Void param) {
+			return new NonDet(compileAll(stmt.getStmts()));
+		}
+
+		@Override
+		public CompiledStmt visit(final OrtStmt stmt, final Void param) {
+			return new Fallback(stmt, vars);
+		}
+
+		private CompiledStmt[] compileAll(final List<Stmt> stmts) {
+			final CompiledStmt[] result = new CompiledStmt[stmts.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = stmts.get(i).accept(this, null);
+			}
+			return result;
+		}
+	}
+
+}
@@ -25,6 +25,8 @@ import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
 public final class ExplAnalysis implements Analysis<ExplState, ExprAction, ExplPrec> {
 
@@ -32,17 +34,26 @@ public final class ExplAnalysis implements Analysis<ExplState, ExprAction, ExplP
 	private final InitFunc<ExplState, ExplPrec> initFunc;
 	private final TransFunc<ExplState, ExprAction, ExplPrec> transFunc;
 
-	private ExplAnalysis(final Solver solver, final Expr<BoolType> initExpr) {
-		checkNotNull(solver);
+	private ExplAnalysis(final SolverProvider solverProvider, final Expr<BoolType> initExpr) {
+		checkNotNull(solverProvider);
 		checkNotNull(initExpr);
 		this.partialOrd = ExplOrd.getInstance();
-		this.initFunc = ExplInitFunc.create(solver, initExpr);
-		this.transFunc = ExplTransFunc.create(solver);
+		this.initFunc = ExplInitFunc.create(solverProvider, initExpr);
+		this.transFunc = ExplTransFunc.create(solverProvider);
 
 	}
 
 	public static ExplAnalysis create(final Solver solver, final Expr<BoolType> initExpr) {
-		return new ExplAnalysis(solver, initExpr);
+		return new ExplAnalysis(SolverProviders.of(solver), initExpr);
+	}
+
+	/**
+	 * Create an analysis that acquires a solver from a provider for each
+	 * query, so that it can be shared between threads if the provider is
+	 * thread-safe.
+	 */
+	public static ExplAnalysis create(final SolverProvider solverProvider, final Expr<BoolType> initExpr) {
+		return new ExplAnalysis(solverProvider, initExpr);
 	}
 
 	@Override
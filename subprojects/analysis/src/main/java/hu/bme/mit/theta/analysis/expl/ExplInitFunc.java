@@ -26,26 +26,35 @@ import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.utils.VarIndexing;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
 public final class ExplInitFunc implements InitFunc<ExplState, ExplPrec> {
 
-	private final Solver solver;
+	private final SolverProvider solverProvider;
 	private final Expr<BoolType> initExpr;
 
-	private ExplInitFunc(final Solver solver, final Expr<BoolType> initExpr) {
-		this.solver = checkNotNull(solver);
+	private ExplInitFunc(final SolverProvider solverProvider, final Expr<BoolType> initExpr) {
+		this.solverProvider = checkNotNull(solverProvider);
 		this.initExpr = checkNotNull(initExpr);
 	}
 
 	public static ExplInitFunc create(final Solver solver, final Expr<BoolType> initExpr) {
-		return new ExplInitFunc(solver, initExpr);
+		return new ExplInitFunc(SolverProviders.of(solver), initExpr);
+	}
+
+	public static ExplInitFunc create(final SolverProvider solverProvider, final Expr<BoolType> initExpr) {
+		return new ExplInitFunc(solverProvider, initExpr);
 	}
 
 	@Override
 	public Collection<? extends ExplState> getInitStates(final ExplPrec prec) {
 		checkNotNull(prec);
-		final Collection<ExplState> initStates = ExprStates.createStatesForExpr(solver, initExpr, 0, prec::createState,
-				VarIndexing.all(0));
+		final Collection<ExplState> initStates;
+		try (SolverProvider.Handle handle = solverProvider.acquire()) {
+			initStates = ExprStates.createStatesForExpr(handle.get(), initExpr, 0, prec::createState,
+					VarIndexing.all(0), prec.getVars(), 0);
+		}
 		return initStates.isEmpty() ? Collections.singleton(ExplState.bottom()) : initStates;
 	}
 
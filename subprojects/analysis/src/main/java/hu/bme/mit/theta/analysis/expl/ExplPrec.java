@@ -27,7 +27,6 @@ import com.google.common.collect.ImmutableSet;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.core.decl.VarDecl;
-import hu.bme.mit.theta.core.model.ImmutableValuation;
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.LitExpr;
 
@@ -38,10 +37,12 @@ import hu.bme.mit.theta.core.type.LitExpr;
 public final class ExplPrec implements Prec {
 
 	private final Set<VarDecl<?>> vars;
+	private final ExplSlots slots;
 	private static ExplPrec EMPTY = new ExplPrec(Collections.emptySet());
 
 	private ExplPrec(final Iterable<? extends VarDecl<?>> vars) {
 		this.vars = ImmutableSet.copyOf(vars);
+		this.slots = ExplSlots.of(this.vars);
 	}
 
 	public static ExplPrec empty() {
@@ -75,16 +76,50 @@ public final class ExplPrec implements Prec {
 		}
 	}
 
+	/**
+	 * Get the slots of the variables, which are used by the states created by this precision.
+	 */
+	public ExplSlots getSlots() {
+		return slots;
+	}
+
 	public ExplState createState(final Valuation valuation) {
 		checkNotNull(valuation);
-		final ImmutableValuation.Builder builder = ImmutableValuation.builder();
+		final Valuation val = unwrap(valuation);
+		if (val instanceof ExplValuation && ((ExplValuation) val).getSlots() == slots) {
+			return ExplState.of(val);
+		}
+		return ExplState.of(project(val).build());
+	}
+
+	/**
+	 * Create a builder for the abstraction of a valuation. If the valuation was
+	 * created by this precision, the builder shares its arrays until modified.
+	 */
+	ExplValuation.Builder createBuilder(final Valuation valuation) {
+		final Valuation val = unwrap(valuation);
+		if (val instanceof ExplValuation && ((ExplValuation) val).getSlots() == slots) {
+			return ((ExplValuation) val).toBuilder();
+		}
+		return project(val);
+	}
+
+	private static Valuation unwrap(final Valuation valuation) {
+		if (valuation instanceof ExplState && !((ExplState) valuation).isBottom()) {
+			return ((ExplState) valuation).getVal();
+		}
+		return valuation;
+	}
+
+	private ExplValuation.Builder project(final Valuation valuation) {
+		final ExplValuation.Builder builder = ExplValuation.builder(slots);
 		for (final VarDecl<?> varDecl : vars) {
 			final Optional<? extends LitExpr<?>> eval = valuation.eval(varDecl);
 			if (eval.isPresent()) {
 				builder.put(varDecl, eval.get());
 			}
 		}
-		return ExplState.of(builder.build());
+		return builder;
 	}
 
 	@Override
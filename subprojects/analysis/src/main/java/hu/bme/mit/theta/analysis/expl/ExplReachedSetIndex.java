@@ -0,0 +1,109 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
+import hu.bme.mit.theta.common.Tuple2;
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.type.LitExpr;
+
+/**
+ * Index for explicit states. An element can only cover another one if all of
+ * its variable-value pairs also appear in the other one, so for each pair the
+ * elements containing it are stored, and candidates are found by counting the
+ * matching pairs instead of comparing with each element.
+ */
+public final class ExplReachedSetIndex<T> implements ReachedSetIndex<T> {
+
+	private final Function<? super T, ? extends ExplState> lens;
+	private final List<T> elems;
+	private final List<Integer> sizes;
+	private final Map<Tuple2<Decl<?>, LitExpr<?>>, List<Integer>> elemsWithValue;
+	private final BitSet tops;
+
+	private ExplReachedSetIndex(final Function<? super T, ? extends ExplState> lens) {
+		this.lens = checkNotNull(lens);
+		elems = new ArrayList<>();
+		sizes = new ArrayList<>();
+		elemsWithValue = new HashMap<>();
+		tops = new BitSet();
+	}
+
+	public static <T> ExplReachedSetIndex<T> create(final Function<? super T, ? extends ExplState> lens) {
+		return new ExplReachedSetIndex<>(lens);
+	}
+
+	@Override
+	public void add(final T elem) {
+		checkNotNull(elem);
+		final ExplState state = lens.apply(elem);
+		final int index = elems.size();
+		elems.add(elem);
+		if (state.isBottom()) {
+			// Bottom can only cover bottom, which is handled separately
+			sizes.add(-1);
+			return;
+		}
+		final Map<Decl<?>, LitExpr<?>> values = state.toMap();
+		sizes.add(values.size());
+		if (values.isEmpty()) {
+			tops.set(index);
+		}
+		for (final Map.Entry<Decl<?>, LitExpr<?>> entry : values.entrySet()) {
+			elemsWithValue.computeIfAbsent(Tuple2.of(entry.getKey(), entry.getValue()), k -> new ArrayList<>())
+					.add(index);
+		}
+	}
+
+	@Override
+	public List<T> getCandidates(final T elem) {
+		checkNotNull(elem);
+		final ExplState state = lens.apply(elem);
+		if (state.isBottom()) {
+			return new ArrayList<>(elems);
+		}
+
+		final BitSet candidates = (BitSet) tops.clone();
+		final Map<Integer, Integer> matches = new HashMap<>();
+		for (final Map.Entry<Decl<?>, LitExpr<?>> entry : state.toMap().entrySet()) {
+			final List<Integer> indexes = elemsWithValue.get(Tuple2.of(entry.getKey(), entry.getValue()));
+			if (indexes != null) {
+				for (final int index : indexes) {
+					final int matchCount = matches.merge(index, 1, Integer::sum);
+					if (matchCount == sizes.get(index)) {
+						candidates.set(index);
+					}
+				}
+			}
+		}
+
+		final List<T> result = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(elems.get(i));
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.Type;
+import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.bvtype.BvLitExpr;
+import hu.bme.mit.theta.core.type.bvtype.BvType;
+import hu.bme.mit.theta.core.type.inttype.IntLitExpr;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+/**
+ * Assignment of dense slot numbers to a set of variables, used by
+ * {@link ExplValuation} to store values in primitive arrays. Booleans, integers
+ * fitting into a long and bitvectors of at most 64 bits are encoded as longs,
+ * every other value is kept as a literal.
+ */
+public final class ExplSlots {
+
+	private static final int BIG_INT_BITS = 63;
+	private static final int MAX_BV_SIZE = 64;
+
+	private enum Kind {
+		BOOL, INT, BV, OTHER
+	}
+
+	private final List<VarDecl<?>> vars;
+	private final Map<Decl<?>, Integer> slots;
+	private final Kind[] kinds;
+
+	private ExplSlots(final Iterable<? extends VarDecl<?>> vars) {
+		this.vars = ImmutableList.copyOf(vars);
+		this.slots = new HashMap<>();
+		this.kinds = new Kind[this.vars.size()];
+		for (int i = 0; i < kinds.length; i++) {
+			final VarDecl<?> var = this.vars.get(i);
+			slots.put(var, i);
+			kinds[i] = kindOf(var.getType());
+		}
+	}
+
+	public static ExplSlots of(final Iterable<? extends VarDecl<?>> vars) {
+		checkNotNull(vars);
+		return new ExplSlots(vars);
+	}
+
+	private static Kind kindOf(final Type type) {
+		if (type instanceof BoolType) {
+			return Kind.BOOL;
+		} else if (type instanceof IntType) {
+			return Kind.INT;
+		} else if (type instanceof BvType && ((BvType) type).getSize() <= MAX_BV_SIZE) {
+			return Kind.BV;
+		} else {
+			return Kind.OTHER;
+		}
+	}
+
+	public int size() {
+		return vars.size();
+	}
+
+	public List<VarDecl<?>> getVars() {
+		return vars;
+	}
+
+	public VarDecl<?> getVar(final int slot) {
+		return vars.get(slot);
+	}
+
+	/**
+	 * Get the slot of a declaration, or -1 if it has none.
+	 */
+	public int getSlot(final Decl<?> decl) {
+		final Integer slot = slots.get(decl);
+		return slot == null ? -1 : slot;
+	}
+
+	////
+
+	/**
+	 * Check whether a value of a slot can be encoded as a long.
+	 */
+	boolean isEncodable(final int slot, final LitExpr<?> value) {
+		switch (kinds[slot]) {
+			case BOOL:
+			case BV:
+				return true;
+			case INT:
+				return ((IntLitExpr) value).getValue().bitLength() <= BIG_INT_BITS;
+			default:
+				return false;
+		}
+	}
+
+	long encode(final int slot, final LitExpr<?> value) {
+		switch (kinds[slot]) {
+			case BOOL:
+				return ((BoolLitExpr) value).getValue() ? 1 : 0;
+			case INT:
+				return ((IntLitExpr) value).getValue().longValueExact();
+			case BV:
+				final boolean[] bits = ((BvLitExpr) value).getValue();
+				long result = 0;
+				for (int i = 0; i < bits.length; i++) {
+					if (bits[i]) {
+						result |= 1L << i;
+					}
+				}
+				return result;
+			default:
+				throw new AssertionError();
+		}
+	}
+
+	LitExpr<?> decode(final int slot, final long value) {
+		switch (kinds[slot]) {
+			case BOOL:
+				return Bool(value != 0);
+			case INT:
+				return Int(BigInteger.valueOf(value));
+			case BV:
+				final boolean[] bits = new boolean[((BvType) vars.get(slot).getType()).getSize()];
+				for (int i = 0; i < bits.length; i++) {
+					bits[i] = (value & (1L << i)) != 0;
+				}
+				return BvLitExpr.of(bits);
+			default:
+				throw new AssertionError();
+		}
+	}
+
+}
@@ -80,7 +80,8 @@ public abstract class ExplState extends Valuation implements ExprState {
 		private final Valuation val;
 
 		private NonBottom(final Valuation val) {
-			this.val = ImmutableValuation.copyOf(checkNotNull(val));
+			checkNotNull(val);
+			this.val = val instanceof ExplValuation ? val : ImmutableValuation.copyOf(val);
 		}
 
 		@Override
@@ -110,6 +111,22 @@ public abstract class ExplState extends Valuation implements ExprState {
 			return val;
 		}
 
+		@Override
+		public int hashCode() {
+			return val.hashCode() + 1;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof NonBottom) {
+				return this.val.equals(((NonBottom) obj).val);
+			} else {
+				return super.equals(obj);
+			}
+		}
+
 		@Override
 		public boolean isLeq(final ExplState that) {
 			if (that.isBottom()) {
@@ -25,6 +25,8 @@ import hu.bme.mit.theta.analysis.expr.StmtAction;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
 public final class ExplStmtAnalysis implements Analysis<ExplState, StmtAction, ExplPrec> {
 
@@ -32,17 +34,28 @@ public final class ExplStmtAnalysis implements Analysis<ExplState, StmtAction, E
 	private final InitFunc<ExplState, ExplPrec> initFunc;
 	private final TransFunc<ExplState, StmtAction, ExplPrec> transFunc;
 
-	private ExplStmtAnalysis(final Solver solver, final Expr<BoolType> initExpr, final int maxSuccToEnumerate) {
-		checkNotNull(solver);
+	private ExplStmtAnalysis(final SolverProvider solverProvider, final Expr<BoolType> initExpr,
+							 final int maxSuccToEnumerate) {
+		checkNotNull(solverProvider);
 		checkNotNull(initExpr);
 		this.partialOrd = ExplOrd.getInstance();
-		this.initFunc = ExplInitFunc.create(solver, initExpr);
-		this.transFunc = ExplStmtTransFunc.create(solver, maxSuccToEnumerate);
+		this.initFunc = ExplInitFunc.create(solverProvider, initExpr);
+		this.transFunc = ExplStmtTransFunc.create(solverProvider, maxSuccToEnumerate);
 	}
 
 	public static ExplStmtAnalysis create(final Solver solver, final Expr<BoolType> initExpr,
 										  final int maxSuccToEnumerate) {
-		return new ExplStmtAnalysis(solver, initExpr, maxSuccToEnumerate);
+		return new ExplStmtAnalysis(SolverProviders.of(solver), initExpr, maxSuccToEnumerate);
+	}
+
+	/**
+	 * Create an analysis that acquires a solver from a provider for each
+	 * query, so that it can be shared between threads if the provider is
+	 * thread-safe.
+	 */
+	public static ExplStmtAnalysis create(final SolverProvider solverProvider, final Expr<BoolType> initExpr,
+										  final int maxSuccToEnumerate) {
+		return new ExplStmtAnalysis(solverProvider, initExpr, maxSuccToEnumerate);
 	}
 
 	public static ExplStmtAnalysis create(final Solver solver, final Expr<BoolType> initExpr) {
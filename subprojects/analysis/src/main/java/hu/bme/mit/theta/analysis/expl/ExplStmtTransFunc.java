@@ -23,6 +23,9 @@ import static java.util.Collections.singleton;
 import java.util.Collection;
 import java.util.List;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
 import hu.bme.mit.theta.analysis.TransFunc;
 import hu.bme.mit.theta.analysis.expl.StmtApplier.ApplyResult;
 import hu.bme.mit.theta.analysis.expr.ExprStates;
@@ -30,26 +33,65 @@ import hu.bme.mit.theta.analysis.expr.StmtAction;
 import hu.bme.mit.theta.core.model.MutableValuation;
 import hu.bme.mit.theta.core.stmt.Stmt;
 import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.utils.StmtUnfoldResult;
 import hu.bme.mit.theta.core.utils.StmtUtils;
 import hu.bme.mit.theta.core.utils.VarIndexing;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
+/**
+ * Transfer function of the explicit domain for statements. Statements are
+ * executed on the values of the state if possible, the solver is only
+ * acquired from the provider if a statement cannot be evaluated (e.g., a
+ * havoc or an assumption over an untracked variable).
+ * <p>
+ * In the latter case, the successors are enumerated with the solver, where a
+ * variable that can take any value (given the values of the others) is left
+ * unknown in the successor instead of enumerating its values. The limit on
+ * the number of enumerated successors counts these successor states, not the
+ * concrete valuations they represent: e.g., havocking a boolean variable
+ * gives one successor where its value is unknown, not two. If there would be
+ * more successors than the limit, the variables that cannot be evaluated are
+ * made unknown in a single successor.
+ */
 public final class ExplStmtTransFunc implements TransFunc<ExplState, StmtAction, ExplPrec> {
 
-	private final Solver solver;
+	private static final long DEFAULT_MAX_COMPILED = 10_000;
+
+	private final SolverProvider solverProvider;
 	// 0 means arbitrarily many
 	private final int maxSuccToEnumerate;
+	// Statement lists are compiled on their first application, the least
+	// recently used ones are evicted if there are too many
+	private final Cache<List<Stmt>, CompiledStmts> compiledStmts;
 
-	private ExplStmtTransFunc(final Solver solver, final int maxSuccToEnumerate) {
-		this.solver = checkNotNull(solver);
+	private ExplStmtTransFunc(final SolverProvider solverProvider, final int maxSuccToEnumerate,
+							  final long maxCompiled) {
+		this.solverProvider = checkNotNull(solverProvider);
 		this.maxSuccToEnumerate = maxSuccToEnumerate;
+		this.compiledStmts = CacheBuilder.newBuilder().maximumSize(maxCompiled).build();
 	}
 
 	public static ExplStmtTransFunc create(final Solver solver, final int maxSuccToEnumerate) {
+		return create(SolverProviders.of(solver), maxSuccToEnumerate);
+	}
+
+	public static ExplStmtTransFunc create(final SolverProvider solverProvider, final int maxSuccToEnumerate) {
+		return create(solverProvider, maxSuccToEnumerate, DEFAULT_MAX_COMPILED);
+	}
+
+	/**
+	 * Creates a transfer function that keeps the compiled form of at most
+	 * maxCompiled statement lists.
+	 */
+	public static ExplStmtTransFunc create(final SolverProvider solverProvider, final int maxSuccToEnumerate,
+										   final long maxCompiled) {
 		checkArgument(maxSuccToEnumerate >= 0, "Max. succ. to enumerate must be non-negative.");
-		return new ExplStmtTransFunc(solver, maxSuccToEnumerate);
+		checkArgument(maxCompiled > 0, "Number of compiled statement lists must be positive");
+		return new ExplStmtTransFunc(solverProvider, maxSuccToEnumerate, maxCompiled);
 	}
 
 	@Override
@@ -58,12 +100,12 @@ public final class ExplStmtTransFunc implements TransFunc<ExplState, StmtAction,
 	}
 
 	Collection<ExplState> getSuccStates(final ExplState state, final List<Stmt> stmts, final ExplPrec prec) {
-		final MutableValuation val = MutableValuation.copyOf(state);
+		final CompiledStmts compiled = getCompiled(stmts);
+		final LitExpr<?>[] frame = compiled.load(state);
 		boolean triedSolver = false;
 
 		for (int i = 0; i < stmts.size(); i++) {
-			final Stmt stmt = stmts.get(i);
-			final ApplyResult applyResult = StmtApplier.apply(stmt, val, triedSolver);
+			final ApplyResult applyResult = compiled.apply(i, frame, triedSolver);
 
 			assert !triedSolver || applyResult != ApplyResult.BOTTOM;
 
@@ -71,6 +113,8 @@ public final class ExplStmtTransFunc implements TransFunc<ExplState, StmtAction,
 				return singleton(ExplState.bottom());
 			} else if (applyResult == ApplyResult.FAILURE) {
 				triedSolver = true;
+				final MutableValuation val = MutableValuation.copyOf(state);
+				compiled.store(frame, val);
 				final List<Stmt> remainingStmts = stmts.subList(i, stmts.size());
 				final StmtUnfoldResult toExprResult = StmtUtils.toExpr(remainingStmts, VarIndexing.all(0));
 				final Expr<BoolType> expr = And(val.toExpr(), And(toExprResult.getExprs()));
@@ -78,22 +122,42 @@ public final class ExplStmtTransFunc implements TransFunc<ExplState, StmtAction,
 				// We query (max + 1) states from the solver to see if there
 				// would be more than max
 				final int maxToQuery = maxSuccToEnumerate == 0 ? 0 : maxSuccToEnumerate + 1;
-				final Collection<ExplState> succStates = ExprStates.createStatesForExpr(solver, expr, 0,
-						prec::createState, nextIdx, maxToQuery);
+				final Collection<ExplState> succStates;
+				try (SolverProvider.Handle handle = solverProvider.acquire()) {
+					succStates = ExprStates.createStatesForExpr(handle.get(), expr, 0, prec::createState, nextIdx,
+							prec.getVars(), maxToQuery);
+				}
 
 				if (succStates.isEmpty()) {
 					return singleton(ExplState.bottom());
 				} else if (maxSuccToEnumerate == 0 || succStates.size() <= maxSuccToEnumerate) {
 					return succStates;
 				} else {
-					final ApplyResult reapplyResult = StmtApplier.apply(stmt, val, true);
+					final ApplyResult reapplyResult = compiled.apply(i, frame, true);
 					assert reapplyResult == ApplyResult.SUCCESS;
 				}
 			}
 		}
 
-		final ExplState abstracted = prec.createState(val);
+		// Successors share the arrays of the source state, only the modified values are copied
+		final ExplValuation.Builder builder = prec.createBuilder(state);
+		compiled.store(frame, builder);
+		final ExplState abstracted = ExplState.of(builder.build());
 		return singleton(abstracted);
 	}
 
+	private CompiledStmts getCompiled(final List<Stmt> stmts) {
+		CompiledStmts compiled = compiledStmts.getIfPresent(stmts);
+		if (compiled == null) {
+			// Compiling is deterministic, so concurrent compilations of the same list are harmless
+			compiled = CompiledStmts.compile(stmts);
+			compiledStmts.put(stmts, compiled);
+		}
+		return compiled;
+	}
+
+	long getCompiledCount() {
+		return compiledStmts.size();
+	}
+
 }
@@ -25,17 +25,23 @@ import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.analysis.expr.ExprStates;
 import hu.bme.mit.theta.core.type.booltype.BoolExprs;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
 public final class ExplTransFunc implements TransFunc<ExplState, ExprAction, ExplPrec> {
 
-	private final Solver solver;
+	private final SolverProvider solverProvider;
 
-	private ExplTransFunc(final Solver solver) {
-		this.solver = checkNotNull(solver);
+	private ExplTransFunc(final SolverProvider solverProvider) {
+		this.solverProvider = checkNotNull(solverProvider);
 	}
 
 	public static ExplTransFunc create(final Solver solver) {
-		return new ExplTransFunc(solver);
+		return new ExplTransFunc(SolverProviders.of(solver));
+	}
+
+	public static ExplTransFunc create(final SolverProvider solverProvider) {
+		return new ExplTransFunc(solverProvider);
 	}
 
 	@Override
@@ -44,8 +50,11 @@ public final class ExplTransFunc implements TransFunc<ExplState, ExprAction, Exp
 		checkNotNull(state);
 		checkNotNull(action);
 		checkNotNull(prec);
-		final Collection<ExplState> succStates = ExprStates.createStatesForExpr(solver,
-				BoolExprs.And(state.toExpr(), action.toExpr()), 0, prec::createState, action.nextIndexing());
+		final Collection<ExplState> succStates;
+		try (SolverProvider.Handle handle = solverProvider.acquire()) {
+			succStates = ExprStates.createStatesForExpr(handle.get(), BoolExprs.And(state.toExpr(), action.toExpr()),
+					0, prec::createState, action.nextIndexing(), prec.getVars(), 0);
+		}
 		return succStates.isEmpty() ? Collections.singleton(ExplState.bottom()) : succStates;
 	}
 
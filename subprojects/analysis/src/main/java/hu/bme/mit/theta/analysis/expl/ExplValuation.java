@@ -0,0 +1,326 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.Type;
+
+/**
+ * Immutable valuation over the variables of an {@link ExplSlots}, storing the
+ * values in primitive arrays indexed by slot. Values that cannot be encoded as
+ * a long (e.g., large integers, rationals or arrays) are kept in a side table.
+ * New valuations are derived through a {@link Builder}, which shares the arrays
+ * of the original valuation until the first modification.
+ */
+public final class ExplValuation extends Valuation {
+
+	private final ExplSlots slots;
+	// Bitset of the slots with a value
+	private final long[] known;
+	// Encoded values, 0 for slots without an encoded value
+	private final long[] values;
+	// Values that cannot be encoded, or null if there are none
+	private final LitExpr<?>[] overflow;
+	private final int size;
+
+	private volatile int hashCode = 0;
+
+	private ExplValuation(final ExplSlots slots, final long[] known, final long[] values,
+						  final LitExpr<?>[] overflow) {
+		this.slots = slots;
+		this.known = known;
+		this.values = values;
+		this.overflow = overflow;
+		int count = 0;
+		for (final long word : known) {
+			count += Long.bitCount(word);
+		}
+		this.size = count;
+	}
+
+	public static Builder builder(final ExplSlots slots) {
+		checkNotNull(slots);
+		return new Builder(slots);
+	}
+
+	public ExplSlots getSlots() {
+		return slots;
+	}
+
+	/**
+	 * Create a builder initialized with the values of this valuation. This is
+	 * O(1), the arrays are only copied when the builder is first modified.
+	 */
+	public Builder toBuilder() {
+		return new Builder(this);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private boolean isKnown(final int slot) {
+		return (known[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	private LitExpr<?> valueOf(final int slot) {
+		if (overflow != null && overflow[slot] != null) {
+			return overflow[slot];
+		}
+		return slots.decode(slot, values[slot]);
+	}
+
+	@Override
+	public Collection<? extends Decl<?>> getDecls() {
+		return new AbstractCollection<Decl<?>>() {
+			@Override
+			public Iterator<Decl<?>> iterator() {
+				return new Iterator<Decl<?>>() {
+					private int next = nextKnown(0);
+
+					@Override
+					public boolean hasNext() {
+						return next >= 0;
+					}
+
+					@Override
+					public Decl<?> next() {
+						if (next < 0) {
+							throw new NoSuchElementException();
+						}
+						final Decl<?> result = slots.getVar(next);
+						next = nextKnown(next + 1);
+						return result;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private int nextKnown(final int from) {
+		for (int slot = from; slot < slots.size(); slot++) {
+			if (isKnown(slot)) {
+				return slot;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public <DeclType extends Type> Optional<LitExpr<DeclType>> eval(final Decl<DeclType> decl) {
+		checkNotNull(decl);
+		final int slot = slots.getSlot(decl);
+		if (slot < 0 || !isKnown(slot)) {
+			return Optional.empty();
+		}
+		@SuppressWarnings("unchecked") final LitExpr<DeclType> value = (LitExpr<DeclType>) valueOf(slot);
+		return Optional.of(value);
+	}
+
+	@Override
+	public Map<Decl<?>, LitExpr<?>> toMap() {
+		final Map<Decl<?>, LitExpr<?>> result = new LinkedHashMap<>();
+		for (int slot = nextKnown(0); slot >= 0; slot = nextKnown(slot + 1)) {
+			result.put(slots.getVar(slot), valueOf(slot));
+		}
+		return result;
+	}
+
+	@Override
+	public boolean isLeq(final Valuation that) {
+		if (!(that instanceof ExplValuation) || ((ExplValuation) that).slots != this.slots) {
+			return super.isLeq(that);
+		}
+		final ExplValuation other = (ExplValuation) that;
+		for (int i = 0; i < known.length; i++) {
+			if ((other.known[i] & ~this.known[i]) != 0) {
+				return false;
+			}
+		}
+		for (int slot = 0; slot < values.length; slot++) {
+			if (other.isKnown(slot) && !sameValue(this, other, slot)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean sameValue(final ExplValuation val1, final ExplValuation val2, final int slot) {
+		if (val1.values[slot] != val2.values[slot]) {
+			return false;
+		}
+		final LitExpr<?> overflow1 = val1.overflow == null ? null : val1.overflow[slot];
+		final LitExpr<?> overflow2 = val2.overflow == null ? null : val2.overflow[slot];
+		return overflow1 == null ? overflow2 == null : overflow1.equals(overflow2);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = hashCode;
+		if (result == 0) {
+			result = super.hashCode();
+			hashCode = result;
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof ExplValuation && ((ExplValuation) obj).slots == this.slots) {
+			final ExplValuation that = (ExplValuation) obj;
+			if (this.size != that.size || !Arrays.equals(this.known, that.known)
+					|| !Arrays.equals(this.values, that.values)) {
+				return false;
+			}
+			for (int slot = 0; slot < values.length; slot++) {
+				if (!sameValue(this, that, slot)) {
+					return false;
+				}
+			}
+			return true;
+		} else {
+			return super.equals(obj);
+		}
+	}
+
+	////
+
+	/**
+	 * Copy-on-write builder for {@link ExplValuation}s. Declarations without
+	 * a slot are ignored, which projects the values to the variables of the
+	 * slots.
+	 */
+	public static final class Builder {
+		private final ExplSlots slots;
+		private long[] known;
+		private long[] values;
+		private LitExpr<?>[] overflow;
+		// True if the arrays may be referenced by a built valuation
+		private boolean shared;
+
+		private Builder(final ExplSlots slots) {
+			this.slots = slots;
+			this.known = new long[(slots.size() + 63) >>> 6];
+			this.values = new long[slots.size()];
+			this.overflow = null;
+			this.shared = false;
+		}
+
+		private Builder(final ExplValuation val) {
+			this.slots = val.slots;
+			this.known = val.known;
+			this.values = val.values;
+			this.overflow = val.overflow;
+			this.shared = true;
+		}
+
+		public Builder put(final Decl<?> decl, final LitExpr<?> value) {
+			checkNotNull(value);
+			final int slot = slots.getSlot(decl);
+			if (slot < 0) {
+				return this;
+			}
+			checkArgument(value.getType().equals(decl.getType()), "Type mismatch.");
+
+			final long word = 1L << slot;
+			final boolean wasKnown = (known[slot >>> 6] & word) != 0;
+			final LitExpr<?> oldOverflow = overflow == null ? null : overflow[slot];
+			if (slots.isEncodable(slot, value)) {
+				final long encoded = slots.encode(slot, value);
+				if (wasKnown && oldOverflow == null && values[slot] == encoded) {
+					return this;
+				}
+				own();
+				known[slot >>> 6] |= word;
+				values[slot] = encoded;
+				if (oldOverflow != null) {
+					overflow[slot] = null;
+				}
+			} else {
+				if (wasKnown && value.equals(oldOverflow)) {
+					return this;
+				}
+				own();
+				if (overflow == null) {
+					overflow = new LitExpr<?>[slots.size()];
+				}
+				known[slot >>> 6] |= word;
+				values[slot] = 0;
+				overflow[slot] = value;
+			}
+			return this;
+		}
+
+		public Builder remove(final Decl<?> decl) {
+			final int slot = slots.getSlot(decl);
+			if (slot < 0 || (known[slot >>> 6] & (1L << slot)) == 0) {
+				return this;
+			}
+			own();
+			known[slot >>> 6] &= ~(1L << slot);
+			values[slot] = 0;
+			if (overflow != null) {
+				overflow[slot] = null;
+			}
+			return this;
+		}
+
+		public Builder putAll(final Valuation val) {
+			for (final Decl<?> decl : val.getDecls()) {
+				put(decl, val.eval(decl).get());
+			}
+			return this;
+		}
+
+		public ExplValuation build() {
+			shared = true;
+			return new ExplValuation(slots, known, values, overflow);
+		}
+
+		private void own() {
+			if (shared) {
+				known = known.clone();
+				values = values.clone();
+				if (overflow != null) {
+					overflow = overflow.clone();
+				}
+				shared = false;
+			}
+		}
+	}
+
+}
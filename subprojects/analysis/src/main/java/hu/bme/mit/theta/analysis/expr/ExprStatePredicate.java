@@ -19,12 +19,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.function.Predicate;
 
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.solver.Solver;
-import hu.bme.mit.theta.solver.utils.WithPushPop;
 
 public class ExprStatePredicate implements Predicate<ExprState> {
 
@@ -43,11 +44,7 @@ public class ExprStatePredicate implements Predicate<ExprState> {
 		if (expr0 == null) {
 			expr0 = PathUtils.unfold(expr, 0);
 		}
-		try (WithPushPop wpp = new WithPushPop(solver)) {
-			solver.add(PathUtils.unfold(state.toExpr(), 0));
-			solver.add(expr0);
-			return solver.check().isSat();
-		}
+		return solver.check(ImmutableList.of(PathUtils.unfold(state.toExpr(), 0), expr0)).isSat();
 	}
 
 	public Expr<BoolType> toExpr() {
@@ -19,14 +19,20 @@ import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.core.utils.VarIndexing;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.ProjectedAllSat;
 import hu.bme.mit.theta.solver.utils.WithPushPop;
 
 /**
@@ -83,4 +89,47 @@ public final class ExprStates {
 			return result;
 		}
 	}
+
+	/**
+	 * Generate all or a limited number of states that satisfy a given
+	 * expression, projected to a given set of variables. Models are
+	 * enumerated by {@link ProjectedAllSat} with minimized blocking clauses,
+	 * so a variable that can take any value (together with the values of the
+	 * other variables) is left out of the valuation instead of enumerating
+	 * its values.
+	 *
+	 * @param solver           Solver
+	 * @param expr             Expression to be satisfied
+	 * @param exprIndex        Index for unfolding the expression
+	 * @param valuationToState Mapping from a valuation to a state
+	 * @param stateIndexing    Index for extracting the state
+	 * @param vars             Variables of the state
+	 * @param limit            Limit the number of states to generate (0 is unlimited)
+	 * @return States satisfying the expression
+	 */
+	public static <S extends ExprState> Collection<S> createStatesForExpr(final Solver solver,
+																		  final Expr<BoolType> expr, final int exprIndex,
+																		  final Function<? super Valuation, ? extends S> valuationToState, final VarIndexing stateIndexing,
+																		  final Collection<? extends VarDecl<?>> vars, final int limit) {
+		final List<VarDecl<?>> varList = new ArrayList<>(vars);
+		final List<ConstDecl<?>> projection = new ArrayList<>(varList.size());
+		for (final VarDecl<?> var : varList) {
+			projection.add(var.getConstDecl(stateIndexing.get(var)));
+		}
+
+		final List<LitExpr<?>[]> models = ProjectedAllSat.create(solver)
+				.enumerate(PathUtils.unfold(expr, exprIndex), projection, limit);
+
+		final Collection<S> result = new ArrayList<>(models.size());
+		for (final LitExpr<?>[] values : models) {
+			final ImmutableValuation.Builder builder = ImmutableValuation.builder();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) {
+					builder.put(varList.get(i), values[i]);
+				}
+			}
+			result.add(valuationToState.apply(builder.build()));
+		}
+		return result;
+	}
 }
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+/**
+ * Snapshot of the statistics of an {@link ExprTraceCachingChecker}.
+ */
+public final class ExprTraceCacheStatistics extends Statistics {
+	private final long hits;
+	private final long prefixHits;
+	private final long misses;
+	private final long insertions;
+	private final long nodes;
+	private final long clears;
+
+	ExprTraceCacheStatistics(final long hits, final long prefixHits, final long misses, final long insertions,
+							 final long nodes, final long clears) {
+		this.hits = hits;
+		this.prefixHits = prefixHits;
+		this.misses = misses;
+		this.insertions = insertions;
+		this.nodes = nodes;
+		this.clears = clears;
+
+		// Keys are specific and the hit rate is left out, because the
+		// statistics of multiple caches are summed in the CEGAR statistics
+		addStat("TraceCacheHits", this::getHits);
+		addStat("TraceCachePrefixHits", this::getPrefixHits);
+		addStat("TraceCacheMisses", this::getMisses);
+		addStat("TraceCacheInsertions", this::getInsertions);
+		addStat("TraceCacheNodes", this::getNodes);
+		addStat("TraceCacheClears", this::getClears);
+	}
+
+	/**
+	 * Gets the number of traces that were answered by an identical trace.
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Gets the number of traces that were answered by an infeasible prefix.
+	 */
+	public long getPrefixHits() {
+		return prefixHits;
+	}
+
+	/**
+	 * Gets the number of traces passed to the underlying checker.
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	public double getHitRate() {
+		final long lookups = hits + prefixHits + misses;
+		return lookups == 0 ? 0 : (double) (hits + prefixHits) / lookups;
+	}
+
+	/**
+	 * Gets the number of refutations stored in the cache.
+	 */
+	public long getInsertions() {
+		return insertions;
+	}
+
+	/**
+	 * Gets the number of nodes in the trie of the cache.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Gets the number of times the cache was cleared because it was full.
+	 */
+	public long getClears() {
+		return clears;
+	}
+
+}
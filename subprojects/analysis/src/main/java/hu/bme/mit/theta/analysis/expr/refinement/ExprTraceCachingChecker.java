@@ -0,0 +1,227 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+
+/**
+ * An ExprTraceChecker decorator that caches the refutations of infeasible
+ * traces in a trie over the alternating states and actions of the traces.
+ * Traces that were already proven infeasible are answered from the cache.
+ * Feasible traces are not cached, as they end the refinement anyway.
+ * <p>
+ * If prefix reuse is enabled, the cache also stores the shortest infeasible
+ * prefix of a trace, i.e., the states and actions up to the first False
+ * interpolant. Any trace starting with such a prefix is answered from the
+ * cache by padding the interpolants of the prefix with False. This is only
+ * sound if each interpolant is implied by the prefix it belongs to, which
+ * holds for sequence interpolants (e.g., {@link ExprTraceSeqItpChecker}), but
+ * not for binary interpolants, where the interpolants after the cut are False
+ * only by convention.
+ * <p>
+ * The trie is bounded by a number of nodes: if it is full, it is cleared
+ * before inserting the next trace, so it may exceed the bound by at most the
+ * nodes of a single trace. The cache is not thread-safe.
+ */
+public final class ExprTraceCachingChecker implements ExprTraceChecker<ItpRefutation> {
+
+	private static final long DEFAULT_MAX_NODES = 100_000;
+
+	private final ExprTraceChecker<ItpRefutation> checker;
+	private final boolean reusePrefixes;
+	private final long maxNodes;
+	private final Node root;
+	// Number of nodes in the trie, except for the root
+	private long nodes;
+
+	private long hits;
+	private long prefixHits;
+	private long misses;
+	private long insertions;
+	private long clears;
+
+	private ExprTraceCachingChecker(final ExprTraceChecker<ItpRefutation> checker, final boolean reusePrefixes,
+									final long maxNodes) {
+		checkArgument(maxNodes > 0, "Number of nodes must be positive");
+		this.checker = checkNotNull(checker);
+		this.reusePrefixes = reusePrefixes;
+		this.maxNodes = maxNodes;
+		this.root = new Node();
+		this.nodes = 0;
+	}
+
+	/**
+	 * Create a cache that only answers traces that were already checked.
+	 */
+	public static ExprTraceCachingChecker create(final ExprTraceChecker<ItpRefutation> checker) {
+		return create(checker, DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Create a cache that only answers traces that were already checked, with
+	 * at most (about) maxNodes nodes in its trie.
+	 */
+	public static ExprTraceCachingChecker create(final ExprTraceChecker<ItpRefutation> checker,
+												 final long maxNodes) {
+		return new ExprTraceCachingChecker(checker, false, maxNodes);
+	}
+
+	/**
+	 * Create a cache that also answers traces extending an infeasible prefix.
+	 * The checker must produce sequence interpolants.
+	 */
+	public static ExprTraceCachingChecker createWithPrefixes(final ExprTraceChecker<ItpRefutation> checker) {
+		return createWithPrefixes(checker, DEFAULT_MAX_NODES);
+	}
+
+	/**
+	 * Create a cache that also answers traces extending an infeasible prefix,
+	 * with at most (about) maxNodes nodes in its trie. The checker must
+	 * produce sequence interpolants.
+	 */
+	public static ExprTraceCachingChecker createWithPrefixes(final ExprTraceChecker<ItpRefutation> checker,
+															 final long maxNodes) {
+		return new ExprTraceCachingChecker(checker, true, maxNodes);
+	}
+
+	@Override
+	public ExprTraceStatus<ItpRefutation> check(final Trace<? extends ExprState, ? extends ExprAction> trace) {
+		checkNotNull(trace);
+		final int stateCount = trace.getStates().size();
+
+		Node node = root;
+		for (int i = 0; i < stateCount && node != null; i++) {
+			if (i > 0) {
+				node = node.children.get(trace.getAction(i - 1));
+				if (node == null) {
+					break;
+				}
+			}
+			node = node.children.get(trace.getState(i));
+			if (node != null && node.prefixItps != null) {
+				prefixHits++;
+				return ExprTraceStatus.infeasible(padded(node.prefixItps, stateCount));
+			}
+			if (node != null && i == stateCount - 1 && node.refutation != null) {
+				hits++;
+				return ExprTraceStatus.infeasible(node.refutation);
+			}
+		}
+
+		misses++;
+		final ExprTraceStatus<ItpRefutation> status = checker.check(trace);
+		if (status.isInfeasible()) {
+			insert(trace, status.asInfeasible().getRefutation());
+		}
+		return status;
+	}
+
+	private void insert(final Trace<? extends ExprState, ? extends ExprAction> trace,
+						final ItpRefutation refutation) {
+		final int firstFalse = reusePrefixes ? refutation.toList().indexOf(False()) : -1;
+		final int depth = firstFalse >= 0 ? firstFalse : trace.getStates().size() - 1;
+
+		if (nodes >= maxNodes) {
+			root.children.clear();
+			nodes = 0;
+			clears++;
+		}
+
+		Node node = root;
+		for (int i = 0; i <= depth; i++) {
+			if (i > 0) {
+				node = child(node, trace.getAction(i - 1));
+			}
+			node = child(node, trace.getState(i));
+		}
+
+		if (firstFalse >= 0) {
+			node.prefixItps = ImmutableList.copyOf(refutation.toList().subList(0, firstFalse + 1));
+			// Longer traces below the prefix are answered by the prefix from now on
+			nodes -= countDescendants(node);
+			node.children.clear();
+		} else {
+			node.refutation = refutation;
+		}
+		insertions++;
+	}
+
+	private Node child(final Node node, final Object key) {
+		Node child = node.children.get(key);
+		if (child == null) {
+			child = new Node();
+			node.children.put(key, child);
+			nodes++;
+		}
+		return child;
+	}
+
+	private static long countDescendants(final Node node) {
+		long count = 0;
+		final Deque<Node> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			for (final Node child : stack.pop().children.values()) {
+				count++;
+				stack.push(child);
+			}
+		}
+		return count;
+	}
+
+	private static ItpRefutation padded(final List<Expr<BoolType>> itps, final int length) {
+		final List<Expr<BoolType>> sequence = new ArrayList<>(length);
+		sequence.addAll(itps.subList(0, Math.min(itps.size(), length)));
+		while (sequence.size() < length) {
+			sequence.add(False());
+		}
+		return ItpRefutation.sequence(sequence);
+	}
+
+	public ExprTraceCacheStatistics getStatistics() {
+		return new ExprTraceCacheStatistics(hits, prefixHits, misses, insertions, nodes, clears);
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(checker).toString();
+	}
+
+	private static final class Node {
+		private final Map<Object, Node> children = new HashMap<>();
+		private List<Expr<BoolType>> prefixItps = null;
+		private ItpRefutation refutation = null;
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.common.Tuple2;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.PathUtils;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+import hu.bme.mit.theta.solver.Interpolant;
+import hu.bme.mit.theta.solver.ItpMarker;
+import hu.bme.mit.theta.solver.ItpPattern;
+import hu.bme.mit.theta.solver.ItpSolver;
+
+/**
+ * An ExprTraceChecker that generates a sequence interpolant like
+ * {@link ExprTraceSeqItpChecker}, but incrementally: each step of the trace
+ * (a state and the action leading to it) is asserted in its own solver frame
+ * with its own marker, and the frames are kept after the check. The next
+ * trace only pops the frames after the longest common prefix with the
+ * previous one, so consecutive counterexamples sharing long prefixes (e.g.,
+ * in the same ARG) are not unfolded and asserted again. Unfolded formulas are
+ * also cached, so that steps that reappear at the same indexing are not
+ * unfolded again.
+ * <p>
+ * Since assertions are kept in the solver between checks, the solver must not
+ * be used by anything else (e.g., the abstractor).
+ */
+public final class ExprTraceIncrementalSeqItpChecker implements ExprTraceChecker<ItpRefutation> {
+
+	private static final int UNFOLD_CACHE_SIZE = 10_000;
+
+	private final ItpSolver solver;
+	private final Expr<BoolType> init;
+	private final Expr<BoolType> target;
+	private final Cache<Tuple2<Expr<BoolType>, VarIndexing>, Expr<BoolType>> unfoldCache;
+
+	// Step i of the previous trace is asserted in frame i with marker i
+	private final List<ExprState> states;
+	private final List<ExprAction> actions;
+	private final List<VarIndexing> indexings;
+	private final List<ItpMarker> markers;
+	private boolean targetAsserted;
+
+	private ExprTraceIncrementalSeqItpChecker(final Expr<BoolType> init, final Expr<BoolType> target,
+											  final ItpSolver solver) {
+		this.solver = checkNotNull(solver);
+		this.init = checkNotNull(init);
+		this.target = checkNotNull(target);
+		this.unfoldCache = CacheBuilder.newBuilder().maximumSize(UNFOLD_CACHE_SIZE).build();
+		this.states = new ArrayList<>();
+		this.actions = new ArrayList<>();
+		this.indexings = new ArrayList<>();
+		this.markers = new ArrayList<>();
+		this.targetAsserted = false;
+	}
+
+	public static ExprTraceIncrementalSeqItpChecker create(final Expr<BoolType> init, final Expr<BoolType> target,
+														   final ItpSolver solver) {
+		return new ExprTraceIncrementalSeqItpChecker(init, target, solver);
+	}
+
+	@Override
+	public ExprTraceStatus<ItpRefutation> check(final Trace<? extends ExprState, ? extends ExprAction> trace) {
+		checkNotNull(trace);
+		try {
+			return checkIncrementally(trace);
+		} catch (final RuntimeException e) {
+			// The frames may not match the steps anymore, the solver is ours
+			clear();
+			throw e;
+		}
+	}
+
+	private ExprTraceStatus<ItpRefutation> checkIncrementally(
+			final Trace<? extends ExprState, ? extends ExprAction> trace) {
+		final int stateCount = trace.getStates().size();
+
+		if (targetAsserted) {
+			solver.pop();
+			targetAsserted = false;
+		}
+
+		int common = 0;
+		while (common < states.size() && common < stateCount && states.get(common).equals(trace.getState(common))
+				&& (common == 0 || actions.get(common - 1).equals(trace.getAction(common - 1)))) {
+			++common;
+		}
+		truncate(common);
+
+		for (int i = common; i < stateCount; ++i) {
+			solver.push();
+			final ItpMarker marker = solver.createMarker();
+			if (i == 0) {
+				indexings.add(VarIndexing.all(0));
+				solver.add(marker, unfold(init, indexings.get(0)));
+			} else {
+				final ExprAction action = trace.getAction(i - 1);
+				indexings.add(indexings.get(i - 1).add(action.nextIndexing()));
+				solver.add(marker, unfold(action.toExpr(), indexings.get(i - 1)));
+				actions.add(action);
+			}
+			solver.add(marker, unfold(trace.getState(i).toExpr(), indexings.get(i)));
+			states.add(trace.getState(i));
+			markers.add(marker);
+		}
+
+		solver.push();
+		targetAsserted = true;
+		final ItpMarker targetMarker = solver.createMarker();
+		solver.add(targetMarker, unfold(target, indexings.get(stateCount - 1)));
+
+		final boolean concretizable = solver.check().isSat();
+
+		if (concretizable) {
+			final Valuation model = solver.getModel();
+			final ImmutableList.Builder<Valuation> builder = ImmutableList.builder();
+			for (final VarIndexing indexing : indexings) {
+				builder.add(PathUtils.extractValuation(model, indexing));
+			}
+			return ExprTraceStatus.feasible(Trace.of(builder.build(), trace.getActions()));
+		} else {
+			final List<ItpMarker> allMarkers = new ArrayList<>(markers);
+			allMarkers.add(targetMarker);
+			final ItpPattern pattern = solver.createSeqPattern(allMarkers);
+			final Interpolant interpolant = solver.getInterpolant(pattern);
+			final List<Expr<BoolType>> interpolants = new ArrayList<>(stateCount);
+			for (int i = 0; i < stateCount; ++i) {
+				interpolants.add(PathUtils.foldin(interpolant.eval(markers.get(i)), indexings.get(i)));
+			}
+			return ExprTraceStatus.infeasible(ItpRefutation.sequence(interpolants));
+		}
+	}
+
+	private Expr<BoolType> unfold(final Expr<BoolType> expr, final VarIndexing indexing) {
+		final Tuple2<Expr<BoolType>, VarIndexing> key = Tuple2.of(expr, indexing);
+		Expr<BoolType> unfolded = unfoldCache.getIfPresent(key);
+		if (unfolded == null) {
+			unfolded = PathUtils.unfold(expr, indexing);
+			unfoldCache.put(key, unfolded);
+		}
+		return unfolded;
+	}
+
+	private void truncate(final int steps) {
+		final int popped = states.size() - steps;
+		if (popped > 0) {
+			solver.pop(popped);
+			states.subList(steps, states.size()).clear();
+			actions.subList(Math.max(steps - 1, 0), actions.size()).clear();
+			indexings.subList(steps, indexings.size()).clear();
+			markers.subList(steps, markers.size()).clear();
+		}
+	}
+
+	private void clear() {
+		solver.reset();
+		states.clear();
+		actions.clear();
+		indexings.clear();
+		markers.clear();
+		targetAsserted = false;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName();
+	}
+}
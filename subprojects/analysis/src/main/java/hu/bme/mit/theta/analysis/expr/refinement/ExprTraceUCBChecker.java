@@ -142,13 +142,15 @@ private ExprTraceStatus<ItpRefutation> check2(final Trace<? extends ExprState, ?
         final List<Expr<BoolType>> predicates = new ArrayList<>();
 
         var constCount = 0;
-        for(var i = 0; i < stateCount; i++) {
-            try(final var wpp = new WithPushPop(solver)) {
+        /* The regions are checked under assumptions in a single scope, so that the solver stays warm */
+        try(final var wpp = new WithPushPop(solver)) {
+            for(var i = 0; i < stateCount; i++) {
                 final List<Expr<BoolType>> dataRegion = new ArrayList<>();
+                final List<Expr<BoolType>> assumptions = new ArrayList<>();
 
                 /* Calculate SP */
                 if (i == 0) {
-                    solver.track(True());
+                    assumptions.add(True());
                     dataRegion.add(True());
                 } else /* i > 0 */ {
                     var spState = SpState.of(PathUtils.foldin(predicates.get(i - 1), indexings.get(i - 1)), constCount);
@@ -158,15 +160,15 @@ private ExprTraceStatus<ItpRefutation> check2(final Trace<? extends ExprState, ?
 
                     final var expr = PathUtils.unfold(spState.getExpr(), indexings.get(i));
                     constCount = spState.getConstCount();
-                    solver.track(ExprUtils.getConjuncts(expr));
+                    assumptions.addAll(ExprUtils.getConjuncts(expr));
                     dataRegion.addAll(ExprUtils.getConjuncts(expr));
                 }
 
                 /* Add wp */
-                solver.track(ExprUtils.getConjuncts(wps.get(i)));
+                assumptions.addAll(ExprUtils.getConjuncts(wps.get(i)));
 
-                solver.check();
-                assert solver.check().isUnsat(); // It must be unsat
+                final var status = solver.check(assumptions);
+                assert status.isUnsat(); // It must be unsat
                 Collection<Expr<BoolType>> uc = solver.getUnsatCore();
 
                 /* Keep only those expressions from uc that are not in the data region */
@@ -15,12 +15,27 @@
  */
 package hu.bme.mit.theta.analysis.expr.refinement;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
@@ -32,28 +47,86 @@ import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.analysis.expr.ExprState;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.solver.ItpSolver;
 
+/**
+ * Refiner that checks all counterexamples of the ARG and refines the
+ * precision based on all of their refutations. In parallel mode (see
+ * {@link #createParallel}) the traces are checked concurrently, each worker
+ * with its own checker on its own ItpSolver. The solvers are created when a
+ * worker is first needed and kept (together with their checkers, which may
+ * keep assertions and caches between checks) for the lifetime of the
+ * refiner, so the checkers are not recreated in each refinement. The threads
+ * of the workers are also reused between refinements, and they terminate
+ * when they are idle for a while. Once a feasible
+ * trace is found, traces after it are not started anymore, but the ones
+ * before it are still checked, so the result (the first feasible trace or the
+ * refutations in the order of the traces) is the same as in sequential mode.
+ */
 public final class MultiExprTraceRefiner<S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation>
 		implements Refiner<S, A, P> {
 
 	private final ExprTraceChecker<R> exprTraceChecker;
+	private final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory;
+	private final Supplier<? extends ItpSolver> solverSupplier;
+	private final int threads;
 	private final PrecRefiner<S, A, P, R> precRefiner;
 	private final PruneStrategy pruneStrategy;
 	private final Logger logger;
+	// Checkers of the workers in parallel mode, each on its own solver
+	private final List<ExprTraceChecker<R>> workerCheckers;
+	private final ExecutorService executor;
+
+	private static final long IDLE_THREAD_SECONDS = 60;
+
+	private long refinements = 0;
+	private long skippedTraces = 0;
+	private long checkTimeMs = 0;
+	private final List<Long> traceTimesMs = new ArrayList<>();
 
 	private MultiExprTraceRefiner(final ExprTraceChecker<R> exprTraceChecker,
+								  final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory,
+								  final Supplier<? extends ItpSolver> solverSupplier, final int threads,
 								  final PrecRefiner<S, A, P, R> precRefiner,
 								  final PruneStrategy pruneStrategy, final Logger logger) {
-		this.exprTraceChecker = checkNotNull(exprTraceChecker);
+		this.exprTraceChecker = exprTraceChecker;
+		this.checkerFactory = checkerFactory;
+		this.solverSupplier = solverSupplier;
+		this.threads = threads;
 		this.precRefiner = checkNotNull(precRefiner);
 		this.pruneStrategy = checkNotNull(pruneStrategy);
 		this.logger = checkNotNull(logger);
+		this.workerCheckers = new ArrayList<>();
+		if (exprTraceChecker == null) {
+			final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_THREAD_SECONDS,
+					TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+					new ThreadFactoryBuilder().setDaemon(true).setNameFormat("refiner-%d").build());
+			pool.allowCoreThreadTimeOut(true);
+			this.executor = pool;
+		} else {
+			this.executor = null;
+		}
 	}
 
 	public static <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> MultiExprTraceRefiner<S, A, P, R> create(
 			final ExprTraceChecker<R> exprTraceChecker, final PrecRefiner<S, A, P, R> precRefiner,
 			final PruneStrategy pruneStrategy, final Logger logger) {
-		return new MultiExprTraceRefiner<>(exprTraceChecker, precRefiner, pruneStrategy, logger);
+		return new MultiExprTraceRefiner<>(checkNotNull(exprTraceChecker), null, null, 1, precRefiner, pruneStrategy,
+				logger);
+	}
+
+	/**
+	 * Create a refiner that checks the traces on multiple threads. Each
+	 * worker gets its own ItpSolver from the supplier once and creates its own
+	 * checker for it with the given factory.
+	 */
+	public static <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> MultiExprTraceRefiner<S, A, P, R> createParallel(
+			final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory,
+			final Supplier<? extends ItpSolver> solverSupplier, final int threads,
+			final PrecRefiner<S, A, P, R> precRefiner, final PruneStrategy pruneStrategy, final Logger logger) {
+		checkArgument(threads > 0, "Number of threads must be positive");
+		return new MultiExprTraceRefiner<>(null, checkNotNull(checkerFactory), checkNotNull(solverSupplier), threads,
+				precRefiner, pruneStrategy, logger);
 	}
 
 	@Override
@@ -63,26 +136,23 @@ public final class MultiExprTraceRefiner<S extends ExprState, A extends ExprActi
 		assert !arg.isSafe() : "ARG must be unsafe";
 
 		final List<ArgTrace<S, A>> cexs = arg.getCexs().collect(Collectors.toList());
-		final List<Trace<S, A>> traces = arg.getCexs().map(ArgTrace::toTrace).collect(Collectors.toList());
+		final List<Trace<S, A>> traces = cexs.stream().map(ArgTrace::toTrace).collect(Collectors.toList());
 		assert traces.size() == cexs.size();
 
 		logger.write(Level.INFO, "|  |  Number of traces: %d%n", traces.size());
 		assert traces.size() > 0 : "No counterexample in ARG";
 
 		logger.write(Level.SUBSTEP, "|  |  Checking traces...");
-		final List<ExprTraceStatus<R>> cexStatuses = new ArrayList<>(traces.size());
-		for (final Trace<S, A> trace : traces) {
-			final ExprTraceStatus<R> status = exprTraceChecker.check(trace);
-			cexStatuses.add(status);
-			if (status.isFeasible()) {
-				break;
-			}
-		}
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final List<ExprTraceStatus<R>> cexStatuses = exprTraceChecker != null ? checkSequential(traces)
+				: checkParallel(traces);
+		checkTimeMs += stopwatch.elapsed(TimeUnit.MILLISECONDS);
+		refinements++;
 
-		if (cexStatuses.stream().anyMatch(ExprTraceStatus::isFeasible)) {
+		final int firstFeasible = indexOfFirstFeasible(cexStatuses);
+		if (firstFeasible >= 0) {
 			logger.write(Level.SUBSTEP, "done, result: found feasible%n");
-			return RefinerResult.unsafe(traces.get(
-					cexStatuses.indexOf(cexStatuses.stream().filter(ExprTraceStatus::isFeasible).findFirst().get())));
+			return RefinerResult.unsafe(traces.get(firstFeasible));
 		} else {
 			assert cexStatuses.size() == cexs.size();
 			logger.write(Level.SUBSTEP, "done, result: all infeasible%n");
@@ -136,4 +206,113 @@ public final class MultiExprTraceRefiner<S extends ExprState, A extends ExprActi
 
 	}
 
-}
\ No newline at end of file
+	public MultiExprTraceRefinerStatistics getStatistics() {
+		return new MultiExprTraceRefinerStatistics(refinements, skippedTraces, checkTimeMs, traceTimesMs);
+	}
+
+	private List<ExprTraceStatus<R>> checkSequential(final List<Trace<S, A>> traces) {
+		final List<ExprTraceStatus<R>> cexStatuses = new ArrayList<>(traces.size());
+		for (final Trace<S, A> trace : traces) {
+			final Stopwatch stopwatch = Stopwatch.createStarted();
+			final ExprTraceStatus<R> status = exprTraceChecker.check(trace);
+			traceTimesMs.add(stopwatch.elapsed(TimeUnit.MILLISECONDS));
+			cexStatuses.add(status);
+			if (status.isFeasible()) {
+				break;
+			}
+		}
+		skippedTraces += traces.size() - cexStatuses.size();
+		return cexStatuses;
+	}
+
+	/**
+	 * Check the traces on multiple threads. Workers take the traces in order,
+	 * and a trace is skipped if a feasible trace with a smaller index was
+	 * already found. The statuses are returned up to (and including) the
+	 * first feasible trace, just like in the sequential case.
+	 */
+	private List<ExprTraceStatus<R>> checkParallel(final List<Trace<S, A>> traces) {
+		final int nThreads = Math.min(threads, traces.size());
+		while (workerCheckers.size() < nThreads) {
+			workerCheckers.add(checkerFactory.apply(solverSupplier.get()));
+		}
+		final AtomicInteger next = new AtomicInteger(0);
+		final AtomicInteger firstFeasible = new AtomicInteger(Integer.MAX_VALUE);
+		// Each slot is written by a single worker, and read after the workers are joined
+		@SuppressWarnings("unchecked") final ExprTraceStatus<R>[] statuses = new ExprTraceStatus[traces.size()];
+		final long[] timesMs = new long[traces.size()];
+		Arrays.fill(timesMs, -1);
+
+		final List<Future<Void>> futures = new ArrayList<>(nThreads);
+		try {
+			for (int t = 0; t < nThreads; t++) {
+				final ExprTraceChecker<R> checker = workerCheckers.get(t);
+				final Callable<Void> task = () -> {
+					int i;
+					while ((i = next.getAndIncrement()) < traces.size() && i < firstFeasible.get()) {
+						final Stopwatch stopwatch = Stopwatch.createStarted();
+						final ExprTraceStatus<R> status = checker.check(traces.get(i));
+						timesMs[i] = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+						statuses[i] = status;
+						if (status.isFeasible()) {
+							firstFeasible.accumulateAndGet(i, Math::min);
+						}
+					}
+					return null;
+				};
+				futures.add(executor.submit(task));
+			}
+			for (final Future<Void> future : futures) {
+				getResult(future);
+			}
+		} finally {
+			// Workers are stopped if checking failed in an other worker
+			for (final Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+
+		final int end = firstFeasible.get() == Integer.MAX_VALUE ? traces.size() : firstFeasible.get() + 1;
+		final List<ExprTraceStatus<R>> cexStatuses = new ArrayList<>(end);
+		for (int i = 0; i < end; i++) {
+			assert statuses[i] != null;
+			cexStatuses.add(statuses[i]);
+		}
+		for (final long timeMs : timesMs) {
+			if (timeMs >= 0) {
+				traceTimesMs.add(timeMs);
+			} else {
+				skippedTraces++;
+			}
+		}
+		return cexStatuses;
+	}
+
+	private static <R extends Refutation> int indexOfFirstFeasible(final List<ExprTraceStatus<R>> statuses) {
+		for (int i = 0; i < statuses.size(); i++) {
+			if (statuses.get(i).isFeasible()) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static <T> T getResult(final Future<T> future) {
+		try {
+			return future.get();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while checking traces", e);
+		} catch (final ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,89 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+/**
+ * Snapshot of the statistics of a {@link MultiExprTraceRefiner}, cumulative
+ * over all refinements.
+ */
+public final class MultiExprTraceRefinerStatistics extends Statistics {
+	private final long refinements;
+	private final long skippedTraces;
+	private final long checkTimeMs;
+	private final List<Long> traceTimesMs;
+
+	MultiExprTraceRefinerStatistics(final long refinements, final long skippedTraces, final long checkTimeMs,
+									final List<Long> traceTimesMs) {
+		this.refinements = refinements;
+		this.skippedTraces = skippedTraces;
+		this.checkTimeMs = checkTimeMs;
+		this.traceTimesMs = ImmutableList.copyOf(traceTimesMs);
+
+		addStat("Refinements", this::getRefinements);
+		addStat("CheckedTraces", this::getCheckedTraces);
+		addStat("SkippedTraces", this::getSkippedTraces);
+		addStat("CheckTimeMs", this::getCheckTimeMs);
+		addStat("TotalTraceTimeMs", this::getTotalTraceTimeMs);
+		addStat("MaxTraceTimeMs", this::getMaxTraceTimeMs);
+	}
+
+	public long getRefinements() {
+		return refinements;
+	}
+
+	public long getCheckedTraces() {
+		return traceTimesMs.size();
+	}
+
+	/**
+	 * Gets the number of traces that were not checked, because a feasible
+	 * trace was found before them.
+	 */
+	public long getSkippedTraces() {
+		return skippedTraces;
+	}
+
+	/**
+	 * Gets the wall-clock time spent on checking traces.
+	 */
+	public long getCheckTimeMs() {
+		return checkTimeMs;
+	}
+
+	/**
+	 * Gets the time of checking each trace, in the order of the refinements
+	 * and of the traces within a refinement. In parallel mode the sum of these
+	 * can exceed {@link #getCheckTimeMs()}.
+	 */
+	public List<Long> getTraceTimesMs() {
+		return traceTimesMs;
+	}
+
+	public long getTotalTraceTimeMs() {
+		return traceTimesMs.stream().mapToLong(Long::longValue).sum();
+	}
+
+	public long getMaxTraceTimeMs() {
+		return traceTimesMs.stream().mapToLong(Long::longValue).max().orElse(0);
+	}
+
+}
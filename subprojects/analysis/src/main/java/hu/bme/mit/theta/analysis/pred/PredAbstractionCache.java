@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import hu.bme.mit.theta.common.Tuple4;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+
+/**
+ * Bounded cache for the results of predicate abstraction, keyed on the
+ * abstracted expression, the precision and their indexings. The cache is
+ * thread-safe, so it can be shared between multiple abstractors (e.g., one for
+ * each thread). Results are softly referenced and may be evicted when memory
+ * runs low. Since precisions only grow during CEGAR, entries computed in an
+ * earlier iteration are hit again for states where the precision did not
+ * change.
+ */
+public final class PredAbstractionCache {
+
+	private final Cache<Tuple4<Expr<BoolType>, VarIndexing, PredPrec, VarIndexing>, Collection<PredState>> cache;
+	private final long maxSize;
+
+	private PredAbstractionCache(final long maxSize) {
+		checkArgument(maxSize > 0, "Cache size must be positive");
+		this.maxSize = maxSize;
+		this.cache = CacheBuilder.newBuilder().maximumSize(maxSize).softValues().recordStats().build();
+	}
+
+	public static PredAbstractionCache create(final long maxSize) {
+		return new PredAbstractionCache(maxSize);
+	}
+
+	Collection<PredState> get(final Expr<BoolType> expr, final VarIndexing exprIndexing, final PredPrec prec,
+							  final VarIndexing precIndexing, final Supplier<Collection<PredState>> abstraction) {
+		try {
+			return cache.get(Tuple4.of(expr, exprIndexing, prec, precIndexing),
+					() -> ImmutableList.copyOf(abstraction.get()));
+		} catch (final ExecutionException | UncheckedExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new IllegalStateException(cause);
+			}
+		}
+	}
+
+	public long getHitCount() {
+		return cache.stats().hitCount();
+	}
+
+	public long getMissCount() {
+		return cache.stats().missCount();
+	}
+
+	public long size() {
+		return cache.size();
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	@Override
+	public String toString() {
+		final CacheStats stats = cache.stats();
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("size " + maxSize)
+				.add("hits " + stats.hitCount()).add("misses " + stats.missCount()).toString();
+	}
+
+}
@@ -18,23 +18,21 @@ package hu.bme.mit.theta.analysis.pred;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Iff;
-import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.core.decl.ConstDecl;
 import hu.bme.mit.theta.core.decl.Decls;
-import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolExprs;
@@ -42,10 +40,15 @@ import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.core.utils.VarIndexing;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.ProjectedAllSat;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 import hu.bme.mit.theta.solver.utils.WithPushPop;
 
 /**
- * Strategies for performing predicate abstraction over an expression.
+ * Strategies for performing predicate abstraction over an expression. The
+ * strategies created from a {@link SolverProvider} acquire a solver for each
+ * abstraction, so they are thread-safe if the provider is.
  */
 public class PredAbstractors {
 
@@ -76,7 +79,11 @@ public class PredAbstractors {
 	 * @return
 	 */
 	public static PredAbstractor booleanSplitAbstractor(final Solver solver) {
-		return new BooleanAbstractor(solver, true);
+		return booleanSplitAbstractor(SolverProviders.of(solver));
+	}
+
+	public static PredAbstractor booleanSplitAbstractor(final SolverProvider solverProvider) {
+		return new BooleanAbstractor(solverProvider, true);
 	}
 
 	/**
@@ -87,7 +94,11 @@ public class PredAbstractors {
 	 * @return
 	 */
 	public static PredAbstractor booleanAbstractor(final Solver solver) {
-		return new BooleanAbstractor(solver, false);
+		return booleanAbstractor(SolverProviders.of(solver));
+	}
+
+	public static PredAbstractor booleanAbstractor(final SolverProvider solverProvider) {
+		return new BooleanAbstractor(solverProvider, false);
 	}
 
 	/**
@@ -97,22 +108,37 @@ public class PredAbstractors {
 	 * @return
 	 */
 	public static PredAbstractor cartesianAbstractor(final Solver solver) {
-		return new CartesianAbstractor(solver);
+		return cartesianAbstractor(SolverProviders.of(solver));
+	}
+
+	public static PredAbstractor cartesianAbstractor(final SolverProvider solverProvider) {
+		return new CartesianAbstractor(solverProvider);
+	}
+
+	/**
+	 * Get a strategy that looks up the result of another strategy in a cache
+	 * before performing the abstraction.
+	 *
+	 * @param abstractor
+	 * @param cache
+	 * @return
+	 */
+	public static PredAbstractor cachingAbstractor(final PredAbstractor abstractor, final PredAbstractionCache cache) {
+		return new CachingAbstractor(abstractor, cache);
 	}
 
 	private static final class BooleanAbstractor implements PredAbstractor {
 
-		private final Solver solver;
+		private final SolverProvider solverProvider;
 		private final List<ConstDecl<BoolType>> actLits;
 		private final String litPrefix;
-		private static int instanceCounter = 0;
+		private static final AtomicInteger instanceCounter = new AtomicInteger();
 		private final boolean split;
 
-		public BooleanAbstractor(final Solver solver, final boolean split) {
-			this.solver = checkNotNull(solver);
+		public BooleanAbstractor(final SolverProvider solverProvider, final boolean split) {
+			this.solverProvider = checkNotNull(solverProvider);
 			this.actLits = new ArrayList<>();
-			this.litPrefix = "__" + getClass().getSimpleName() + "_" + instanceCounter + "_";
-			instanceCounter++;
+			this.litPrefix = "__" + getClass().getSimpleName() + "_" + instanceCounter.getAndIncrement() + "_";
 			this.split = split;
 		}
 
@@ -125,98 +151,125 @@ public class PredAbstractors {
 			checkNotNull(precIndexing);
 
 			final List<Expr<BoolType>> preds = new ArrayList<>(prec.getPreds());
-			generateActivationLiterals(preds.size());
+			final int[] indices = prec.getIndices();
+			final List<ConstDecl<BoolType>> lits = getActivationLiterals(preds.size());
 
-			assert actLits.size() >= preds.size();
+			assert indices.length == preds.size();
 
-			final List<PredState> states = new LinkedList<>();
-			try (WithPushPop wp = new WithPushPop(solver)) {
-				solver.add(PathUtils.unfold(expr, exprIndexing));
+			final List<Expr<BoolType>> conjuncts = new ArrayList<>(preds.size() + 1);
+			conjuncts.add(PathUtils.unfold(expr, exprIndexing));
+			for (int i = 0; i < preds.size(); ++i) {
+				conjuncts.add(Iff(lits.get(i).getRef(), PathUtils.unfold(preds.get(i), precIndexing)));
+			}
+			final List<LitExpr<?>[]> models;
+			try (SolverProvider.Handle handle = solverProvider.acquire()) {
+				// The activation literals are defined by the expression, so
+				// shrinking the blocking clauses would not drop any of them
+				models = ProjectedAllSat.create(handle.get(), false).enumerate(And(conjuncts), lits, 0);
+			}
+
+			final List<PredState> states = new ArrayList<>(models.size());
+			for (final LitExpr<?>[] values : models) {
+				final BitSet positive = new BitSet();
+				final BitSet negative = new BitSet();
 				for (int i = 0; i < preds.size(); ++i) {
-					solver.add(Iff(actLits.get(i).getRef(), PathUtils.unfold(preds.get(i), precIndexing)));
-				}
-				while (solver.check().isSat()) {
-					final Valuation model = solver.getModel();
-					final Set<Expr<BoolType>> newStatePreds = new HashSet<>();
-					final List<Expr<BoolType>> feedback = new LinkedList<>();
-					feedback.add(True());
-					for (int i = 0; i < preds.size(); ++i) {
-						final ConstDecl<BoolType> lit = actLits.get(i);
-						final Expr<BoolType> pred = preds.get(i);
-						final Optional<LitExpr<BoolType>> eval = model.eval(lit);
-						if (eval.isPresent()) {
-							if (eval.get().equals(True())) {
-								newStatePreds.add(pred);
-								feedback.add(lit.getRef());
-							} else {
-								newStatePreds.add(prec.negate(pred));
-								feedback.add(Not(lit.getRef()));
-							}
+					if (values[i] != null) {
+						if (values[i].equals(True())) {
+							positive.set(indices[i]);
+						} else {
+							negative.set(indices[i]);
 						}
 					}
-					states.add(PredState.of(newStatePreds));
-					solver.add(Not(And(feedback)));
 				}
+				states.add(PredState.of(prec, positive, negative));
 			}
 			if (!split && states.size() > 1) {
 				final Expr<BoolType> pred = Or(states.stream().map(PredState::toExpr).collect(Collectors.toList()));
-				return Collections.singleton(PredState.of(pred));
+				// The disjunction is not registered in the index of predicates
+				return Collections.singleton(PredState.of(prec, pred));
 			} else {
 				return states;
 			}
 		}
 
-		private void generateActivationLiterals(final int n) {
+		private synchronized List<ConstDecl<BoolType>> getActivationLiterals(final int n) {
 			while (actLits.size() < n) {
 				actLits.add(Decls.Const(litPrefix + actLits.size(), BoolExprs.Bool()));
 			}
+			return ImmutableList.copyOf(actLits.subList(0, n));
 		}
 	}
 
 	private static final class CartesianAbstractor implements PredAbstractor {
 
-		private final Solver solver;
+		private final SolverProvider solverProvider;
 
-		public CartesianAbstractor(final Solver solver) {
-			this.solver = solver;
+		public CartesianAbstractor(final SolverProvider solverProvider) {
+			this.solverProvider = checkNotNull(solverProvider);
 		}
 
 		@Override
 		public Collection<PredState> createStatesForExpr(final Expr<BoolType> expr, final VarIndexing exprIndexing,
 														 final PredPrec prec, final VarIndexing precIndexing) {
-			final List<Expr<BoolType>> newStatePreds = new ArrayList<>();
+			final BitSet positive = new BitSet();
+			final BitSet negative = new BitSet();
+			final int[] indices = prec.getIndices();
+			int i = 0;
 
-			try (WithPushPop wp = new WithPushPop(solver)) {
+			try (SolverProvider.Handle handle = solverProvider.acquire();
+				 WithPushPop wp = new WithPushPop(handle.get())) {
+				final Solver solver = handle.get();
 				solver.add(PathUtils.unfold(expr, exprIndexing));
 				solver.check();
 				if (solver.getStatus().isUnsat()) {
 					return Collections.emptySet();
 				}
 
+				// Entailment is checked under assumptions, which keeps what the
+				// solver learned about the expression between the predicates
 				for (final Expr<BoolType> pred : prec.getPreds()) {
-					final boolean ponEntailed;
-					final boolean negEntailed;
-					try (WithPushPop wp1 = new WithPushPop(solver)) {
-						solver.add(PathUtils.unfold(prec.negate(pred), precIndexing));
-						ponEntailed = solver.check().isUnsat();
-					}
-					try (WithPushPop wp2 = new WithPushPop(solver)) {
-						solver.add(PathUtils.unfold(pred, precIndexing));
-						negEntailed = solver.check().isUnsat();
-					}
+					final boolean ponEntailed = solver
+							.check(Collections.singleton(PathUtils.unfold(prec.negate(pred), precIndexing)))
+							.isUnsat();
+					final boolean negEntailed = solver
+							.check(Collections.singleton(PathUtils.unfold(pred, precIndexing))).isUnsat();
 
 					assert !(ponEntailed && negEntailed) : "Ponated and negated predicates are both entailed.";
 
 					if (ponEntailed) {
-						newStatePreds.add(pred);
+						positive.set(indices[i]);
 					}
 					if (negEntailed) {
-						newStatePreds.add(prec.negate(pred));
+						negative.set(indices[i]);
 					}
+					i++;
 				}
 			}
 
-			return Collections.singleton(PredState.of(newStatePreds));
+			return Collections.singleton(PredState.of(prec, positive, negative));
+		}
+
+	}
+
+	private static final class CachingAbstractor implements PredAbstractor {
+
+		private final PredAbstractor abstractor;
+		private final PredAbstractionCache cache;
+
+		public CachingAbstractor(final PredAbstractor abstractor, final PredAbstractionCache cache) {
+			this.abstractor = checkNotNull(abstractor);
+			this.cache = checkNotNull(cache);
+		}
+
+		@Override
+		public Collection<PredState> createStatesForExpr(final Expr<BoolType> expr, final VarIndexing exprIndexing,
+														 final PredPrec prec, final VarIndexing precIndexing) {
+			checkNotNull(expr);
+			checkNotNull(exprIndexing);
+			checkNotNull(prec);
+			checkNotNull(precIndexing);
+			return cache.get(expr, exprIndexing, prec, precIndexing,
+					() -> abstractor.createStatesForExpr(expr, exprIndexing, prec, precIndexing));
 		}
 
 	}
@@ -17,35 +17,48 @@ package hu.bme.mit.theta.analysis.pred;
 
 import hu.bme.mit.theta.analysis.Analysis;
 import hu.bme.mit.theta.analysis.InitFunc;
-import hu.bme.mit.theta.analysis.PartialOrd;
 import hu.bme.mit.theta.analysis.TransFunc;
 import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
 public final class PredAnalysis implements Analysis<PredState, ExprAction, PredPrec> {
 
-	private final PartialOrd<PredState> partialOrd;
+	private final PredOrd partialOrd;
 	private final InitFunc<PredState, PredPrec> initFunc;
 	private final TransFunc<PredState, ExprAction, PredPrec> transFunc;
 
-	private PredAnalysis(final Solver solver, final PredAbstractor predAbstractor, final Expr<BoolType> initExpr) {
-		partialOrd = PredOrd.create(solver);
+	private PredAnalysis(final SolverProvider solverProvider, final PredAbstractor predAbstractor,
+						 final Expr<BoolType> initExpr) {
+		partialOrd = PredOrd.create(solverProvider);
 		initFunc = PredInitFunc.create(predAbstractor, initExpr);
 		transFunc = PredTransFunc.create(predAbstractor);
 	}
 
 	public static PredAnalysis create(final Solver solver, final PredAbstractor predAbstractor,
 									  final Expr<BoolType> initExpr) {
-		return new PredAnalysis(solver, predAbstractor, initExpr);
+		return new PredAnalysis(SolverProviders.of(solver), predAbstractor, initExpr);
+	}
+
+	/**
+	 * Create an analysis that acquires a solver from a provider for each
+	 * query. With a thread-safe provider and abstractor (e.g., one created by
+	 * {@link PredAbstractors} from the same provider) the analysis can be
+	 * shared between threads.
+	 */
+	public static PredAnalysis create(final SolverProvider solverProvider, final PredAbstractor predAbstractor,
+									  final Expr<BoolType> initExpr) {
+		return new PredAnalysis(solverProvider, predAbstractor, initExpr);
 	}
 
 	////
 
 	@Override
-	public PartialOrd<PredState> getPartialOrd() {
+	public PredOrd getPartialOrd() {
 		return partialOrd;
 	}
 
@@ -0,0 +1,149 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.booltype.NotExpr;
+
+/**
+ * Table assigning a stable index to each predicate. Predicate states and
+ * precisions are bitsets over these indices, so states created with different
+ * precisions (e.g., in different CEGAR iterations) can be compared on their
+ * bits. A predicate is a non-negated expression: a literal is either a
+ * predicate or its negation.
+ * <p>
+ * States and precisions keep a reference to the table they were created with,
+ * and new ones are created with the same table as long as any of them is
+ * alive. Once an analysis and its results are discarded, the table is garbage
+ * collected and the next analysis starts with a new one. Indices are only
+ * appended, the table is not shrunk while in use. The predicate False always
+ * has index 0.
+ */
+final class PredIndex {
+
+	static final int FALSE_INDEX = 0;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static volatile WeakReference<PredIndex> current = new WeakReference<>(null);
+
+	private final Map<Expr<BoolType>, Integer> indices;
+	// Arrays are replaced when grown, and published after the new predicate
+	// is written, so they are safe to read for any index returned by indexOf
+	private volatile Object[] preds;
+	private volatile Object[] negatedPreds;
+	private int size;
+
+	private PredIndex() {
+		indices = new ConcurrentHashMap<>();
+		preds = new Object[INITIAL_CAPACITY];
+		negatedPreds = new Object[INITIAL_CAPACITY];
+		size = 0;
+		indexOf(False());
+	}
+
+	/**
+	 * Gets the table used by the states and precisions that are alive, or a
+	 * new one if there are none.
+	 */
+	static PredIndex get() {
+		final PredIndex index = current.get();
+		if (index != null) {
+			return index;
+		}
+		synchronized (PredIndex.class) {
+			PredIndex newIndex = current.get();
+			if (newIndex == null) {
+				newIndex = new PredIndex();
+				current = new WeakReference<>(newIndex);
+			}
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Gets the index of a (non-negated) predicate, assigning a new one if the
+	 * predicate is not yet indexed.
+	 */
+	int indexOf(final Expr<BoolType> pred) {
+		checkNotNull(pred);
+		final Integer index = indices.get(pred);
+		if (index != null) {
+			return index;
+		}
+		synchronized (this) {
+			final Integer existing = indices.get(pred);
+			if (existing != null) {
+				return existing;
+			}
+			final int newIndex = size;
+			Object[] newPreds = preds;
+			Object[] newNegatedPreds = negatedPreds;
+			if (newIndex == newPreds.length) {
+				newPreds = Arrays.copyOf(newPreds, 2 * newIndex);
+				newNegatedPreds = Arrays.copyOf(newNegatedPreds, 2 * newIndex);
+			}
+			newPreds[newIndex] = pred;
+			newNegatedPreds[newIndex] = Not(pred);
+			preds = newPreds;
+			negatedPreds = newNegatedPreds;
+			size = newIndex + 1;
+			indices.put(pred, newIndex);
+			return newIndex;
+		}
+	}
+
+	/**
+	 * Gets the index of a (non-negated) predicate, or -1 if it is not indexed.
+	 * Unlike {@link #indexOf(Expr)}, this never modifies the table.
+	 */
+	int find(final Expr<BoolType> pred) {
+		checkNotNull(pred);
+		return indices.getOrDefault(pred, -1);
+	}
+
+	/**
+	 * Gets the literal code of an expression: twice the index of its predicate,
+	 * plus one if the expression is the negation of the predicate.
+	 */
+	int literalOf(final Expr<BoolType> expr) {
+		if (expr instanceof NotExpr) {
+			return 2 * indexOf(((NotExpr) expr).getOp()) + 1;
+		} else {
+			return 2 * indexOf(expr);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	Expr<BoolType> pred(final int index) {
+		return (Expr<BoolType>) preds[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	Expr<BoolType> negatedPred(final int index) {
+		return (Expr<BoolType>) negatedPreds[index];
+	}
+
+}
@@ -15,32 +15,125 @@
  */
 package hu.bme.mit.theta.analysis.pred;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.analysis.PartialOrd;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+import hu.bme.mit.theta.common.Tuple2;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.solver.Solver;
-import hu.bme.mit.theta.solver.utils.WithPushPop;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 
+/**
+ * Partial order of predicate states based on entailment. Before calling the
+ * solver, it is checked (on the bitsets of the states) whether the
+ * predicates of the greater state are a subset of the predicates of the
+ * smaller one and whether the pair was already
+ * proven to be ordered. The states are passed to the solver as assumptions,
+ * so that it keeps its learned state between the queries.
+ * <p>
+ * Only a bounded number of the most recently proven pairs are remembered.
+ * The order is thread-safe if it is created with a thread-safe
+ * {@link SolverProvider}, the proven pairs are shared between the threads.
+ */
 public final class PredOrd implements PartialOrd<PredState> {
 
-	private final Solver solver;
+	private static final long DEFAULT_MAX_PROVEN = 100_000;
+
+	private final SolverProvider solverProvider;
+	private final Cache<Tuple2<PredState, PredState>, Boolean> provenLeq;
+
+	private final AtomicLong syntacticChecks = new AtomicLong();
+	private final AtomicLong cachedChecks = new AtomicLong();
+	private final AtomicLong solverChecks = new AtomicLong();
 
 	public static PredOrd create(final Solver solver) {
-		return new PredOrd(solver);
+		return new PredOrd(SolverProviders.of(solver), DEFAULT_MAX_PROVEN);
+	}
+
+	public static PredOrd create(final SolverProvider solverProvider) {
+		return new PredOrd(solverProvider, DEFAULT_MAX_PROVEN);
 	}
 
-	private PredOrd(final Solver solver) {
-		this.solver = checkNotNull(solver);
+	/**
+	 * Create an order that remembers at most the given number of proven
+	 * pairs.
+	 */
+	public static PredOrd create(final SolverProvider solverProvider, final long maxProven) {
+		return new PredOrd(solverProvider, maxProven);
+	}
+
+	private PredOrd(final SolverProvider solverProvider, final long maxProven) {
+		checkArgument(maxProven > 0, "Number of proven pairs must be positive");
+		this.solverProvider = checkNotNull(solverProvider);
+		this.provenLeq = CacheBuilder.newBuilder().maximumSize(maxProven).build();
 	}
 
 	@Override
 	public boolean isLeq(final PredState state1, final PredState state2) {
-		try (WithPushPop wpp = new WithPushPop(solver)) {
-			solver.add(PathUtils.unfold(state1.toExpr(), 0));
-			solver.add(PathUtils.unfold(Not(state2.toExpr()), 0));
-			return solver.check().isUnsat();
+		if (state1.isBottom() || state1.containsAll(state2)) {
+			syntacticChecks.incrementAndGet();
+			return true;
+		}
+
+		final Tuple2<PredState, PredState> pair = Tuple2.of(state1, state2);
+		if (provenLeq.getIfPresent(pair) != null) {
+			cachedChecks.incrementAndGet();
+			return true;
+		}
+
+		solverChecks.incrementAndGet();
+		final boolean leq;
+		try (SolverProvider.Handle handle = solverProvider.acquire()) {
+			leq = handle.get().check(ImmutableList.of(PathUtils.unfold(state1.toExpr(), 0),
+					PathUtils.unfold(Not(state2.toExpr()), 0))).isUnsat();
+		}
+		if (leq) {
+			provenLeq.put(pair, Boolean.TRUE);
+		}
+		return leq;
+	}
+
+	public PredOrdStatistics getStatistics() {
+		return new PredOrdStatistics();
+	}
+
+	/**
+	 * Number of checks decided by the subset test and the table of proven
+	 * pairs, the number of checks that required the solver and the number of
+	 * proven pairs currently remembered.
+	 */
+	public final class PredOrdStatistics extends Statistics {
+		private PredOrdStatistics() {
+			addStat("SyntacticChecks", this::getSyntacticChecks);
+			addStat("CachedChecks", this::getCachedChecks);
+			addStat("SolverChecks", this::getSolverChecks);
+			addStat("ProvenPairs", this::getProvenPairs);
+		}
+
+		public long getSyntacticChecks() {
+			return syntacticChecks.get();
+		}
+
+		public long getCachedChecks() {
+			return cachedChecks.get();
+		}
+
+		public long getSolverChecks() {
+			return solverChecks.get();
+		}
+
+		public long getProvenPairs() {
+			return provenLeq.size();
 		}
 	}
 
@@ -17,12 +17,10 @@ package hu.bme.mit.theta.analysis.pred;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
@@ -36,70 +34,101 @@ import hu.bme.mit.theta.core.utils.ExprUtils;
 
 /**
  * Represents an immutable, simple predicate precision that is a set of
- * predicates.
+ * predicates. The predicates are stored as a bitset over their indices (see
+ * {@link PredIndex}), and are ordered by their indices.
  */
 public final class PredPrec implements Prec {
 
-	private final Map<Expr<BoolType>, Expr<BoolType>> predToNegMap;
+	private final PredIndex index;
+	private final BitSet bits;
+	private final int[] indices;
 
-	private PredPrec(final Iterable<Expr<BoolType>> preds) {
-		checkNotNull(preds);
-		this.predToNegMap = new HashMap<>();
+	private volatile Set<Expr<BoolType>> preds = null;
+
+	private PredPrec(final PredIndex index, final BitSet bits) {
+		this.index = index;
+		this.bits = bits;
+		this.indices = bits.stream().toArray();
+	}
 
+	public static PredPrec of(final Iterable<Expr<BoolType>> preds) {
+		checkNotNull(preds);
+		final PredIndex index = PredIndex.get();
+		final BitSet bits = new BitSet();
 		for (final Expr<BoolType> pred : preds) {
 			if (pred instanceof BoolLitExpr) {
 				continue;
 			}
-			final Expr<BoolType> ponatedPred = ExprUtils.ponate(pred);
-			if (!this.predToNegMap.containsKey(ponatedPred)) {
-				this.predToNegMap.put(ponatedPred, Not(ponatedPred));
-			}
+			bits.set(index.indexOf(ExprUtils.ponate(pred)));
 		}
-	}
-
-	public static PredPrec of(final Iterable<Expr<BoolType>> preds) {
-		return new PredPrec(preds);
+		return new PredPrec(index, bits);
 	}
 
 	// Convenience factory methods
 
 	public static PredPrec of() {
-		return new PredPrec(Collections.emptySet());
+		return of(Collections.emptySet());
 	}
 
 	public static PredPrec of(final Expr<BoolType> pred) {
-		return new PredPrec(Collections.singleton(pred));
+		return of(Collections.singleton(pred));
 	}
 
 	////
 
 	public Set<Expr<BoolType>> getPreds() {
-		return Collections.unmodifiableSet(predToNegMap.keySet());
+		Set<Expr<BoolType>> result = preds;
+		if (result == null) {
+			final ImmutableSet.Builder<Expr<BoolType>> builder = ImmutableSet.builder();
+			for (final int i : indices) {
+				builder.add(index.pred(i));
+			}
+			result = builder.build();
+			preds = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the indices of the predicates in increasing order (i.e., in the
+	 * order of {@link #getPreds()}). The returned array must not be modified.
+	 */
+	int[] getIndices() {
+		return indices;
+	}
+
+	/**
+	 * Gets the table of predicate indices, which is shared by all states
+	 * created with this precision.
+	 */
+	PredIndex getIndex() {
+		return index;
 	}
 
 	public Expr<BoolType> negate(final Expr<BoolType> pred) {
-		final Expr<BoolType> negated = predToNegMap.get(pred);
-		checkArgument(negated != null, "Negated predicate not found");
-		return negated;
+		final int i = index.find(pred);
+		checkArgument(i >= 0 && bits.get(i), "Negated predicate not found");
+		return index.negatedPred(i);
 	}
 
 	public PredPrec join(final PredPrec other) {
 		checkNotNull(other);
-		final Collection<Expr<BoolType>> joinedPreds = ImmutableSet.<Expr<BoolType>>builder()
-				.addAll(this.predToNegMap.keySet()).addAll(other.predToNegMap.keySet()).build();
+		assert this.index == other.index;
+		final BitSet joinedBits = (BitSet) this.bits.clone();
+		joinedBits.or(other.bits);
 		// If no new predicate was added, return same instance (immutable)
-		if (joinedPreds.size() == this.predToNegMap.size()) {
+		if (joinedBits.equals(this.bits)) {
 			return this;
-		} else if (joinedPreds.size() == other.predToNegMap.size()) {
+		} else if (joinedBits.equals(other.bits)) {
 			return other;
 		}
 
-		return of(joinedPreds);
+		return new PredPrec(index, joinedBits);
 	}
 
 	@Override
 	public String toString() {
-		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(predToNegMap.keySet()).toString();
+		return Utils.lispStringBuilder(getClass().getSimpleName()).addAll(getPreds()).toString();
 	}
 
 	@Override
@@ -108,7 +137,7 @@ public final class PredPrec implements Prec {
 			return true;
 		} else if (obj instanceof PredPrec) {
 			final PredPrec that = (PredPrec) obj;
-			return this.predToNegMap.keySet().equals(that.predToNegMap.keySet());
+			return this.bits.equals(that.bits);
 		} else {
 			return false;
 		}
@@ -116,6 +145,6 @@ public final class PredPrec implements Prec {
 
 	@Override
 	public int hashCode() {
-		return 31 * predToNegMap.keySet().hashCode();
+		return 31 * Arrays.hashCode(indices);
 	}
 }
@@ -0,0 +1,87 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
+
+/**
+ * Index for predicate states. For each literal, a bitset of the elements
+ * containing it is stored. An element containing a literal cannot cover a
+ * (satisfiable) element containing the negation of the literal, so these
+ * elements are excluded from the candidates.
+ */
+public final class PredReachedSetIndex<T> implements ReachedSetIndex<T> {
+
+	private final Function<? super T, ? extends PredState> lens;
+	private final List<T> elems;
+	// Indexed by the code of the literal (see PredState#forEachLiteral)
+	private final List<BitSet> elemsWithLiteral;
+
+	private PredReachedSetIndex(final Function<? super T, ? extends PredState> lens) {
+		this.lens = checkNotNull(lens);
+		elems = new ArrayList<>();
+		elemsWithLiteral = new ArrayList<>();
+	}
+
+	public static <T> PredReachedSetIndex<T> create(final Function<? super T, ? extends PredState> lens) {
+		return new PredReachedSetIndex<>(lens);
+	}
+
+	@Override
+	public void add(final T elem) {
+		checkNotNull(elem);
+		final int index = elems.size();
+		elems.add(elem);
+		lens.apply(elem).forEachLiteral(literal -> {
+			while (elemsWithLiteral.size() <= literal) {
+				elemsWithLiteral.add(null);
+			}
+			BitSet bits = elemsWithLiteral.get(literal);
+			if (bits == null) {
+				bits = new BitSet();
+				elemsWithLiteral.set(literal, bits);
+			}
+			bits.set(index);
+		});
+	}
+
+	@Override
+	public List<T> getCandidates(final T elem) {
+		checkNotNull(elem);
+		final BitSet excluded = new BitSet();
+		lens.apply(elem).forEachLiteral(literal -> {
+			// The negation of a literal differs in the lowest bit of its code
+			final int negated = literal ^ 1;
+			if (negated < elemsWithLiteral.size() && elemsWithLiteral.get(negated) != null) {
+				excluded.or(elemsWithLiteral.get(negated));
+			}
+		});
+
+		final List<T> result = new ArrayList<>(elems.size() - excluded.cardinality());
+		for (int i = excluded.nextClearBit(0); i < elems.size(); i = excluded.nextClearBit(i + 1)) {
+			result.add(elems.get(i));
+		}
+		return result;
+	}
+
+}
@@ -21,7 +21,11 @@ import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.IntConsumer;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -30,23 +34,78 @@ import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
+/**
+ * Predicate state, i.e., a conjunction of literals over predicates. The
+ * literals are stored as two bitsets over the indices of the predicates (see
+ * {@link PredIndex}): one for the positive and one for the negated literals.
+ * The table of indices is shared by all states that are alive at the same
+ * time.
+ * Equality, hashing and syntactic inclusion work on the bits, the expressions
+ * are only built when requested (e.g., for the solver).
+ * <p>
+ * States that are not conjunctions of the predicates of a precision (e.g.,
+ * the disjunctions of the boolean abstraction without splitting) are backed
+ * by their expression instead, which is not registered in the index.
+ */
 public final class PredState implements ExprState {
 
 	private static final int HASH_SEED = 7621;
+	private static final long[] BOTTOM_BITS = singletonBits(PredIndex.FALSE_INDEX);
+
+	private final PredIndex index;
+	private final long[] positive;
+	private final long[] negative;
+	// Expression of the state if it is not backed by the bits
+	private final Expr<BoolType> compound;
 
-	private final Set<Expr<BoolType>> preds;
+	private volatile Set<Expr<BoolType>> preds = null;
 
 	private volatile Expr<BoolType> expr = null;
 
 	private volatile int hashCode;
 
-	private PredState(final Iterable<? extends Expr<BoolType>> preds) {
-		checkNotNull(preds);
-		this.preds = ImmutableSet.copyOf(preds);
+	private PredState(final PredIndex index, final BitSet positive, final BitSet negative) {
+		this.index = index;
+		this.positive = positive.toLongArray();
+		this.negative = negative.toLongArray();
+		this.compound = null;
+	}
+
+	private PredState(final PredIndex index, final Expr<BoolType> compound) {
+		this.index = index;
+		this.positive = new long[0];
+		this.negative = new long[0];
+		this.compound = compound;
+		this.preds = ImmutableSet.of(compound);
+		this.expr = compound;
 	}
 
 	public static PredState of(final Iterable<? extends Expr<BoolType>> preds) {
-		return new PredState(preds);
+		checkNotNull(preds);
+		final PredIndex index = PredIndex.get();
+		final BitSet positive = new BitSet();
+		final BitSet negative = new BitSet();
+		for (final Expr<BoolType> pred : preds) {
+			final int literal = index.literalOf(pred);
+			(literal % 2 == 0 ? positive : negative).set(literal / 2);
+		}
+		return new PredState(index, positive, negative);
+	}
+
+	/**
+	 * Creates a state from the indices of its positive and negated predicates
+	 * in a precision.
+	 */
+	static PredState of(final PredPrec prec, final BitSet positive, final BitSet negative) {
+		return new PredState(prec.getIndex(), positive, negative);
+	}
+
+	/**
+	 * Creates a state backed by a single expression, without registering the
+	 * expression in the index of the precision.
+	 */
+	static PredState of(final PredPrec prec, final Expr<BoolType> expr) {
+		return new PredState(prec.getIndex(), checkNotNull(expr));
 	}
 
 	public static PredState bottom() {
@@ -56,46 +115,109 @@ public final class PredState implements ExprState {
 	// Convenience factory methods
 
 	public static PredState of() {
-		return new PredState(ImmutableSet.of());
+		return of(ImmutableSet.of());
 	}
 
 	public static PredState of(final Expr<BoolType> pred) {
-		return new PredState(ImmutableSet.of(pred));
+		return of(ImmutableSet.of(pred));
 	}
 
 	public static PredState of(final Expr<BoolType> pred1, final Expr<BoolType> pred2) {
-		return new PredState(ImmutableSet.of(pred1, pred2));
+		return of(ImmutableSet.of(pred1, pred2));
 	}
 
 	public static PredState of(final Expr<BoolType> pred1, final Expr<BoolType> pred2, final Expr<BoolType> pred3) {
-		return new PredState(ImmutableSet.of(pred1, pred2, pred3));
+		return of(ImmutableSet.of(pred1, pred2, pred3));
 	}
 
 	public static PredState of(final Expr<BoolType> pred1, final Expr<BoolType> pred2, final Expr<BoolType> pred3,
 							   final Expr<BoolType> pred4) {
-		return new PredState(ImmutableSet.of(pred1, pred2, pred3, pred4));
+		return of(ImmutableSet.of(pred1, pred2, pred3, pred4));
 	}
 
 	public static PredState of(final Expr<BoolType> pred1, final Expr<BoolType> pred2, final Expr<BoolType> pred3,
 							   final Expr<BoolType> pred4, final Expr<BoolType> pred5) {
-		return new PredState(ImmutableSet.of(pred1, pred2, pred3, pred4, pred5));
+		return of(ImmutableSet.of(pred1, pred2, pred3, pred4, pred5));
 	}
 
 	////
 
 	public Set<Expr<BoolType>> getPreds() {
-		return preds;
+		Set<Expr<BoolType>> result = preds;
+		if (result == null) {
+			final ImmutableSet.Builder<Expr<BoolType>> builder = ImmutableSet.builder();
+			forEachLiteral(literal -> builder.add(literal % 2 == 0 ? index.pred(literal / 2)
+					: index.negatedPred(literal / 2)));
+			result = builder.build();
+			preds = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Performs an action for the code of each literal of the state in
+	 * increasing order. The code of a literal is twice the index of its
+	 * predicate, plus one if the predicate is negated.
+	 */
+	void forEachLiteral(final IntConsumer action) {
+		final int words = Math.max(positive.length, negative.length);
+		for (int w = 0; w < words; w++) {
+			final long pos = w < positive.length ? positive[w] : 0;
+			final long neg = w < negative.length ? negative[w] : 0;
+			long bits = pos | neg;
+			while (bits != 0) {
+				final int bit = Long.numberOfTrailingZeros(bits);
+				final long mask = 1L << bit;
+				final int index = w * Long.SIZE + bit;
+				if ((pos & mask) != 0) {
+					action.accept(2 * index);
+				}
+				if ((neg & mask) != 0) {
+					action.accept(2 * index + 1);
+				}
+				bits &= ~mask;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether this state contains all literals of an other state, which
+	 * implies that this state entails the other one.
+	 */
+	boolean containsAll(final PredState that) {
+		assert this.index == that.index;
+		return isSubset(that.positive, this.positive) && isSubset(that.negative, this.negative)
+				&& (that.compound == null || that.compound.equals(this.compound));
+	}
+
+	private static long[] singletonBits(final int index) {
+		final BitSet bits = new BitSet();
+		bits.set(index);
+		return bits.toLongArray();
+	}
+
+	private static boolean isSubset(final long[] bits1, final long[] bits2) {
+		if (bits1.length > bits2.length) {
+			return false;
+		}
+		for (int i = 0; i < bits1.length; i++) {
+			if ((bits1[i] & ~bits2[i]) != 0) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public boolean isBottom() {
-		return preds.size() == 1 && singleElementOf(preds).equals(False());
+		return compound == null && negative.length == 0 && Arrays.equals(positive, BOTTOM_BITS);
 	}
 
 	@Override
 	public Expr<BoolType> toExpr() {
 		Expr<BoolType> result = expr;
 		if (result == null) {
+			final Set<Expr<BoolType>> preds = getPreds();
 			if (preds.isEmpty()) {
 				result = True();
 			} else if (preds.size() == 1) {
@@ -113,7 +235,9 @@ public final class PredState implements ExprState {
 		int result = hashCode;
 		if (result == 0) {
 			result = HASH_SEED;
-			result = 31 * result + preds.hashCode();
+			result = 31 * result + Arrays.hashCode(positive);
+			result = 31 * result + Arrays.hashCode(negative);
+			result = 31 * result + Objects.hashCode(compound);
 			hashCode = result;
 		}
 		return result;
@@ -125,7 +249,8 @@ public final class PredState implements ExprState {
 			return true;
 		} else if (obj instanceof PredState) {
 			final PredState that = (PredState) obj;
-			return this.preds.equals(that.preds);
+			return Arrays.equals(this.positive, that.positive) && Arrays.equals(this.negative, that.negative)
+					&& Objects.equals(this.compound, that.compound);
 		} else {
 			return false;
 		}
@@ -133,7 +258,7 @@ public final class PredState implements ExprState {
 
 	@Override
 	public String toString() {
-		return Utils.lispStringBuilder(getClass().getSimpleName()).aligned().addAll(preds).toString();
+		return Utils.lispStringBuilder(getClass().getSimpleName()).aligned().addAll(getPreds()).toString();
 	}
 
 }
@@ -9,12 +9,13 @@ import hu.bme.mit.theta.analysis.prod2.Prod2State;
 import hu.bme.mit.theta.analysis.prod2.StrengtheningOperator;
 import hu.bme.mit.theta.core.utils.PathUtils;
 import hu.bme.mit.theta.solver.Solver;
-import hu.bme.mit.theta.solver.utils.WithPushPop;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableList;
+
 public final class Prod2ExplPredStrengtheningOperator implements StrengtheningOperator<ExplState, PredState, ExplPrec, PredPrec> {
 
 	private final Solver solver;
@@ -34,13 +35,10 @@ public final class Prod2ExplPredStrengtheningOperator implements StrengtheningOp
 
 		for (Prod2State<ExplState, PredState> prod2State : prod2States) {
 
-			try (WithPushPop wp = new WithPushPop(solver)) {
-				solver.add(PathUtils.unfold(prod2State.getState1().toExpr(), 0));
-				solver.add(PathUtils.unfold(prod2State.getState2().toExpr(), 0));
-				var result = solver.check();
-				if (result.isSat()) {
-					validStates.add(prod2State);
-				}
+			var result = solver.check(ImmutableList.of(PathUtils.unfold(prod2State.getState1().toExpr(), 0),
+					PathUtils.unfold(prod2State.getState2().toExpr(), 0)));
+			if (result.isSat()) {
+				validStates.add(prod2State);
 			}
 
 		}
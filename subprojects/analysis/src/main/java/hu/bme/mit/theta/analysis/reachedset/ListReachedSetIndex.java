@@ -0,0 +1,52 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.reachedset;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index that stores the elements in a list and returns all of them as
+ * candidates.
+ */
+public final class ListReachedSetIndex<T> implements ReachedSetIndex<T> {
+
+	private final List<T> elems;
+
+	private ListReachedSetIndex() {
+		elems = new ArrayList<>();
+	}
+
+	public static <T> ListReachedSetIndex<T> create() {
+		return new ListReachedSetIndex<>();
+	}
+
+	@Override
+	public void add(final T elem) {
+		checkNotNull(elem);
+		elems.add(elem);
+	}
+
+	@Override
+	public List<T> getCandidates(final T elem) {
+		checkNotNull(elem);
+		return Collections.unmodifiableList(elems);
+	}
+
+}
@@ -17,33 +17,45 @@ package hu.bme.mit.theta.analysis.reachedset;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+/**
+ * Partitions elements into classes based on a projection. Each class is
+ * stored in a ReachedSetIndex, which determines the candidates returned for an
+ * element from its class.
+ */
 public final class Partition<T, K> {
 
 	private final Function<? super T, ? extends K> projection;
-	private final Map<K, List<T>> classes;
+	private final Supplier<? extends ReachedSetIndex<T>> indexFactory;
+	private final Map<K, ReachedSetIndex<T>> classes;
 
-	private Partition(final Function<? super T, ? extends K> projection) {
+	private Partition(final Function<? super T, ? extends K> projection,
+					  final Supplier<? extends ReachedSetIndex<T>> indexFactory) {
 		this.projection = checkNotNull(projection);
+		this.indexFactory = checkNotNull(indexFactory);
 		classes = new HashMap<>();
 	}
 
 	public static <T, K> Partition<T, K> of(final Function<? super T, ? extends K> projection) {
-		return new Partition<>(projection);
+		return new Partition<>(projection, ListReachedSetIndex::create);
+	}
+
+	public static <T, K> Partition<T, K> of(final Function<? super T, ? extends K> projection,
+											final Supplier<? extends ReachedSetIndex<T>> indexFactory) {
+		return new Partition<>(projection, indexFactory);
 	}
 
 	public void add(final T elem) {
 		checkNotNull(elem);
 		final K key = projection.apply(elem);
-		final Collection<T> partition = classes.computeIfAbsent(key, k -> new ArrayList<>());
+		final ReachedSetIndex<T> partition = classes.computeIfAbsent(key, k -> indexFactory.get());
 		partition.add(elem);
 	}
 
@@ -58,8 +70,8 @@ public final class Partition<T, K> {
 	public List<T> get(final T elem) {
 		checkNotNull(elem);
 		final K key = projection.apply(elem);
-		final List<T> partition = classes.getOrDefault(key, Collections.emptyList());
-		return partition;
+		final ReachedSetIndex<T> partition = classes.get(key);
+		return partition == null ? Collections.emptyList() : partition.getCandidates(elem);
 	}
 
 }
@@ -0,0 +1,33 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.reachedset;
+
+import java.util.List;
+
+/**
+ * Index over the elements of a reached set that can be queried for the
+ * elements that might cover a given element. The index may return elements
+ * that cannot cover the given element, but it should not omit elements that
+ * can (otherwise coverage is missed). Candidates are returned in the order of
+ * insertion.
+ */
+public interface ReachedSetIndex<T> {
+
+	void add(T elem);
+
+	List<T> getCandidates(T elem);
+
+}
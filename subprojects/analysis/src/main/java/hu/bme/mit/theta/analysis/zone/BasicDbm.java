@@ -27,12 +27,19 @@ import static java.lang.Math.min;
 import java.util.Arrays;
 import java.util.function.IntBinaryOperator;
 
-import hu.bme.mit.theta.common.IntMatrix;
-
+/**
+ * Difference bound matrix over clocks 0..n, where 0 is the zero clock. The
+ * bounds are stored row by row in a flat array. Arguments of the public
+ * operations are checked, but the inner loops access the array directly.
+ */
 final class BasicDbm {
 
+	private static final int INF = Inf();
+	private static final int LEQ_ZERO = Leq(0);
+
 	private final int nClocks;
-	private final IntMatrix matrix;
+	private final int size;
+	private final int[] matrix;
 
 	////
 
@@ -40,13 +47,15 @@ final class BasicDbm {
 		checkArgument(size > 0, "Zero sized DBM");
 		checkNotNull(values);
 		this.nClocks = size - 1;
-		matrix = IntMatrix.create(size, size);
+		this.size = size;
+		matrix = new int[size * size];
 		fill(values);
 	}
 
 	BasicDbm(final BasicDbm dbm) {
 		this.nClocks = dbm.nClocks;
-		this.matrix = IntMatrix.copyOf(dbm.matrix);
+		this.size = dbm.size;
+		this.matrix = dbm.matrix.clone();
 	}
 
 	////
@@ -67,58 +76,91 @@ final class BasicDbm {
 	int get(final int x, final int y) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		return matrix.get(x, y);
+		return matrix[x * size + y];
 	}
 
 	void set(final int x, final int y, final int b) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		matrix.set(x, y, b);
+		matrix[x * size + y] = b;
 	}
 
 	void fill(final IntBinaryOperator values) {
 		checkNotNull(values);
-		matrix.fill(values);
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				matrix[i * size + j] = values.applyAsInt(i, j);
+			}
+		}
 	}
 
 	////
 
 	public int size() {
-		return nClocks + 1;
+		return size;
 	}
 
 	////
 
 	public boolean isConsistent() {
-		return matrix.get(0, 0) > 0;
+		return matrix[0] > 0;
 	}
 
 	public boolean isSatisfied(final int x, final int y, final int b) {
 		checkArgument(isClock(x));
 		checkArgument(isClock(y));
-		return add(matrix.get(y, x), b) >= Leq(0);
+		return add(matrix[y * size + x], b) >= LEQ_ZERO;
 	}
 
 	public boolean constrains(final int x) {
 		checkArgument(isClock(x));
 		for (int i = 0; i <= nClocks; i++) {
-			if (matrix.get(x, i) < defaultBound(x, i)) {
+			if (matrix[x * size + i] < defaultBound(x, i)) {
 				return true;
 			}
 
-			if (matrix.get(i, x) < defaultBound(i, x)) {
+			if (matrix[i * size + x] < defaultBound(i, x)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	/**
+	 * Checks whether each bound of this DBM is at most the corresponding
+	 * bound of a DBM of the same size.
+	 */
+	boolean isLeq(final BasicDbm that) {
+		checkArgument(this.size == that.size, "DBMs have different size");
+		final int[] m1 = this.matrix;
+		final int[] m2 = that.matrix;
+		for (int i = 0; i < m1.length; i++) {
+			if (m1[i] > m2[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	DbmRelation getRelation(final BasicDbm that) {
+		checkArgument(this.size == that.size, "DBMs have different size");
+		final int[] m1 = this.matrix;
+		final int[] m2 = that.matrix;
+		boolean leq = true;
+		boolean geq = true;
+		for (int i = 0; i < m1.length && (leq || geq); i++) {
+			leq = leq && m1[i] <= m2[i];
+			geq = geq && m1[i] >= m2[i];
+		}
+		return DbmRelation.create(leq, geq);
+	}
+
 	////
 
 	public void up() {
 		if (isConsistent()) {
 			for (int i = 1; i <= nClocks; i++) {
-				matrix.set(i, 0, Inf());
+				matrix[i * size] = INF;
 			}
 			assert isClosed();
 		}
@@ -126,9 +168,7 @@ final class BasicDbm {
 
 	public void down() {
 		if (isConsistent()) {
-			for (int i = 1; i <= nClocks; i++) {
-				matrix.set(0, i, Inf());
-			}
+			Arrays.fill(matrix, 1, size, INF);
 			assert isClosed();
 		}
 	}
@@ -141,23 +181,61 @@ final class BasicDbm {
 			// do nothing
 
 		} else if (!isSatisfied(x, y, b)) {
-			matrix.set(0, 0, Leq(-1));
+			matrix[0] = Leq(-1);
 
-		} else if (b < matrix.get(x, y)) {
-			matrix.set(x, y, b);
+		} else if (b < matrix[x * size + y]) {
+			tighten(x, y, b);
+		}
+		assert !isConsistent() || isClosed();
+	}
 
-			for (int i = 0; i <= nClocks; i++) {
-				for (int j = 0; j <= nClocks; j++) {
-					if (add(matrix.get(i, x), matrix.get(x, j)) < matrix.get(i, j)) {
-						matrix.set(i, j, add(matrix.get(i, x), matrix.get(x, j)));
-					}
-					if (add(matrix.get(i, y), matrix.get(y, j)) < matrix.get(i, j)) {
-						matrix.set(i, j, add(matrix.get(i, y), matrix.get(y, j)));
+	/**
+	 * Intersects this DBM with a closed DBM of the same size in place.
+	 */
+	void and(final BasicDbm that) {
+		checkArgument(this.size == that.size, "DBMs have different size");
+		final int[] m1 = this.matrix;
+		final int[] m2 = that.matrix;
+		boolean changed = false;
+		for (int i = 0; i < m1.length; i++) {
+			if (m2[i] < m1[i]) {
+				m1[i] = m2[i];
+				changed = true;
+			}
+		}
+		if (changed && isConsistent()) {
+			close();
+		}
+	}
+
+	/**
+	 * Sets bound (x, y) to b and restores closure in O(n^2), assuming that the
+	 * DBM was closed and b does not make it inconsistent. Every new shortest
+	 * path goes through the edge (x, y), so d(i, j) = min(d(i, j), d(i, x) + b
+	 * + d(y, j)).
+	 */
+	private void tighten(final int x, final int y, final int b) {
+		final int[] m = matrix;
+		final int n = size;
+		m[x * n + y] = b;
+		final int rowY = y * n;
+		for (int i = 0; i < n; i++) {
+			final int ix = m[i * n + x];
+			if (ix == INF) {
+				continue;
+			}
+			final int ixy = add(ix, b);
+			final int rowI = i * n;
+			for (int j = 0; j < n; j++) {
+				final int yj = m[rowY + j];
+				if (yj != INF) {
+					final int bound = ixy + yj - ((ixy | yj) & 1);
+					if (bound < m[rowI + j]) {
+						m[rowI + j] = bound;
 					}
 				}
 			}
 		}
-		assert !isConsistent() || isClosed();
 	}
 
 	public void nonnegative() {
@@ -166,24 +244,13 @@ final class BasicDbm {
 		}
 
 		for (int k = 1; k <= nClocks; k++) {
-			if (!isSatisfied(0, k, Leq(0))) {
-				matrix.set(0, 0, Leq(-1));
+			if (!isSatisfied(0, k, LEQ_ZERO)) {
+				matrix[0] = Leq(-1);
 				return;
 			}
 
-			if (Leq(0) < matrix.get(0, k)) {
-				matrix.set(0, k, Leq(0));
-
-				for (int i = 0; i <= nClocks; i++) {
-					for (int j = 0; j <= nClocks; j++) {
-						if (add(matrix.get(i, 0), matrix.get(0, j)) < matrix.get(i, j)) {
-							matrix.set(i, j, add(matrix.get(i, 0), matrix.get(0, j)));
-						}
-						if (add(matrix.get(i, k), matrix.get(k, j)) < matrix.get(i, j)) {
-							matrix.set(i, j, add(matrix.get(i, k), matrix.get(k, j)));
-						}
-					}
-				}
+			if (LEQ_ZERO < matrix[k]) {
+				tighten(0, k, LEQ_ZERO);
 			}
 		}
 
@@ -194,10 +261,11 @@ final class BasicDbm {
 		checkArgument(isNonZeroClock(x));
 
 		if (isConsistent()) {
+			final int rowX = x * size;
 			for (int i = 0; i <= nClocks; i++) {
 				if (i != x) {
-					matrix.set(x, i, Inf());
-					matrix.set(i, x, Inf());
+					matrix[rowX + i] = INF;
+					matrix[i * size + x] = INF;
 				}
 			}
 			assert isClosed();
@@ -212,9 +280,12 @@ final class BasicDbm {
 		checkArgument(isNonZeroClock(x));
 
 		if (isConsistent()) {
+			final int rowX = x * size;
+			final int leqM = Leq(m);
+			final int leqMinusM = Leq(-m);
 			for (int i = 0; i <= nClocks; i++) {
-				matrix.set(x, i, add(Leq(m), matrix.get(0, i)));
-				matrix.set(i, x, add(matrix.get(i, 0), Leq(-m)));
+				matrix[rowX + i] = add(leqM, matrix[i]);
+				matrix[i * size + x] = add(matrix[i * size], leqMinusM);
 			}
 
 			assert isClosed();
@@ -224,24 +295,29 @@ final class BasicDbm {
 	public void copy(final int x, final int y) {
 		checkArgument(isNonZeroClock(y));
 
+		final int rowX = x * size;
+		final int rowY = y * size;
 		for (int i = 0; i <= nClocks; i++) {
 			if (i != x) {
-				matrix.set(x, i, matrix.get(y, i));
-				matrix.set(i, x, matrix.get(i, y));
+				matrix[rowX + i] = matrix[rowY + i];
+				matrix[i * size + x] = matrix[i * size + y];
 			}
 		}
-		matrix.set(x, y, Leq(0));
-		matrix.set(y, x, Leq(0));
+		matrix[rowX + y] = LEQ_ZERO;
+		matrix[rowY + x] = LEQ_ZERO;
 		assert isClosed();
 	}
 
 	public void shift(final int x, final int m) {
 		checkArgument(isNonZeroClock(x));
 
+		final int rowX = x * size;
+		final int leqM = Leq(m);
+		final int leqMinusM = Leq(-m);
 		for (int i = 0; i <= nClocks; i++) {
 			if (i != x) {
-				matrix.set(x, i, add(matrix.get(x, i), Leq(m)));
-				matrix.set(i, x, add(matrix.get(i, x), Leq(-m)));
+				matrix[rowX + i] = add(matrix[rowX + i], leqM);
+				matrix[i * size + x] = add(matrix[i * size + x], leqMinusM);
 			}
 		}
 		assert isClosed();
@@ -251,31 +327,52 @@ final class BasicDbm {
 		checkNotNull(k);
 		checkArgument(k.length == nClocks + 1);
 
+		boolean changed = false;
 		for (int i = 0; i <= nClocks; i++) {
+			final int rowI = i * size;
+			final int upper = Leq(k[i]);
 			for (int j = 0; j <= nClocks; j++) {
-				if (matrix.get(i, j) != Inf()) {
-					if (matrix.get(i, j) > Leq(k[i])) {
-						matrix.set(i, j, Inf());
-					} else if (matrix.get(i, j) < Lt(-k[j])) {
-						matrix.set(i, j, Lt(-k[j]));
+				final int b = matrix[rowI + j];
+				if (b != INF) {
+					if (b > upper) {
+						matrix[rowI + j] = INF;
+						changed = true;
+					} else if (b < Lt(-k[j])) {
+						matrix[rowI + j] = Lt(-k[j]);
+						changed = true;
 					}
 				}
 			}
 		}
-		close();
+		if (changed) {
+			close();
+		}
 	}
 
+	/**
+	 * Floyd-Warshall closure. The pivot row is loaded once per row, and the
+	 * innermost loop is branch-free apart from the infinity check, so that
+	 * it can be unrolled by the JIT.
+	 */
 	void close() {
-		for (int k = 0; k <= nClocks; k++) {
-			for (int i = 0; i <= nClocks; i++) {
-				for (int j = 0; j <= nClocks; j++) {
-					final int newBound = min(matrix.get(i, j), add(matrix.get(i, k), matrix.get(k, j)));
-					if (i == j && newBound < Leq(0)) {
-						matrix.set(0, 0, Leq(-1));
-						return;
-					} else {
-						matrix.set(i, j, newBound);
-					}
+		final int[] m = matrix;
+		final int n = size;
+		for (int k = 0; k < n; k++) {
+			final int rowK = k * n;
+			for (int i = 0; i < n; i++) {
+				final int rowI = i * n;
+				final int ik = m[rowI + k];
+				if (ik == INF) {
+					continue;
+				}
+				for (int j = 0; j < n; j++) {
+					final int kj = m[rowK + j];
+					final int bound = kj == INF ? INF : ik + kj - ((ik | kj) & 1);
+					m[rowI + j] = min(m[rowI + j], bound);
+				}
+				if (m[rowI + i] < LEQ_ZERO) {
+					m[0] = Leq(-1);
+					return;
 				}
 			}
 		}
@@ -283,17 +380,21 @@ final class BasicDbm {
 	}
 
 	int[] closeItp() {
-		final IntMatrix next = IntMatrix.create(nClocks + 1, nClocks + 1);
-		next.fill((x, y) -> y);
+		final int[] next = new int[size * size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				next[i * size + j] = j;
+			}
+		}
 
 		for (int k = 0; k <= nClocks; k++) {
 			for (int i = 0; i <= nClocks; i++) {
 				for (int j = 0; j <= nClocks; j++) {
-					final int newBound = add(matrix.get(i, k), matrix.get(k, j));
-					if (newBound < matrix.get(i, j)) {
-						matrix.set(i, j, newBound);
-						next.set(i, j, next.get(i, k));
-						if (i == j && newBound < Leq(0)) {
+					final int newBound = add(matrix[i * size + k], matrix[k * size + j]);
+					if (newBound < matrix[i * size + j]) {
+						matrix[i * size + j] = newBound;
+						next[i * size + j] = next[i * size + k];
+						if (i == j && newBound < LEQ_ZERO) {
 							final int[] cycle = path(next, i, j);
 							return cycle;
 						}
@@ -305,14 +406,14 @@ final class BasicDbm {
 		throw new IllegalStateException();
 	}
 
-	private int[] path(final IntMatrix next, final int u, final int v) {
+	private int[] path(final int[] next, final int u, final int v) {
 		final int[] path = new int[nClocks + 2];
 
 		int w = u;
 		path[0] = w;
 		int i = 1;
 		do {
-			w = next.get(w, v);
+			w = next[w * size + v];
 			path[i] = w;
 			i++;
 		} while (w != v);
@@ -324,7 +425,7 @@ final class BasicDbm {
 		for (int i = 0; i <= nClocks; i++) {
 			for (int j = 0; j <= nClocks; j++) {
 				for (int k = 0; k <= nClocks; k++) {
-					if (matrix.get(i, j) > add(matrix.get(i, k), matrix.get(k, j))) {
+					if (matrix[i * size + j] > add(matrix[i * size + k], matrix[k * size + j])) {
 						return false;
 					}
 				}
@@ -352,7 +453,7 @@ final class BasicDbm {
 		final StringBuilder sb = new StringBuilder();
 		for (int i = 0; i <= nClocks; i++) {
 			for (int j = 0; j <= nClocks; j++) {
-				sb.append(String.format("%-12s", asString(matrix.get(i, j))));
+				sb.append(String.format("%-12s", asString(matrix[i * size + j])));
 			}
 			sb.append(System.lineSeparator());
 		}
@@ -157,6 +157,12 @@ final class DBM {
 		checkNotNull(dbm1);
 		checkNotNull(dbm2);
 
+		if (dbm1.hasSameSignature(dbm2)) {
+			final DBM result = new DBM(dbm1);
+			result.dbm.and(dbm2.dbm);
+			return result;
+		}
+
 		final DbmSignature signature = DbmSignature.union(dbm1.signature, dbm2.signature);
 		final BiFunction<VarDecl<RatType>, VarDecl<RatType>, Integer> values = (x, y) -> {
 			final int bound1 = dbm1.getOrDefault(x, y);
@@ -348,6 +354,14 @@ final class DBM {
 		return dbm.get(i, j);
 	}
 
+	/**
+	 * DBMs over the same clocks in the same order can be compared and
+	 * combined bound by bound, without looking up the clocks.
+	 */
+	private boolean hasSameSignature(final DBM that) {
+		return this.signature == that.signature || this.signature.toList().equals(that.signature.toList());
+	}
+
 	private static int defaultBound(final VarDecl<RatType> x, final VarDecl<RatType> y) {
 		if (x.equals(y)) {
 			return Leq(0);
@@ -362,6 +376,11 @@ final class DBM {
 		return dbm.isClosed();
 	}
 
+	public int getNumClocks() {
+		// The signature always contains the zero clock
+		return signature.size() - 1;
+	}
+
 	public boolean isConsistent() {
 		return dbm.isConsistent();
 	}
@@ -377,6 +396,10 @@ final class DBM {
 	}
 
 	public DbmRelation getRelation(final DBM that) {
+		if (hasSameSignature(that)) {
+			return this.dbm.getRelation(that.dbm);
+		}
+
 		final Set<VarDecl<RatType>> vars = Sets.union(this.signature.toSet(), that.signature.toSet());
 
 		boolean leq = true;
@@ -392,6 +415,10 @@ final class DBM {
 	}
 
 	public boolean isLeq(final DBM that) {
+		if (hasSameSignature(that)) {
+			return this.dbm.isLeq(that.dbm);
+		}
+
 		final Set<VarDecl<RatType>> vars = Sets.union(this.signature.toSet(), that.signature.toSet());
 
 		for (final VarDecl<RatType> x : vars) {
@@ -162,6 +162,16 @@ public final class ZoneState implements ExprState {
 		return !dbm.isConsistent();
 	}
 
+	/**
+	 * Gets the number of clocks tracked by the zone, i.e., the size of its DBM
+	 * signature without the zero clock. This is a cheap measure of the
+	 * strength of the zone: the top zone tracks no clocks, and interpolants
+	 * only track the clocks they refer to.
+	 */
+	public int getNumClocks() {
+		return dbm.getNumClocks();
+	}
+
 	public boolean isLeq(final ZoneState that) {
 		return this.dbm.isLeq(that.dbm);
 	}
@@ -15,11 +15,16 @@
  */
 package hu.bme.mit.theta.analysis.algorithm;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.stubs.ActionStub;
@@ -72,9 +77,66 @@ public class ArgPruningTest {
 		assertEquals(1, arg.getDepth());
 		assertEquals(1, arg.getInitNodes().count());
 		assertEquals(0, arg.getUnsafeNodes().count());
-		assertEquals(1, n0.coveredNodes.size());
+		assertEquals(1, n0.getCoveredNodes().count());
 		assertFalse(n02.getCoveringNode().isPresent());
+		assertTrue(n00.isPruned() && n000.isPruned() && n001.isPruned());
+		assertFalse(n0.isPruned() || n01.isPruned() || n02.isPruned());
+		assertEquals(ImmutableSet.of(n0, n02), ImmutableSet.copyOf(arg.takeReopenedNodes()));
+		assertTrue(arg.takeReopenedNodes().isEmpty());
 
 		System.out.println(GraphvizWriter.getInstance().writeString(ArgVisualizer.getDefault().visualize(arg)));
 	}
+
+	@Test
+	public void testViews() {
+		final ARG<State, Action> arg = ARG.create(new PartialOrdStub());
+		final Action a = new ActionStub("A");
+
+		final ArgNode<State, Action> n0 = arg.createInitNode(new StateStub("0"), false);
+		final ArgNode<State, Action> n00 = arg.createSuccNode(n0, a, new StateStub("00"), false);
+		final ArgNode<State, Action> n01 = arg.createSuccNode(n0, a, new StateStub("01"), false);
+		final ArgNode<State, Action> n000 = arg.createSuccNode(n00, a, new StateStub("000"), false);
+
+		assertEquals(ImmutableList.of(n0, n00, n01, n000), arg.getNodes().collect(toList()));
+		assertEquals(ImmutableList.of(n00, n01, n000), n0.properDescendants().collect(toList()));
+		assertEquals(ImmutableList.of(n00, n01), n0.children().collect(toList()));
+		assertEquals(n0.getOutEdges().findFirst().get(), n00.getInEdge().get());
+		assertEquals(ImmutableList.of(n00, n0), n000.properAncestors().collect(toList()));
+
+		n01.setCoveringNode(n00);
+		assertEquals(ImmutableList.of(n0, n00, n000), arg.getIncompleteNodes().collect(toList()));
+		arg.prune(n000);
+		assertEquals(ImmutableList.of(n00), n0.getSuccNodes().filter(n -> !n.isCovered()).collect(toList()));
+		assertTrue(n00.isLeaf());
+		assertEquals(n00, n01.getCoveringNode().get());
+	}
+
+	@Test
+	public void testReuse() {
+		final ARG<State, Action> arg = ARG.create(new PartialOrdStub());
+		final Action a = new ActionStub("A");
+
+		final ArgNode<State, Action> n0 = arg.createInitNode(new StateStub("0"), false);
+		final ArgNode<State, Action> n00 = arg.createSuccNode(n0, a, new StateStub("00"), false);
+		final ArgNode<State, Action> n000 = arg.createSuccNode(n00, a, new StateStub("000"), false);
+
+		arg.prune(n00);
+		final ArgNode<State, Action> n01 = arg.createSuccNode(n0, a, new StateStub("01"), false);
+		final ArgNode<State, Action> n010 = arg.createSuccNode(n01, a, new StateStub("010"), false);
+
+		assertTrue(n00.isPruned() && n000.isPruned());
+		assertFalse(n01.isPruned() || n010.isPruned());
+		assertTrue(n010.getId() > n000.getId());
+		assertFalse(n01.equals(n00) || n01.equals(n000));
+		assertEquals(ImmutableList.of(n0, n01, n010), arg.getNodes().collect(toList()));
+		assertEquals(ImmutableList.of(n01, n0), n010.properAncestors().collect(toList()));
+		assertEquals(ImmutableSet.of(n0), ImmutableSet.copyOf(arg.takeReopenedNodes()));
+
+		arg.pruneAll();
+		final ArgNode<State, Action> m0 = arg.createInitNode(new StateStub("0"), false);
+		assertTrue(n0.isPruned() && n01.isPruned() && n010.isPruned());
+		assertFalse(m0.isPruned());
+		assertEquals(1, arg.size());
+		assertEquals(ImmutableList.of(m0), arg.getNodes().collect(toList()));
+	}
 }
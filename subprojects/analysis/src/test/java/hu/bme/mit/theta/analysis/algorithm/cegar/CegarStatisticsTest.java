@@ -0,0 +1,50 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+public class CegarStatisticsTest {
+
+	private static final class ComponentStatistics extends Statistics {
+		private long checks;
+
+		private ComponentStatistics(final long checks, final String name) {
+			this.checks = checks;
+			addStat("Checks", () -> this.checks);
+			addStat("Name", () -> name);
+		}
+	}
+
+	@Test
+	public void testComponents() {
+		final ComponentStatistics component1 = new ComponentStatistics(2, "first");
+		final ComponentStatistics component2 = new ComponentStatistics(3, "second");
+		final CegarStatistics stats = new CegarStatistics(10, 4, 6, 1, ImmutableList.of(0L), ImmutableList.of(5L),
+				ImmutableList.of(component1, component2));
+		component1.checks = 100;
+
+		Assert.assertEquals(ImmutableList.of("AlgorithmTimeMs", "Iterations", "ReusedNodes", "RebuiltNodes",
+				"Checks", "Name"), ImmutableList.copyOf(stats.keySet()));
+		Assert.assertEquals(5L, stats.get("Checks"));
+		Assert.assertEquals("second", stats.get("Name"));
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.algorithm.cegar;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Portfolio.Member;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Portfolio.Outcome;
+import hu.bme.mit.theta.analysis.stubs.PartialOrdStub;
+
+public class PortfolioTest {
+
+	private static SafetyResult<?, ?> safe() {
+		return SafetyResult.safe(ARG.create(new PartialOrdStub()));
+	}
+
+	private static SafetyResult<?, ?> waitUntilInterrupted(final CountDownLatch cancelled) {
+		try {
+			new CountDownLatch(1).await();
+		} catch (final InterruptedException e) {
+			cancelled.countDown();
+		}
+		throw new IllegalStateException();
+	}
+
+	@Test
+	public void testFirstWins() throws InterruptedException {
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final Portfolio portfolio = Portfolio.create(ImmutableList.of(
+				Member.of("slow", () -> waitUntilInterrupted(cancelled), 0),
+				Member.of("fast", PortfolioTest::safe, 0)));
+
+		Assert.assertTrue(portfolio.check().isSafe());
+		cancelled.await();
+
+		final PortfolioStatistics stats = portfolio.getStatistics();
+		Assert.assertEquals("fast", stats.getWinner());
+		Assert.assertEquals(ImmutableList.of(Outcome.CANCELLED, Outcome.WON), stats.getOutcomes());
+	}
+
+	@Test
+	public void testBudgets() {
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final Portfolio portfolio = Portfolio.create(ImmutableList.of(
+				Member.of("timeout", () -> waitUntilInterrupted(cancelled), 10),
+				Member.of("arg", () -> {
+					throw new ArgSizeLimitExceededException("limit");
+				}, 0),
+				Member.of("failed", () -> {
+					throw new UnsupportedOperationException();
+				}, 0)));
+
+		try {
+			portfolio.check();
+			Assert.fail();
+		} catch (final IllegalStateException e) {
+			// No member finished
+		}
+
+		final PortfolioStatistics stats = portfolio.getStatistics();
+		Assert.assertEquals("", stats.getWinner());
+		Assert.assertEquals(ImmutableList.of(Outcome.TIMEOUT, Outcome.OUT_OF_MEMORY, Outcome.FAILED),
+				stats.getOutcomes());
+	}
+
+}
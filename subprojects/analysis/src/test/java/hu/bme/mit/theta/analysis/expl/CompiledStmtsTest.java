@@ -0,0 +1,158 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.stmt.Stmts.Assign;
+import static hu.bme.mit.theta.core.stmt.Stmts.Assume;
+import static hu.bme.mit.theta.core.stmt.Stmts.Havoc;
+import static hu.bme.mit.theta.core.stmt.Stmts.NonDetStmt;
+import static hu.bme.mit.theta.core.stmt.Stmts.SequenceStmt;
+import static hu.bme.mit.theta.core.stmt.Stmts.Skip;
+import static hu.bme.mit.theta.core.type.anytype.Exprs.Ite;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Iff;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Imply;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Gt;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Leq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Mod;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Mul;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Neg;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Neq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Sub;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.expl.StmtApplier.ApplyResult;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.MutableValuation;
+import hu.bme.mit.theta.core.stmt.Stmt;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public final class CompiledStmtsTest {
+
+	private static final VarDecl<IntType> X = Var("x", Int());
+	private static final VarDecl<IntType> Y = Var("y", Int());
+	private static final VarDecl<BoolType> B = Var("b", Bool());
+
+	private static final List<Stmt> STMTS = ImmutableList.of(
+			Skip(),
+			Havoc(X),
+			Assign(X, Int(1)),
+			Assign(X, Y.getRef()),
+			Assign(X, Add(X.getRef(), Int(1), Int(2))),
+			Assign(X, Mul(X.getRef(), Y.getRef())),
+			Assign(X, Mul(Y.getRef(), Int(0))),
+			Assign(X, Sub(Y.getRef(), Y.getRef())),
+			Assign(Y, Neg(Mod(X.getRef(), Int(3)))),
+			Assign(Y, Ite(B.getRef(), X.getRef(), Int(5))),
+			Assign(B, And(Gt(X.getRef(), Int(0)), B.getRef())),
+			Assign(B, Or(Leq(X.getRef(), Y.getRef()), Not(B.getRef()))),
+			Assume(Gt(X.getRef(), Int(0))),
+			Assume(Leq(X.getRef(), Y.getRef())),
+			Assume(Eq(X.getRef(), Int(1))),
+			Assume(Not(Neq(Y.getRef(), Int(2)))),
+			Assume(Imply(B.getRef(), Eq(X.getRef(), Y.getRef()))),
+			Assume(Iff(B.getRef(), True())),
+			SequenceStmt(ImmutableList.of(Assign(X, Int(2)), Assume(Gt(Y.getRef(), X.getRef())))),
+			NonDetStmt(ImmutableList.of(Assign(X, Int(1)), Assign(X, Int(2)))),
+			NonDetStmt(ImmutableList.of(Assign(Y, Int(2)), Assume(Gt(X.getRef(), Int(0))))),
+			NonDetStmt(ImmutableList.of(Assume(Eq(X.getRef(), Int(1))), Assume(Eq(X.getRef(), Int(2)))))
+	);
+
+	@Test
+	public void testSameAsStmtApplier() {
+		final List<LitExpr<?>> xValues = ImmutableList.of(Int(-1), Int(1), Int(2));
+		final List<LitExpr<?>> yValues = ImmutableList.of(Int(0), Int(2));
+		final List<LitExpr<?>> bValues = ImmutableList.of(Bool(false), Bool(true));
+
+		for (final Stmt stmt : STMTS) {
+			final CompiledStmts compiled = CompiledStmts.compile(Collections.singletonList(stmt));
+			for (final MutableValuation val : valuations(xValues, yValues, bValues)) {
+				for (final boolean approximate : new boolean[]{false, true}) {
+					final MutableValuation expectedVal = MutableValuation.copyOf(val);
+					final ApplyResult expectedResult = StmtApplier.apply(stmt, expectedVal, approximate);
+
+					final MutableValuation actualVal = MutableValuation.copyOf(val);
+					final LitExpr<?>[] frame = compiled.load(actualVal);
+					final ApplyResult actualResult = compiled.apply(0, frame, approximate);
+					compiled.store(frame, actualVal);
+
+					final String message = stmt + " " + val + " " + approximate;
+					assertEquals(message, expectedResult, actualResult);
+					assertEquals(message, expectedVal.toMap(), actualVal.toMap());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSequenceOfStmts() {
+		final List<Stmt> stmts = ImmutableList.of(Havoc(X), Assign(X, Int(0)), Assign(X, Add(X.getRef(), Int(1))),
+				Assign(Y, Mul(X.getRef(), Int(3))), Assume(Leq(Y.getRef(), Int(100))));
+		final CompiledStmts compiled = CompiledStmts.compile(stmts);
+		final LitExpr<?>[] frame = compiled.load(new MutableValuation());
+
+		for (int i = 0; i < compiled.size(); i++) {
+			assertEquals(ApplyResult.SUCCESS, compiled.apply(i, frame, false));
+		}
+
+		final MutableValuation val = new MutableValuation();
+		compiled.store(frame, val);
+		assertEquals(Int(1), val.eval(X).get());
+		assertEquals(Int(3), val.eval(Y).get());
+	}
+
+	private static List<MutableValuation> valuations(final List<LitExpr<?>> xValues, final List<LitExpr<?>> yValues,
+													 final List<LitExpr<?>> bValues) {
+		final List<MutableValuation> result = new ArrayList<>();
+		for (final LitExpr<?> x : withUnknown(xValues)) {
+			for (final LitExpr<?> y : withUnknown(yValues)) {
+				for (final LitExpr<?> b : withUnknown(bValues)) {
+					final MutableValuation val = new MutableValuation();
+					if (x != null) val.put(X, x);
+					if (y != null) val.put(Y, y);
+					if (b != null) val.put(B, b);
+					result.add(val);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static List<LitExpr<?>> withUnknown(final List<LitExpr<?>> values) {
+		final List<LitExpr<?>> result = new ArrayList<>(values);
+		result.add(null);
+		return result;
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public class ExplReachedSetIndexTest {
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final VarDecl<IntType> y = Var("y", Int());
+
+	private final ExplState top = ExplState.top();
+	private final ExplState x1 = ExplState.of(ImmutableValuation.builder().put(x, Int(1)).build());
+	private final ExplState x2 = ExplState.of(ImmutableValuation.builder().put(x, Int(2)).build());
+	private final ExplState y1 = ExplState.of(ImmutableValuation.builder().put(y, Int(1)).build());
+	private final ExplState x1y1 = ExplState.of(ImmutableValuation.builder().put(x, Int(1)).put(y, Int(1)).build());
+	private final ExplState x1y2 = ExplState.of(ImmutableValuation.builder().put(x, Int(1)).put(y, Int(2)).build());
+
+	@Test
+	public void testCandidates() {
+		final ExplReachedSetIndex<ExplState> index = ExplReachedSetIndex.create(Function.identity());
+		final List<ExplState> states = ImmutableList.of(x1y1, x2, top, y1, x1, x1y2);
+		states.forEach(index::add);
+
+		Assert.assertEquals(ImmutableList.of(x1y1, top, y1, x1), index.getCandidates(x1y1));
+		Assert.assertEquals(ImmutableList.of(top, x1), index.getCandidates(x1));
+		Assert.assertEquals(ImmutableList.of(top), index.getCandidates(top));
+		Assert.assertEquals(states, index.getCandidates(ExplState.bottom()));
+
+		for (final ExplState state : states) {
+			for (final ExplState other : states) {
+				Assert.assertEquals(state.isLeq(other), index.getCandidates(state).contains(other));
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		final ExplReachedSetIndex<ExplState> index = ExplReachedSetIndex.create(Function.identity());
+		Assert.assertTrue(index.getCandidates(x1).isEmpty());
+	}
+
+}
@@ -46,6 +46,7 @@ import hu.bme.mit.theta.core.stmt.Stmt;
 import hu.bme.mit.theta.core.type.booltype.BoolExprs;
 import hu.bme.mit.theta.core.type.inttype.IntType;
 import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 
 public class ExplStmtTransFuncTest {
@@ -144,4 +145,22 @@ public class ExplStmtTransFuncTest {
 		}
 
 	}
+
+	@Test
+	public void testBoundedCompiled() {
+		final ExplStmtTransFunc transFunc = ExplStmtTransFunc.create(SolverProviders.of(solver), 0, 2);
+		final ExplState sourceState = ExplState.of(ImmutableValuation.builder().put(x, Int(0)).build());
+		final ExplPrec prec = ExplPrec.of(Collections.singleton(x));
+
+		for (int round = 0; round < 2; round++) {
+			for (int i = 1; i <= 5; i++) {
+				final List<Stmt> stmts = Collections.singletonList(Assign(x, Add(x.getRef(), Int(i))));
+				final Collection<? extends ExplState> succStates = transFunc.getSuccStates(sourceState, stmts, prec);
+
+				final ExplState expectedState = ExplState.of(ImmutableValuation.builder().put(x, Int(i)).build());
+				Assert.assertEquals(expectedState, Utils.singleElementOf(succStates));
+				Assert.assertTrue(transFunc.getCompiledCount() <= 2);
+			}
+		}
+	}
 }
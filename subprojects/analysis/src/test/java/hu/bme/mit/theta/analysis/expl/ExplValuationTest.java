@@ -0,0 +1,116 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expl;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.bvtype.BvExprs.Bv;
+import static hu.bme.mit.theta.core.type.bvtype.BvExprs.BvType;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+
+import java.math.BigInteger;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.bvtype.BvType;
+import hu.bme.mit.theta.core.type.inttype.IntLitExpr;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.type.rattype.RatType;
+
+public class ExplValuationTest {
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final VarDecl<IntType> y = Var("y", Int());
+	private final VarDecl<BoolType> b = Var("b", Bool());
+	private final VarDecl<BvType> v = Var("v", BvType(4));
+	private final VarDecl<RatType> r = Var("r", Rat());
+	private final VarDecl<IntType> z = Var("z", Int());
+
+	private final ExplSlots slots = ExplSlots.of(ImmutableList.of(x, y, b, v, r));
+
+	private final IntLitExpr big = Int(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN));
+
+	@Test
+	public void testEval() {
+		final ExplValuation val = ExplValuation.builder(slots).put(x, Int(-3)).put(y, big).put(b, Bool(true))
+				.put(v, Bv(new boolean[]{true, false, true, true})).put(r, Rat(1, 2)).put(z, Int(1)).build();
+
+		Assert.assertEquals(5, val.size());
+		Assert.assertEquals(Optional.of(Int(-3)), val.eval(x));
+		Assert.assertEquals(Optional.of(big), val.eval(y));
+		Assert.assertEquals(Optional.of(Bool(true)), val.eval(b));
+		Assert.assertEquals(Optional.of(Bv(new boolean[]{true, false, true, true})), val.eval(v));
+		Assert.assertEquals(Optional.of(Rat(1, 2)), val.eval(r));
+		// Variables without a slot are dropped
+		Assert.assertEquals(Optional.empty(), val.eval(z));
+	}
+
+	@Test
+	public void testCopyOnWrite() {
+		final ExplValuation val1 = ExplValuation.builder(slots).put(x, Int(1)).put(y, big).build();
+		final ExplValuation val2 = val1.toBuilder().put(x, Int(2)).remove(y).build();
+		final ExplValuation val3 = val1.toBuilder().put(x, Int(1)).build();
+
+		Assert.assertEquals(Optional.of(Int(1)), val1.eval(x));
+		Assert.assertEquals(Optional.of(big), val1.eval(y));
+		Assert.assertEquals(Optional.of(Int(2)), val2.eval(x));
+		Assert.assertEquals(Optional.empty(), val2.eval(y));
+		Assert.assertEquals(val1, val3);
+	}
+
+	@Test
+	public void testEquals() {
+		final ExplValuation val1 = ExplValuation.builder(slots).put(x, Int(1)).put(b, Bool(false)).build();
+		final ExplValuation val2 = ExplValuation.builder(slots).put(b, Bool(false)).put(x, Int(1)).build();
+		final ExplValuation val3 = ExplValuation.builder(ExplSlots.of(ImmutableList.of(b, x))).put(x, Int(1))
+				.put(b, Bool(false)).build();
+		final ImmutableValuation val4 = ImmutableValuation.builder().put(x, Int(1)).put(b, Bool(false)).build();
+		final ExplValuation val5 = ExplValuation.builder(slots).put(x, Int(1)).build();
+
+		Assert.assertEquals(val1, val2);
+		Assert.assertEquals(val1, val3);
+		Assert.assertEquals(val1, val4);
+		Assert.assertEquals(val4, val1);
+		Assert.assertEquals(val1.hashCode(), val2.hashCode());
+		Assert.assertEquals(val1.hashCode(), val3.hashCode());
+		Assert.assertEquals(val1.hashCode(), val4.hashCode());
+		Assert.assertNotEquals(val1, val5);
+		Assert.assertEquals(ExplState.of(val1), ExplState.of(val4));
+	}
+
+	@Test
+	public void testIsLeq() {
+		final ExplValuation val1 = ExplValuation.builder(slots).put(x, Int(1)).put(y, big).build();
+		final ExplValuation val2 = ExplValuation.builder(slots).put(x, Int(1)).build();
+		final ExplValuation val3 = ExplValuation.builder(slots).put(x, Int(2)).build();
+		final ImmutableValuation val4 = ImmutableValuation.builder().put(y, big).build();
+
+		Assert.assertTrue(val1.isLeq(val2));
+		Assert.assertFalse(val2.isLeq(val1));
+		Assert.assertFalse(val1.isLeq(val3));
+		Assert.assertTrue(val1.isLeq(val4));
+		Assert.assertTrue(val1.isLeq(val1));
+	}
+
+}
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.analysis.expr;
 
 import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 
@@ -24,6 +25,8 @@ import java.util.Collections;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+
 import hu.bme.mit.theta.analysis.expl.ExplPrec;
 import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.type.Expr;
@@ -61,4 +64,16 @@ public class ExprStatesTest {
 		Assert.assertEquals(4, ExprStates.createStatesForExpr(solver, expr, 0, prec::createState, idx, 0).size());
 		Assert.assertEquals(4, ExprStates.createStatesForExpr(solver, expr, 0, prec::createState, idx).size());
 	}
+
+	@Test
+	public void testProjected() {
+		final VarDecl<IntType> vy = Var("y", Int());
+		final ExplPrec prec = ExplPrec.of(ImmutableList.of(vx, vy));
+		final Expr<BoolType> expr = BoolExprs.Or(Eq(vx.getRef(), Int(0)), Eq(vy.getRef(), Int(0)));
+		final VarIndexing idx = VarIndexing.all(0);
+
+		Assert.assertEquals(10, ExprStates.createStatesForExpr(solver, expr, 0, prec::createState, idx, 10).size());
+		Assert.assertEquals(2, ExprStates.createStatesForExpr(solver, expr, 0, prec::createState, idx,
+				prec.getVars(), 10).size());
+	}
 }
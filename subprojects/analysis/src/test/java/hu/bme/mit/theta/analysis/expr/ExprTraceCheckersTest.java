@@ -22,6 +22,7 @@ import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
@@ -31,6 +32,7 @@ import static org.mockito.Mockito.when;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Before;
@@ -40,9 +42,11 @@ import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceBwBinItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceFwBinItpChecker;
+import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceIncrementalSeqItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceSeqItpChecker;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceStatus;
 import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceUnsatCoreChecker;
+import hu.bme.mit.theta.analysis.expr.refinement.ItpRefutation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.core.type.inttype.IntType;
@@ -61,6 +65,9 @@ public final class ExprTraceCheckersTest {
 		traceCheckers.add(ExprTraceFwBinItpChecker.create(True(), True(), solver));
 		traceCheckers.add(ExprTraceBwBinItpChecker.create(True(), True(), solver));
 		traceCheckers.add(ExprTraceUnsatCoreChecker.create(True(), True(), solver));
+		// Keeps assertions between checks, so it needs its own solver
+		traceCheckers.add(ExprTraceIncrementalSeqItpChecker.create(True(), True(),
+				Z3SolverFactory.getInstance().createItpSolver()));
 	}
 
 	@Test
@@ -112,4 +119,50 @@ public final class ExprTraceCheckersTest {
 		}
 	}
 
+	@Test
+	public void testIncrementalPrefixes() {
+		// Arrange
+		final Expr<IntType> x = Var("x", Int()).getRef();
+
+		final ExprAction incMock = mock(ExprAction.class);
+		doReturn(Eq(Prime(x), Add(x, Int(1)))).when(incMock).toExpr();
+		when(incMock.nextIndexing()).thenReturn(VarIndexing.all(1));
+
+		final ExprAction resetMock = mock(ExprAction.class);
+		doReturn(Eq(Prime(x), Int(0))).when(resetMock).toExpr();
+		when(resetMock.nextIndexing()).thenReturn(VarIndexing.all(1));
+
+		final ExprAction guardMock = mock(ExprAction.class);
+		doReturn(Geq(x, Int(1))).when(guardMock).toExpr();
+		when(guardMock.nextIndexing()).thenReturn(VarIndexing.all(0));
+
+		final List<List<ExprAction>> traces = Arrays.asList(
+				Arrays.asList(incMock, incMock),
+				Arrays.asList(incMock, incMock, resetMock, guardMock),
+				Arrays.asList(incMock, incMock, resetMock),
+				Arrays.asList(incMock, incMock, resetMock, incMock, guardMock),
+				Arrays.asList(resetMock, guardMock));
+
+		final ExprTraceChecker<?> reference = ExprTraceSeqItpChecker.create(True(), True(),
+				Z3SolverFactory.getInstance().createItpSolver());
+		final ExprTraceChecker<ItpRefutation> incremental = ExprTraceIncrementalSeqItpChecker.create(True(), True(),
+				Z3SolverFactory.getInstance().createItpSolver());
+		// The same state object in each trace, so that prefixes are shared
+		final ExprState state = BasicExprState.of(True());
+
+		for (final List<ExprAction> actions : traces) {
+			final Trace<ExprState, ExprAction> trace = Trace.of(Collections.nCopies(actions.size() + 1, state),
+					actions);
+			// Act
+			final ExprTraceStatus<?> expected = reference.check(trace);
+			final ExprTraceStatus<ItpRefutation> actual = incremental.check(trace);
+			// Assert
+			assertEquals(expected.isFeasible(), actual.isFeasible());
+			if (actual.isInfeasible()) {
+				assertEquals(trace.getStates().size(),
+						actual.asInfeasible().getRefutation().size());
+			}
+		}
+	}
+
 }
@@ -0,0 +1,140 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+
+public class ExprTraceCachingCheckerTest {
+
+	private static final class ActionStub implements ExprAction {
+		@Override
+		public Expr<BoolType> toExpr() {
+			return True();
+		}
+
+		@Override
+		public VarIndexing nextIndexing() {
+			return VarIndexing.all(1);
+		}
+	}
+
+	private static final class CheckerStub implements ExprTraceChecker<ItpRefutation> {
+		private final List<Expr<BoolType>> itps;
+		private int calls = 0;
+
+		private CheckerStub(final List<Expr<BoolType>> itps) {
+			this.itps = itps;
+		}
+
+		@Override
+		public ExprTraceStatus<ItpRefutation> check(final Trace<? extends ExprState, ? extends ExprAction> trace) {
+			calls++;
+			return ExprTraceStatus.infeasible(ItpRefutation.sequence(itps.subList(0, trace.getStates().size())));
+		}
+	}
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final ExprAction a1 = new ActionStub();
+	private final ExprAction a2 = new ActionStub();
+
+	private ExplState state(final int value) {
+		return ExplState.of(ImmutableValuation.builder().put(x, Int(value)).build());
+	}
+
+	@Test
+	public void testRepeatedTrace() {
+		final CheckerStub stub = new CheckerStub(ImmutableList.of(True(), Geq(x.getRef(), Int(0)), True(), True()));
+		final ExprTraceCachingChecker checker = ExprTraceCachingChecker.create(stub);
+		final Trace<ExplState, ExprAction> trace = Trace.of(ImmutableList.of(state(0), state(1), state(2)),
+				ImmutableList.of(a1, a2));
+
+		final ItpRefutation refutation = checker.check(trace).asInfeasible().getRefutation();
+		Assert.assertEquals(refutation, checker.check(trace).asInfeasible().getRefutation());
+		Assert.assertEquals(1, stub.calls);
+
+		// Different last state
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1), state(3)), ImmutableList.of(a1, a2)));
+		// Extension is not answered without prefix reuse
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1), state(2), state(2)),
+				ImmutableList.of(a1, a2, a1)));
+		Assert.assertEquals(3, stub.calls);
+
+		final ExprTraceCacheStatistics stats = checker.getStatistics();
+		Assert.assertEquals(1, stats.getHits());
+		Assert.assertEquals(3, stats.getMisses());
+		Assert.assertEquals(0.25, stats.getHitRate(), 1e-9);
+	}
+
+	@Test
+	public void testInfeasiblePrefix() {
+		final CheckerStub stub = new CheckerStub(ImmutableList.of(True(), False(), False(), False()));
+		final ExprTraceCachingChecker checker = ExprTraceCachingChecker.createWithPrefixes(stub);
+
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1), state(2)), ImmutableList.of(a1, a2)));
+		final ItpRefutation refutation = checker.check(Trace.of(
+				ImmutableList.of(state(0), state(1), state(5), state(6)), ImmutableList.of(a1, a1, a2)))
+				.asInfeasible().getRefutation();
+		Assert.assertEquals(ImmutableList.of(True(), False(), False(), False()), refutation.toList());
+
+		// Different action leading to the prefix
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1)), ImmutableList.of(a2)));
+		Assert.assertEquals(2, stub.calls);
+		Assert.assertEquals(1, checker.getStatistics().getPrefixHits());
+	}
+
+	@Test
+	public void testBounded() {
+		final CheckerStub stub = new CheckerStub(ImmutableList.of(True(), Geq(x.getRef(), Int(0))));
+		final ExprTraceCachingChecker checker = ExprTraceCachingChecker.create(stub, 5);
+
+		// One node for each state and action
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1)), ImmutableList.of(a1)));
+		checker.check(Trace.of(ImmutableList.of(state(1), state(0)), ImmutableList.of(a1)));
+		Assert.assertEquals(6, checker.getStatistics().getNodes());
+
+		// Full: cleared before inserting
+		checker.check(Trace.of(ImmutableList.of(state(2), state(2)), ImmutableList.of(a1)));
+		Assert.assertEquals(3, checker.getStatistics().getNodes());
+		Assert.assertEquals(1, checker.getStatistics().getClears());
+
+		// Forgotten trace is checked again
+		checker.check(Trace.of(ImmutableList.of(state(0), state(1)), ImmutableList.of(a1)));
+		Assert.assertEquals(4, stub.calls);
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.expr.refinement;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.cegar.RefinerResult;
+import hu.bme.mit.theta.analysis.expl.ExplOrd;
+import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.expl.VarsRefToExplPrec;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
+import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.ImmutableValuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.utils.IndexedVars;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+
+public class MultiExprTraceRefinerTest {
+
+	private static final class ActionStub implements ExprAction {
+		@Override
+		public Expr<BoolType> toExpr() {
+			return True();
+		}
+
+		@Override
+		public VarIndexing nextIndexing() {
+			return VarIndexing.all(1);
+		}
+	}
+
+	// Traces to x = 1 are refuted by x, traces to x = 2 by y, traces to x = 3 are feasible
+	private final class CheckerStub implements ExprTraceChecker<VarsRefutation> {
+		private final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public ExprTraceStatus<VarsRefutation> check(final Trace<? extends ExprState, ? extends ExprAction> trace) {
+			calls.incrementAndGet();
+			final ExplState last = (ExplState) trace.getState(trace.length());
+			if (last.equals(state(3))) {
+				return ExprTraceStatus.feasible(Trace.of(ImmutableList.of(ImmutableValuation.empty(),
+						ImmutableValuation.empty()), ImmutableList.of(action)));
+			}
+			final IndexedVars.Builder builder = IndexedVars.builder();
+			builder.add(trace.length(), last.equals(state(1)) ? x : y);
+			return ExprTraceStatus.infeasible(VarsRefutation.create(builder.build()));
+		}
+	}
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final VarDecl<IntType> y = Var("y", Int());
+	private final ExprAction action = new ActionStub();
+	private final PrecRefiner<ExplState, ExprAction, ExplPrec, VarsRefutation> precRefiner = JoiningPrecRefiner
+			.create(new VarsRefToExplPrec());
+
+	private ExplState state(final int value) {
+		return ExplState.of(ImmutableValuation.builder().put(x, Int(value)).build());
+	}
+
+	private ARG<ExplState, ExprAction> createArg(final int... values) {
+		final ARG<ExplState, ExprAction> arg = ARG.create(ExplOrd.getInstance());
+		final ArgNode<ExplState, ExprAction> init = arg.createInitNode(ExplState.top(), false);
+		for (final int value : values) {
+			arg.createSuccNode(init, action, state(value), true);
+		}
+		return arg;
+	}
+
+	@Test
+	public void testAllTracesRefined() {
+		final CheckerStub checker = new CheckerStub();
+		final MultiExprTraceRefiner<ExplState, ExprAction, ExplPrec, VarsRefutation> refiner = MultiExprTraceRefiner
+				.create(checker, precRefiner, PruneStrategy.LAZY, NullLogger.getInstance());
+		final ARG<ExplState, ExprAction> arg = createArg(1, 2);
+
+		final RefinerResult<ExplState, ExprAction, ExplPrec> result = refiner.refine(arg, ExplPrec.empty());
+
+		Assert.assertTrue(result.isSpurious());
+		Assert.assertEquals(ImmutableSet.of(x, y), result.asSpurious().getRefinedPrec().getVars());
+		Assert.assertEquals(1, arg.size());
+		Assert.assertEquals(2, checker.calls.get());
+
+		final MultiExprTraceRefinerStatistics stats = refiner.getStatistics();
+		Assert.assertEquals(1, stats.getRefinements());
+		Assert.assertEquals(2, stats.getCheckedTraces());
+		Assert.assertEquals(0, stats.getSkippedTraces());
+	}
+
+	@Test
+	public void testFeasibleTrace() {
+		final CheckerStub checker = new CheckerStub();
+		final MultiExprTraceRefiner<ExplState, ExprAction, ExplPrec, VarsRefutation> refiner = MultiExprTraceRefiner
+				.create(checker, precRefiner, PruneStrategy.LAZY, NullLogger.getInstance());
+		final ARG<ExplState, ExprAction> arg = createArg(1, 3, 2);
+
+		final RefinerResult<ExplState, ExprAction, ExplPrec> result = refiner.refine(arg, ExplPrec.empty());
+
+		Assert.assertTrue(result.isUnsafe());
+		Assert.assertEquals(state(3), result.asUnsafe().getCex().getState(1));
+		Assert.assertEquals(2, refiner.getStatistics().getCheckedTraces());
+		Assert.assertEquals(1, refiner.getStatistics().getSkippedTraces());
+	}
+
+	@Test
+	public void testParallelCheckersReused() {
+		final AtomicInteger checkers = new AtomicInteger();
+		// Solvers are only passed to the checker factory
+		final MultiExprTraceRefiner<ExplState, ExprAction, ExplPrec, VarsRefutation> refiner = MultiExprTraceRefiner
+				.createParallel(solver -> {
+					checkers.incrementAndGet();
+					return new CheckerStub();
+				}, () -> null, 2, precRefiner, PruneStrategy.LAZY, NullLogger.getInstance());
+
+		for (int i = 0; i < 3; i++) {
+			final RefinerResult<ExplState, ExprAction, ExplPrec> result = refiner.refine(createArg(1, 2, 1, 2),
+					ExplPrec.empty());
+			Assert.assertTrue(result.isSpurious());
+			Assert.assertEquals(ImmutableSet.of(x, y), result.asSpurious().getRefinedPrec().getVars());
+		}
+		Assert.assertEquals(2, checkers.get());
+		Assert.assertEquals(12, refiner.getStatistics().getCheckedTraces());
+	}
+
+}
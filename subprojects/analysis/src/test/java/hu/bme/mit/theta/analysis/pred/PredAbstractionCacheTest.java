@@ -0,0 +1,81 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.anytype.Exprs.Prime;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Gt;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.core.utils.VarIndexing;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+
+public class PredAbstractionCacheTest {
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final Solver solver = Z3SolverFactory.getInstance().createSolver();
+	private final PredAbstractionCache cache = PredAbstractionCache.create(100);
+	private final PredAbstractor abstractor = PredAbstractors
+			.cachingAbstractor(PredAbstractors.cartesianAbstractor(solver), cache);
+
+	@Test
+	public void testHit() {
+		final Collection<PredState> states1 = abstractor.createStatesForExpr(createExpr(), VarIndexing.all(0),
+				PredPrec.of(Lt(x.getRef(), Int(5))), VarIndexing.all(1));
+		final Collection<PredState> states2 = abstractor.createStatesForExpr(createExpr(), VarIndexing.all(0),
+				PredPrec.of(Lt(x.getRef(), Int(5))), VarIndexing.all(1));
+
+		assertEquals(ImmutableList.of(PredState.of(Lt(x.getRef(), Int(5)))), ImmutableList.copyOf(states1));
+		assertEquals(ImmutableList.copyOf(states1), ImmutableList.copyOf(states2));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testMiss() {
+		abstractor.createStatesForExpr(createExpr(), VarIndexing.all(0), PredPrec.of(Lt(x.getRef(), Int(5))),
+				VarIndexing.all(1));
+		abstractor.createStatesForExpr(createExpr(), VarIndexing.all(0),
+				PredPrec.of(ImmutableList.of(Lt(x.getRef(), Int(5)), Gt(x.getRef(), Int(2)))), VarIndexing.all(1));
+		abstractor.createStatesForExpr(createExpr(), VarIndexing.all(0), PredPrec.of(Lt(x.getRef(), Int(5))),
+				VarIndexing.all(2));
+
+		assertEquals(3, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+	}
+
+	private Expr<BoolType> createExpr() {
+		// x < 3 and x' = x + 1
+		return And(Lt(x.getRef(), Int(3)), Eq(Prime(x.getRef()), Add(x.getRef(), Int(1))));
+	}
+}
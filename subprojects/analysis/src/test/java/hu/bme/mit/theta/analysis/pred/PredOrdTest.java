@@ -26,6 +26,7 @@ import org.junit.Test;
 import hu.bme.mit.theta.core.decl.Decls;
 import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
 import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
 
 public class PredOrdTest {
@@ -74,4 +75,38 @@ public class PredOrdTest {
 		Assert.assertFalse(ord.isLeq(st, s3));
 		Assert.assertTrue(ord.isLeq(st, st));
 	}
+
+	@Test
+	public void testStatistics() {
+		final PredOrd ord = PredOrd.create(Z3SolverFactory.getInstance().createSolver());
+		final PredState s12 = PredState.of(Gt(VX.getRef(), Int(1)), Gt(VX.getRef(), Int(0)));
+
+		Assert.assertTrue(ord.isLeq(s12, s1));
+		Assert.assertTrue(ord.isLeq(s1, st));
+		Assert.assertTrue(ord.isLeq(s1, s2));
+		Assert.assertTrue(ord.isLeq(s1, s2));
+		Assert.assertFalse(ord.isLeq(s2, s1));
+		Assert.assertFalse(ord.isLeq(s2, s1));
+
+		final PredOrd.PredOrdStatistics stats = ord.getStatistics();
+		Assert.assertEquals(2, stats.getSyntacticChecks());
+		Assert.assertEquals(1, stats.getCachedChecks());
+		Assert.assertEquals(3, stats.getSolverChecks());
+	}
+
+	@Test
+	public void testBoundedProvenPairs() {
+		final PredOrd ord = PredOrd.create(SolverProviders.of(Z3SolverFactory.getInstance().createSolver()), 1);
+		final PredState s4 = PredState.of(Gt(VX.getRef(), Int(2)));
+
+		Assert.assertTrue(ord.isLeq(s1, s2));
+		Assert.assertTrue(ord.isLeq(s4, s2));
+		Assert.assertTrue(ord.isLeq(s4, s2));
+		Assert.assertTrue(ord.isLeq(s1, s2));
+
+		final PredOrd.PredOrdStatistics stats = ord.getStatistics();
+		Assert.assertEquals(1, stats.getCachedChecks());
+		Assert.assertEquals(3, stats.getSolverChecks());
+		Assert.assertEquals(1, stats.getProvenPairs());
+	}
 }
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.analysis.pred;
 
 import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
@@ -63,4 +64,19 @@ public class PredPrecTest {
 		Assert.assertNotEquals(p0, p2);
 		Assert.assertEquals(p1, p2);
 	}
+
+	@Test
+	public void testNegate() {
+		final PredPrec p1 = PredPrec.of(Collections.singleton(pred));
+		final Expr<BoolType> other = Lt(y.getRef(), Int(3));
+
+		Assert.assertEquals(Not(pred), p1.negate(pred));
+		try {
+			p1.negate(other);
+			Assert.fail();
+		} catch (final IllegalArgumentException e) {
+			// Unknown predicates are not added to the index
+			Assert.assertEquals(-1, p1.getIndex().find(other));
+		}
+	}
 }
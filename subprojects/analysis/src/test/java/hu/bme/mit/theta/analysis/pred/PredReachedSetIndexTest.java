@@ -0,0 +1,77 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Gt;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+
+public class PredReachedSetIndexTest {
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final Expr<BoolType> p = Gt(x.getRef(), Int(0));
+	private final Expr<BoolType> q = Lt(x.getRef(), Int(5));
+
+	private final PredState top = PredState.of();
+	private final PredState pq = PredState.of(p, q);
+	private final PredState pnq = PredState.of(p, Not(q));
+	private final PredState npq = PredState.of(Not(p), q);
+	private final PredState np = PredState.of(Not(p));
+
+	@Test
+	public void testCandidates() {
+		final PredReachedSetIndex<PredState> index = PredReachedSetIndex.create(Function.identity());
+		final List<PredState> states = ImmutableList.of(pq, top, pnq, npq, np);
+		states.forEach(index::add);
+
+		Assert.assertEquals(ImmutableList.of(pq, top), index.getCandidates(pq));
+		Assert.assertEquals(ImmutableList.of(top, npq, np), index.getCandidates(np));
+		Assert.assertEquals(states, index.getCandidates(top));
+	}
+
+	@Test
+	public void testNoMissedCandidates() {
+		final PredOrd ord = PredOrd.create(Z3SolverFactory.getInstance().createSolver());
+		final PredReachedSetIndex<PredState> index = PredReachedSetIndex.create(Function.identity());
+		final List<PredState> states = ImmutableList.of(pq, top, pnq, npq, np);
+		states.forEach(index::add);
+
+		for (final PredState state : states) {
+			for (final PredState other : states) {
+				if (ord.isLeq(state, other)) {
+					Assert.assertTrue(index.getCandidates(state).contains(other));
+				}
+			}
+		}
+	}
+
+}
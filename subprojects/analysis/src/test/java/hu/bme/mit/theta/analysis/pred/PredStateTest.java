@@ -0,0 +1,115 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.pred;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+
+import java.util.BitSet;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public class PredStateTest {
+
+	private final VarDecl<IntType> x = Var("x", Int());
+	private final VarDecl<IntType> y = Var("y", Int());
+
+	private final Expr<BoolType> p = Lt(x.getRef(), Int(5));
+	private final Expr<BoolType> q = Eq(x.getRef(), y.getRef());
+
+	@Test
+	public void testEquals() {
+		final PredState s1 = PredState.of(p, Not(q));
+		final PredState s2 = PredState.of(Not(q), p);
+		final PredState s3 = PredState.of(p, q);
+
+		Assert.assertEquals(s1, s2);
+		Assert.assertEquals(s1.hashCode(), s2.hashCode());
+		Assert.assertNotEquals(s1, s3);
+		Assert.assertEquals(ImmutableSet.of(p, Not(q)), s1.getPreds());
+	}
+
+	@Test
+	public void testFromPrec() {
+		final PredPrec prec = PredPrec.of(ImmutableSet.of(q, p));
+		final int[] indices = prec.getIndices();
+		Assert.assertEquals(prec.getPreds().size(), indices.length);
+
+		final BitSet positive = new BitSet();
+		final BitSet negative = new BitSet();
+		int i = 0;
+		for (final Expr<BoolType> pred : prec.getPreds()) {
+			if (pred.equals(p)) {
+				positive.set(indices[i]);
+			} else {
+				negative.set(indices[i]);
+			}
+			i++;
+		}
+		Assert.assertEquals(PredState.of(p, Not(q)), PredState.of(prec, positive, negative));
+	}
+
+	@Test
+	public void testContainsAll() {
+		final PredState s = PredState.of(p, Not(q));
+		Assert.assertTrue(s.containsAll(PredState.of()));
+		Assert.assertTrue(s.containsAll(PredState.of(p)));
+		Assert.assertTrue(s.containsAll(PredState.of(Not(q))));
+		Assert.assertFalse(s.containsAll(PredState.of(q)));
+		Assert.assertFalse(PredState.of(p).containsAll(s));
+	}
+
+	@Test
+	public void testCompound() {
+		final PredPrec prec = PredPrec.of(ImmutableSet.of(p, q));
+		final Expr<BoolType> or = Or(And(p, q), And(Not(p), Not(q)));
+		final PredState s = PredState.of(prec, or);
+
+		Assert.assertEquals(-1, prec.getIndex().find(or));
+		Assert.assertEquals(s, PredState.of(prec, Or(And(p, q), And(Not(p), Not(q)))));
+		Assert.assertEquals(ImmutableSet.of(or), s.getPreds());
+		Assert.assertEquals(or, s.toExpr());
+		Assert.assertNotEquals(s, PredState.of());
+		Assert.assertTrue(s.containsAll(s));
+		Assert.assertTrue(s.containsAll(PredState.of()));
+		Assert.assertFalse(PredState.of().containsAll(s));
+		Assert.assertFalse(s.isBottom());
+	}
+
+	@Test
+	public void testBottom() {
+		Assert.assertTrue(PredState.bottom().isBottom());
+		Assert.assertTrue(PredState.of(False()).isBottom());
+		Assert.assertFalse(PredState.of(False(), p).isBottom());
+		Assert.assertFalse(PredState.of(Not(False())).isBottom());
+		Assert.assertFalse(PredState.of().isBottom());
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.analysis.zone;
+
+import static hu.bme.mit.theta.analysis.zone.DiffBounds.Inf;
+import static hu.bme.mit.theta.analysis.zone.DiffBounds.Leq;
+import static hu.bme.mit.theta.analysis.zone.DiffBounds.Lt;
+import static hu.bme.mit.theta.analysis.zone.DiffBounds.add;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BasicDbmTest {
+
+	private static final int N_CLOCKS = 5;
+	private static final int N_RUNS = 200;
+	private static final int N_STEPS = 20;
+
+	@Test
+	public void testAndMatchesFullClosure() {
+		final Random random = new Random(0);
+		for (int run = 0; run < N_RUNS; run++) {
+			final BasicDbm dbm = new BasicDbm(N_CLOCKS + 1, (x, y) -> Leq(0));
+			final int[][] reference = new int[N_CLOCKS + 1][N_CLOCKS + 1];
+			fill(reference, dbm);
+
+			for (int step = 0; step < N_STEPS && dbm.isConsistent(); step++) {
+				if (random.nextInt(3) == 0) {
+					dbm.up();
+					for (int i = 1; i <= N_CLOCKS; i++) {
+						reference[i][0] = Inf();
+					}
+				} else {
+					final int x = random.nextInt(N_CLOCKS + 1);
+					final int y = random.nextInt(N_CLOCKS + 1);
+					final int b = random.nextBoolean() ? Leq(random.nextInt(20) - 5) : Lt(random.nextInt(20) - 5);
+					dbm.and(x, y, b);
+					reference[x][y] = Math.min(reference[x][y], b);
+					final boolean consistent = close(reference);
+					assertEquals(consistent, dbm.isConsistent());
+				}
+				if (dbm.isConsistent()) {
+					assertTrue(dbm.isClosed());
+					assertMatrixEquals(reference, dbm);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testCloseMatchesReference() {
+		final Random random = new Random(1);
+		for (int run = 0; run < N_RUNS; run++) {
+			final BasicDbm dbm = new BasicDbm(N_CLOCKS + 1,
+					(x, y) -> x == y ? Leq(0) : (random.nextInt(4) == 0 ? Inf() : Leq(random.nextInt(30))));
+			final int[][] reference = new int[N_CLOCKS + 1][N_CLOCKS + 1];
+			fill(reference, dbm);
+
+			dbm.close();
+			final boolean consistent = close(reference);
+
+			assertEquals(consistent, dbm.isConsistent());
+			if (consistent) {
+				assertMatrixEquals(reference, dbm);
+			}
+		}
+	}
+
+	@Test
+	public void testAndDbm() {
+		final BasicDbm dbm1 = new BasicDbm(3, BasicDbm::defaultBound);
+		dbm1.and(1, 0, Leq(5));
+		final BasicDbm dbm2 = new BasicDbm(3, BasicDbm::defaultBound);
+		dbm2.and(2, 1, Leq(1));
+		dbm2.and(0, 2, Leq(-3));
+
+		final BasicDbm expected = new BasicDbm(dbm1);
+		expected.and(2, 1, Leq(1));
+		expected.and(0, 2, Leq(-3));
+
+		dbm1.and(dbm2);
+		assertEquals(expected.getRelation(dbm1), DbmRelation.EQUAL);
+		assertTrue(dbm1.isLeq(dbm2));
+
+		dbm1.and(0, 1, Lt(-5));
+		assertTrue(!dbm1.isConsistent());
+	}
+
+	private static void fill(final int[][] reference, final BasicDbm dbm) {
+		for (int i = 0; i < reference.length; i++) {
+			for (int j = 0; j < reference.length; j++) {
+				reference[i][j] = dbm.get(i, j);
+			}
+		}
+	}
+
+	private static boolean close(final int[][] m) {
+		final int n = m.length;
+		for (int k = 0; k < n; k++) {
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					m[i][j] = Math.min(m[i][j], add(m[i][k], m[k][j]));
+				}
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (m[i][i] < Leq(0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void assertMatrixEquals(final int[][] expected, final BasicDbm dbm) {
+		for (int i = 0; i < expected.length; i++) {
+			for (int j = 0; j < expected.length; j++) {
+				assertEquals(expected[i][j], dbm.get(i, j));
+			}
+		}
+	}
+
+}
@@ -15,37 +15,53 @@
  */
 package hu.bme.mit.theta.cfa.analysis.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Analysis;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
 import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.expl.ExplReachedSetIndex;
 import hu.bme.mit.theta.analysis.expl.ExplState;
 import hu.bme.mit.theta.analysis.expl.ExplStmtAnalysis;
 import hu.bme.mit.theta.analysis.expl.ItpRefToExplPrec;
 import hu.bme.mit.theta.analysis.expl.VarsRefToExplPrec;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
 import hu.bme.mit.theta.analysis.expr.ExprState;
 import hu.bme.mit.theta.analysis.expr.refinement.*;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters.ExprSplitter;
 import hu.bme.mit.theta.analysis.pred.ItpRefToPredPrec;
+import hu.bme.mit.theta.analysis.pred.PredAbstractionCache;
 import hu.bme.mit.theta.analysis.pred.PredAbstractors;
 import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
 import hu.bme.mit.theta.analysis.pred.PredAnalysis;
 import hu.bme.mit.theta.analysis.pred.PredPrec;
+import hu.bme.mit.theta.analysis.pred.PredReachedSetIndex;
 import hu.bme.mit.theta.analysis.pred.PredState;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.cfa.CFA;
 import hu.bme.mit.theta.cfa.analysis.*;
 import hu.bme.mit.theta.cfa.analysis.lts.CfaCachedLts;
@@ -58,7 +74,10 @@ import hu.bme.mit.theta.cfa.analysis.prec.LocalCfaPrec;
 import hu.bme.mit.theta.cfa.analysis.prec.LocalCfaPrecRefiner;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
 
 public class CfaConfigBuilder {
@@ -177,6 +196,11 @@ public class CfaConfigBuilder {
 	private int maxEnum = 0;
 	private InitPrec initPrec = InitPrec.EMPTY;
 	private PruneStrategy pruneStrategy = PruneStrategy.LAZY;
+	private int threads = 1;
+	private int predCacheSize = 0;
+	private int maxArgSize = 0;
+	private boolean traceCache = false;
+	private boolean incrementalItp = false;
 
 	public CfaConfigBuilder(final Domain domain, final Refinement refinement, final SolverFactory solverFactory) {
 		this.domain = domain;
@@ -224,39 +248,92 @@ public class CfaConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Number of threads used for building the ARG and, with MULTI_SEQ
+	 * refinement, for checking the counterexamples. Each additional thread
+	 * uses its own solver.
+	 */
+	public CfaConfigBuilder threads(final int threads) {
+		checkArgument(threads > 0, "Number of threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Maximal number of predicate abstraction results cached and reused
+	 * between CEGAR iterations. Zero disables caching.
+	 */
+	public CfaConfigBuilder predCacheSize(final int predCacheSize) {
+		checkArgument(predCacheSize >= 0, "Cache size must not be negative");
+		this.predCacheSize = predCacheSize;
+		return this;
+	}
+
+	/**
+	 * Maximal number of ARG nodes, over which the algorithm stops with an
+	 * exception. Zero is unlimited.
+	 */
+	public CfaConfigBuilder maxArgSize(final int maxArgSize) {
+		checkArgument(maxArgSize >= 0, "ARG size limit must not be negative");
+		this.maxArgSize = maxArgSize;
+		return this;
+	}
+
+	/**
+	 * Cache the refutations of infeasible counterexamples for interpolation
+	 * based refinements, so that repeated counterexamples (and with sequence
+	 * interpolation, counterexamples with an infeasible prefix) are not
+	 * checked again.
+	 */
+	public CfaConfigBuilder traceCache(final boolean traceCache) {
+		this.traceCache = traceCache;
+		return this;
+	}
+
+	/**
+	 * Check counterexamples for sequence interpolation incrementally, keeping
+	 * the solver frames of the common prefix of consecutive counterexamples.
+	 */
+	public CfaConfigBuilder incrementalItp(final boolean incrementalItp) {
+		this.incrementalItp = incrementalItp;
+		return this;
+	}
+
 	public CfaConfig<? extends State, ? extends Action, ? extends Prec> build(final CFA cfa, final CFA.Loc errLoc) {
 		final ItpSolver solver = solverFactory.createItpSolver();
+		// The incremental checker keeps its assertions, so it cannot share the solver with the abstractor
+		final ItpSolver refinerSolver = incrementalItp ? solverFactory.createItpSolver() : solver;
 		final CfaLts lts = encoding.getLts(errLoc);
 
 		if (domain == Domain.EXPL) {
-			final Analysis<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> analysis = CfaAnalysis
-					.create(cfa.getInitLoc(), ExplStmtAnalysis.create(solver, True(), maxEnum));
-			final ArgBuilder<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> argBuilder = ArgBuilder.create(lts,
-					analysis, s -> s.getLoc().equals(errLoc), true);
-			final Abstractor<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> abstractor = BasicAbstractor
-					.builder(argBuilder).projection(CfaState::getLoc)
-					.waitlist(PriorityWaitlist.create(search.getComp(cfa, errLoc)))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex()).logger(logger).build();
-
+			final Function<Solver, ArgBuilder<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>>> argBuilderFactory = s -> {
+				final Analysis<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> analysis = CfaAnalysis
+						.create(cfa.getInitLoc(), ExplStmtAnalysis.create(s, True(), maxEnum));
+				return ArgBuilder.create(lts, analysis, st -> st.getLoc().equals(errLoc), true);
+			};
+			final Abstractor<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> abstractor = createAbstractor(
+					argBuilderFactory, solver, CfaState::getLoc, PriorityWaitlist.create(search.getComp(cfa, errLoc)),
+					() -> ExplReachedSetIndex.create(n -> n.getState().getState()));
+
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
 			Refiner<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> refiner;
 
 			switch (refinement) {
 				case FW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(True(), True(), solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceFwBinItpChecker.create(True(), True(), solver), false, componentStatistics),
 							precGranularity.createRefiner(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case BW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(True(), True(), solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceBwBinItpChecker.create(True(), True(), solver), false, componentStatistics),
 							precGranularity.createRefiner(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case SEQ_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(True(), True(), solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(createSeqItpChecker(True(), True(), refinerSolver), true, componentStatistics),
 							precGranularity.createRefiner(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case MULTI_SEQ:
-					refiner = MultiExprTraceRefiner.create(ExprTraceSeqItpChecker.create(True(), True(), solver),
-							precGranularity.createRefiner(new ItpRefToExplPrec()), pruneStrategy, logger);
+					refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(True(), True(), s), true, componentStatistics),
+							precGranularity.createRefiner(new ItpRefToExplPrec()), componentStatistics);
 					break;
 				case UNSAT_CORE:
 					refiner = SingleExprTraceRefiner.create(ExprTraceUnsatCoreChecker.create(True(), True(), solver),
@@ -336,7 +413,7 @@ public class CfaConfigBuilder {
 			}
 
 			final SafetyChecker<CfaState<ExplState>, CfaAction, CfaPrec<ExplPrec>> checker = CegarChecker
-					.create(abstractor, refiner, logger);
+					.create(abstractor, refiner, logger, maxArgSize, componentStatistics);
 
 			CfaPrec<ExplPrec> prec;
 
@@ -355,88 +432,74 @@ public class CfaConfigBuilder {
 			return CfaConfig.create(checker, prec);
 
 		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT) {
-			PredAbstractor predAbstractor;
-			switch (domain) {
-				case PRED_BOOL:
-					predAbstractor = PredAbstractors.booleanAbstractor(solver);
-					break;
-				case PRED_SPLIT:
-					predAbstractor = PredAbstractors.booleanSplitAbstractor(solver);
-					break;
-				case PRED_CART:
-					predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-					break;
-				default:
-					throw new UnsupportedOperationException(domain + " domain is not supported.");
-			}
-			final Analysis<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> analysis = CfaAnalysis
-					.create(cfa.getInitLoc(), PredAnalysis.create(solver, predAbstractor, True()));
-			final ArgBuilder<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> argBuilder = ArgBuilder.create(lts,
-					analysis, s -> s.getLoc().equals(errLoc), true);
-			final Abstractor<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> abstractor = BasicAbstractor
-					.builder(argBuilder).projection(CfaState::getLoc)
-					.waitlist(PriorityWaitlist.create(search.getComp(cfa, errLoc)))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex()).logger(logger).build();
-
-			ExprTraceChecker<ItpRefutation> exprTraceChecker;
-			switch (refinement) {
-				case FW_BIN_ITP:
-					exprTraceChecker = ExprTraceFwBinItpChecker.create(True(), True(), solver);
-					break;
-				case BW_BIN_ITP:
-					exprTraceChecker = ExprTraceBwBinItpChecker.create(True(), True(), solver);
-					break;
-				case SEQ_ITP:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(True(), True(), solver);
-					break;
-				case MULTI_SEQ:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(True(), True(), solver);
-					break;
-				case UCB:
-					exprTraceChecker = ExprTraceUCBChecker.create(True(), True(), solver);
-					break;
-				case NWT_SP:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withSP().withoutLV();
-					break;
-				case NWT_WP:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withWP().withoutLV();
-					break;
-				case NWT_SP_LV:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withSP().withLV();
-					break;
-				case NWT_WP_LV:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withWP().withLV();
-					break;
-				case NWT_IT_SP:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withSP().withoutLV();
-					break;
-				case NWT_IT_WP:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withWP().withoutLV();
-					break;
-				case NWT_IT_SP_LV:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withSP().withLV();
-					break;
-				case NWT_IT_WP_LV:
-					exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withWP().withLV();
-					break;
-				default:
-					throw new UnsupportedOperationException(
-							domain + " domain does not support " + refinement + " refinement.");
-			}
+			final Function<PredAbstractor, PredAbstractor> predCaching = createPredCaching();
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
+			final Function<Solver, ArgBuilder<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>>> argBuilderFactory = s -> {
+				final PredAnalysis predAnalysis = PredAnalysis.create(s, predCaching.apply(createPredAbstractor(s)), True());
+				componentStatistics.add(predAnalysis.getPartialOrd()::getStatistics);
+				final Analysis<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> analysis = CfaAnalysis
+						.create(cfa.getInitLoc(), predAnalysis);
+				return ArgBuilder.create(lts, analysis, st -> st.getLoc().equals(errLoc), true);
+			};
+			final Abstractor<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> abstractor = createAbstractor(
+					argBuilderFactory, solver, CfaState::getLoc, PriorityWaitlist.create(search.getComp(cfa, errLoc)),
+					() -> PredReachedSetIndex.create(n -> n.getState().getState()));
+
 			final ItpRefToPredPrec refToPrec = new ItpRefToPredPrec(predSplit.splitter);
 			Refiner<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> refiner;
 
 			if (refinement == Refinement.MULTI_SEQ) {
-				refiner = MultiExprTraceRefiner.create(exprTraceChecker,
-						precGranularity.createRefiner(refToPrec), pruneStrategy, logger);
+				refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(True(), True(), s), true, componentStatistics),
+						precGranularity.createRefiner(refToPrec), componentStatistics);
 			} else {
+				final ExprTraceChecker<ItpRefutation> exprTraceChecker;
+				switch (refinement) {
+					case FW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceFwBinItpChecker.create(True(), True(), solver), false, componentStatistics);
+						break;
+					case BW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceBwBinItpChecker.create(True(), True(), solver), false, componentStatistics);
+						break;
+					case SEQ_ITP:
+						exprTraceChecker = withTraceCache(createSeqItpChecker(True(), True(), refinerSolver), true, componentStatistics);
+						break;
+					case UCB:
+						exprTraceChecker = ExprTraceUCBChecker.create(True(), True(), solver);
+						break;
+					case NWT_SP:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withSP().withoutLV();
+						break;
+					case NWT_WP:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withWP().withoutLV();
+						break;
+					case NWT_SP_LV:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withSP().withLV();
+						break;
+					case NWT_WP_LV:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withoutIT().withWP().withLV();
+						break;
+					case NWT_IT_SP:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withSP().withoutLV();
+						break;
+					case NWT_IT_WP:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withWP().withoutLV();
+						break;
+					case NWT_IT_SP_LV:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withSP().withLV();
+						break;
+					case NWT_IT_WP_LV:
+						exprTraceChecker = ExprTraceNewtonChecker.create(True(), True(), solver).withIT().withWP().withLV();
+						break;
+					default:
+						throw new UnsupportedOperationException(
+								domain + " domain does not support " + refinement + " refinement.");
+				}
 				refiner = SingleExprTraceRefiner.create(exprTraceChecker,
 						precGranularity.createRefiner(refToPrec), pruneStrategy, logger);
 			}
 
 			final SafetyChecker<CfaState<PredState>, CfaAction, CfaPrec<PredPrec>> checker = CegarChecker
-					.create(abstractor, refiner, logger);
+					.create(abstractor, refiner, logger, maxArgSize, componentStatistics);
 
 			CfaPrec<PredPrec> prec;
 
@@ -468,4 +531,88 @@ public class CfaConfigBuilder {
 			throw new UnsupportedOperationException(domain + " domain is not supported.");
 		}
 	}
+
+	private PredAbstractor createPredAbstractor(final Solver solver) {
+		switch (domain) {
+			case PRED_BOOL:
+				return PredAbstractors.booleanAbstractor(solver);
+			case PRED_SPLIT:
+				return PredAbstractors.booleanSplitAbstractor(solver);
+			case PRED_CART:
+				return PredAbstractors.cartesianAbstractor(solver);
+			default:
+				throw new UnsupportedOperationException(domain + " domain is not supported.");
+		}
+	}
+
+	private Function<PredAbstractor, PredAbstractor> createPredCaching() {
+		if (predCacheSize == 0) {
+			return Function.identity();
+		} else {
+			// Shared between the abstractors of all threads
+			final PredAbstractionCache cache = PredAbstractionCache.create(predCacheSize);
+			return predAbstractor -> PredAbstractors.cachingAbstractor(predAbstractor, cache);
+		}
+	}
+
+	private <S extends State, A extends Action, P extends Prec> Abstractor<S, A, P> createAbstractor(
+			final Function<Solver, ArgBuilder<S, A, P>> argBuilderFactory, final Solver solver,
+			final Function<? super S, ?> projection, final Waitlist<ArgNode<S, A>> waitlist,
+			final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+		final StopCriterion<S, A> stopCriterion = refinement == Refinement.MULTI_SEQ
+				? StopCriterions.fullExploration() : StopCriterions.firstCex();
+
+		if (threads == 1) {
+			return BasicAbstractor.builder(argBuilderFactory.apply(solver)).projection(projection)
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		} else {
+			// Each thread gets its own solver, the first one is shared with the refiner
+			final List<ArgBuilder<S, A, P>> argBuilders = new ArrayList<>();
+			argBuilders.add(argBuilderFactory.apply(solver));
+			for (int i = 1; i < threads; i++) {
+				argBuilders.add(argBuilderFactory.apply(solverFactory.createSolver()));
+			}
+			return ParallelAbstractor.builder(argBuilders).projection(projection)
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> createSeqItpChecker(final Expr<BoolType> init, final Expr<BoolType> target,
+																final ItpSolver solver) {
+		if (incrementalItp) {
+			return ExprTraceIncrementalSeqItpChecker.create(init, target, solver);
+		} else {
+			return ExprTraceSeqItpChecker.create(init, target, solver);
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> withTraceCache(final ExprTraceChecker<ItpRefutation> checker,
+														   final boolean sequence,
+														   final List<Supplier<? extends Statistics>> componentStatistics) {
+		if (!traceCache) {
+			return checker;
+		}
+		final ExprTraceCachingChecker cache = sequence
+				? ExprTraceCachingChecker.createWithPrefixes(checker)
+				: ExprTraceCachingChecker.create(checker);
+		componentStatistics.add(cache::getStatistics);
+		return cache;
+	}
+
+	private <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> Refiner<S, A, P> createMultiRefiner(
+			final ItpSolver solver, final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory,
+			final PrecRefiner<S, A, P, R> precRefiner, final List<Supplier<? extends Statistics>> componentStatistics) {
+		final MultiExprTraceRefiner<S, A, P, R> refiner;
+		if (threads == 1) {
+			refiner = MultiExprTraceRefiner.create(checkerFactory.apply(solver), precRefiner, pruneStrategy, logger);
+		} else {
+			// Counterexamples are checked on as many threads as the ARG is built
+			refiner = MultiExprTraceRefiner.createParallel(checkerFactory, solverFactory::createItpSolver,
+					threads, precRefiner, pruneStrategy, logger);
+		}
+		componentStatistics.add(refiner::getStatistics);
+		return refiner;
+	}
 }
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.Prec;
@@ -30,7 +31,9 @@ import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgTrace;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.reachedset.ListReachedSetIndex;
 import hu.bme.mit.theta.analysis.reachedset.ReachedSet;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 import hu.bme.mit.theta.analysis.waitlist.FifoWaitlist;
 import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 
@@ -39,18 +42,28 @@ public final class ImpactChecker<S extends State, A extends Action, P extends Pr
 	private final ArgBuilder<S, A, P> argBuilder;
 	private final ImpactRefiner<S, A> refiner;
 	private final Function<? super S, ?> partitioning;
+	private final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex;
 
 	private ImpactChecker(final ArgBuilder<S, A, P> argBuilder, final ImpactRefiner<S, A> refiner,
-						  final Function<? super S, ?> partitioning) {
+						  final Function<? super S, ?> partitioning,
+						  final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
 		this.argBuilder = checkNotNull(argBuilder);
 		this.refiner = checkNotNull(refiner);
 		this.partitioning = checkNotNull(partitioning);
+		this.reachedSetIndex = checkNotNull(reachedSetIndex);
 	}
 
 	public static <S extends State, A extends Action, P extends Prec> ImpactChecker<S, A, P> create(
 			final ArgBuilder<S, A, P> argBuilder, final ImpactRefiner<S, A> refiner,
 			final Function<? super S, ?> partitioning) {
-		return new ImpactChecker<>(argBuilder, refiner, partitioning);
+		return new ImpactChecker<>(argBuilder, refiner, partitioning, ListReachedSetIndex::create);
+	}
+
+	public static <S extends State, A extends Action, P extends Prec> ImpactChecker<S, A, P> create(
+			final ArgBuilder<S, A, P> argBuilder, final ImpactRefiner<S, A> refiner,
+			final Function<? super S, ?> partitioning,
+			final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+		return new ImpactChecker<>(argBuilder, refiner, partitioning, reachedSetIndex);
 	}
 
 	////
@@ -71,7 +84,7 @@ public final class ImpactChecker<S extends State, A extends Action, P extends Pr
 		private CheckMethod(final P prec) {
 			this.prec = checkNotNull(prec);
 			arg = argBuilder.createArg();
-			reachedSet = ImpactReachedSet.create(partitioning);
+			reachedSet = ImpactReachedSet.create(partitioning, reachedSetIndex);
 		}
 
 		private SafetyResult<S, A> run() {
@@ -17,51 +17,48 @@ package hu.bme.mit.theta.cfa.analysis.impact;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import hu.bme.mit.theta.analysis.Action;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.reachedset.ListReachedSetIndex;
+import hu.bme.mit.theta.analysis.reachedset.Partition;
 import hu.bme.mit.theta.analysis.reachedset.ReachedSet;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 
 public final class ImpactReachedSet<S extends State, A extends Action, K> implements ReachedSet<S, A> {
 
-	private final Function<? super S, ? extends K> partitioning;
+	private final Partition<ArgNode<S, A>, K> partitions;
 
-	private final Map<K, List<ArgNode<S, A>>> partitions;
-
-	private ImpactReachedSet(final Function<? super S, ? extends K> partitioning) {
-		this.partitioning = checkNotNull(partitioning);
-		partitions = new HashMap<>();
+	private ImpactReachedSet(final Function<? super S, ? extends K> partitioning,
+							 final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> index) {
+		checkNotNull(partitioning);
+		partitions = Partition.of(n -> partitioning.apply(n.getState()), index);
 	}
 
 	public static <S extends State, A extends Action, K> ImpactReachedSet<S, A, K> create(
 			final Function<? super S, ? extends K> partitioning) {
-		return new ImpactReachedSet<>(partitioning);
+		return new ImpactReachedSet<>(partitioning, ListReachedSetIndex::create);
+	}
+
+	public static <S extends State, A extends Action, K> ImpactReachedSet<S, A, K> create(
+			final Function<? super S, ? extends K> partitioning,
+			final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> index) {
+		return new ImpactReachedSet<>(partitioning, index);
 	}
 
 	@Override
 	public void add(final ArgNode<S, A> node) {
 		checkNotNull(node);
-		final S state = node.getState();
-		final K key = partitioning.apply(state);
-		final Collection<ArgNode<S, A>> partition = partitions.computeIfAbsent(key, k -> new ArrayList<>());
-		partition.add(node);
+		partitions.add(node);
 	}
 
 	@Override
 	public void tryToCover(final ArgNode<S, A> node) {
 		checkNotNull(node);
-		final S state = node.getState();
-		final K key = partitioning.apply(state);
-		final Collection<ArgNode<S, A>> partition = partitions.getOrDefault(key, Collections.emptyList());
-		for (final ArgNode<S, A> nodeToCoverWith : partition) {
+		for (final ArgNode<S, A> nodeToCoverWith : partitions.get(node)) {
 			if (nodeToCoverWith.getId() < node.getId()) {
 				if (nodeToCoverWith.mayCover(node)) {
 					node.cover(nodeToCoverWith);
@@ -1,8 +1,8 @@
 package hu.bme.mit.theta.cfa.analysis.lts;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import hu.bme.mit.theta.cfa.CFA.Loc;
 import hu.bme.mit.theta.cfa.analysis.CfaAction;
@@ -10,7 +10,8 @@ import hu.bme.mit.theta.cfa.analysis.CfaState;
 
 /**
  * A caching layer over CFA LTS implementations. It only computes actions for
- * each location once and stores the result for later queries.
+ * each location once and stores the result for later queries. The cache can be
+ * accessed from multiple threads.
  */
 public final class CfaCachedLts implements CfaLts {
 
@@ -19,16 +20,12 @@ public final class CfaCachedLts implements CfaLts {
 
 	public CfaCachedLts(final CfaLts lts) {
 		this.lts = lts;
-		this.actionCache = new HashMap<>();
+		this.actionCache = new ConcurrentHashMap<>();
 	}
 
 	@Override
 	public Collection<CfaAction> getEnabledActionsFor(final CfaState<?> state) {
-		final Loc loc = state.getLoc();
-		if (!actionCache.containsKey(loc)) {
-			actionCache.put(loc, lts.getEnabledActionsFor(state));
-		}
-		return actionCache.get(loc);
+		return actionCache.computeIfAbsent(state.getLoc(), loc -> lts.getEnabledActionsFor(state));
 	}
 
 }
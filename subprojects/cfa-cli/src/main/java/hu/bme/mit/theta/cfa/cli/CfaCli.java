@@ -21,6 +21,8 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -32,7 +34,9 @@ import com.google.common.base.Stopwatch;
 import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult.Unsafe;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarStatistics;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Portfolio;
 import hu.bme.mit.theta.analysis.expl.ExplState;
 import hu.bme.mit.theta.analysis.expr.refinement.PruneStrategy;
 import hu.bme.mit.theta.cfa.CFA;
@@ -95,7 +99,7 @@ public class CfaCli {
 	@Parameter(names = "--encoding", description = "Block encoding")
 	Encoding encoding = Encoding.LBE;
 
-	@Parameter(names = "--maxenum", description = "Maximal number of explicitly enumerated successors (0: unlimited)")
+	@Parameter(names = "--maxenum", description = "Maximal number of explicitly enumerated successor states, where unconstrained variables are left unknown instead of being enumerated (0: unlimited)")
 	Integer maxEnum = 10;
 
 	@Parameter(names = "--initprec", description = "Initial precision of abstraction")
@@ -104,6 +108,27 @@ public class CfaCli {
 	@Parameter(names = "--prunestrategy", description = "Strategy for pruning the ARG after refinement")
 	PruneStrategy pruneStrategy = PruneStrategy.LAZY;
 
+	@Parameter(names = "--threads", description = "Number of threads for building the ARG")
+	Integer threads = 1;
+
+	@Parameter(names = "--predcache", description = "Number of cached predicate abstraction results (0 disables caching)")
+	Integer predCacheSize = 0;
+
+	@Parameter(names = "--maxargsize", description = "Maximal number of ARG nodes (0: unlimited)")
+	Integer maxArgSize = 0;
+
+	@Parameter(names = "--tracecache", description = "Cache infeasible counterexamples (for interpolation based refinements)")
+	boolean traceCache = false;
+
+	@Parameter(names = "--incrementalitp", description = "Check counterexamples incrementally (for SEQ_ITP and MULTI_SEQ refinements)")
+	boolean incrementalItp = false;
+
+	@Parameter(names = "--portfolio", description = "Run a portfolio of domains, refinements and searches in parallel (overrides --domain, --refinement, --search and --predsplit)")
+	boolean portfolio = false;
+
+	@Parameter(names = "--portfoliotimeout", description = "Time budget of each portfolio member in milliseconds (0: unlimited)")
+	Long portfolioTimeout = 0L;
+
 	@Parameter(names = "--loglevel", description = "Detailedness of logging")
 	Logger.Level logLevel = Level.SUBSTEP;
 
@@ -191,8 +216,13 @@ public class CfaCli {
 			}
 
 			checkNotNull(errLoc, "Error location must be specified in CFA or as argument");
-			final CfaConfig<?, ?, ?> configuration = buildConfiguration(cfa, errLoc);
-			final SafetyResult<?, ?> status = check(configuration);
+			final SafetyResult<?, ?> status;
+			if (portfolio) {
+				status = checkPortfolio(cfa, errLoc);
+			} else {
+				final CfaConfig<?, ?, ?> configuration = buildConfiguration(cfa, errLoc);
+				status = check(configuration);
+			}
 			sw.stop();
 			printResult(status, sw.elapsed(TimeUnit.MILLISECONDS));
 			if (status.isUnsafe() && cexfile != null) {
@@ -206,7 +236,8 @@ public class CfaCli {
 
 	private void printHeader() {
 		Stream.of("Result", "TimeMs", "AlgoTimeMs", "AbsTimeMs", "RefTimeMs", "Iterations",
-				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CexLen").forEach(writer::cell);
+				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CachedChecks", "SolverChecks", "CheckedTraces",
+				"SkippedTraces", "TraceCacheHits", "TraceCacheNodes", "CexLen").forEach(writer::cell);
 		writer.newRow();
 	}
 
@@ -222,15 +253,44 @@ public class CfaCli {
 
 	private CfaConfig<?, ?, ?> buildConfiguration(final CFA cfa, final CFA.Loc errLoc) throws Exception {
 		try {
-			return new CfaConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
-					.precGranularity(precGranularity).search(search)
-					.predSplit(predSplit).encoding(encoding).maxEnum(maxEnum).initPrec(initPrec)
-					.pruneStrategy(pruneStrategy).logger(logger).build(cfa, errLoc);
+			return buildConfiguration(cfa, errLoc, domain, refinement, search, predSplit, logger);
 		} catch (final Exception ex) {
 			throw new Exception("Could not create configuration: " + ex.getMessage(), ex);
 		}
 	}
 
+	private CfaConfig<?, ?, ?> buildConfiguration(final CFA cfa, final CFA.Loc errLoc, final Domain domain,
+												  final Refinement refinement, final Search search,
+												  final PredSplit predSplit, final Logger logger) {
+		return new CfaConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
+				.precGranularity(precGranularity).search(search)
+				.predSplit(predSplit).encoding(encoding).maxEnum(maxEnum).initPrec(initPrec)
+				.pruneStrategy(pruneStrategy).threads(threads).predCacheSize(predCacheSize).maxArgSize(maxArgSize).traceCache(traceCache).incrementalItp(incrementalItp)
+				.logger(logger).build(cfa, errLoc);
+	}
+
+	private SafetyResult<?, ?> checkPortfolio(final CFA cfa, final CFA.Loc errLoc) throws Exception {
+		final List<Portfolio.Member> members = new ArrayList<>();
+		addMember(members, cfa, errLoc, Domain.EXPL, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, cfa, errLoc, Domain.PRED_CART, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, cfa, errLoc, Domain.PRED_BOOL, Refinement.BW_BIN_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, cfa, errLoc, Domain.PRED_CART, Refinement.SEQ_ITP, Search.DFS, PredSplit.CONJUNCTS);
+		try {
+			return Portfolio.create(members, logger).check();
+		} catch (final Exception ex) {
+			throw new Exception("Error while running portfolio: " + ex.getMessage(), ex);
+		}
+	}
+
+	private void addMember(final List<Portfolio.Member> members, final CFA cfa, final CFA.Loc errLoc,
+						   final Domain domain, final Refinement refinement, final Search search,
+						   final PredSplit predSplit) {
+		final String name = String.join("_", domain.name(), refinement.name(), search.name(), predSplit.name());
+		// Members build their configuration (and thus their solvers) on their own thread
+		members.add(Portfolio.Member.of(name, () -> buildConfiguration(cfa, errLoc, domain, refinement, search,
+				predSplit, NullLogger.getInstance()).check(), portfolioTimeout));
+	}
+
 	private SafetyResult<?, ?> check(CfaConfig<?, ?, ?> configuration) throws Exception {
 		try {
 			return configuration.check();
@@ -251,6 +311,15 @@ public class CfaCli {
 			writer.cell(status.getArg().size());
 			writer.cell(status.getArg().getDepth());
 			writer.cell(status.getArg().getMeanBranchingFactor());
+			// Only predicate abstraction reports the checks of its partial order
+			writer.cell(getStatOrEmpty(stats, "CachedChecks"));
+			writer.cell(getStatOrEmpty(stats, "SolverChecks"));
+			// Only the multi-trace refiner reports the checked and skipped traces
+			writer.cell(getStatOrEmpty(stats, "CheckedTraces"));
+			writer.cell(getStatOrEmpty(stats, "SkippedTraces"));
+			// Only the trace cache reports its hits and size
+			writer.cell(getStatOrEmpty(stats, "TraceCacheHits"));
+			writer.cell(getStatOrEmpty(stats, "TraceCacheNodes"));
 			if (status.isUnsafe()) {
 				writer.cell(status.asUnsafe().getTrace().length() + "");
 			} else {
@@ -260,6 +329,10 @@ public class CfaCli {
 		}
 	}
 
+	private static Object getStatOrEmpty(final Statistics stats, final String key) {
+		return stats.keySet().contains(key) ? stats.get(key) : "";
+	}
+
 	private void printError(final Throwable ex) {
 		final String message = ex.getMessage() == null ? "" : ex.getMessage();
 		if (benchmarkMode) {
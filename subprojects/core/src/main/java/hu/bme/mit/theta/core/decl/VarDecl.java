@@ -17,8 +17,8 @@ package hu.bme.mit.theta.core.decl;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.core.type.Type;
@@ -36,17 +36,12 @@ public final class VarDecl<DeclType extends Type> extends Decl<DeclType> {
 
 	VarDecl(final String name, final DeclType type) {
 		super(name, type);
-		indexToConst = new HashMap<>();
+		indexToConst = new ConcurrentHashMap<>();
 	}
 
 	public IndexedConstDecl<DeclType> getConstDecl(final int index) {
 		checkArgument(index >= 0);
-		IndexedConstDecl<DeclType> constDecl = indexToConst.get(index);
-		if (constDecl == null) {
-			constDecl = new IndexedConstDecl<>(this, index);
-			indexToConst.put(index, constDecl);
-		}
-		return constDecl;
+		return indexToConst.computeIfAbsent(index, i -> new IndexedConstDecl<>(this, i));
 	}
 
 	@Override
@@ -18,6 +18,7 @@ package hu.bme.mit.theta.core.type.anytype;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.List;
@@ -51,7 +52,7 @@ public final class IteExpr<ExprType extends Type> implements Expr<ExprType> {
 
 	public static <ExprType extends Type> IteExpr<ExprType> of(final Expr<BoolType> cond, final Expr<ExprType> then,
 															   final Expr<ExprType> elze) {
-		return new IteExpr<>(cond, then, elze);
+		return intern(new IteExpr<>(cond, then, elze));
 	}
 
 	public static <ExprType extends Type> IteExpr<?> create(final Expr<?> cond, final Expr<?> then, final Expr<?> elze) {
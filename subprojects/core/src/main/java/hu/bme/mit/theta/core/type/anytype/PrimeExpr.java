@@ -15,6 +15,8 @@
  */
 package hu.bme.mit.theta.core.type.anytype;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
+
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.LitExpr;
@@ -32,7 +34,7 @@ public final class PrimeExpr<ExprType extends Type> extends UnaryExpr<ExprType,
 	}
 
 	public static <ExprType extends Type> PrimeExpr<ExprType> of(final Expr<ExprType> op) {
-		return new PrimeExpr<>(op);
+		return intern(new PrimeExpr<>(op));
 	}
 
 	@Override
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.anytype;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 import hu.bme.mit.theta.core.decl.Decl;
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class RefExpr<DeclType extends Type> extends NullaryExpr<DeclType>
 	}
 
 	public static <DeclType extends Type> RefExpr<DeclType> of(final Decl<DeclType> decl) {
-		return new RefExpr<>(decl);
+		return intern(new RefExpr<>(decl));
 	}
 
 	public Decl<DeclType> getDecl() {
@@ -1,6 +1,7 @@
 package hu.bme.mit.theta.core.type.arraytype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -24,7 +25,7 @@ public final class ArrayNeqExpr<IndexType extends Type, ElemType extends Type>
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayNeqExpr<IndexType, ElemType> of(
 			final Expr<ArrayType<IndexType, ElemType>> leftOp, final Expr<ArrayType<IndexType, ElemType>> rightOp) {
-		return new ArrayNeqExpr<>(leftOp, rightOp);
+		return intern(new ArrayNeqExpr<>(leftOp, rightOp));
 	}
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayNeqExpr<?, ?> create(final Expr<?> leftOp,
@@ -51,7 +52,7 @@ public final class ArrayNeqExpr<IndexType extends Type, ElemType extends Type>
 		if (leftOp == getLeftOp() && rightOp == getRightOp()) {
 			return this;
 		} else {
-			return new ArrayNeqExpr<>(leftOp, rightOp);
+			return intern(new ArrayNeqExpr<>(leftOp, rightOp));
 		}
 	}
 
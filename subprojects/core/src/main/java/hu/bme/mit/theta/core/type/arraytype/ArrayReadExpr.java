@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.arraytype;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.List;
@@ -48,7 +49,7 @@ public final class ArrayReadExpr<IndexType extends Type, ElemType extends Type>
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayReadExpr<IndexType, ElemType> of(
 			final Expr<ArrayType<IndexType, ElemType>> array, final Expr<IndexType> index) {
-		return new ArrayReadExpr<>(array, index);
+		return intern(new ArrayReadExpr<>(array, index));
 	}
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayReadExpr<?, ?> create(final Expr<?> array,
@@ -18,6 +18,7 @@ package hu.bme.mit.theta.core.type.arraytype;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.arraytype.ArrayExprs.Array;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.ArrayList;
@@ -54,7 +55,7 @@ public final class ArrayWriteExpr<IndexType extends Type, ElemType extends Type>
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayWriteExpr<IndexType, ElemType> of(
 			final Expr<ArrayType<IndexType, ElemType>> array, final Expr<IndexType> index, final Expr<ElemType> elem) {
-		return new ArrayWriteExpr<>(array, index, elem);
+		return intern(new ArrayWriteExpr<>(array, index, elem));
 	}
 
 	public static <IndexType extends Type, ElemType extends Type> ArrayWriteExpr<?, ?> create(final Expr<?> array,
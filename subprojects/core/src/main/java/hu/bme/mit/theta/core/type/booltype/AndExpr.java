@@ -19,6 +19,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.List;
@@ -37,7 +38,7 @@ public final class AndExpr extends MultiaryExpr<BoolType, BoolType> {
 	}
 
 	public static AndExpr of(final Iterable<? extends Expr<BoolType>> ops) {
-		return new AndExpr(ops);
+		return intern(new AndExpr(ops));
 	}
 
 	public static AndExpr create(final List<? extends Expr<?>> ops) {
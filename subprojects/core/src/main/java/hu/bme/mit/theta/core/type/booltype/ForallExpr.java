@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.booltype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.decl.ParamDecl;
@@ -34,7 +35,7 @@ public final class ForallExpr extends QuantifiedExpr {
 	}
 
 	public static ForallExpr of(final Iterable<? extends ParamDecl<?>> paramDecls, final Expr<BoolType> op) {
-		return new ForallExpr(paramDecls, op);
+		return intern(new ForallExpr(paramDecls, op));
 	}
 
 	public static ForallExpr create(final Iterable<? extends ParamDecl<?>> paramDecls, final Expr<?> op) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.booltype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class IffExpr extends EqExpr<BoolType> {
 	}
 
 	public static IffExpr of(final Expr<BoolType> leftOp, final Expr<BoolType> rightOp) {
-		return new IffExpr(leftOp, rightOp);
+		return intern(new IffExpr(leftOp, rightOp));
 	}
 
 	public static IffExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -59,7 +60,7 @@ public final class IffExpr extends EqExpr<BoolType> {
 		if (leftOp == getLeftOp() && rightOp == getRightOp()) {
 			return this;
 		} else {
-			return new IffExpr(leftOp, rightOp);
+			return intern(new IffExpr(leftOp, rightOp));
 		}
 	}
 
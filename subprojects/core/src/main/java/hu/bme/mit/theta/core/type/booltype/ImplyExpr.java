@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.booltype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class ImplyExpr extends BinaryExpr<BoolType, BoolType> {
 	}
 
 	public static ImplyExpr of(final Expr<BoolType> leftOp, final Expr<BoolType> rightOp) {
-		return new ImplyExpr(leftOp, rightOp);
+		return intern(new ImplyExpr(leftOp, rightOp));
 	}
 
 	public static ImplyExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.booltype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class NotExpr extends UnaryExpr<BoolType, BoolType> {
 	}
 
 	public static NotExpr of(final Expr<BoolType> op) {
-		return new NotExpr(op);
+		return intern(new NotExpr(op));
 	}
 
 	public static NotExpr create(final Expr<?> op) {
@@ -57,7 +58,7 @@ public final class NotExpr extends UnaryExpr<BoolType, BoolType> {
 		if (op == getOp()) {
 			return this;
 		} else {
-			return new NotExpr(op);
+			return intern(new NotExpr(op));
 		}
 	}
 
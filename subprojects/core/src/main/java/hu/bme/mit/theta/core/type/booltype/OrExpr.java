@@ -19,6 +19,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.False;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.List;
@@ -38,7 +39,7 @@ public final class OrExpr extends MultiaryExpr<BoolType, BoolType> {
 	}
 
 	public static OrExpr of(final Iterable<? extends Expr<BoolType>> ops) {
-		return new OrExpr(ops);
+		return intern(new OrExpr(ops));
 	}
 
 	public static OrExpr create(final List<? extends Expr<?>> ops) {
@@ -66,7 +67,7 @@ public final class OrExpr extends MultiaryExpr<BoolType, BoolType> {
 		if (ops == getOps()) {
 			return this;
 		} else {
-			return new OrExpr(ops);
+			return intern(new OrExpr(ops));
 		}
 	}
 
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.booltype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class XorExpr extends NeqExpr<BoolType> {
 	}
 
 	public static XorExpr of(final Expr<BoolType> leftOp, final Expr<BoolType> rightOp) {
-		return new XorExpr(leftOp, rightOp);
+		return intern(new XorExpr(leftOp, rightOp));
 	}
 
 	public static XorExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -9,6 +9,7 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
 public final class BvAndExpr extends MultiaryExpr<BvType, BvType> {
@@ -21,7 +22,7 @@ public final class BvAndExpr extends MultiaryExpr<BvType, BvType> {
     }
 
     public static BvAndExpr of(final Iterable<? extends Expr<BvType>> ops) {
-        return new BvAndExpr(ops);
+        return intern(new BvAndExpr(ops));
     }
 
     public static BvAndExpr create(final List<? extends Expr<?>> ops) {
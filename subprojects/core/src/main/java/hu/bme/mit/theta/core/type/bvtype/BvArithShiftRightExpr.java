@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.*;
 
 public final class BvArithShiftRightExpr extends BinaryExpr<BvType, BvType> {
@@ -16,7 +17,7 @@ public final class BvArithShiftRightExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvArithShiftRightExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvArithShiftRightExpr(leftOp, rightOp);
+        return intern(new BvArithShiftRightExpr(leftOp, rightOp));
     }
 
     public static BvArithShiftRightExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
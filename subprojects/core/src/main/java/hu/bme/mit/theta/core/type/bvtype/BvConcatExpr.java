@@ -11,6 +11,7 @@ import java.util.List;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 public final class BvConcatExpr implements Expr<BvType> {
     private static final int HASH_SEED = 8264;
@@ -27,7 +28,7 @@ public final class BvConcatExpr implements Expr<BvType> {
     }
 
     public static BvConcatExpr of(final Iterable<? extends Expr<BvType>> ops) {
-        return new BvConcatExpr(ops);
+        return intern(new BvConcatExpr(ops));
     }
 
     public static BvConcatExpr create(final List<? extends Expr<?>> ops) {
@@ -7,6 +7,7 @@ import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -21,7 +22,7 @@ public final class BvEqExpr extends EqExpr<BvType> {
     }
 
     public static BvEqExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvEqExpr(leftOp, rightOp);
+        return intern(new BvEqExpr(leftOp, rightOp));
     }
 
     public static BvEqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -13,6 +13,7 @@ import java.util.List;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 
@@ -40,7 +41,7 @@ public final class BvExtractExpr implements Expr<BvType> {
     }
 
     public static BvExtractExpr of(final Expr<BvType> bitvec, final IntLitExpr from, final IntLitExpr until) {
-        return new BvExtractExpr(bitvec, from, until);
+        return intern(new BvExtractExpr(bitvec, from, until));
     }
 
     public static BvExtractExpr create(final Expr<?> bitvec, final Expr<?> from, final Expr<?> until) {
@@ -24,6 +24,7 @@ import static hu.bme.mit.theta.core.utils.BvUtils.fitBigIntegerIntoUnsignedDomai
 import static hu.bme.mit.theta.core.utils.BvUtils.neutralBvLitExprToBigInteger;
 import static hu.bme.mit.theta.core.utils.BvUtils.signedBvLitExprToBigInteger;
 import static hu.bme.mit.theta.core.utils.BvUtils.unsignedBvLitExprToBigInteger;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 public final class BvLitExpr extends NullaryExpr<BvType> implements LitExpr<BvType>, Comparable<BvLitExpr> {
 
@@ -40,7 +41,7 @@ public final class BvLitExpr extends NullaryExpr<BvType> implements LitExpr<BvTy
     }
 
     public static BvLitExpr of(final boolean[] value) {
-        return new BvLitExpr(value);
+        return intern(new BvLitExpr(value));
     }
 
     public boolean[] getValue() {
@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -17,7 +18,7 @@ public final class BvLogicShiftRightExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvLogicShiftRightExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvLogicShiftRightExpr(leftOp, rightOp);
+        return intern(new BvLogicShiftRightExpr(leftOp, rightOp));
     }
 
     public static BvLogicShiftRightExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -7,6 +7,7 @@ import hu.bme.mit.theta.core.type.booltype.BoolLitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -20,7 +21,7 @@ public final class BvNeqExpr extends NeqExpr<BvType> {
     }
 
     public static BvNeqExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvNeqExpr(leftOp, rightOp);
+        return intern(new BvNeqExpr(leftOp, rightOp));
     }
 
     public static BvNeqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -9,6 +9,7 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
 public final class BvOrExpr extends MultiaryExpr<BvType, BvType> {
@@ -21,7 +22,7 @@ public final class BvOrExpr extends MultiaryExpr<BvType, BvType> {
     }
 
     public static BvOrExpr of(final Iterable<? extends Expr<BvType>> ops) {
-        return new BvOrExpr(ops);
+        return intern(new BvOrExpr(ops));
     }
 
     public static BvOrExpr create(final List<? extends Expr<?>> ops) {
@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.UnaryExpr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 
 public final class BvPosExpr extends UnaryExpr<BvType, BvType> {
@@ -16,7 +17,7 @@ public final class BvPosExpr extends UnaryExpr<BvType, BvType> {
     }
 
     public static BvPosExpr of(final Expr<BvType> op) {
-        return new BvPosExpr(op);
+        return intern(new BvPosExpr(op));
     }
 
     public static BvPosExpr create(final Expr<?> op) {
@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -17,7 +18,7 @@ public final class BvRotateLeftExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvRotateLeftExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvRotateLeftExpr(leftOp, rightOp);
+        return intern(new BvRotateLeftExpr(leftOp, rightOp));
     }
 
     public static BvRotateLeftExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
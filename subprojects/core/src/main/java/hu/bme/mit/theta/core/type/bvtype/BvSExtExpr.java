@@ -10,6 +10,7 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 
 public final class BvSExtExpr implements Expr<BvType> {
@@ -31,11 +32,11 @@ public final class BvSExtExpr implements Expr<BvType> {
     }
 
     public static BvSExtExpr of(final Expr<BvType> op, final BvType extendType) {
-        return new BvSExtExpr(op, extendType);
+        return intern(new BvSExtExpr(op, extendType));
     }
 
     public static BvSExtExpr create(final Expr<?> op, final BvType extendType) {
-        return new BvSExtExpr(castBv(op), extendType);
+        return intern(new BvSExtExpr(castBv(op), extendType));
     }
 
     public Expr<BvType> getOp() {
@@ -7,6 +7,7 @@ import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -21,7 +22,7 @@ public final class BvSLtExpr extends BinaryExpr<BvType, BoolType> {
     }
 
     public static BvSLtExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvSLtExpr(leftOp, rightOp);
+        return intern(new BvSLtExpr(leftOp, rightOp));
     }
 
     public static BvSLtExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
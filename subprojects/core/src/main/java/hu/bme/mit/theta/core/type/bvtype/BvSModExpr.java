@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -18,7 +19,7 @@ public final class BvSModExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvSModExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvSModExpr(leftOp, rightOp);
+        return intern(new BvSModExpr(leftOp, rightOp));
     }
 
     public static BvSModExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.*;
 
 public final class BvShiftLeftExpr extends BinaryExpr<BvType, BvType> {
@@ -16,7 +17,7 @@ public final class BvShiftLeftExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvShiftLeftExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvShiftLeftExpr(leftOp, rightOp);
+        return intern(new BvShiftLeftExpr(leftOp, rightOp));
     }
 
     public static BvShiftLeftExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
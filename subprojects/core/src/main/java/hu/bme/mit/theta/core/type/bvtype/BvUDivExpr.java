@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -18,7 +19,7 @@ public final class BvUDivExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvUDivExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvUDivExpr(leftOp, rightOp);
+        return intern(new BvUDivExpr(leftOp, rightOp));
     }
 
     public static BvUDivExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
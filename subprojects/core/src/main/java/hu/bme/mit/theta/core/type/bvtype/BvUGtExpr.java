@@ -7,6 +7,7 @@ import hu.bme.mit.theta.core.type.LitExpr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -21,7 +22,7 @@ public final class BvUGtExpr extends BinaryExpr<BvType, BoolType> {
     }
 
     public static BvUGtExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvUGtExpr(leftOp, rightOp);
+        return intern(new BvUGtExpr(leftOp, rightOp));
     }
 
     public static BvUGtExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -4,6 +4,7 @@ import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.BinaryExpr;
 import hu.bme.mit.theta.core.type.Expr;
 
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 import static hu.bme.mit.theta.core.utils.TypeUtils.checkAllTypesEqual;
 
@@ -19,7 +20,7 @@ public final class BvURemExpr extends BinaryExpr<BvType, BvType> {
     }
 
     public static BvURemExpr of(final Expr<BvType> leftOp, final Expr<BvType> rightOp) {
-        return new BvURemExpr(leftOp, rightOp);
+        return intern(new BvURemExpr(leftOp, rightOp));
     }
 
     public static BvURemExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
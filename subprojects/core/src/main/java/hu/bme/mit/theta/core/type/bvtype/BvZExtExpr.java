@@ -10,6 +10,7 @@ import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.castBv;
 
 public final class BvZExtExpr implements Expr<BvType> {
@@ -31,11 +32,11 @@ public final class BvZExtExpr implements Expr<BvType> {
     }
 
     public static BvZExtExpr of(final Expr<BvType> op, final BvType extendType) {
-        return new BvZExtExpr(op, extendType);
+        return intern(new BvZExtExpr(op, extendType));
     }
 
     public static BvZExtExpr create(final Expr<?> op, final BvType extendType) {
-        return new BvZExtExpr(castBv(op), extendType);
+        return intern(new BvZExtExpr(castBv(op), extendType));
     }
 
     public Expr<BvType> getOp() {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.functype;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.util.List;
@@ -44,7 +45,7 @@ public final class FuncAppExpr<ParamType extends Type, ResultType extends Type>
 
 	public static <ParamType extends Type, ResultType extends Type> FuncAppExpr<ParamType, ResultType> of(
 			final Expr<FuncType<ParamType, ResultType>> func, final Expr<ParamType> param) {
-		return new FuncAppExpr<>(func, param);
+		return intern(new FuncAppExpr<>(func, param));
 	}
 
 	public static <ParamType extends Type, ResultType extends Type> FuncAppExpr<?, ?> create(final Expr<?> func,
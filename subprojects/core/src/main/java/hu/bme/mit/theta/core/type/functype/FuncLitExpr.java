@@ -18,6 +18,7 @@ package hu.bme.mit.theta.core.type.functype;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static hu.bme.mit.theta.core.type.functype.FuncExprs.Func;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 import java.util.List;
 
@@ -49,7 +50,7 @@ public final class FuncLitExpr<ParamType extends Type, ResultType extends Type>
 
 	public static <ParamType extends Type, ResultType extends Type> FuncLitExpr<ParamType, ResultType> of(
 			final ParamDecl<ParamType> param, final Expr<ResultType> result) {
-		return new FuncLitExpr<>(param, result);
+		return intern(new FuncLitExpr<>(param, result));
 	}
 
 	public ParamDecl<ParamType> getParam() {
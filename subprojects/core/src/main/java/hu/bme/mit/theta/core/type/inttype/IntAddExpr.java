@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.math.BigInteger;
@@ -36,7 +37,7 @@ public final class IntAddExpr extends AddExpr<IntType> {
 	}
 
 	public static IntAddExpr of(final Iterable<? extends Expr<IntType>> ops) {
-		return new IntAddExpr(ops);
+		return intern(new IntAddExpr(ops));
 	}
 
 	public static IntAddExpr create(final List<? extends Expr<?>> ops) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class IntDivExpr extends DivExpr<IntType> {
 	}
 
 	public static IntDivExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntDivExpr(leftOp, rightOp);
+		return intern(new IntDivExpr(leftOp, rightOp));
 	}
 
 	public static IntDivExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class IntEqExpr extends EqExpr<IntType> {
 	}
 
 	public static IntEqExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntEqExpr(leftOp, rightOp);
+		return intern(new IntEqExpr(leftOp, rightOp));
 	}
 
 	public static IntEqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
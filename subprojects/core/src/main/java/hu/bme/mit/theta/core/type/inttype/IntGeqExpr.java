@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class IntGeqExpr extends GeqExpr<IntType> {
 	}
 
 	public static IntGeqExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntGeqExpr(leftOp, rightOp);
+		return intern(new IntGeqExpr(leftOp, rightOp));
 	}
 
 	public static IntGeqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
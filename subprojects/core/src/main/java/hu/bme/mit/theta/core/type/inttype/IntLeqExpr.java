@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class IntLeqExpr extends LeqExpr<IntType> {
 	}
 
 	public static IntLeqExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntLeqExpr(leftOp, rightOp);
+		return intern(new IntLeqExpr(leftOp, rightOp));
 	}
 
 	public static IntLeqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -18,6 +18,7 @@ package hu.bme.mit.theta.core.type.inttype;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 import hu.bme.mit.theta.core.model.Valuation;
 import hu.bme.mit.theta.core.type.LitExpr;
@@ -39,7 +40,7 @@ public final class IntLitExpr extends NullaryExpr<IntType> implements LitExpr<In
 	}
 
 	public static IntLitExpr of(final BigInteger value) {
-		return new IntLitExpr(value);
+		return intern(new IntLitExpr(value));
 	}
 
 	public BigInteger getValue() {
@@ -107,9 +108,9 @@ public final class IntLitExpr extends NullaryExpr<IntType> implements LitExpr<In
 			if (result.compareTo(BigInteger.ZERO) != 0) {
 				result = result.subtract(thatAbs);
 			}
-			return new IntLitExpr(result);
+			return intern(new IntLitExpr(result));
 		} else if (this.value.compareTo(BigInteger.ZERO) >= 0 && that.value.compareTo(BigInteger.ZERO) < 0) {
-			return new IntLitExpr(thisAbs.mod(thatAbs).negate());
+			return intern(new IntLitExpr(thisAbs.mod(thatAbs).negate()));
 		} else if (this.value.compareTo(BigInteger.ZERO) < 0 && that.value.compareTo(BigInteger.ZERO) >= 0) {
 			var result = thisAbs.mod(thatAbs);
 			if (result.compareTo(BigInteger.ZERO) != 0) {
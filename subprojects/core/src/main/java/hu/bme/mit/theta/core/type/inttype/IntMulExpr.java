@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.math.BigInteger;
@@ -36,7 +37,7 @@ public final class IntMulExpr extends MulExpr<IntType> {
 	}
 
 	public static IntMulExpr of(final Iterable<? extends Expr<IntType>> ops) {
-		return new IntMulExpr(ops);
+		return intern(new IntMulExpr(ops));
 	}
 
 	public static IntMulExpr create(final List<? extends Expr<?>> ops) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -32,7 +33,7 @@ public final class IntNegExpr extends NegExpr<IntType> {
 	}
 
 	public static IntNegExpr of(final Expr<IntType> op) {
-		return new IntNegExpr(op);
+		return intern(new IntNegExpr(op));
 	}
 
 	public static IntNegExpr create(final Expr<?> op) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class IntRemExpr extends RemExpr<IntType> {
 	}
 
 	public static IntRemExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntRemExpr(leftOp, rightOp);
+		return intern(new IntRemExpr(leftOp, rightOp));
 	}
 
 	public static IntRemExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -32,7 +33,7 @@ public final class IntSubExpr extends SubExpr<IntType> {
 	}
 
 	public static IntSubExpr of(final Expr<IntType> leftOp, final Expr<IntType> rightOp) {
-		return new IntSubExpr(leftOp, rightOp);
+		return intern(new IntSubExpr(leftOp, rightOp));
 	}
 
 	public static IntSubExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.inttype;
 
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class IntToRatExpr extends CastExpr<IntType, RatType> {
 	}
 
 	public static IntToRatExpr of(final Expr<IntType> op) {
-		return new IntToRatExpr(op);
+		return intern(new IntToRatExpr(op));
 	}
 
 	public static IntToRatExpr create(final Expr<?> op) {
@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.rattype;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.math.BigInteger;
@@ -36,7 +37,7 @@ public final class RatAddExpr extends AddExpr<RatType> {
 	}
 
 	public static RatAddExpr of(final Iterable<? extends Expr<RatType>> ops) {
-		return new RatAddExpr(ops);
+		return intern(new RatAddExpr(ops));
 	}
 
 	public static RatAddExpr create(final List<? extends Expr<?>> ops) {
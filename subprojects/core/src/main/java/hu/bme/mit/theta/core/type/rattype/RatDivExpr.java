@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.rattype;
 
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -33,7 +34,7 @@ public final class RatDivExpr extends DivExpr<RatType> {
 	}
 
 	public static RatDivExpr of(final Expr<RatType> leftOp, final Expr<RatType> rightOp) {
-		return new RatDivExpr(leftOp, rightOp);
+		return intern(new RatDivExpr(leftOp, rightOp));
 	}
 
 	public static RatDivExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.rattype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class RatLeqExpr extends LeqExpr<RatType> {
 	}
 
 	public static RatLeqExpr of(final Expr<RatType> leftOp, final Expr<RatType> rightOp) {
-		return new RatLeqExpr(leftOp, rightOp);
+		return intern(new RatLeqExpr(leftOp, rightOp));
 	}
 
 	public static RatLeqExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -25,6 +25,7 @@ import java.math.BigInteger;
 import static com.google.common.base.Preconditions.checkArgument;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 
 public final class RatLitExpr extends NullaryExpr<RatType> implements LitExpr<RatType>, Comparable<RatLitExpr> {
 
@@ -49,7 +50,7 @@ public final class RatLitExpr extends NullaryExpr<RatType> implements LitExpr<Ra
 	}
 
 	public static RatLitExpr of(final BigInteger num, final BigInteger denom) {
-		return new RatLitExpr(num, denom);
+		return intern(new RatLitExpr(num, denom));
 	}
 
 	@Override
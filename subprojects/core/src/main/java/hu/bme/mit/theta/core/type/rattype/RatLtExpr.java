@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.rattype;
 
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -35,7 +36,7 @@ public final class RatLtExpr extends LtExpr<RatType> {
 	}
 
 	public static RatLtExpr of(final Expr<RatType> leftOp, final Expr<RatType> rightOp) {
-		return new RatLtExpr(leftOp, rightOp);
+		return intern(new RatLtExpr(leftOp, rightOp));
 	}
 
 	public static RatLtExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -61,7 +62,7 @@ public final class RatLtExpr extends LtExpr<RatType> {
 		if (leftOp == getLeftOp() && rightOp == getRightOp()) {
 			return this;
 		} else {
-			return new RatLtExpr(leftOp, rightOp);
+			return intern(new RatLtExpr(leftOp, rightOp));
 		}
 	}
 
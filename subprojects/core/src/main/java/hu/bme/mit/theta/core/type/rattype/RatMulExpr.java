@@ -17,6 +17,7 @@ package hu.bme.mit.theta.core.type.rattype;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import java.math.BigInteger;
@@ -36,7 +37,7 @@ public final class RatMulExpr extends MulExpr<RatType> {
 	}
 
 	public static RatMulExpr of(final Iterable<? extends Expr<RatType>> ops) {
-		return new RatMulExpr(ops);
+		return intern(new RatMulExpr(ops));
 	}
 
 	public static RatMulExpr create(final List<? extends Expr<?>> ops) {
@@ -65,7 +66,7 @@ public final class RatMulExpr extends MulExpr<RatType> {
 		if (ops == getOps()) {
 			return this;
 		} else {
-			return new RatMulExpr(ops);
+			return intern(new RatMulExpr(ops));
 		}
 	}
 
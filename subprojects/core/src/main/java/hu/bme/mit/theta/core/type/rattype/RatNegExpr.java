@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.rattype;
 
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -32,7 +33,7 @@ public final class RatNegExpr extends NegExpr<RatType> {
 	}
 
 	public static RatNegExpr of(final Expr<RatType> op) {
-		return new RatNegExpr(op);
+		return intern(new RatNegExpr(op));
 	}
 
 	public static RatNegExpr create(final Expr<?> op) {
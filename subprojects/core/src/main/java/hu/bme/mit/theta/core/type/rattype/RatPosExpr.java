@@ -20,6 +20,7 @@ import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.abstracttype.PosExpr;
 
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 public final class RatPosExpr extends PosExpr<RatType> {
@@ -32,7 +33,7 @@ public final class RatPosExpr extends PosExpr<RatType> {
 	}
 
 	public static RatPosExpr of(final Expr<RatType> op) {
-		return new RatPosExpr(op);
+		return intern(new RatPosExpr(op));
 	}
 
 	public static RatPosExpr create(final Expr<?> op) {
@@ -16,6 +16,7 @@
 package hu.bme.mit.theta.core.type.rattype;
 
 import static hu.bme.mit.theta.core.type.rattype.RatExprs.Rat;
+import static hu.bme.mit.theta.core.utils.ExprInterner.intern;
 import static hu.bme.mit.theta.core.utils.TypeUtils.cast;
 
 import hu.bme.mit.theta.core.model.Valuation;
@@ -32,7 +33,7 @@ public final class RatSubExpr extends SubExpr<RatType> {
 	}
 
 	public static RatSubExpr of(final Expr<RatType> leftOp, final Expr<RatType> rightOp) {
-		return new RatSubExpr(leftOp, rightOp);
+		return intern(new RatSubExpr(leftOp, rightOp));
 	}
 
 	public static RatSubExpr create(final Expr<?> leftOp, final Expr<?> rightOp) {
@@ -0,0 +1,75 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.core.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import hu.bme.mit.theta.core.type.Expr;
+
+/**
+ * Optional hash-consing for expressions. When enabled, the factory methods of
+ * expressions return a canonical instance for structurally equal expressions,
+ * so that equal subterms share memory and are usually compared by reference
+ * (the equals methods of expressions check reference equality first). The
+ * interning table is weak, so expressions that are no longer used elsewhere
+ * can be garbage collected.
+ * <p>
+ * Hash-consing is disabled by default and can be enabled by
+ * {@link #enable()} or by setting the system property
+ * {@value #PROPERTY} to true. Expressions created while it is disabled are
+ * not canonical, but they are still equal to their canonical counterparts.
+ */
+public final class ExprInterner {
+
+	public static final String PROPERTY = "theta.hashcons";
+
+	private static final Interner<Expr<?>> INTERNER = Interners.newWeakInterner();
+
+	private static volatile boolean enabled = Boolean.getBoolean(PROPERTY);
+
+	private ExprInterner() {
+	}
+
+	public static void enable() {
+		enabled = true;
+	}
+
+	public static void disable() {
+		enabled = false;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Gets the canonical instance of an expression if hash-consing is
+	 * enabled, or the expression itself otherwise.
+	 */
+	public static <E extends Expr<?>> E intern(final E expr) {
+		checkNotNull(expr);
+		if (enabled) {
+			@SuppressWarnings("unchecked") final E result = (E) INTERNER.intern(expr);
+			return result;
+		} else {
+			return expr;
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.StringJoiner;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import hu.bme.mit.theta.core.decl.VarDecl;
@@ -43,7 +44,7 @@ public class VarIndexing {
 
 	private VarIndexing(final Builder builder) {
 		defaultIndex = builder.defaultIndex;
-		varToOffset = ImmutableMap.copyOf(builder.varToOffset);
+		varToOffset = ImmutableMap.copyOf(Maps.filterValues(builder.varToOffset, offset -> offset != 0));
 	}
 
 	/**
@@ -151,6 +152,23 @@ public class VarIndexing {
 		return defaultIndex + offset;
 	}
 
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		} else if (obj instanceof VarIndexing) {
+			final VarIndexing that = (VarIndexing) obj;
+			return this.defaultIndex == that.defaultIndex && this.varToOffset.equals(that.varToOffset);
+		} else {
+			return false;
+		}
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * defaultIndex + varToOffset.hashCode();
+	}
+
 	@Override
 	public String toString() {
 		final StringJoiner sj = new StringJoiner(", ", "IndexMap(", ")");
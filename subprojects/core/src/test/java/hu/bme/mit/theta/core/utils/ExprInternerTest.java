@@ -0,0 +1,72 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.core.utils;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+
+public final class ExprInternerTest {
+
+	private final VarDecl<IntType> x = Var("x", Int());
+
+	@After
+	public void tearDown() {
+		ExprInterner.disable();
+	}
+
+	@Test
+	public void testEnabled() {
+		ExprInterner.enable();
+		final Expr<BoolType> expr1 = And(Eq(Add(x.getRef(), Int(1)), Int(2)), Not(Eq(x.getRef(), Int(0))));
+		final Expr<BoolType> expr2 = And(Eq(Add(x.getRef(), Int(1)), Int(2)), Not(Eq(x.getRef(), Int(0))));
+		assertSame(expr1, expr2);
+		assertSame(expr1.getOps().get(0), expr2.getOps().get(0));
+	}
+
+	@Test
+	public void testDisabled() {
+		final Expr<BoolType> expr1 = Eq(Add(x.getRef(), Int(1)), Int(2));
+		final Expr<BoolType> expr2 = Eq(Add(x.getRef(), Int(1)), Int(2));
+		assertNotSame(expr1, expr2);
+		assertEquals(expr1, expr2);
+		assertEquals(expr1.hashCode(), expr2.hashCode());
+	}
+
+	@Test
+	public void testMixed() {
+		final Expr<BoolType> plain = Eq(x.getRef(), Int(3));
+		ExprInterner.enable();
+		final Expr<BoolType> interned = Eq(x.getRef(), Int(3));
+		assertEquals(plain, interned);
+		assertSame(interned, ExprInterner.intern(plain));
+	}
+
+}
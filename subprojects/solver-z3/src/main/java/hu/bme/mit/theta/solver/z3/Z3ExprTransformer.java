@@ -15,8 +15,6 @@
  */
 package hu.bme.mit.theta.solver.z3;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.microsoft.z3.BitVecExpr;
 import com.microsoft.z3.BoolExpr;
@@ -115,26 +113,23 @@ import hu.bme.mit.theta.core.type.rattype.RatSubExpr;
 import hu.bme.mit.theta.core.utils.BvUtils;
 
 import java.util.List;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Stream;
 
 final class Z3ExprTransformer {
 
-	private static final int CACHE_SIZE = 1000;
-
 	private final Z3TransformationManager transformer;
 	private final Context context;
 
-	private final Cache<Expr<?>, com.microsoft.z3.Expr> exprToTerm;
+	private final Z3TermCache termCache;
 	private final DispatchTable<com.microsoft.z3.Expr> table;
 	private final Env env;
 
-	public Z3ExprTransformer(final Z3TransformationManager transformer, final Context context) {
+	public Z3ExprTransformer(final Z3TransformationManager transformer, final Context context,
+							 final Z3TermCache termCache) {
 		this.context = context;
 		this.transformer = transformer;
 		this.env = new Env();
-
-		exprToTerm = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
+		this.termCache = termCache;
 
 		table = DispatchTable.<com.microsoft.z3.Expr>builder()
 
@@ -318,11 +313,7 @@ final class Z3ExprTransformer {
 	}
 
 	public com.microsoft.z3.Expr toTerm(final Expr<?> expr) {
-		try {
-			return exprToTerm.get(expr, () -> table.dispatch(expr));
-		} catch (final ExecutionException e) {
-			throw new AssertionError("Unhandled case: " + expr, e);
-		}
+		return termCache.toTerm(expr, () -> table.dispatch(expr));
 	}
 
 	////
@@ -929,7 +920,7 @@ final class Z3ExprTransformer {
 	}
 
 	public void reset() {
-		exprToTerm.invalidateAll();
+		termCache.clear();
 	}
 
 }
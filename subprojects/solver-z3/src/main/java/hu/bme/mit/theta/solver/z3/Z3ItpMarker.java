@@ -17,34 +17,83 @@ package hu.bme.mit.theta.solver.z3;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import hu.bme.mit.theta.solver.ItpMarker;
-import hu.bme.mit.theta.solver.Stack;
-import hu.bme.mit.theta.solver.impl.StackImpl;
 
+/**
+ * A marker of a Z3ItpSolver. It remembers the push depth at which it was
+ * created, and terms added at that depth are removed together with the
+ * marker. Only terms added at deeper levels have to be removed by
+ * {@link #pop(int)}, so the marker does not need to be pushed with the solver.
+ */
 final class Z3ItpMarker implements ItpMarker {
 
-	private final Stack<com.microsoft.z3.BoolExpr> terms;
+	private final int index;
+	private final int depth;
+	private final List<com.microsoft.z3.BoolExpr> terms;
+	// Levels deeper than the creation depth with the number of terms before them
+	private final List<Level> levels;
+
+	Z3ItpMarker(final int index, final int depth) {
+		this.index = index;
+		this.depth = depth;
+		terms = new ArrayList<>();
+		levels = new ArrayList<>(0);
+	}
+
+	int getIndex() {
+		return index;
+	}
 
-	public Z3ItpMarker() {
-		terms = new StackImpl<>();
+	int getDepth() {
+		return depth;
 	}
 
-	public void add(final com.microsoft.z3.BoolExpr term) {
-		terms.add(checkNotNull(term));
+	/**
+	 * Add a term at the given push depth, which is at least the creation
+	 * depth. Returns true if this is the first term above the creation depth
+	 * (since the last pop).
+	 */
+	boolean add(final com.microsoft.z3.BoolExpr term, final int currentDepth) {
+		checkNotNull(term);
+		final boolean wasExtended = isExtended();
+		if (currentDepth > depth && (levels.isEmpty() || levels.get(levels.size() - 1).depth < currentDepth)) {
+			levels.add(new Level(currentDepth, terms.size()));
+		}
+		terms.add(term);
+		return !wasExtended && isExtended();
 	}
 
-	public void push() {
-		terms.push();
+	/**
+	 * Remove the terms added above the given push depth.
+	 */
+	void pop(final int currentDepth) {
+		while (!levels.isEmpty() && levels.get(levels.size() - 1).depth > currentDepth) {
+			final Level level = levels.remove(levels.size() - 1);
+			terms.subList(level.size, terms.size()).clear();
+		}
 	}
 
-	public void pop(final int n) {
-		terms.pop(n);
+	boolean isExtended() {
+		return !levels.isEmpty();
 	}
 
 	public Collection<com.microsoft.z3.BoolExpr> getTerms() {
-		return terms.toCollection();
+		return Collections.unmodifiableList(terms);
+	}
+
+	private static final class Level {
+		private final int depth;
+		private final int size;
+
+		private Level(final int depth, final int size) {
+			this.depth = depth;
+			this.size = size;
+		}
 	}
 
 }
@@ -19,8 +19,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -33,9 +36,7 @@ import hu.bme.mit.theta.solver.ItpMarker;
 import hu.bme.mit.theta.solver.ItpPattern;
 import hu.bme.mit.theta.solver.ItpSolver;
 import hu.bme.mit.theta.solver.SolverStatus;
-import hu.bme.mit.theta.solver.Stack;
 import hu.bme.mit.theta.solver.impl.ItpPatternImpl;
-import hu.bme.mit.theta.solver.impl.StackImpl;
 
 final class Z3ItpSolver implements ItpSolver {
 
@@ -47,19 +48,25 @@ final class Z3ItpSolver implements ItpSolver {
 
 	private final Z3Solver solver;
 
-	private final Stack<Z3ItpMarker> markers;
+	// Markers in the order of creation, thus with non-decreasing depth
+	private final List<Z3ItpMarker> markers;
+	// Markers that have terms added above the depth where they were created
+	private final List<Z3ItpMarker> extendedMarkers;
+	private int depth;
 
 	public Z3ItpSolver(final Z3SymbolTable symbolTable, final Z3TransformationManager transformationManager,
-					   final Z3TermTransformer termTransformer, final com.microsoft.z3.InterpolationContext z3Context,
-					   final com.microsoft.z3.Solver z3Solver) {
+					   final Z3TermTransformer termTransformer, final Z3TermCache termCache,
+					   final com.microsoft.z3.InterpolationContext z3Context, final com.microsoft.z3.Solver z3Solver) {
 		this.transformationManager = transformationManager;
 		this.termTransformer = termTransformer;
 		this.z3Context = z3Context;
 		this.z3Solver = z3Solver;
 
-		solver = new Z3Solver(symbolTable, transformationManager, termTransformer, z3Context, z3Solver);
+		solver = new Z3Solver(symbolTable, transformationManager, termTransformer, termCache, z3Context, z3Solver);
 
-		markers = new StackImpl<>();
+		markers = new ArrayList<>();
+		extendedMarkers = new ArrayList<>();
+		depth = 0;
 	}
 
 	@Override
@@ -70,7 +77,7 @@ final class Z3ItpSolver implements ItpSolver {
 
 	@Override
 	public ItpMarker createMarker() {
-		final Z3ItpMarker marker = new Z3ItpMarker();
+		final Z3ItpMarker marker = new Z3ItpMarker(markers.size(), depth);
 		markers.add(marker);
 		return marker;
 	}
@@ -79,11 +86,21 @@ final class Z3ItpSolver implements ItpSolver {
 	public void add(final ItpMarker marker, final Expr<BoolType> assertion) {
 		checkNotNull(marker);
 		checkNotNull(assertion);
-		checkArgument(markers.toCollection().contains(marker), "Marker not found in solver");
+		checkArgument(isLive(marker), "Marker not found in solver");
 		final Z3ItpMarker z3Marker = (Z3ItpMarker) marker;
 		final com.microsoft.z3.BoolExpr term = (com.microsoft.z3.BoolExpr) transformationManager.toTerm(assertion);
 		solver.add(assertion, term);
-		z3Marker.add(term);
+		if (z3Marker.add(term, depth)) {
+			extendedMarkers.add(z3Marker);
+		}
+	}
+
+	private boolean isLive(final ItpMarker marker) {
+		if (!(marker instanceof Z3ItpMarker)) {
+			return false;
+		}
+		final int index = ((Z3ItpMarker) marker).getIndex();
+		return index < markers.size() && markers.get(index) == marker;
 	}
 
 	@Override
@@ -138,7 +155,7 @@ final class Z3ItpSolver implements ItpSolver {
 
 	@Override
 	public Collection<? extends ItpMarker> getMarkers() {
-		return markers.toCollection();
+		return Collections.unmodifiableList(markers);
 	}
 
 	// delegate
@@ -160,26 +177,62 @@ final class Z3ItpSolver implements ItpSolver {
 		return solver.check();
 	}
 
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		return solver.check(assumptions);
+	}
+
 	@Override
 	public void push() {
-		markers.push();
-		for (final Z3ItpMarker marker : markers) {
-			marker.push();
-		}
 		solver.push();
+		depth++;
 	}
 
 	@Override
 	public void pop(final int n) {
-		markers.pop(n);
-		for (final Z3ItpMarker marker : markers) {
-			marker.pop(n);
-		}
+		checkArgument(n > 0, "Number of pops must be positive");
+		checkArgument(depth >= n, "Stack not deep enough to pop " + n);
 		solver.pop(n);
+		depth -= n;
+
+		int live = markers.size();
+		while (live > 0 && markers.get(live - 1).getDepth() > depth) {
+			--live;
+		}
+		markers.subList(live, markers.size()).clear();
+
+		final Iterator<Z3ItpMarker> iterator = extendedMarkers.iterator();
+		while (iterator.hasNext()) {
+			final Z3ItpMarker marker = iterator.next();
+			if (marker.getDepth() > depth) {
+				iterator.remove();
+			} else {
+				marker.pop(depth);
+				if (!marker.isExtended()) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	private void clearMarkers() {
+		markers.clear();
+		extendedMarkers.clear();
+		depth = 0;
+	}
+
+	void clearAssertions() {
+		clearMarkers();
+		solver.clearAssertions();
+	}
+
+	public Z3TermCacheStatistics getTermCacheStatistics() {
+		return solver.getTermCacheStatistics();
 	}
 
 	@Override
 	public void reset() {
+		clearMarkers();
 		solver.reset();
 	}
 
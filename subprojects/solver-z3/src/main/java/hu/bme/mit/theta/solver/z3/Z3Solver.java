@@ -23,6 +23,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -52,6 +53,7 @@ final class Z3Solver implements Solver {
 	private final Z3SymbolTable symbolTable;
 	private final Z3TransformationManager transformationManager;
 	private final Z3TermTransformer termTransformer;
+	private final Z3TermCache termCache;
 
 	private final com.microsoft.z3.Context z3Context;
 	private final com.microsoft.z3.Solver z3Solver;
@@ -59,24 +61,49 @@ final class Z3Solver implements Solver {
 	private final Stack<Expr<BoolType>> assertions;
 	private final Map<String, Expr<BoolType>> assumptions;
 
+	// Activation literals of the expressions checked as assumptions in the
+	// order of creation, the implications guarding them live on the stack
+	// level where they were created
+	private final List<Expr<BoolType>> activated;
+	private final List<Integer> activatedSizes;
+	private final Map<Expr<BoolType>, com.microsoft.z3.BoolExpr> activationLits;
+	private final Map<String, Expr<BoolType>> activations;
+
+	// Activation literals of the base level live in a dedicated Z3 frame
+	// below the frames of the user, which is popped when there are too many
+	// of them. Assertions added on the base level while the frame is open are
+	// added again below it when it is popped.
+	private boolean activationFrame;
+	private final List<com.microsoft.z3.BoolExpr[]> activationFrameAssertions;
+
 	private static final String ASSUMPTION_LABEL = "_LABEL_%d";
+	private static final String ACTIVATION_LABEL = "_ACT_%d";
+	private static final int MAX_BASE_ACTIVATIONS = 1000;
 	private int labelNum = 0;
+	private int activationNum = 0;
 
 	private Valuation model;
 	private Collection<Expr<BoolType>> unsatCore;
 	private SolverStatus status;
 
 	public Z3Solver(final Z3SymbolTable symbolTable, final Z3TransformationManager transformationManager,
-					final Z3TermTransformer termTransformer, final com.microsoft.z3.Context z3Context,
-					final com.microsoft.z3.Solver z3Solver) {
+					final Z3TermTransformer termTransformer, final Z3TermCache termCache,
+					final com.microsoft.z3.Context z3Context, final com.microsoft.z3.Solver z3Solver) {
 		this.symbolTable = symbolTable;
 		this.transformationManager = transformationManager;
 		this.termTransformer = termTransformer;
+		this.termCache = termCache;
 		this.z3Context = z3Context;
 		this.z3Solver = z3Solver;
 
 		assertions = new StackImpl<>();
 		assumptions = new HashMap<>();
+		activated = new ArrayList<>();
+		activatedSizes = new ArrayList<>();
+		activationLits = new HashMap<>();
+		activations = new HashMap<>();
+		activationFrame = false;
+		activationFrameAssertions = new ArrayList<>();
 	}
 
 	////
@@ -91,6 +118,9 @@ final class Z3Solver implements Solver {
 	void add(final Expr<BoolType> assertion, final com.microsoft.z3.BoolExpr term) {
 		assertions.add(assertion);
 		z3Solver.add(term);
+		if (isInActivationFrame()) {
+			activationFrameAssertions.add(new com.microsoft.z3.BoolExpr[]{term});
+		}
 		clearState();
 	}
 
@@ -106,6 +136,9 @@ final class Z3Solver implements Solver {
 		assumptions.put(label, assertion);
 
 		z3Solver.assertAndTrack(term, labelTerm);
+		if (isInActivationFrame()) {
+			activationFrameAssertions.add(new com.microsoft.z3.BoolExpr[]{term, labelTerm});
+		}
 
 		clearState();
 	}
@@ -117,6 +150,67 @@ final class Z3Solver implements Solver {
 		return status;
 	}
 
+	@Override
+	public SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions) {
+		checkNotNull(assumptions);
+		final com.microsoft.z3.BoolExpr[] literals = new com.microsoft.z3.BoolExpr[assumptions.size()];
+		int i = 0;
+		for (final Expr<BoolType> assumption : assumptions) {
+			literals[i++] = activationLitOf(assumption);
+		}
+		clearState();
+		final Status z3Status = z3Solver.check(literals);
+		status = transformStatus(z3Status);
+		return status;
+	}
+
+	private com.microsoft.z3.BoolExpr activationLitOf(final Expr<BoolType> assumption) {
+		checkNotNull(assumption);
+		com.microsoft.z3.BoolExpr literal = activationLits.get(assumption);
+		if (literal == null) {
+			if (activatedSizes.isEmpty()) {
+				if (activated.size() >= MAX_BASE_ACTIVATIONS) {
+					retireActivations();
+				}
+				if (!activationFrame) {
+					z3Solver.push();
+					activationFrame = true;
+				}
+			}
+			final com.microsoft.z3.BoolExpr term = (com.microsoft.z3.BoolExpr) transformationManager
+					.toTerm(assumption);
+			final String label = String.format(ACTIVATION_LABEL, activationNum++);
+			literal = z3Context.mkBoolConst(label);
+			z3Solver.add(z3Context.mkImplies(literal, term));
+			activated.add(assumption);
+			activationLits.put(assumption, literal);
+			activations.put(label, assumption);
+		}
+		return literal;
+	}
+
+	/**
+	 * Drop the activation literals of the base level by popping their frame,
+	 * and add the assertions of the base level again below it.
+	 */
+	private void retireActivations() {
+		assert activatedSizes.isEmpty() && activationFrame;
+		z3Solver.pop();
+		activationFrame = false;
+		for (final com.microsoft.z3.BoolExpr[] assertion : activationFrameAssertions) {
+			if (assertion.length == 1) {
+				z3Solver.add(assertion[0]);
+			} else {
+				z3Solver.assertAndTrack(assertion[0], assertion[1]);
+			}
+		}
+		clearActivations();
+	}
+
+	private boolean isInActivationFrame() {
+		return activationFrame && activatedSizes.isEmpty();
+	}
+
 	private SolverStatus transformStatus(final Status z3Status) {
 		switch (z3Status) {
 			case SATISFIABLE:
@@ -131,6 +225,7 @@ final class Z3Solver implements Solver {
 	@Override
 	public void push() {
 		assertions.push();
+		activatedSizes.add(activated.size());
 		z3Solver.push();
 	}
 
@@ -138,6 +233,14 @@ final class Z3Solver implements Solver {
 	public void pop(final int n) {
 		assertions.pop(n);
 		z3Solver.pop(n);
+		final int depth = activatedSizes.size();
+		final int size = activatedSizes.get(depth - n);
+		activatedSizes.subList(depth - n, depth).clear();
+		for (final Expr<BoolType> assumption : activated.subList(size, activated.size())) {
+			final com.microsoft.z3.BoolExpr literal = activationLits.remove(assumption);
+			activations.remove(literal.toString());
+		}
+		activated.subList(size, activated.size()).clear();
 		clearState();
 	}
 
@@ -146,11 +249,38 @@ final class Z3Solver implements Solver {
 		z3Solver.reset();
 		assertions.clear();
 		assumptions.clear();
+		clearActivations();
 		symbolTable.clear();
 		transformationManager.reset();
+		termCache.clear();
 		clearState();
 	}
 
+	/**
+	 * Remove all assertions, but keep the symbol table and the term cache,
+	 * which remain valid in the same context.
+	 */
+	void clearAssertions() {
+		z3Solver.reset();
+		assertions.clear();
+		assumptions.clear();
+		clearActivations();
+		clearState();
+	}
+
+	private void clearActivations() {
+		activationFrame = false;
+		activationFrameAssertions.clear();
+		activated.clear();
+		activatedSizes.clear();
+		activationLits.clear();
+		activations.clear();
+	}
+
+	public Z3TermCacheStatistics getTermCacheStatistics() {
+		return termCache.getStatistics();
+	}
+
 	@Override
 	public SolverStatus getStatus() {
 		checkState(status != null, "Solver status is unknown.");
@@ -205,7 +335,8 @@ final class Z3Solver implements Solver {
 			checkState(term.isConst(), "Term is not constant.");
 
 			final String label = term.toString();
-			final Expr<BoolType> assumption = assumptions.get(label);
+			final Expr<BoolType> assumption = assumptions.containsKey(label) ? assumptions.get(label)
+					: activations.get(label);
 
 			assert assumption != null;
 			unsatCore.add(assumption);
@@ -326,7 +457,8 @@ final class Z3Solver implements Solver {
 					final ConstDecl<?> constDecl = symbolTable.getConst(symbol);
 					builder.add(constDecl);
 				} else {
-					if (!assumptions.containsKey(symbol.getName().toString())) {
+					final String name = symbol.getName().toString();
+					if (!assumptions.containsKey(name) && !activations.containsKey(name)) {
 						// Quantifier?
 					}
 				}
@@ -15,29 +15,99 @@
  */
 package hu.bme.mit.theta.solver.z3;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.microsoft.z3.InterpolationContext;
 
 import hu.bme.mit.theta.common.OsHelper;
 import hu.bme.mit.theta.solver.ItpSolver;
 import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.utils.SolverPool;
 
+/**
+ * Factory for Z3 solvers. Each solver has its own Z3 context, along with a
+ * cache between expressions and terms of the context. The default instance
+ * bounds the cache to {@value #DEFAULT_TERM_CACHE_SIZE} entries, other bounds
+ * can be configured by {@link #withTermCacheSize(long)} and
+ * {@link #withTermCacheWeight(long)}. Solvers can be reused through a pool
+ * created by {@link #createPool(int)}.
+ */
 public final class Z3SolverFactory implements SolverFactory {
 
+	public static final long DEFAULT_TERM_CACHE_SIZE = 1000;
+
 	private static final Z3SolverFactory INSTANCE;
 
 	static {
 		loadLibraries();
-		INSTANCE = new Z3SolverFactory();
+		INSTANCE = new Z3SolverFactory(DEFAULT_TERM_CACHE_SIZE, false);
 	}
 
-	private Z3SolverFactory() {
+	private final long termCacheBound;
+	private final boolean weighted;
+
+	private Z3SolverFactory(final long termCacheBound, final boolean weighted) {
+		checkArgument(termCacheBound >= 0, "Term cache bound must be non-negative");
+		this.termCacheBound = termCacheBound;
+		this.weighted = weighted;
 	}
 
 	public static Z3SolverFactory getInstance() {
 		return INSTANCE;
 	}
 
+	/**
+	 * Gets a factory whose solvers cache at most the given number of terms.
+	 */
+	public Z3SolverFactory withTermCacheSize(final long maxSize) {
+		return new Z3SolverFactory(maxSize, false);
+	}
+
+	/**
+	 * Gets a factory whose solvers bound the total weight of cached terms,
+	 * where the weight of a term is one plus the arity of its expression.
+	 * This is fairer than a bound on the size if terms differ a lot in their
+	 * arity.
+	 */
+	public Z3SolverFactory withTermCacheWeight(final long maxWeight) {
+		return new Z3SolverFactory(maxWeight, true);
+	}
+
+	/**
+	 * Gets the statistics of the term cache of a solver created by a Z3
+	 * solver factory.
+	 */
+	public static Z3TermCacheStatistics getTermCacheStatistics(final Solver solver) {
+		if (solver instanceof Z3Solver) {
+			return ((Z3Solver) solver).getTermCacheStatistics();
+		} else if (solver instanceof Z3ItpSolver) {
+			return ((Z3ItpSolver) solver).getTermCacheStatistics();
+		} else {
+			throw new IllegalArgumentException("Not a Z3 solver: " + solver);
+		}
+	}
+
+	/**
+	 * Creates a pool of solvers of this factory, keeping at most the given
+	 * number of idle solvers of each kind. Returned solvers only drop their
+	 * assertions, so their context, symbol table and term cache stay warm
+	 * for the next lease.
+	 */
+	public SolverPool createPool(final int maxIdle) {
+		return SolverPool.create(this, maxIdle, Z3SolverFactory::recycle);
+	}
+
+	private static void recycle(final Solver solver) {
+		if (solver instanceof Z3Solver) {
+			((Z3Solver) solver).clearAssertions();
+		} else if (solver instanceof Z3ItpSolver) {
+			((Z3ItpSolver) solver).clearAssertions();
+		} else {
+			solver.reset();
+		}
+	}
+
 	private static void loadLibraries() {
 		switch (OsHelper.getOs()) {
 			case WINDOWS:
@@ -57,10 +127,12 @@ public final class Z3SolverFactory implements SolverFactory {
 		final com.microsoft.z3.Solver z3Solver = z3Context.mkSimpleSolver();
 
 		final Z3SymbolTable symbolTable = new Z3SymbolTable();
-		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context);
-		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable);
+		final Z3TermCache termCache = createTermCache();
+		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context,
+				termCache);
+		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable, termCache);
 
-		return new Z3Solver(symbolTable, transformationManager, termTransformer, z3Context, z3Solver);
+		return new Z3Solver(symbolTable, transformationManager, termTransformer, termCache, z3Context, z3Solver);
 	}
 
 	@Override
@@ -69,10 +141,16 @@ public final class Z3SolverFactory implements SolverFactory {
 		final com.microsoft.z3.Solver z3Solver = z3Context.mkSimpleSolver();
 
 		final Z3SymbolTable symbolTable = new Z3SymbolTable();
-		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context);
-		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable);
+		final Z3TermCache termCache = createTermCache();
+		final Z3TransformationManager transformationManager = new Z3TransformationManager(symbolTable, z3Context,
+				termCache);
+		final Z3TermTransformer termTransformer = new Z3TermTransformer(symbolTable, termCache);
+
+		return new Z3ItpSolver(symbolTable, transformationManager, termTransformer, termCache, z3Context, z3Solver);
+	}
 
-		return new Z3ItpSolver(symbolTable, transformationManager, termTransformer, z3Context, z3Solver);
+	private Z3TermCache createTermCache() {
+		return weighted ? Z3TermCache.withMaxWeight(termCacheBound) : Z3TermCache.withMaxSize(termCacheBound);
 	}
 
 }
@@ -0,0 +1,100 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import hu.bme.mit.theta.core.type.Expr;
+
+/**
+ * Bounded cache between expressions and Z3 terms in both directions. Terms
+ * belong to a Z3 context, so a cache is shared by everything that uses the
+ * same context. The size of the cache is either bounded by the number of
+ * entries, or by their total weight, where the weight of an entry is the
+ * number of nodes of the expression that were transformed directly (i.e., one
+ * plus its arity).
+ */
+final class Z3TermCache {
+
+	private final Cache<Expr<?>, com.microsoft.z3.Expr> exprToTerm;
+	private final Cache<com.microsoft.z3.Expr, Expr<?>> termToExpr;
+
+	private Z3TermCache(final Cache<Expr<?>, com.microsoft.z3.Expr> exprToTerm,
+						final Cache<com.microsoft.z3.Expr, Expr<?>> termToExpr) {
+		this.exprToTerm = exprToTerm;
+		this.termToExpr = termToExpr;
+	}
+
+	static Z3TermCache withMaxSize(final long maxSize) {
+		checkArgument(maxSize >= 0, "Cache size must be non-negative");
+		return new Z3TermCache(CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build(),
+				CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build());
+	}
+
+	static Z3TermCache withMaxWeight(final long maxWeight) {
+		checkArgument(maxWeight >= 0, "Cache weight must be non-negative");
+		return new Z3TermCache(CacheBuilder.newBuilder().maximumWeight(maxWeight)
+				.<Expr<?>, com.microsoft.z3.Expr>weigher((expr, term) -> 1 + expr.getArity()).recordStats().build(),
+				CacheBuilder.newBuilder().maximumWeight(maxWeight)
+						.<com.microsoft.z3.Expr, Expr<?>>weigher((term, expr) -> 1 + expr.getArity()).recordStats()
+						.build());
+	}
+
+	com.microsoft.z3.Expr toTerm(final Expr<?> expr, final Callable<com.microsoft.z3.Expr> transformation) {
+		return get(exprToTerm, expr, transformation);
+	}
+
+	Expr<?> toExpr(final com.microsoft.z3.Expr term, final Callable<Expr<?>> transformation) {
+		return get(termToExpr, term, transformation);
+	}
+
+	void clear() {
+		exprToTerm.invalidateAll();
+		termToExpr.invalidateAll();
+	}
+
+	Z3TermCacheStatistics getStatistics() {
+		final CacheStats toTermStats = exprToTerm.stats();
+		final CacheStats toExprStats = termToExpr.stats();
+		return new Z3TermCacheStatistics(toTermStats.hitCount(), toTermStats.missCount(),
+				toTermStats.evictionCount(), exprToTerm.size(), toExprStats.hitCount(), toExprStats.missCount(),
+				toExprStats.evictionCount(), termToExpr.size());
+	}
+
+	private static <K, V> V get(final Cache<K, V> cache, final K key, final Callable<V> transformation) {
+		try {
+			return cache.get(key, transformation);
+		} catch (final ExecutionException | UncheckedExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			} else {
+				throw new AssertionError("Unhandled case: " + key, cause);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Snapshot of the statistics of the cache between expressions and Z3 terms
+ * used by a solver. Counters are cumulative since the creation of the solver.
+ */
+public final class Z3TermCacheStatistics {
+
+	private final long termHits;
+	private final long termMisses;
+	private final long termEvictions;
+	private final long termSize;
+	private final long exprHits;
+	private final long exprMisses;
+	private final long exprEvictions;
+	private final long exprSize;
+
+	Z3TermCacheStatistics(final long termHits, final long termMisses, final long termEvictions, final long termSize,
+						  final long exprHits, final long exprMisses, final long exprEvictions, final long exprSize) {
+		this.termHits = termHits;
+		this.termMisses = termMisses;
+		this.termEvictions = termEvictions;
+		this.termSize = termSize;
+		this.exprHits = exprHits;
+		this.exprMisses = exprMisses;
+		this.exprEvictions = exprEvictions;
+		this.exprSize = exprSize;
+	}
+
+	/**
+	 * Gets the number of expressions whose term was found in the cache.
+	 */
+	public long getTermHits() {
+		return termHits;
+	}
+
+	/**
+	 * Gets the number of expressions that had to be transformed to a term.
+	 */
+	public long getTermMisses() {
+		return termMisses;
+	}
+
+	public long getTermEvictions() {
+		return termEvictions;
+	}
+
+	public long getTermSize() {
+		return termSize;
+	}
+
+	/**
+	 * Gets the number of terms (e.g., model values or interpolants) whose
+	 * expression was found in the cache.
+	 */
+	public long getExprHits() {
+		return exprHits;
+	}
+
+	public long getExprMisses() {
+		return exprMisses;
+	}
+
+	public long getExprEvictions() {
+		return exprEvictions;
+	}
+
+	public long getExprSize() {
+		return exprSize;
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("termHits " + termHits)
+				.add("termMisses " + termMisses).add("termEvictions " + termEvictions).add("termSize " + termSize)
+				.add("exprHits " + exprHits).add("exprMisses " + exprMisses).add("exprEvictions " + exprEvictions)
+				.add("exprSize " + exprSize).toString();
+	}
+
+}
@@ -84,10 +84,12 @@ final class Z3TermTransformer {
 	private static final String PARAM_NAME_FORMAT = "_p%d";
 
 	private final Z3SymbolTable symbolTable;
+	private final Z3TermCache termCache;
 	private final Map<String, TriFunction<com.microsoft.z3.Expr, Model, List<Decl<?>>, Expr<?>>> environment;
 
-	public Z3TermTransformer(final Z3SymbolTable symbolTable) {
+	public Z3TermTransformer(final Z3SymbolTable symbolTable, final Z3TermCache termCache) {
 		this.symbolTable = symbolTable;
+		this.termCache = termCache;
 
 		environment = new HashMap<>();
 		environment.put("true", exprNullaryOperator(TrueExpr::getInstance));
@@ -152,6 +154,16 @@ final class Z3TermTransformer {
 
 	private Expr<?> transform(final com.microsoft.z3.Expr term, final Model model,
 							  final List<Decl<?>> vars) {
+		// Only closed terms are memoized, others depend on the model or the bound variables
+		if (model == null && vars.isEmpty()) {
+			return termCache.toExpr(term, () -> transformTerm(term, null, vars));
+		} else {
+			return transformTerm(term, model, vars);
+		}
+	}
+
+	private Expr<?> transformTerm(final com.microsoft.z3.Expr term, final Model model,
+								  final List<Decl<?>> vars) {
 		if (term.isIntNum()) {
 			return transformIntLit(term);
 
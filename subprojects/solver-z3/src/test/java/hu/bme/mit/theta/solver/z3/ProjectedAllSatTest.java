@@ -0,0 +1,86 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import static hu.bme.mit.theta.core.decl.Decls.Const;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Or;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Leq;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.utils.ProjectedAllSat;
+
+public class ProjectedAllSatTest {
+
+	private final ConstDecl<IntType> cx = Const("x", Int());
+	private final ConstDecl<IntType> cy = Const("y", Int());
+	private final ConstDecl<BoolType> ca = Const("a", Bool());
+
+	private final Solver solver = Z3SolverFactory.getInstance().createSolver();
+
+	@Test
+	public void testProjection() {
+		// y is not projected, so its values do not multiply the models
+		final Expr<BoolType> expr = And(Geq(cx.getRef(), Int(0)), Leq(cx.getRef(), Int(2)),
+				Geq(cy.getRef(), cx.getRef()));
+		final List<LitExpr<?>[]> models = ProjectedAllSat.create(solver, false).enumerate(expr, ImmutableList.of(cx),
+				0);
+
+		Assert.assertEquals(3, models.size());
+		Assert.assertEquals(0, solver.getAssertions().size());
+	}
+
+	@Test
+	public void testLimit() {
+		final Expr<BoolType> expr = Geq(cx.getRef(), Int(0));
+		Assert.assertEquals(4, ProjectedAllSat.create(solver).enumerate(expr, ImmutableList.of(cx), 4).size());
+	}
+
+	@Test
+	public void testMinimize() {
+		// a is unconstrained if x is 1, so that model is a cube over a
+		final Expr<BoolType> expr = Or(Eq(cx.getRef(), Int(1)), And(Eq(cx.getRef(), Int(2)), ca.getRef()));
+		final List<LitExpr<?>[]> models = ProjectedAllSat.create(solver).enumerate(expr, ImmutableList.of(cx, ca),
+				0);
+
+		Assert.assertEquals(2, models.size());
+		for (final LitExpr<?>[] values : models) {
+			if (values[0].equals(Int(1))) {
+				Assert.assertNull(values[1]);
+			} else {
+				Assert.assertEquals(Int(2), values[0]);
+				Assert.assertEquals(Bool(true), values[1]);
+			}
+		}
+	}
+
+}
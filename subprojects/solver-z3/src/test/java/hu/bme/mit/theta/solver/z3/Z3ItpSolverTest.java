@@ -235,4 +235,40 @@ public final class Z3ItpSolverTest {
 		System.out.println("----------");
 	}
 
+	@Test
+	public void testMarkersAcrossFrames() {
+		final ItpMarker A = solver.createMarker();
+		solver.add(A, Eq(a, b));
+
+		solver.push();
+		final ItpMarker B = solver.createMarker();
+		solver.add(B, Eq(b, c));
+		solver.push();
+		solver.add(A, Neq(a, c));
+		Assert.assertEquals(2, solver.getMarkers().size());
+		solver.check();
+		Assert.assertEquals(SolverStatus.UNSAT, solver.getStatus());
+
+		// Removes B and the term added to A at depth 2
+		solver.pop(2);
+		Assert.assertEquals(ImmutableList.of(A), ImmutableList.copyOf(solver.getMarkers()));
+
+		final ItpMarker C = solver.createMarker();
+		final ItpPattern pattern = solver.createBinPattern(A, C);
+		solver.add(C, Eq(b, c));
+		solver.add(C, Neq(a, c));
+		solver.check();
+		Assert.assertEquals(SolverStatus.UNSAT, solver.getStatus());
+		final Interpolant itp = solver.getInterpolant(pattern);
+		Assert.assertEquals(Eq(a, b), itp.eval(A));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPoppedMarker() {
+		solver.push();
+		final ItpMarker A = solver.createMarker();
+		solver.pop();
+		solver.add(A, Eq(a, b));
+	}
+
 }
@@ -58,6 +58,7 @@ import static hu.bme.mit.theta.core.type.functype.FuncExprs.App;
 import static hu.bme.mit.theta.core.type.functype.FuncExprs.Func;
 import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
@@ -109,6 +110,53 @@ public final class Z3SolverTest {
 		solver.pop();
 	}
 
+	@Test
+	public void testAssumptions() {
+		final ConstDecl<IntType> cx = Const("x", Int());
+		final Expr<BoolType> xPos = IntExprs.Gt(cx.getRef(), Int(0));
+		final Expr<BoolType> xNeg = IntExprs.Lt(cx.getRef(), Int(0));
+
+		solver.add(IntExprs.Lt(cx.getRef(), Int(10)));
+
+		// Assumptions only hold during the check
+		assertTrue(solver.check(of(xPos)).isSat());
+		assertTrue(solver.check(of(xPos, xNeg)).isUnsat());
+		assertTrue(solver.getUnsatCore().contains(xPos));
+		assertTrue(solver.getUnsatCore().contains(xNeg));
+		assertTrue(solver.check(of(xNeg)).isSat());
+		assertEquals(1, solver.getAssertions().size());
+
+		// Activation literals are dropped with the scope they were created in
+		solver.push();
+		solver.add(IntExprs.Gt(cx.getRef(), Int(5)));
+		assertTrue(solver.check(of(xNeg)).isUnsat());
+		solver.pop();
+		assertTrue(solver.check(of(xNeg)).isSat());
+		assertTrue(solver.check().isSat());
+	}
+
+	@Test
+	public void testManyAssumptions() {
+		final ConstDecl<IntType> cx = Const("x", Int());
+		solver.add(IntExprs.Lt(cx.getRef(), Int(10)));
+
+		// Activation literals of the base level are dropped after a while,
+		// which must not affect the results or the assertions added meanwhile
+		for (int i = 0; i < 2500; i++) {
+			final Expr<BoolType> xEq = IntExprs.Eq(cx.getRef(), Int(i));
+			assertEquals(i < 10, solver.check(of(xEq)).isSat());
+			if (i >= 10) {
+				assertTrue(solver.getUnsatCore().contains(xEq));
+			}
+			if (i == 500) {
+				solver.add(IntExprs.Neq(cx.getRef(), Int(3)));
+			}
+		}
+		assertTrue(solver.check(of(IntExprs.Eq(cx.getRef(), Int(5)))).isSat());
+		assertFalse(solver.check(of(IntExprs.Eq(cx.getRef(), Int(3)))).isSat());
+		assertEquals(2, solver.getAssertions().size());
+	}
+
 	@Test
 	public void testFunc() {
 		// Arrange
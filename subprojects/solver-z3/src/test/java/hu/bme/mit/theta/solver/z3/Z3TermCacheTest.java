@@ -0,0 +1,111 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.z3;
+
+import static hu.bme.mit.theta.core.decl.Decls.Const;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Gt;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverStatus;
+
+public final class Z3TermCacheTest {
+
+	private final ConstDecl<IntType> cx = Const("x", Int());
+	private final ConstDecl<IntType> cy = Const("y", Int());
+
+	@Test
+	public void testHitsAndMisses() {
+		final Solver solver = Z3SolverFactory.getInstance().createSolver();
+		final Expr<BoolType> expr = Eq(cx.getRef(), Add(cy.getRef(), Int(1)));
+
+		solver.push();
+		solver.add(expr);
+		final Z3TermCacheStatistics first = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertEquals(0, first.getTermHits());
+		assertTrue(first.getTermMisses() > 0);
+
+		solver.pop();
+		solver.add(expr);
+		final Z3TermCacheStatistics second = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertEquals(first.getTermMisses(), second.getTermMisses());
+		assertEquals(1, second.getTermHits());
+	}
+
+	@Test
+	public void testReverseDirection() {
+		final Solver solver = Z3SolverFactory.getInstance().createSolver();
+		solver.add(Eq(cx.getRef(), Int(5)));
+		solver.add(Eq(cy.getRef(), Int(5)));
+		assertEquals(SolverStatus.SAT, solver.check());
+
+		assertEquals(Int(5), solver.getModel().eval(cx).get());
+		final Z3TermCacheStatistics first = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertEquals(1, first.getExprMisses());
+
+		assertEquals(Int(5), solver.getModel().eval(cy).get());
+		final Z3TermCacheStatistics second = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertEquals(1, second.getExprMisses());
+		assertEquals(1, second.getExprHits());
+	}
+
+	@Test
+	public void testSharedWithItpSolver() {
+		final ItpSolver solver = Z3SolverFactory.getInstance().createItpSolver();
+		solver.add(solver.createMarker(), Gt(cx.getRef(), Int(0)));
+		assertTrue(Z3SolverFactory.getTermCacheStatistics(solver).getTermSize() > 0);
+	}
+
+	@Test
+	public void testMaxSize() {
+		final Solver solver = Z3SolverFactory.getInstance().withTermCacheSize(1).createSolver();
+		solver.add(Eq(cx.getRef(), Add(cy.getRef(), Int(1))));
+
+		final Z3TermCacheStatistics stats = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertEquals(1, stats.getTermSize());
+		assertTrue(stats.getTermEvictions() > 0);
+	}
+
+	@Test
+	public void testMaxWeight() {
+		final Solver solver = Z3SolverFactory.getInstance().withTermCacheWeight(3).createSolver();
+		solver.add(Eq(cx.getRef(), Add(cy.getRef(), Int(1))));
+
+		final Z3TermCacheStatistics stats = Z3SolverFactory.getTermCacheStatistics(solver);
+		assertTrue(stats.getTermSize() <= 3);
+		assertTrue(stats.getTermEvictions() > 0);
+	}
+
+	@Test
+	public void testResetClears() {
+		final Solver solver = Z3SolverFactory.getInstance().createSolver();
+		solver.add(Gt(cx.getRef(), Int(0)));
+		solver.reset();
+		assertEquals(0, Z3SolverFactory.getTermCacheStatistics(solver).getTermSize());
+	}
+
+}
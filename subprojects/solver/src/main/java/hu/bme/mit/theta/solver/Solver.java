@@ -30,6 +30,8 @@ import hu.bme.mit.theta.core.type.booltype.BoolType;
  * obtained by {@link #getModel()}.
  *
  * The solver can also support incremental solving by {@link #push()} and {@link #pop()}.
+ * Repeated queries against the same background formula should rather use
+ * {@link #check(Collection)}, which keeps the learned state of the solver.
  */
 public interface Solver {
 
@@ -77,6 +79,17 @@ public interface Solver {
 	 */
 	SolverStatus check();
 
+	/**
+	 * Check if the currently added expressions are satisfiable together with
+	 * the given assumptions. The assumptions only hold during this check, they
+	 * are not added to the solver. The model and the unsat core can be queried
+	 * as after {@link #check()}, the latter may also contain assumptions.
+	 *
+	 * @param assumptions Assumptions
+	 * @return Status
+	 */
+	SolverStatus check(final Collection<? extends Expr<BoolType>> assumptions);
+
 	/**
 	 * Push the current solver state. When calling {@link #pop()}, all expressions added after
 	 * the last push will be removed.
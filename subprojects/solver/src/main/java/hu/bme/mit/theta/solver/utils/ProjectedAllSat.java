@@ -0,0 +1,182 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.abstracttype.AbstractExprs.Eq;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.booltype.SmartBoolExprs.And;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.Type;
+import hu.bme.mit.theta.core.type.abstracttype.Equational;
+import hu.bme.mit.theta.core.type.arraytype.ArrayType;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.Solver;
+
+/**
+ * Enumerates the models of an expression projected to a list of constants.
+ * Models are returned as value tuples in the order of the projection, where
+ * {@code null} means that the constant is either not constrained by the model
+ * or that any of its values is possible together with the other values of the
+ * tuple. Thus, each tuple represents a cube of projected models, and the
+ * union of the cubes is exactly the projection of the expression.
+ * <p>
+ * If minimization is enabled, the blocking clause of a model is shrunk before
+ * it is added: a projected value is kept only if it is in the unsat core of
+ * the negated expression assumed together with the model. The other values of
+ * the model stay fixed during this check, so a dropped value is
+ * unconstrained under them. This costs an extra check per model, but
+ * unconstrained constants (e.g., havocked variables) no longer multiply the
+ * number of models. Minimization requires that the assertions already in the
+ * solver do not constrain the projected constants. It is not useful if the
+ * projected constants are defined by the other constants of the expression
+ * (e.g., activation literals of predicates), use it without minimization then.
+ */
+public final class ProjectedAllSat {
+
+	private final Solver solver;
+	private final boolean minimize;
+
+	private ProjectedAllSat(final Solver solver, final boolean minimize) {
+		this.solver = checkNotNull(solver);
+		this.minimize = minimize;
+	}
+
+	public static ProjectedAllSat create(final Solver solver) {
+		return new ProjectedAllSat(solver, true);
+	}
+
+	public static ProjectedAllSat create(final Solver solver, final boolean minimize) {
+		return new ProjectedAllSat(solver, minimize);
+	}
+
+	/**
+	 * Enumerate all or a limited number of projected models of an expression.
+	 *
+	 * @param expr       Expression
+	 * @param projection Constants to project to
+	 * @param limit      Limit the number of models to enumerate (0 is unlimited)
+	 * @return Value tuples in the order of the projection
+	 */
+	public List<LitExpr<?>[]> enumerate(final Expr<BoolType> expr, final List<? extends ConstDecl<?>> projection,
+										final int limit) {
+		checkNotNull(expr);
+		checkNotNull(projection);
+		checkArgument(limit >= 0, "Limit must be non-negative");
+
+		final int n = projection.size();
+		final Set<Decl<?>> projected = minimize ? new HashSet<>(projection) : Collections.emptySet();
+		final Collection<Expr<BoolType>> exprAssumption = Collections.singleton(expr);
+		final List<LitExpr<?>[]> result = new ArrayList<>();
+
+		try (WithPushPop wpp = new WithPushPop(solver)) {
+			// With minimization the expression is only assumed, because the
+			// shrinking check needs its negation
+			if (!minimize) {
+				solver.add(expr);
+			}
+			while (limit == 0 || result.size() < limit) {
+				final boolean sat = minimize ? solver.check(exprAssumption).isSat() : solver.check().isSat();
+				if (!sat) {
+					break;
+				}
+				final Valuation model = solver.getModel();
+				final LitExpr<?>[] values = new LitExpr<?>[n];
+				@SuppressWarnings("unchecked") final Expr<BoolType>[] literals = new Expr[n];
+				for (int i = 0; i < n; i++) {
+					final ConstDecl<?> decl = projection.get(i);
+					final Optional<? extends LitExpr<?>> value = model.eval(decl);
+					if (value.isPresent()) {
+						values[i] = value.get();
+						literals[i] = literalOf(decl, value.get());
+					}
+				}
+
+				if (minimize) {
+					shrink(expr, model, projected, values, literals);
+				}
+
+				final List<Expr<BoolType>> blocking = new ArrayList<>(n);
+				for (int i = 0; i < n; i++) {
+					if (values[i] != null) {
+						blocking.add(literals[i]);
+					}
+				}
+				result.add(values);
+				solver.add(Not(And(blocking)));
+			}
+		}
+		return result;
+	}
+
+	private void shrink(final Expr<BoolType> expr, final Valuation model, final Set<Decl<?>> projected,
+						final LitExpr<?>[] values, final Expr<BoolType>[] literals) {
+		final List<Expr<BoolType>> assumptions = new ArrayList<>();
+		assumptions.add(Not(expr));
+		for (final Decl<?> decl : model.getDecls()) {
+			if (!projected.contains(decl) && isFixable(decl.getType())) {
+				assumptions.add(literalOf(decl, model.eval(decl).get()));
+			}
+		}
+		boolean hasValue = false;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				assumptions.add(literals[i]);
+				hasValue = true;
+			}
+		}
+		if (!hasValue || !solver.check(assumptions).isUnsat()) {
+			return;
+		}
+
+		final Set<Expr<BoolType>> core = new HashSet<>(solver.getUnsatCore());
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null && !core.contains(literals[i])) {
+				values[i] = null;
+			}
+		}
+	}
+
+	private static boolean isFixable(final Type type) {
+		// Constants without a cheap literal are left universal, which is sound
+		return type instanceof Equational && !(type instanceof ArrayType);
+	}
+
+	private static Expr<BoolType> literalOf(final Decl<?> decl, final LitExpr<?> value) {
+		if (decl.getType() instanceof BoolType) {
+			@SuppressWarnings("unchecked") final Expr<BoolType> ref = (Expr<BoolType>) decl.getRef();
+			return value.equals(True()) ? ref : Not(ref);
+		} else {
+			return Eq(decl.getRef(), value);
+		}
+	}
+
+}
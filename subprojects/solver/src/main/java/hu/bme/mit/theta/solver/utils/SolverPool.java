@@ -0,0 +1,250 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+
+/**
+ * A pool of reusable solvers created by a {@link SolverFactory}. Solvers are
+ * leased by {@link #lease()} or {@link #leaseItp()} and go back to the pool
+ * when the lease is closed. Returned solvers are recycled (by default with
+ * {@link Solver#reset()}) and at most {@code maxIdle} idle solvers of each
+ * kind are kept, the rest is dropped. A thread preferably gets back the solver
+ * it returned last.
+ * <p>
+ * The number of leased solvers is not limited: if there is no idle solver, a
+ * lease creates a new one. Only the number of solvers kept between the leases
+ * is bounded.
+ * <p>
+ * Existing code that expects a {@link SolverFactory} can use a
+ * {@link Session}, which leases a solver for each create call and returns all
+ * of them when the session is closed:
+ *
+ * <pre>
+ * try (SolverPool.Session session = pool.session()) {
+ *     final CfaConfig&lt;?, ?, ?&gt; config = new CfaConfigBuilder(..., session).build(cfa);
+ *     ...
+ * }
+ * </pre>
+ */
+public final class SolverPool {
+
+	private final int maxIdle;
+	private final Consumer<? super Solver> recycler;
+
+	private final Pool<Solver> solvers;
+	private final Pool<ItpSolver> itpSolvers;
+
+	private final AtomicLong leases = new AtomicLong();
+	private final AtomicLong returns = new AtomicLong();
+	private final AtomicLong creations = new AtomicLong();
+	private final AtomicLong affinityHits = new AtomicLong();
+	private final AtomicLong discards = new AtomicLong();
+
+	private SolverPool(final SolverFactory factory, final int maxIdle, final Consumer<? super Solver> recycler) {
+		checkNotNull(factory);
+		checkArgument(maxIdle >= 0, "Maximal number of idle solvers must be non-negative");
+		this.maxIdle = maxIdle;
+		this.recycler = checkNotNull(recycler);
+		this.solvers = new Pool<>(factory::createSolver);
+		this.itpSolvers = new Pool<>(factory::createItpSolver);
+	}
+
+	/**
+	 * Create a pool that resets returned solvers and keeps at most the given
+	 * number of idle solvers of each kind.
+	 */
+	public static SolverPool create(final SolverFactory factory, final int maxIdle) {
+		return new SolverPool(factory, maxIdle, Solver::reset);
+	}
+
+	/**
+	 * Create a pool with a custom recycler, which has to bring returned
+	 * solvers to an empty state (e.g., without dropping caches that are still
+	 * valid). A solver is dropped if recycling fails.
+	 */
+	public static SolverPool create(final SolverFactory factory, final int maxIdle,
+									final Consumer<? super Solver> recycler) {
+		return new SolverPool(factory, maxIdle, recycler);
+	}
+
+	public Lease<Solver> lease() {
+		return solvers.lease();
+	}
+
+	public Lease<ItpSolver> leaseItp() {
+		return itpSolvers.lease();
+	}
+
+	/**
+	 * Create a session, which is a solver factory leasing from this pool.
+	 */
+	public Session session() {
+		return new Session();
+	}
+
+	public SolverPoolStatistics getStatistics() {
+		return new SolverPoolStatistics(leases.get(), returns.get(), creations.get(), affinityHits.get(),
+				discards.get(), solvers.idleCount() + itpSolvers.idleCount());
+	}
+
+	////
+
+	/**
+	 * A solver leased from the pool. Closing the lease returns the solver, it
+	 * must not be used afterwards.
+	 */
+	public final class Lease<S extends Solver> implements AutoCloseable {
+		private final Pool<S> pool;
+		private final S solver;
+		private boolean closed;
+
+		private Lease(final Pool<S> pool, final S solver) {
+			this.pool = pool;
+			this.solver = solver;
+			this.closed = false;
+		}
+
+		public S get() {
+			checkState(!closed, "Lease already closed");
+			return solver;
+		}
+
+		@Override
+		public void close() {
+			if (!closed) {
+				closed = true;
+				pool.giveBack(solver);
+			}
+		}
+	}
+
+	/**
+	 * A solver factory whose solvers are leased from the pool and returned
+	 * when the session is closed.
+	 */
+	public final class Session implements SolverFactory, AutoCloseable {
+		private final List<Lease<?>> sessionLeases;
+
+		private Session() {
+			sessionLeases = new ArrayList<>();
+		}
+
+		@Override
+		public synchronized Solver createSolver() {
+			final Lease<Solver> lease = lease();
+			sessionLeases.add(lease);
+			return lease.get();
+		}
+
+		@Override
+		public synchronized ItpSolver createItpSolver() {
+			final Lease<ItpSolver> lease = leaseItp();
+			sessionLeases.add(lease);
+			return lease.get();
+		}
+
+		@Override
+		public synchronized void close() {
+			for (final Lease<?> lease : sessionLeases) {
+				lease.close();
+			}
+			sessionLeases.clear();
+		}
+	}
+
+	private static final class Entry<S> {
+		private final S solver;
+		private final long owner;
+
+		private Entry(final S solver, final long owner) {
+			this.solver = solver;
+			this.owner = owner;
+		}
+	}
+
+	private final class Pool<S extends Solver> {
+		private final Supplier<? extends S> factory;
+		// Most recently returned solvers first
+		private final Deque<Entry<S>> idle;
+
+		private Pool(final Supplier<? extends S> factory) {
+			this.factory = factory;
+			this.idle = new ArrayDeque<>();
+		}
+
+		private Lease<S> lease() {
+			leases.incrementAndGet();
+			final S solver = takeIdle();
+			if (solver != null) {
+				return new Lease<>(this, solver);
+			}
+			creations.incrementAndGet();
+			return new Lease<>(this, factory.get());
+		}
+
+		private synchronized S takeIdle() {
+			final long thread = Thread.currentThread().getId();
+			for (final Iterator<Entry<S>> iterator = idle.iterator(); iterator.hasNext(); ) {
+				final Entry<S> entry = iterator.next();
+				if (entry.owner == thread) {
+					iterator.remove();
+					affinityHits.incrementAndGet();
+					return entry.solver;
+				}
+			}
+			final Entry<S> entry = idle.pollFirst();
+			return entry == null ? null : entry.solver;
+		}
+
+		private void giveBack(final S solver) {
+			returns.incrementAndGet();
+			try {
+				recycler.accept(solver);
+			} catch (final RuntimeException e) {
+				discards.incrementAndGet();
+				return;
+			}
+			synchronized (this) {
+				if (idle.size() < maxIdle) {
+					idle.addFirst(new Entry<>(solver, Thread.currentThread().getId()));
+					return;
+				}
+			}
+			discards.incrementAndGet();
+		}
+
+		private synchronized int idleCount() {
+			return idle.size();
+		}
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import hu.bme.mit.theta.common.Utils;
+
+/**
+ * Snapshot of the statistics of a {@link SolverPool}. Counters are cumulative
+ * since the creation of the pool.
+ */
+public final class SolverPoolStatistics {
+
+	private final long leases;
+	private final long returns;
+	private final long creations;
+	private final long affinityHits;
+	private final long discards;
+	private final long idle;
+
+	SolverPoolStatistics(final long leases, final long returns, final long creations, final long affinityHits,
+						 final long discards, final long idle) {
+		this.leases = leases;
+		this.returns = returns;
+		this.creations = creations;
+		this.affinityHits = affinityHits;
+		this.discards = discards;
+		this.idle = idle;
+	}
+
+	public long getLeases() {
+		return leases;
+	}
+
+	public long getReturns() {
+		return returns;
+	}
+
+	/**
+	 * Gets the number of leases that had to create a new solver.
+	 */
+	public long getCreations() {
+		return creations;
+	}
+
+	/**
+	 * Gets the number of leases served by an idle solver.
+	 */
+	public long getReuses() {
+		return leases - creations;
+	}
+
+	/**
+	 * Gets the number of leases served by a solver returned by the same thread.
+	 */
+	public long getAffinityHits() {
+		return affinityHits;
+	}
+
+	/**
+	 * Gets the number of returned solvers that were dropped, because the
+	 * maximal number of idle solvers was reached or recycling failed.
+	 */
+	public long getDiscards() {
+		return discards;
+	}
+
+	public long getIdle() {
+		return idle;
+	}
+
+	public long getInUse() {
+		return leases - returns;
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add("leases " + leases).add("returns " + returns)
+				.add("creations " + creations).add("affinityHits " + affinityHits).add("discards " + discards)
+				.add("idle " + idle).toString();
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import hu.bme.mit.theta.solver.Solver;
+
+/**
+ * Interface for components that need a solver for a single query (or a few
+ * queries) and may be called from multiple threads. Instead of keeping a
+ * solver, such components acquire one for each query and release it when the
+ * query is done:
+ *
+ * <pre>
+ * try (SolverProvider.Handle handle = provider.acquire()) {
+ *     final Solver solver = handle.get();
+ *     ...
+ * }
+ * </pre>
+ * <p>
+ * The solver must be released in the same state (i.e., with the same
+ * assertions) as it was acquired, e.g., by using {@link WithPushPop}.
+ * Implementations can be found in {@link SolverProviders}.
+ */
+@FunctionalInterface
+public interface SolverProvider {
+
+	/**
+	 * Acquire a solver for the current thread.
+	 */
+	Handle acquire();
+
+	/**
+	 * A solver acquired from a provider. Closing the handle releases the
+	 * solver, it must not be used afterwards.
+	 */
+	interface Handle extends AutoCloseable {
+		Solver get();
+
+		@Override
+		void close();
+	}
+
+}
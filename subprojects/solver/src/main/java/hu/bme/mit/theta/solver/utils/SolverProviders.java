@@ -0,0 +1,107 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver.utils;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+
+/**
+ * Factory methods for {@link SolverProvider}s.
+ */
+public final class SolverProviders {
+
+	private SolverProviders() {
+	}
+
+	/**
+	 * Get a provider that always gives the same solver. It can only be used
+	 * from one thread at a time, but it does not cost anything.
+	 */
+	public static SolverProvider of(final Solver solver) {
+		return new FixedProvider(solver);
+	}
+
+	/**
+	 * Get a provider that gives each thread its own solver, created on the
+	 * first acquire of the thread. Solvers are kept as long as their threads,
+	 * so this is suited for a fixed set of worker threads.
+	 */
+	public static SolverProvider threadLocal(final SolverFactory factory) {
+		return new ThreadLocalProvider(factory);
+	}
+
+	/**
+	 * Get a provider that leases a solver from a pool for each acquire and
+	 * returns it on release. This is suited for short-lived threads, but the
+	 * solvers are recycled between the queries.
+	 */
+	public static SolverProvider pooled(final SolverPool pool) {
+		checkNotNull(pool);
+		return () -> {
+			final SolverPool.Lease<Solver> lease = pool.lease();
+			return new SolverProvider.Handle() {
+				@Override
+				public Solver get() {
+					return lease.get();
+				}
+
+				@Override
+				public void close() {
+					lease.close();
+				}
+			};
+		};
+	}
+
+	private static final class FixedProvider implements SolverProvider, SolverProvider.Handle {
+		private final Solver solver;
+
+		private FixedProvider(final Solver solver) {
+			this.solver = checkNotNull(solver);
+		}
+
+		@Override
+		public Handle acquire() {
+			return this;
+		}
+
+		@Override
+		public Solver get() {
+			return solver;
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+
+	private static final class ThreadLocalProvider implements SolverProvider {
+		private final ThreadLocal<FixedProvider> handles;
+
+		private ThreadLocalProvider(final SolverFactory factory) {
+			checkNotNull(factory);
+			this.handles = ThreadLocal.withInitial(() -> new FixedProvider(factory.createSolver()));
+		}
+
+		@Override
+		public Handle acquire() {
+			return handles.get();
+		}
+	}
+
+}
@@ -0,0 +1,106 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import hu.bme.mit.theta.solver.utils.SolverPool;
+import hu.bme.mit.theta.solver.utils.SolverPoolStatistics;
+
+public class SolverPoolTest {
+
+	private static final class StubFactory implements SolverFactory {
+		int created = 0;
+
+		@Override
+		public Solver createSolver() {
+			created++;
+			return new SolverStub();
+		}
+
+		@Override
+		public ItpSolver createItpSolver() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	@Test
+	public void testReuse() {
+		final StubFactory factory = new StubFactory();
+		final SolverPool pool = SolverPool.create(factory, 1, solver -> solver.pop(((SolverStub) solver).nPush));
+
+		final Solver solver1;
+		try (SolverPool.Lease<Solver> lease = pool.lease()) {
+			solver1 = lease.get();
+			solver1.push();
+		}
+		Assert.assertEquals(0, ((SolverStub) solver1).nPush);
+
+		try (SolverPool.Lease<Solver> lease = pool.lease()) {
+			Assert.assertSame(solver1, lease.get());
+		}
+		Assert.assertEquals(1, factory.created);
+
+		final SolverPoolStatistics stats = pool.getStatistics();
+		Assert.assertEquals(2, stats.getLeases());
+		Assert.assertEquals(2, stats.getReturns());
+		Assert.assertEquals(1, stats.getCreations());
+		Assert.assertEquals(1, stats.getReuses());
+		Assert.assertEquals(1, stats.getAffinityHits());
+		Assert.assertEquals(1, stats.getIdle());
+		Assert.assertEquals(0, stats.getInUse());
+	}
+
+	@Test
+	public void testMaxIdle() {
+		final StubFactory factory = new StubFactory();
+		final SolverPool pool = SolverPool.create(factory, 1);
+
+		final SolverPool.Lease<Solver> lease1 = pool.lease();
+		final SolverPool.Lease<Solver> lease2 = pool.lease();
+		Assert.assertNotSame(lease1.get(), lease2.get());
+		lease1.close();
+		lease2.close();
+		lease2.close();
+
+		final SolverPoolStatistics stats = pool.getStatistics();
+		Assert.assertEquals(2, stats.getCreations());
+		Assert.assertEquals(2, stats.getReturns());
+		Assert.assertEquals(1, stats.getDiscards());
+		Assert.assertEquals(1, stats.getIdle());
+	}
+
+	@Test
+	public void testSession() {
+		final StubFactory factory = new StubFactory();
+		final SolverPool pool = SolverPool.create(factory, 2);
+
+		try (SolverPool.Session session = pool.session()) {
+			session.createSolver();
+			session.createSolver();
+			Assert.assertEquals(2, pool.getStatistics().getInUse());
+		}
+		Assert.assertEquals(0, pool.getStatistics().getInUse());
+
+		try (SolverPool.Session session = pool.session()) {
+			session.createSolver();
+			session.createSolver();
+		}
+		Assert.assertEquals(2, factory.created);
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.solver;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import hu.bme.mit.theta.solver.utils.SolverPool;
+import hu.bme.mit.theta.solver.utils.SolverProvider;
+import hu.bme.mit.theta.solver.utils.SolverProviders;
+
+public class SolverProvidersTest {
+
+	private static final class StubFactory implements SolverFactory {
+		int created = 0;
+
+		@Override
+		public synchronized Solver createSolver() {
+			created++;
+			return new SolverStub();
+		}
+
+		@Override
+		public ItpSolver createItpSolver() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	private static Solver acquire(final SolverProvider provider) {
+		try (SolverProvider.Handle handle = provider.acquire()) {
+			return handle.get();
+		}
+	}
+
+	@Test
+	public void testFixed() {
+		final Solver solver = new SolverStub();
+		final SolverProvider provider = SolverProviders.of(solver);
+		Assert.assertSame(solver, acquire(provider));
+		Assert.assertSame(solver, acquire(provider));
+	}
+
+	@Test
+	public void testThreadLocal() throws InterruptedException {
+		final StubFactory factory = new StubFactory();
+		final SolverProvider provider = SolverProviders.threadLocal(factory);
+
+		final Solver solver = acquire(provider);
+		Assert.assertSame(solver, acquire(provider));
+
+		final AtomicReference<Solver> other = new AtomicReference<>();
+		final Thread thread = new Thread(() -> other.set(acquire(provider)));
+		thread.start();
+		thread.join();
+
+		Assert.assertNotNull(other.get());
+		Assert.assertNotSame(solver, other.get());
+		Assert.assertEquals(2, factory.created);
+	}
+
+	@Test
+	public void testPooled() {
+		final StubFactory factory = new StubFactory();
+		final SolverPool pool = SolverPool.create(factory, 1);
+		final SolverProvider provider = SolverProviders.pooled(pool);
+
+		try (SolverProvider.Handle handle1 = provider.acquire()) {
+			try (SolverProvider.Handle handle2 = provider.acquire()) {
+				Assert.assertNotSame(handle1.get(), handle2.get());
+			}
+			Assert.assertEquals(1, pool.getStatistics().getInUse());
+		}
+		Assert.assertEquals(0, pool.getStatistics().getInUse());
+
+		acquire(provider);
+		Assert.assertEquals(2, factory.created);
+	}
+
+}
@@ -0,0 +1,28 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+/**
+ * Exception thrown by {@link StsBmcChecker} if the maximal bound is reached
+ * without finding a counterexample or proving the property.
+ */
+public final class BoundExceededException extends RuntimeException {
+	private static final long serialVersionUID = 4182607233962417531L;
+
+	public BoundExceededException(final String message) {
+		super(message);
+	}
+}
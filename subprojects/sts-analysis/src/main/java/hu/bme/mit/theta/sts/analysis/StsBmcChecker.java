@@ -0,0 +1,257 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.abstracttype.AbstractExprs.Eq;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.SmartBoolExprs.And;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.expl.ExplOrd;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.abstracttype.Equational;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.PathUtils;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.utils.WithPushPop;
+import hu.bme.mit.theta.sts.STS;
+
+/**
+ * Bounded model checker for an STS. The transition relation is unfolded
+ * incrementally on a single solver: the initial expression and the
+ * transitions (together with the property for the already checked bounds)
+ * are kept, and the negated property of the current bound is checked in a
+ * separate frame. The counterexample is a trace of explicit states that can
+ * be passed to {@link StsTraceConcretizer}.
+ * <p>
+ * With k-induction enabled, a second solver checks after each bound whether
+ * the property is inductive for the paths of the current length, which
+ * proves that the STS is safe. The paths are restricted to distinct states
+ * (if all variables support equality), so that the induction is complete for
+ * finite state spaces.
+ * <p>
+ * If the maximal bound is reached without result, a
+ * {@link BoundExceededException} is thrown.
+ */
+public final class StsBmcChecker implements SafetyChecker<ExplState, StsAction, UnitPrec> {
+
+	private final STS sts;
+	private final SolverFactory solverFactory;
+	private final int maxBound;
+	private final boolean induction;
+	private final Logger logger;
+
+	private StsBmcChecker(final Builder builder) {
+		this.sts = builder.sts;
+		this.solverFactory = builder.solverFactory;
+		this.maxBound = builder.maxBound;
+		this.induction = builder.induction;
+		this.logger = builder.logger;
+	}
+
+	public static Builder builder(final STS sts, final SolverFactory solverFactory) {
+		return new Builder(sts, solverFactory);
+	}
+
+	@Override
+	public SafetyResult<ExplState, StsAction> check(final UnitPrec prec) {
+		logger.write(Level.INFO, "Configuration: %s%n", this);
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		final StsAction action = new StsAction(sts);
+		final Expr<BoolType> init = sts.getInit();
+		final Expr<BoolType> trans = sts.getTrans();
+		final Expr<BoolType> prop = sts.getProp();
+		final List<VarDecl<?>> vars = ImmutableList.copyOf(sts.getVars());
+
+		final Solver baseSolver = solverFactory.createSolver();
+		final Solver stepSolver = induction ? solverFactory.createSolver() : null;
+		final boolean simplePath = vars.stream().allMatch(v -> v.getType() instanceof Equational);
+		if (induction && !simplePath) {
+			logger.write(Level.INFO, "Paths are not restricted to distinct states, induction may be incomplete%n");
+		}
+
+		long baseTime = 0;
+		long stepTime = 0;
+		baseSolver.add(PathUtils.unfold(init, 0));
+
+		for (int bound = 0; maxBound == 0 || bound <= maxBound; bound++) {
+			checkCancelled(bound);
+			logger.write(Level.MAINSTEP, "Bound %d%n", bound);
+
+			final long baseStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+			try (WithPushPop wpp = new WithPushPop(baseSolver)) {
+				baseSolver.add(PathUtils.unfold(Not(prop), bound));
+				if (baseSolver.check().isSat()) {
+					final Trace<ExplState, StsAction> cex = extractTrace(baseSolver.getModel(), vars, action, bound);
+					baseTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - baseStartTime;
+					logger.write(Level.MAINSTEP, "| Counterexample found at bound %d%n", bound);
+					final StsBmcStatistics stats = new StsBmcStatistics(stopwatch.elapsed(TimeUnit.MILLISECONDS),
+							baseTime, stepTime, bound, induction);
+					return result(SafetyResult.unsafe(cex, createArg(cex), stats), stats);
+				}
+			}
+			baseSolver.add(PathUtils.unfold(prop, bound));
+			baseTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - baseStartTime;
+
+			if (induction) {
+				checkCancelled(bound);
+				final long stepStartTime = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+				// Paths of length (bound + 1) that satisfy the property in all
+				// but their last state
+				stepSolver.add(PathUtils.unfold(prop, bound));
+				stepSolver.add(PathUtils.unfold(trans, bound));
+				if (simplePath) {
+					for (int i = 0; i <= bound; i++) {
+						stepSolver.add(distinct(vars, i, bound + 1));
+					}
+				}
+				final boolean inductive;
+				try (WithPushPop wpp = new WithPushPop(stepSolver)) {
+					stepSolver.add(PathUtils.unfold(Not(prop), bound + 1));
+					inductive = stepSolver.check().isUnsat();
+				}
+				stepTime += stopwatch.elapsed(TimeUnit.MILLISECONDS) - stepStartTime;
+				if (inductive) {
+					logger.write(Level.MAINSTEP, "| Property is %d-inductive%n", bound + 1);
+					final StsBmcStatistics stats = new StsBmcStatistics(stopwatch.elapsed(TimeUnit.MILLISECONDS),
+							baseTime, stepTime, bound, induction);
+					return result(SafetyResult.safe(ARG.create(ExplOrd.getInstance()), stats), stats);
+				}
+			}
+
+			baseSolver.add(PathUtils.unfold(trans, bound));
+		}
+
+		throw new BoundExceededException("No result up to bound " + maxBound);
+	}
+
+	private SafetyResult<ExplState, StsAction> result(final SafetyResult<ExplState, StsAction> result,
+													 final StsBmcStatistics stats) {
+		logger.write(Level.RESULT, "%s%n", result);
+		logger.write(Level.INFO, "%s%n", stats);
+		return result;
+	}
+
+	private static Expr<BoolType> distinct(final Collection<VarDecl<?>> vars, final int i, final int j) {
+		final List<Expr<BoolType>> eqs = new ArrayList<>(vars.size());
+		for (final VarDecl<?> var : vars) {
+			eqs.add(Eq(var.getConstDecl(i).getRef(), var.getConstDecl(j).getRef()));
+		}
+		return Not(And(eqs));
+	}
+
+	private static Trace<ExplState, StsAction> extractTrace(final Valuation model, final Collection<VarDecl<?>> vars,
+															final StsAction action, final int length) {
+		final List<ExplState> states = new ArrayList<>(length + 1);
+		final List<StsAction> actions = new ArrayList<>(length);
+		for (int i = 0; i <= length; i++) {
+			states.add(ExplState.of(PathUtils.extractValuation(model, i, vars)));
+			if (i < length) {
+				actions.add(action);
+			}
+		}
+		return Trace.of(states, actions);
+	}
+
+	private static ARG<ExplState, StsAction> createArg(final Trace<ExplState, StsAction> cex) {
+		// The ARG of the result is the counterexample itself
+		final ARG<ExplState, StsAction> arg = ARG.create(ExplOrd.getInstance());
+		final List<ExplState> states = cex.getStates();
+		ArgNode<ExplState, StsAction> node = arg.createInitNode(states.get(0), states.size() == 1);
+		for (int i = 1; i < states.size(); i++) {
+			node = arg.createSuccNode(node, cex.getAction(i - 1), states.get(i), i == states.size() - 1);
+		}
+		return arg;
+	}
+
+	private static void checkCancelled(final int bound) {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("Bounded model checking cancelled at bound " + bound);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(maxBound).add(induction).toString();
+	}
+
+	public static final class Builder {
+		private final STS sts;
+		private final SolverFactory solverFactory;
+		private int maxBound;
+		private boolean induction;
+		private Logger logger;
+
+		private Builder(final STS sts, final SolverFactory solverFactory) {
+			this.sts = checkNotNull(sts);
+			this.solverFactory = checkNotNull(solverFactory);
+			this.maxBound = 0;
+			this.induction = false;
+			this.logger = NullLogger.getInstance();
+		}
+
+		/**
+		 * Maximal length of the checked paths (0 means unlimited).
+		 */
+		public Builder maxBound(final int maxBound) {
+			checkArgument(maxBound >= 0, "Max. bound must be non-negative");
+			this.maxBound = maxBound;
+			return this;
+		}
+
+		/**
+		 * Try to prove the property by k-induction after each bound.
+		 */
+		public Builder induction(final boolean induction) {
+			this.induction = induction;
+			return this;
+		}
+
+		public Builder logger(final Logger logger) {
+			this.logger = checkNotNull(logger);
+			return this;
+		}
+
+		public StsBmcChecker build() {
+			return new StsBmcChecker(this);
+		}
+	}
+
+}
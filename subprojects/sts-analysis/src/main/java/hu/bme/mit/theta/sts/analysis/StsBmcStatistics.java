@@ -0,0 +1,76 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+/**
+ * Statistics collected by {@link StsBmcChecker}.
+ */
+public final class StsBmcStatistics extends Statistics {
+	private final long algorithmTimeMs;
+	private final long baseTimeMs;
+	private final long stepTimeMs;
+	private final int bound;
+	private final boolean induction;
+
+	StsBmcStatistics(final long algorithmTimeMs, final long baseTimeMs, final long stepTimeMs, final int bound,
+					 final boolean induction) {
+		this.algorithmTimeMs = algorithmTimeMs;
+		this.baseTimeMs = baseTimeMs;
+		this.stepTimeMs = stepTimeMs;
+		this.bound = bound;
+		this.induction = induction;
+
+		addStat("AlgorithmTimeMs", this::getAlgorithmTimeMs);
+		addStat("BaseTimeMs", this::getBaseTimeMs);
+		if (induction) {
+			addStat("StepTimeMs", this::getStepTimeMs);
+		}
+		addStat("Bound", this::getBound);
+	}
+
+	public long getAlgorithmTimeMs() {
+		return algorithmTimeMs;
+	}
+
+	/**
+	 * Gets the time spent on searching for counterexamples.
+	 */
+	public long getBaseTimeMs() {
+		return baseTimeMs;
+	}
+
+	/**
+	 * Gets the time spent on the induction steps.
+	 */
+	public long getStepTimeMs() {
+		return stepTimeMs;
+	}
+
+	/**
+	 * Gets the bound where the result was found, i.e., the length of the
+	 * counterexample or the depth of the induction minus one.
+	 */
+	public int getBound() {
+		return bound;
+	}
+
+	public boolean isInduction() {
+		return induction;
+	}
+
+}
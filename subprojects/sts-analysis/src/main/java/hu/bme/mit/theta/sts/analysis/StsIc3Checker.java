@@ -0,0 +1,521 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.decl.Decls.Const;
+import static hu.bme.mit.theta.core.type.abstracttype.AbstractExprs.Eq;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Imply;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.booltype.SmartBoolExprs.And;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.expl.ExplOrd;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.common.logging.Logger;
+import hu.bme.mit.theta.common.logging.Logger.Level;
+import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.decl.Decl;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.LitExpr;
+import hu.bme.mit.theta.core.type.abstracttype.Equational;
+import hu.bme.mit.theta.core.type.arraytype.ArrayType;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.utils.PathUtils;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.solver.utils.WithPushPop;
+import hu.bme.mit.theta.sts.STS;
+
+/**
+ * IC3 (property directed reachability) for an STS. Frame i over-approximates
+ * the states reachable in at most i steps by a set of clauses (lemmas), each
+ * of which blocks a cube of states. Frame 0 is the initial expression.
+ * Lemmas are stored in the highest frame where they are known to hold, and
+ * each frame has its own solver with the transition relation and the lemmas
+ * of that frame and all higher frames. The transition relation is guarded
+ * by an activation literal, which is only assumed in queries about
+ * predecessors, so bad states without successors (e.g., due to an invariant in
+ * the transition relation) are also found.
+ * <p>
+ * Bad states of the last frame are blocked recursively through proof
+ * obligations. A cube is blocked at frame i if it is inductive relative to
+ * frame i-1. Relative induction is checked with the literals of the primed
+ * cube tracked, so the unsat core gives a smaller cube, which is further
+ * generalized by dropping literals. After blocking, lemmas are propagated
+ * forward, and the property is proven once two consecutive frames become
+ * equal. If an initial state can reach a bad state, the obligations form a
+ * counterexample of explicit states that can be passed to
+ * {@link StsTraceConcretizer}.
+ * <p>
+ * Cubes are conjunctions of variable assignments, so the variables must have
+ * equality and literals (e.g., Boolean, integer and bitvector variables). The
+ * algorithm is guaranteed to terminate only for finite state spaces, such as
+ * hardware models.
+ */
+public final class StsIc3Checker implements SafetyChecker<ExplState, StsAction, UnitPrec> {
+
+	private final STS sts;
+	private final SolverFactory solverFactory;
+	private final boolean generalize;
+	private final Logger logger;
+
+	private StsIc3Checker(final Builder builder) {
+		this.sts = builder.sts;
+		this.solverFactory = builder.solverFactory;
+		this.generalize = builder.generalize;
+		this.logger = builder.logger;
+	}
+
+	public static Builder builder(final STS sts, final SolverFactory solverFactory) {
+		return new Builder(sts, solverFactory);
+	}
+
+	@Override
+	public SafetyResult<ExplState, StsAction> check(final UnitPrec prec) {
+		return new CheckMethod().run();
+	}
+
+	@Override
+	public String toString() {
+		return Utils.lispStringBuilder(getClass().getSimpleName()).add(generalize).toString();
+	}
+
+	private final class CheckMethod {
+		private final Stopwatch stopwatch;
+		private final StsAction action;
+		private final List<VarDecl<?>> vars;
+		private final Expr<BoolType> transAct;
+		private final Solver initSolver;
+		private final List<Frame> frames;
+
+		private long obligations = 0;
+		private long queries = 0;
+		private long propagatedLemmas = 0;
+		private long droppedLiterals = 0;
+		private long nextSeq = 0;
+
+		private CheckMethod() {
+			stopwatch = Stopwatch.createUnstarted();
+			action = new StsAction(sts);
+			vars = ImmutableList.copyOf(sts.getVars());
+			for (final VarDecl<?> var : vars) {
+				if (!(var.getType() instanceof Equational) || var.getType() instanceof ArrayType) {
+					throw new UnsupportedOperationException("Variable " + var.getName() + " of type "
+							+ var.getType() + " is not supported by IC3.");
+				}
+			}
+			transAct = Const("__" + StsIc3Checker.class.getSimpleName() + "_trans", Bool()).getRef();
+			initSolver = solverFactory.createSolver();
+			frames = new ArrayList<>();
+		}
+
+		private SafetyResult<ExplState, StsAction> run() {
+			logger.write(Level.INFO, "Configuration: %s%n", StsIc3Checker.this);
+			stopwatch.start();
+			initSolver.add(PathUtils.unfold(sts.getInit(), 0));
+
+			// Counterexamples of length 0 are not found by the frames
+			try (WithPushPop wpp = new WithPushPop(initSolver)) {
+				initSolver.add(PathUtils.unfold(Not(sts.getProp()), 0));
+				queries++;
+				if (initSolver.check().isSat()) {
+					final Valuation state = PathUtils.extractValuation(initSolver.getModel(), 0, vars);
+					return unsafe(Trace.of(ImmutableList.of(ExplState.of(state)), ImmutableList.of()));
+				}
+			}
+
+			frames.add(new Frame(true));
+			frames.add(new Frame(false));
+
+			while (true) {
+				final int k = frames.size() - 1;
+				logger.write(Level.MAINSTEP, "Frame %d%n", k);
+
+				Optional<Obligation> bad = getBadState(k);
+				while (bad.isPresent()) {
+					final Optional<Trace<ExplState, StsAction>> cex = block(bad.get(), k);
+					if (cex.isPresent()) {
+						logger.write(Level.MAINSTEP, "| Counterexample found in frame %d%n", k);
+						return unsafe(cex.get());
+					}
+					bad = getBadState(k);
+				}
+
+				frames.add(new Frame(false));
+				final Optional<Integer> fixpoint = propagate(k);
+				if (fixpoint.isPresent()) {
+					logger.write(Level.MAINSTEP, "| Frames %d and %d are equal%n", fixpoint.get(),
+							fixpoint.get() + 1);
+					return result(SafetyResult.safe(ARG.create(ExplOrd.getInstance()), getStatistics()));
+				}
+				logger.write(Level.SUBSTEP, "| Lemmas per frame: %s%n", getLemmaCounts());
+			}
+		}
+
+		private Optional<Obligation> getBadState(final int k) {
+			checkCancelled(k);
+			final Solver solver = frames.get(k).solver;
+			try (WithPushPop wpp = new WithPushPop(solver)) {
+				solver.add(PathUtils.unfold(Not(sts.getProp()), 0));
+				queries++;
+				if (solver.check().isSat()) {
+					final Valuation state = PathUtils.extractValuation(solver.getModel(), 0, vars);
+					return Optional.of(new Obligation(state, k, null));
+				} else {
+					return Optional.empty();
+				}
+			}
+		}
+
+		private Optional<Trace<ExplState, StsAction>> block(final Obligation bad, final int k) {
+			final PriorityQueue<Obligation> queue = new PriorityQueue<>(
+					Comparator.comparingInt((Obligation o) -> o.level).thenComparingLong(o -> -o.seq));
+			queue.add(bad);
+			obligations++;
+
+			while (!queue.isEmpty()) {
+				checkCancelled(k);
+				final Obligation obligation = queue.poll();
+
+				if (isBlocked(obligation.cube, obligation.level)) {
+					continue;
+				}
+
+				final Query query = checkRelativeInduction(obligation.cube, obligation.level);
+				if (query.core != null) {
+					final List<Expr<BoolType>> lemma = generalize(query.core, obligation.level);
+					int level = obligation.level;
+					while (level < k && checkRelativeInduction(lemma, level + 1).core != null) {
+						level++;
+					}
+					addLemma(lemma, level);
+					if (level < k) {
+						// The same state might still reach a bad state in more steps
+						queue.add(obligation.withLevel(level + 1));
+					}
+
+				} else {
+					final Obligation pred = new Obligation(query.pred, obligation.level - 1, obligation);
+					final Optional<Valuation> initState = getInitState(pred.cube);
+					if (initState.isPresent()) {
+						return Optional.of(extractTrace(initState.get(), obligation));
+					}
+					queue.add(pred);
+					queue.add(obligation.withLevel(obligation.level));
+					obligations++;
+				}
+			}
+			return Optional.empty();
+		}
+
+		private boolean isBlocked(final List<Expr<BoolType>> cube, final int level) {
+			queries++;
+			return frames.get(level).solver.check(unfold(cube, 0)).isUnsat();
+		}
+
+		/**
+		 * Check whether the negation of a cube is inductive relative to the
+		 * frame below a level, i.e., the cube has no predecessor in that frame
+		 * outside of the cube. If it is, the core contains the literals of the
+		 * cube that are needed for that. Otherwise the predecessor state is
+		 * returned.
+		 */
+		private Query checkRelativeInduction(final List<Expr<BoolType>> cube, final int level) {
+			assert level >= 1;
+			final Solver solver = frames.get(level - 1).solver;
+			queries++;
+			try (WithPushPop wpp = new WithPushPop(solver)) {
+				solver.add(transAct);
+				solver.add(PathUtils.unfold(Not(And(cube)), 0));
+				final Map<Expr<BoolType>, Expr<BoolType>> primedToLit = new HashMap<>();
+				for (final Expr<BoolType> lit : cube) {
+					final Expr<BoolType> primed = PathUtils.unfold(lit, 1);
+					primedToLit.put(primed, lit);
+					solver.track(primed);
+				}
+
+				if (solver.check().isSat()) {
+					final Valuation state = PathUtils.extractValuation(solver.getModel(), 0, vars);
+					return new Query(null, state);
+				}
+
+				final Set<Expr<BoolType>> core = solver.getUnsatCore().stream().map(primedToLit::get)
+						.collect(Collectors.toSet());
+				final List<Expr<BoolType>> reduced = cube.stream().filter(core::contains)
+						.collect(Collectors.toList());
+				// The lemma must not exclude initial states
+				return new Query(reduced.size() < cube.size() && intersectsInit(reduced) ? cube : reduced, null);
+			}
+		}
+
+		private List<Expr<BoolType>> generalize(final List<Expr<BoolType>> cube, final int level) {
+			if (!generalize) {
+				return cube;
+			}
+			List<Expr<BoolType>> result = cube;
+			for (final Expr<BoolType> lit : cube) {
+				if (result.size() == 1) {
+					break;
+				}
+				if (!result.contains(lit)) {
+					continue;
+				}
+				final List<Expr<BoolType>> candidate = new ArrayList<>(result);
+				candidate.remove(lit);
+				if (intersectsInit(candidate)) {
+					continue;
+				}
+				final Query query = checkRelativeInduction(candidate, level);
+				if (query.core != null) {
+					droppedLiterals += result.size() - query.core.size();
+					result = query.core;
+				}
+			}
+			return result;
+		}
+
+		private void addLemma(final List<Expr<BoolType>> cube, final int level) {
+			final Expr<BoolType> clause = PathUtils.unfold(Not(And(cube)), 0);
+			for (int i = 1; i <= level; i++) {
+				frames.get(i).solver.add(clause);
+			}
+			frames.get(level).lemmas.add(cube);
+		}
+
+		/**
+		 * Push the lemmas of each frame forward if they are inductive relative
+		 * to the frame. Returns the first frame that became equal to the next
+		 * one, which is then an inductive invariant.
+		 */
+		private Optional<Integer> propagate(final int k) {
+			for (int i = 1; i <= k; i++) {
+				checkCancelled(k);
+				final Frame frame = frames.get(i);
+				final Frame next = frames.get(i + 1);
+				for (final List<Expr<BoolType>> lemma : new ArrayList<>(frame.lemmas)) {
+					queries++;
+					// The lemma already holds in the frame, only its primed version is needed
+					final List<Expr<BoolType>> assumptions = new ArrayList<>(unfold(lemma, 1));
+					assumptions.add(transAct);
+					if (frame.solver.check(assumptions).isUnsat()) {
+						frame.lemmas.remove(lemma);
+						next.lemmas.add(lemma);
+						next.solver.add(PathUtils.unfold(Not(And(lemma)), 0));
+						propagatedLemmas++;
+					}
+				}
+				if (frame.lemmas.isEmpty()) {
+					return Optional.of(i);
+				}
+			}
+			return Optional.empty();
+		}
+
+		private boolean intersectsInit(final List<Expr<BoolType>> cube) {
+			queries++;
+			return initSolver.check(unfold(cube, 0)).isSat();
+		}
+
+		private Optional<Valuation> getInitState(final List<Expr<BoolType>> cube) {
+			queries++;
+			if (initSolver.check(unfold(cube, 0)).isSat()) {
+				return Optional.of(PathUtils.extractValuation(initSolver.getModel(), 0, vars));
+			} else {
+				return Optional.empty();
+			}
+		}
+
+		private Trace<ExplState, StsAction> extractTrace(final Valuation initState, final Obligation first) {
+			final List<ExplState> states = new ArrayList<>();
+			final List<StsAction> actions = new ArrayList<>();
+			states.add(ExplState.of(initState));
+			for (Obligation obligation = first; obligation != null; obligation = obligation.parent) {
+				actions.add(action);
+				states.add(ExplState.of(obligation.state));
+			}
+			return Trace.of(states, actions);
+		}
+
+		private SafetyResult<ExplState, StsAction> unsafe(final Trace<ExplState, StsAction> cex) {
+			final ARG<ExplState, StsAction> arg = ARG.create(ExplOrd.getInstance());
+			final List<ExplState> states = cex.getStates();
+			ArgNode<ExplState, StsAction> node = arg.createInitNode(states.get(0), states.size() == 1);
+			for (int i = 1; i < states.size(); i++) {
+				node = arg.createSuccNode(node, cex.getAction(i - 1), states.get(i), i == states.size() - 1);
+			}
+			return result(SafetyResult.unsafe(cex, arg, getStatistics()));
+		}
+
+		private SafetyResult<ExplState, StsAction> result(final SafetyResult<ExplState, StsAction> result) {
+			logger.write(Level.RESULT, "%s%n", result);
+			logger.write(Level.INFO, "%s%n", result.getStats().get());
+			return result;
+		}
+
+		private List<Integer> getLemmaCounts() {
+			return frames.stream().map(f -> f.lemmas.size()).collect(Collectors.toList());
+		}
+
+		private StsIc3Statistics getStatistics() {
+			stopwatch.stop();
+			return new StsIc3Statistics(stopwatch.elapsed(TimeUnit.MILLISECONDS), getLemmaCounts(), obligations,
+					queries, propagatedLemmas, droppedLiterals);
+		}
+
+		private final class Frame {
+			private final Solver solver;
+			// Lemmas that hold in this frame but are not known to hold in the next one
+			private final List<List<Expr<BoolType>>> lemmas;
+
+			private Frame(final boolean initial) {
+				solver = solverFactory.createSolver();
+				solver.add(Imply(transAct, PathUtils.unfold(sts.getTrans(), 0)));
+				if (initial) {
+					solver.add(PathUtils.unfold(sts.getInit(), 0));
+				}
+				lemmas = new ArrayList<>();
+			}
+		}
+
+		private final class Obligation {
+			private final Valuation state;
+			private final List<Expr<BoolType>> cube;
+			private final int level;
+			// The obligation whose predecessor this one is
+			private final Obligation parent;
+			private final long seq;
+
+			private Obligation(final Valuation state, final int level, final Obligation parent) {
+				this(state, toCube(state), level, parent);
+			}
+
+			private Obligation(final Valuation state, final List<Expr<BoolType>> cube, final int level,
+							   final Obligation parent) {
+				this.state = state;
+				this.cube = cube;
+				this.level = level;
+				this.parent = parent;
+				this.seq = nextSeq++;
+			}
+
+			private Obligation withLevel(final int level) {
+				return new Obligation(state, cube, level, parent);
+			}
+		}
+	}
+
+	/**
+	 * Result of a relative induction query, either a core or a predecessor.
+	 */
+	private static final class Query {
+		private final List<Expr<BoolType>> core;
+		private final Valuation pred;
+
+		private Query(final List<Expr<BoolType>> core, final Valuation pred) {
+			this.core = core;
+			this.pred = pred;
+		}
+	}
+
+	////
+
+	private static List<Expr<BoolType>> toCube(final Valuation state) {
+		final List<Expr<BoolType>> cube = new ArrayList<>();
+		for (final Decl<?> decl : state.getDecls()) {
+			cube.add(literalOf(decl, state.eval(decl).get()));
+		}
+		return cube;
+	}
+
+	private static Expr<BoolType> literalOf(final Decl<?> decl, final LitExpr<?> value) {
+		if (decl.getType() instanceof BoolType) {
+			@SuppressWarnings("unchecked") final Expr<BoolType> ref = (Expr<BoolType>) decl.getRef();
+			return value.equals(True()) ? ref : Not(ref);
+		} else {
+			return Eq(decl.getRef(), value);
+		}
+	}
+
+	private static Collection<Expr<BoolType>> unfold(final List<Expr<BoolType>> cube, final int i) {
+		return cube.stream().map(lit -> PathUtils.unfold(lit, i)).collect(Collectors.toList());
+	}
+
+	private static void checkCancelled(final int frame) {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new CancellationException("IC3 cancelled in frame " + frame);
+		}
+	}
+
+	public static final class Builder {
+		private final STS sts;
+		private final SolverFactory solverFactory;
+		private boolean generalize;
+		private Logger logger;
+
+		private Builder(final STS sts, final SolverFactory solverFactory) {
+			this.sts = checkNotNull(sts);
+			this.solverFactory = checkNotNull(solverFactory);
+			this.generalize = true;
+			this.logger = NullLogger.getInstance();
+		}
+
+		/**
+		 * Try to drop further literals of the blocked cubes after reducing
+		 * them by unsat cores.
+		 */
+		public Builder generalize(final boolean generalize) {
+			this.generalize = generalize;
+			return this;
+		}
+
+		public Builder logger(final Logger logger) {
+			this.logger = checkNotNull(logger);
+			return this;
+		}
+
+		public StsIc3Checker build() {
+			return new StsIc3Checker(this);
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
+
+/**
+ * Statistics collected by {@link StsIc3Checker}.
+ */
+public final class StsIc3Statistics extends Statistics {
+	private final long algorithmTimeMs;
+	private final List<Integer> lemmasPerFrame;
+	private final long obligations;
+	private final long queries;
+	private final long propagatedLemmas;
+	private final long droppedLiterals;
+
+	StsIc3Statistics(final long algorithmTimeMs, final List<Integer> lemmasPerFrame, final long obligations,
+					 final long queries, final long propagatedLemmas, final long droppedLiterals) {
+		this.algorithmTimeMs = algorithmTimeMs;
+		this.lemmasPerFrame = ImmutableList.copyOf(lemmasPerFrame);
+		this.obligations = obligations;
+		this.queries = queries;
+		this.propagatedLemmas = propagatedLemmas;
+		this.droppedLiterals = droppedLiterals;
+
+		addStat("AlgorithmTimeMs", this::getAlgorithmTimeMs);
+		addStat("Frames", this::getFrames);
+		addStat("Lemmas", this::getLemmas);
+		addStat("LemmasPerFrame", this::getLemmasPerFrame);
+		addStat("Obligations", this::getObligations);
+		addStat("SolverQueries", this::getQueries);
+		addStat("PropagatedLemmas", this::getPropagatedLemmas);
+		addStat("DroppedLiterals", this::getDroppedLiterals);
+	}
+
+	public long getAlgorithmTimeMs() {
+		return algorithmTimeMs;
+	}
+
+	/**
+	 * Gets the number of frames, including the initial one.
+	 */
+	public int getFrames() {
+		return lemmasPerFrame.size();
+	}
+
+	public int getLemmas() {
+		return lemmasPerFrame.stream().mapToInt(Integer::intValue).sum();
+	}
+
+	/**
+	 * Gets the number of lemmas stored at each frame, i.e., the lemmas that
+	 * hold in that frame but are not known to hold in the next one.
+	 */
+	public List<Integer> getLemmasPerFrame() {
+		return lemmasPerFrame;
+	}
+
+	/**
+	 * Gets the number of proof obligations, i.e., bad states and their
+	 * predecessors that had to be blocked.
+	 */
+	public long getObligations() {
+		return obligations;
+	}
+
+	public long getQueries() {
+		return queries;
+	}
+
+	public long getPropagatedLemmas() {
+		return propagatedLemmas;
+	}
+
+	/**
+	 * Gets the number of literals dropped from blocked cubes by
+	 * generalization (after the reduction by unsat cores).
+	 */
+	public long getDroppedLiterals() {
+		return droppedLiterals;
+	}
+
+}
@@ -15,8 +15,13 @@
  */
 package hu.bme.mit.theta.sts.analysis.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.Predicate;
 
 import hu.bme.mit.theta.analysis.Action;
@@ -25,16 +30,21 @@ import hu.bme.mit.theta.analysis.LTS;
 import hu.bme.mit.theta.analysis.Prec;
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators.ArgNodeComparator;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
 import hu.bme.mit.theta.analysis.expl.ExplAnalysis;
 import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.expl.ExplReachedSetIndex;
 import hu.bme.mit.theta.analysis.expl.ExplState;
 import hu.bme.mit.theta.analysis.expl.ExplStatePredicate;
 import hu.bme.mit.theta.analysis.expl.ItpRefToExplPrec;
@@ -46,17 +56,22 @@ import hu.bme.mit.theta.analysis.expr.refinement.*;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters;
 import hu.bme.mit.theta.analysis.pred.ExprSplitters.ExprSplitter;
 import hu.bme.mit.theta.analysis.pred.ItpRefToPredPrec;
+import hu.bme.mit.theta.analysis.pred.PredAbstractionCache;
 import hu.bme.mit.theta.analysis.pred.PredAbstractors;
 import hu.bme.mit.theta.analysis.pred.PredAbstractors.PredAbstractor;
 import hu.bme.mit.theta.analysis.pred.PredAnalysis;
 import hu.bme.mit.theta.analysis.pred.PredPrec;
+import hu.bme.mit.theta.analysis.pred.PredReachedSetIndex;
 import hu.bme.mit.theta.analysis.pred.PredState;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
 import hu.bme.mit.theta.sts.STS;
 import hu.bme.mit.theta.sts.analysis.StsAction;
@@ -121,6 +136,11 @@ public final class StsConfigBuilder {
 	private PredSplit predSplit = PredSplit.WHOLE;
 	private InitPrec initPrec = InitPrec.EMPTY;
 	private PruneStrategy pruneStrategy = PruneStrategy.LAZY;
+	private int threads = 1;
+	private int predCacheSize = 0;
+	private int maxArgSize = 0;
+	private boolean traceCache = false;
+	private boolean incrementalItp = false;
 
 	public StsConfigBuilder(final Domain domain, final Refinement refinement, final SolverFactory solverFactory) {
 		this.domain = domain;
@@ -153,41 +173,93 @@ public final class StsConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Number of threads used for building the ARG and, with MULTI_SEQ
+	 * refinement, for checking the counterexamples. Each additional thread
+	 * uses its own solver.
+	 */
+	public StsConfigBuilder threads(final int threads) {
+		checkArgument(threads > 0, "Number of threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Maximal number of predicate abstraction results cached and reused
+	 * between CEGAR iterations. Zero disables caching.
+	 */
+	public StsConfigBuilder predCacheSize(final int predCacheSize) {
+		checkArgument(predCacheSize >= 0, "Cache size must not be negative");
+		this.predCacheSize = predCacheSize;
+		return this;
+	}
+
+	/**
+	 * Maximal number of ARG nodes, over which the algorithm stops with an
+	 * exception. Zero is unlimited.
+	 */
+	public StsConfigBuilder maxArgSize(final int maxArgSize) {
+		checkArgument(maxArgSize >= 0, "ARG size limit must not be negative");
+		this.maxArgSize = maxArgSize;
+		return this;
+	}
+
+	/**
+	 * Cache the refutations of infeasible counterexamples for interpolation
+	 * based refinements, so that repeated counterexamples (and with sequence
+	 * interpolation, counterexamples with an infeasible prefix) are not
+	 * checked again.
+	 */
+	public StsConfigBuilder traceCache(final boolean traceCache) {
+		this.traceCache = traceCache;
+		return this;
+	}
+
+	/**
+	 * Check counterexamples for sequence interpolation incrementally, keeping
+	 * the solver frames of the common prefix of consecutive counterexamples.
+	 */
+	public StsConfigBuilder incrementalItp(final boolean incrementalItp) {
+		this.incrementalItp = incrementalItp;
+		return this;
+	}
+
 	public StsConfig<? extends State, ? extends Action, ? extends Prec> build(final STS sts) {
 		final ItpSolver solver = solverFactory.createItpSolver();
+		// The incremental checker keeps its assertions, so it cannot share the solver with the abstractor
+		final ItpSolver refinerSolver = incrementalItp ? solverFactory.createItpSolver() : solver;
 		final LTS<State, StsAction> lts = StsLts.create(sts);
 		final Expr<BoolType> init = sts.getInit();
 		final Expr<BoolType> negProp = Not(sts.getProp());
 
 		if (domain == Domain.EXPL) {
-			final Predicate<ExplState> target = new ExplStatePredicate(negProp, solver);
-			final Analysis<ExplState, ExprAction, ExplPrec> analysis = ExplAnalysis.create(solver, init);
-			final ArgBuilder<ExplState, StsAction, ExplPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<ExplState, StsAction, ExplPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex())
-					.logger(logger).build();
-
+			final Function<Solver, ArgBuilder<ExplState, StsAction, ExplPrec>> argBuilderFactory = s -> {
+				final Predicate<ExplState> target = new ExplStatePredicate(negProp, s);
+				final Analysis<ExplState, ExprAction, ExplPrec> analysis = ExplAnalysis.create(s, init);
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final Abstractor<ExplState, StsAction, ExplPrec> abstractor = createAbstractor(argBuilderFactory, solver,
+					() -> ExplReachedSetIndex.create(ArgNode::getState));
+
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
 			Refiner<ExplState, StsAction, ExplPrec> refiner = null;
 
 			switch (refinement) {
 				case FW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(init, negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceFwBinItpChecker.create(init, negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case BW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(init, negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceBwBinItpChecker.create(init, negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case SEQ_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(init, negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(createSeqItpChecker(init, negProp, refinerSolver), true, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case MULTI_SEQ:
-					refiner = MultiExprTraceRefiner.create(ExprTraceSeqItpChecker.create(init, negProp, solver),
-							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
+					refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(init, negProp, s), true, componentStatistics),
+							JoiningPrecRefiner.create(new ItpRefToExplPrec()), componentStatistics);
 					break;
 				case UNSAT_CORE:
 					refiner = SingleExprTraceRefiner.create(ExprTraceUnsatCoreChecker.create(init, negProp, solver),
@@ -199,65 +271,48 @@ public final class StsConfigBuilder {
 			}
 
 			final SafetyChecker<ExplState, StsAction, ExplPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					logger, maxArgSize, componentStatistics);
 			final ExplPrec prec = initPrec.builder.createExpl(sts);
 			return StsConfig.create(checker, prec);
 
 		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT) {
-			PredAbstractor predAbstractor = null;
-			switch (domain) {
-				case PRED_BOOL:
-					predAbstractor = PredAbstractors.booleanAbstractor(solver);
-					break;
-				case PRED_SPLIT:
-					predAbstractor = PredAbstractors.booleanSplitAbstractor(solver);
-					break;
-				case PRED_CART:
-					predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-					break;
-				default:
-					throw new UnsupportedOperationException(domain + " domain is not supported.");
-			}
-			final Predicate<ExprState> target = new ExprStatePredicate(negProp, solver);
-			final Analysis<PredState, ExprAction, PredPrec> analysis = PredAnalysis.create(solver, predAbstractor,
-					init);
-			final ArgBuilder<PredState, StsAction, PredPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<PredState, StsAction, PredPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex())
-					.logger(logger).build();
-
-			ExprTraceChecker<ItpRefutation> exprTraceChecker = null;
-			switch (refinement) {
-				case FW_BIN_ITP:
-					exprTraceChecker = ExprTraceFwBinItpChecker.create(init, negProp, solver);
-					break;
-				case BW_BIN_ITP:
-					exprTraceChecker = ExprTraceBwBinItpChecker.create(init, negProp, solver);
-					break;
-				case SEQ_ITP:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(init, negProp, solver);
-					break;
-				case MULTI_SEQ:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(init, negProp, solver);
-					break;
-				default:
-					throw new UnsupportedOperationException(
-							domain + " domain does not support " + refinement + " refinement.");
-			}
+			final Function<PredAbstractor, PredAbstractor> predCaching = createPredCaching();
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
+			final Function<Solver, ArgBuilder<PredState, StsAction, PredPrec>> argBuilderFactory = s -> {
+				final Predicate<ExprState> target = new ExprStatePredicate(negProp, s);
+				final PredAnalysis analysis = PredAnalysis.create(s, predCaching.apply(createPredAbstractor(s)), init);
+				componentStatistics.add(analysis.getPartialOrd()::getStatistics);
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final Abstractor<PredState, StsAction, PredPrec> abstractor = createAbstractor(argBuilderFactory, solver,
+					() -> PredReachedSetIndex.create(ArgNode::getState));
+
 			Refiner<PredState, StsAction, PredPrec> refiner;
 			if (refinement == Refinement.MULTI_SEQ) {
-				refiner = MultiExprTraceRefiner.create(exprTraceChecker,
-						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), pruneStrategy, logger);
+				refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(init, negProp, s), true, componentStatistics),
+						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), componentStatistics);
 			} else {
+				final ExprTraceChecker<ItpRefutation> exprTraceChecker;
+				switch (refinement) {
+					case FW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceFwBinItpChecker.create(init, negProp, solver), false, componentStatistics);
+						break;
+					case BW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceBwBinItpChecker.create(init, negProp, solver), false, componentStatistics);
+						break;
+					case SEQ_ITP:
+						exprTraceChecker = withTraceCache(createSeqItpChecker(init, negProp, refinerSolver), true, componentStatistics);
+						break;
+					default:
+						throw new UnsupportedOperationException(
+								domain + " domain does not support " + refinement + " refinement.");
+				}
 				refiner = SingleExprTraceRefiner.create(exprTraceChecker,
 						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), pruneStrategy, logger);
 			}
 
 			final SafetyChecker<PredState, StsAction, PredPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					logger, maxArgSize, componentStatistics);
 
 			final PredPrec prec = initPrec.builder.createPred(sts);
 			return StsConfig.create(checker, prec);
@@ -265,4 +320,88 @@ public final class StsConfigBuilder {
 			throw new UnsupportedOperationException(domain + " domain is not supported.");
 		}
 	}
+
+	private PredAbstractor createPredAbstractor(final Solver solver) {
+		switch (domain) {
+			case PRED_BOOL:
+				return PredAbstractors.booleanAbstractor(solver);
+			case PRED_SPLIT:
+				return PredAbstractors.booleanSplitAbstractor(solver);
+			case PRED_CART:
+				return PredAbstractors.cartesianAbstractor(solver);
+			default:
+				throw new UnsupportedOperationException(domain + " domain is not supported.");
+		}
+	}
+
+	private Function<PredAbstractor, PredAbstractor> createPredCaching() {
+		if (predCacheSize == 0) {
+			return Function.identity();
+		} else {
+			// Shared between the abstractors of all threads
+			final PredAbstractionCache cache = PredAbstractionCache.create(predCacheSize);
+			return predAbstractor -> PredAbstractors.cachingAbstractor(predAbstractor, cache);
+		}
+	}
+
+	private <S extends State, A extends Action, P extends Prec> Abstractor<S, A, P> createAbstractor(
+			final Function<Solver, ArgBuilder<S, A, P>> argBuilderFactory, final Solver solver,
+			final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+		final Waitlist<ArgNode<S, A>> waitlist = PriorityWaitlist.create(search.comparator);
+		final StopCriterion<S, A> stopCriterion = refinement == Refinement.MULTI_SEQ
+				? StopCriterions.fullExploration() : StopCriterions.firstCex();
+
+		if (threads == 1) {
+			return BasicAbstractor.builder(argBuilderFactory.apply(solver))
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		} else {
+			// Each thread gets its own solver, the first one is shared with the refiner
+			final List<ArgBuilder<S, A, P>> argBuilders = new ArrayList<>();
+			argBuilders.add(argBuilderFactory.apply(solver));
+			for (int i = 1; i < threads; i++) {
+				argBuilders.add(argBuilderFactory.apply(solverFactory.createSolver()));
+			}
+			return ParallelAbstractor.builder(argBuilders)
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> createSeqItpChecker(final Expr<BoolType> init, final Expr<BoolType> target,
+																final ItpSolver solver) {
+		if (incrementalItp) {
+			return ExprTraceIncrementalSeqItpChecker.create(init, target, solver);
+		} else {
+			return ExprTraceSeqItpChecker.create(init, target, solver);
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> withTraceCache(final ExprTraceChecker<ItpRefutation> checker,
+														   final boolean sequence,
+														   final List<Supplier<? extends Statistics>> componentStatistics) {
+		if (!traceCache) {
+			return checker;
+		}
+		final ExprTraceCachingChecker cache = sequence
+				? ExprTraceCachingChecker.createWithPrefixes(checker)
+				: ExprTraceCachingChecker.create(checker);
+		componentStatistics.add(cache::getStatistics);
+		return cache;
+	}
+
+	private <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> Refiner<S, A, P> createMultiRefiner(
+			final ItpSolver solver, final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory,
+			final PrecRefiner<S, A, P, R> precRefiner, final List<Supplier<? extends Statistics>> componentStatistics) {
+		final MultiExprTraceRefiner<S, A, P, R> refiner;
+		if (threads == 1) {
+			refiner = MultiExprTraceRefiner.create(checkerFactory.apply(solver), precRefiner, pruneStrategy, logger);
+		} else {
+			// Counterexamples are checked on as many threads as the ARG is built
+			refiner = MultiExprTraceRefiner.createParallel(checkerFactory, solverFactory::createItpSolver,
+					threads, precRefiner, pruneStrategy, logger);
+		}
+		componentStatistics.add(refiner::getStatistics);
+		return refiner;
+	}
 }
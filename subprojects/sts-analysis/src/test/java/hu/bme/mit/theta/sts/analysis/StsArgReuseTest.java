@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.anytype.Exprs.Prime;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Iff;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Imply;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.True;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.CegarStatistics;
+import hu.bme.mit.theta.analysis.expl.ExplAnalysis;
+import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.expl.VarsRefToExplPrec;
+import hu.bme.mit.theta.analysis.expr.ExprStatePredicate;
+import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceUnsatCoreChecker;
+import hu.bme.mit.theta.analysis.expr.refinement.JoiningPrecRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.PruneStrategy;
+import hu.bme.mit.theta.analysis.expr.refinement.SingleExprTraceRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.VarsRefutation;
+import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+import hu.bme.mit.theta.sts.STS;
+
+public class StsArgReuseTest {
+
+	@Test
+	public void testLazyPruningReusesNodes() {
+		final VarDecl<IntType> vx = Var("x", Int());
+		final VarDecl<BoolType> vy = Var("y", Bool());
+		final Expr<IntType> x = vx.getRef();
+		final Expr<BoolType> y = vy.getRef();
+
+		// x counts to 5 and y is only reset in the last step, so refinement
+		// only has to prune the end of the counterexample
+		final STS.Builder builder = STS.builder();
+		builder.addInit(Eq(x, Int(0)));
+		builder.addTrans(And(Imply(Lt(x, Int(5)), Eq(Prime(x), Add(x, Int(1)))),
+				Imply(Geq(x, Int(5)), Eq(Prime(x), x))));
+		builder.addTrans(And(Imply(Eq(x, Int(4)), Iff(Prime(y), True())),
+				Imply(Not(Eq(x, Int(4))), Iff(Prime(y), y))));
+		builder.setProp(Not(And(Eq(x, Int(5)), Not(y))));
+		final STS sts = builder.build();
+
+		final Solver solver = Z3SolverFactory.getInstance().createSolver();
+		final ArgBuilder<ExplState, StsAction, ExplPrec> argBuilder = ArgBuilder.create(StsLts.create(sts),
+				ExplAnalysis.create(solver, sts.getInit()), new ExprStatePredicate(Not(sts.getProp()), solver), true);
+		final Abstractor<ExplState, StsAction, ExplPrec> abstractor = BasicAbstractor.builder(argBuilder)
+				.waitlist(PriorityWaitlist.create(ArgNodeComparators.bfs())).build();
+		final SingleExprTraceRefiner<ExplState, StsAction, ExplPrec, VarsRefutation> refiner = SingleExprTraceRefiner
+				.create(ExprTraceUnsatCoreChecker.create(sts.getInit(), Not(sts.getProp()), solver),
+						JoiningPrecRefiner.create(new VarsRefToExplPrec()), PruneStrategy.LAZY, NullLogger.getInstance());
+
+		final SafetyResult<ExplState, StsAction> result = CegarChecker.create(abstractor, refiner)
+				.check(ExplPrec.of(ImmutableList.of(vx)));
+
+		assertTrue(result.isSafe());
+		final CegarStatistics stats = (CegarStatistics) result.getStats().get();
+		final int last = stats.getIterations() - 1;
+		assertEquals(2, stats.getIterations());
+		assertTrue(stats.getReusedNodes().get(last) > 0);
+		assertEquals(result.getArg().size(), stats.getReusedNodes().get(last) + stats.getRebuiltNodes().get(last));
+	}
+
+}
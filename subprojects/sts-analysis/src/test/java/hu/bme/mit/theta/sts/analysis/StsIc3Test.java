@@ -0,0 +1,93 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import hu.bme.mit.theta.analysis.Trace;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.core.model.Valuation;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+import hu.bme.mit.theta.sts.STS;
+import hu.bme.mit.theta.sts.aiger.AigerParser;
+import hu.bme.mit.theta.sts.aiger.AigerToSts;
+import hu.bme.mit.theta.sts.dsl.StsDslManager;
+import hu.bme.mit.theta.sts.dsl.StsSpec;
+
+@RunWith(value = Parameterized.class)
+public class StsIc3Test {
+	@Parameterized.Parameter(value = 0)
+	public String filePath;
+
+	@Parameterized.Parameter(value = 1)
+	public boolean isSafe;
+
+	@Parameterized.Parameters(name = "{index}: {0}, {1}")
+	public static Collection<Object[]> data() {
+		// IC3 only terminates for finite state spaces
+		return Arrays.asList(new Object[][]{
+				{"src/test/resources/hw1_false.aag", false},
+
+				{"src/test/resources/hw2_true.aag", true},
+
+				{"src/test/resources/boolean1.system", false},
+
+				{"src/test/resources/boolean2.system", false},
+
+				{"src/test/resources/deadlock.system", false},
+
+				{"src/test/resources/readerswriters.system", true},
+
+				{"src/test/resources/simple2.system", true},
+
+				{"src/test/resources/simple3.system", false},
+		});
+	}
+
+	@Test
+	public void test() throws IOException {
+		final STS sts;
+		if (filePath.endsWith("aag")) {
+			sts = AigerToSts.createSts(AigerParser.parse(filePath));
+		} else {
+			final StsSpec spec = StsDslManager.createStsSpec(new FileInputStream(filePath));
+			sts = Utils.singleElementOf(spec.getAllSts());
+		}
+
+		final SafetyResult<ExplState, StsAction> result = StsIc3Checker.builder(sts, Z3SolverFactory.getInstance())
+				.build().check(UnitPrec.getInstance());
+		Assert.assertEquals(isSafe, result.isSafe());
+
+		if (result.isUnsafe()) {
+			final Trace<ExplState, StsAction> cex = result.asUnsafe().getTrace();
+			final Trace<Valuation, StsAction> concrTrace = StsTraceConcretizer.concretize(sts,
+					Trace.of(cex.getStates(), cex.getActions()), Z3SolverFactory.getInstance());
+			Assert.assertEquals(cex.length(), concrTrace.length());
+		}
+	}
+
+}
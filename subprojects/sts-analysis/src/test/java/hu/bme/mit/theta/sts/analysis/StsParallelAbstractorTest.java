@@ -0,0 +1,208 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.analysis;
+
+import static hu.bme.mit.theta.analysis.algorithm.ArgUtils.isWellLabeled;
+import static hu.bme.mit.theta.core.decl.Decls.Var;
+import static hu.bme.mit.theta.core.type.anytype.Exprs.Prime;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Imply;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Add;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Eq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Geq;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Int;
+import static hu.bme.mit.theta.core.type.inttype.IntExprs.Lt;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import hu.bme.mit.theta.analysis.LTS;
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
+import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ArgSizeLimitExceededException;
+import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
+import hu.bme.mit.theta.analysis.expl.ExplAnalysis;
+import hu.bme.mit.theta.analysis.expl.ExplPrec;
+import hu.bme.mit.theta.analysis.expl.ExplState;
+import hu.bme.mit.theta.analysis.expl.VarsRefToExplPrec;
+import hu.bme.mit.theta.analysis.expr.ExprStatePredicate;
+import hu.bme.mit.theta.analysis.expr.refinement.ExprTraceUnsatCoreChecker;
+import hu.bme.mit.theta.analysis.expr.refinement.JoiningPrecRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.PruneStrategy;
+import hu.bme.mit.theta.analysis.expr.refinement.SingleExprTraceRefiner;
+import hu.bme.mit.theta.analysis.expr.refinement.VarsRefutation;
+import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.common.logging.NullLogger;
+import hu.bme.mit.theta.core.decl.VarDecl;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.inttype.IntType;
+import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+import hu.bme.mit.theta.sts.STS;
+
+public class StsParallelAbstractorTest {
+
+	private static final int THREADS = 4;
+
+	private STS sts;
+	private ExplPrec fullPrec;
+	private LTS<State, StsAction> lts;
+
+	@Before
+	public void setUp() {
+		final VarDecl<IntType> vx = Var("x", Int());
+		final VarDecl<IntType> vy = Var("y", Int());
+		final Expr<IntType> x = vx.getRef();
+		final Expr<IntType> y = vy.getRef();
+		final int mod = 5;
+
+		final STS.Builder builder = STS.builder();
+		builder.addInit(Eq(x, Int(0)));
+		builder.addInit(Eq(y, Int(0)));
+		builder.addTrans(And(Imply(Lt(x, Int(mod)), Eq(Prime(x), Add(x, Int(1)))),
+				Imply(Geq(x, Int(mod)), Eq(Prime(x), Int(0)))));
+		builder.addTrans(And(Imply(Lt(y, Int(mod)), Eq(Prime(y), Add(y, x))),
+				Imply(Geq(y, Int(mod)), Eq(Prime(y), Int(0)))));
+		builder.setProp(Not(Eq(x, Int(mod + 1))));
+		sts = builder.build();
+
+		fullPrec = ExplPrec.of(sts.getVars());
+		lts = StsLts.create(sts);
+	}
+
+	@Test
+	public void testBatchSizeOneEqualsBasic() {
+		final ARG<ExplState, StsAction> basicArg = exploreFully(BasicAbstractor.builder(createArgBuilder(newSolver()))
+				.waitlist(PriorityWaitlist.create(ArgNodeComparators.bfs()))
+				.stopCriterion(StopCriterions.fullExploration()).build());
+		final ARG<ExplState, StsAction> parallelArg = exploreFully(ParallelAbstractor.builder(createArgBuilders())
+				.waitlist(PriorityWaitlist.create(ArgNodeComparators.bfs()))
+				.stopCriterion(StopCriterions.fullExploration()).batchSize(1).build());
+
+		assertEquals(describe(basicArg), describe(parallelArg));
+	}
+
+	@Test
+	public void testDeterministic() {
+		final List<String> expected = describe(exploreFully(createParallelAbstractor()));
+		for (int i = 0; i < 3; i++) {
+			final ARG<ExplState, StsAction> arg = exploreFully(createParallelAbstractor());
+			assertTrue(arg.isComplete());
+			assertTrue(arg.isSafe());
+			assertEquals(expected, describe(arg));
+		}
+	}
+
+	@Test
+	public void testCegar() {
+		final ItpSolver solver = Z3SolverFactory.getInstance().createItpSolver();
+		final List<ArgBuilder<ExplState, StsAction, ExplPrec>> argBuilders = new ArrayList<>();
+		argBuilders.add(createArgBuilder(solver));
+		for (int i = 1; i < THREADS; i++) {
+			argBuilders.add(createArgBuilder(newSolver()));
+		}
+		final Abstractor<ExplState, StsAction, ExplPrec> abstractor = ParallelAbstractor.builder(argBuilders)
+				.waitlist(PriorityWaitlist.create(ArgNodeComparators.bfs())).build();
+		final SingleExprTraceRefiner<ExplState, StsAction, ExplPrec, VarsRefutation> refiner = SingleExprTraceRefiner
+				.create(ExprTraceUnsatCoreChecker.create(sts.getInit(), Not(sts.getProp()), solver),
+						JoiningPrecRefiner.create(new VarsRefToExplPrec()), PruneStrategy.LAZY, NullLogger.getInstance());
+
+		final SafetyResult<ExplState, StsAction> result = CegarChecker.create(abstractor, refiner)
+				.check(ExplPrec.empty());
+
+		assertTrue(result.isSafe());
+		assertTrue(isWellLabeled(result.getArg(), solver));
+	}
+
+	@Test
+	public void testArgSizeLimit() {
+		final int fullSize = (int) exploreFully(createParallelAbstractor()).size();
+		final int limit = 5;
+		assertTrue(fullSize > limit + THREADS);
+
+		final List<Abstractor<ExplState, StsAction, ExplPrec>> abstractors = new ArrayList<>();
+		abstractors.add(BasicAbstractor.builder(createArgBuilder(newSolver()))
+				.stopCriterion(StopCriterions.fullExploration()).maxArgSize(limit).build());
+		abstractors.add(ParallelAbstractor.builder(createArgBuilders())
+				.stopCriterion(StopCriterions.fullExploration()).maxArgSize(limit).build());
+		for (final Abstractor<ExplState, StsAction, ExplPrec> abstractor : abstractors) {
+			final ARG<ExplState, StsAction> arg = abstractor.createArg();
+			try {
+				abstractor.check(arg, fullPrec);
+				fail();
+			} catch (final ArgSizeLimitExceededException e) {
+				// The exploration is aborted right after the limit is exceeded
+				assertTrue(arg.size() > limit);
+				assertTrue(arg.size() < fullSize);
+			}
+		}
+	}
+
+	private ParallelAbstractor<ExplState, StsAction, ExplPrec> createParallelAbstractor() {
+		return ParallelAbstractor.builder(createArgBuilders())
+				.waitlist(PriorityWaitlist.create(ArgNodeComparators.bfs()))
+				.stopCriterion(StopCriterions.fullExploration()).build();
+	}
+
+	private ARG<ExplState, StsAction> exploreFully(final Abstractor<ExplState, StsAction, ExplPrec> abstractor) {
+		final ARG<ExplState, StsAction> arg = abstractor.createArg();
+		abstractor.check(arg, fullPrec);
+		return arg;
+	}
+
+	private List<ArgBuilder<ExplState, StsAction, ExplPrec>> createArgBuilders() {
+		final List<ArgBuilder<ExplState, StsAction, ExplPrec>> argBuilders = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			argBuilders.add(createArgBuilder(newSolver()));
+		}
+		return argBuilders;
+	}
+
+	private ArgBuilder<ExplState, StsAction, ExplPrec> createArgBuilder(final Solver solver) {
+		return ArgBuilder.create(lts, ExplAnalysis.create(solver, sts.getInit()),
+				new ExprStatePredicate(Not(sts.getProp()), solver), true);
+	}
+
+	private static Solver newSolver() {
+		return Z3SolverFactory.getInstance().createSolver();
+	}
+
+	private static List<String> describe(final ARG<ExplState, StsAction> arg) {
+		return arg.getNodes().sorted(Comparator.comparingInt(ArgNode::getId))
+				.map(n -> n.getId() + ":" + n.getParent().map(ArgNode::getId).orElse(-1) + ":" + n.getState()
+						+ ":" + n.getCoveringNode().map(ArgNode::getId).orElse(-1))
+				.collect(toList());
+	}
+
+}
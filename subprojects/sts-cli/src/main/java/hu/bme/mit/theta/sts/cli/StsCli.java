@@ -16,6 +16,9 @@
 package hu.bme.mit.theta.sts.cli;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -26,9 +29,12 @@ import com.google.common.base.Stopwatch;
 
 import hu.bme.mit.theta.analysis.Trace;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarStatistics;
+import hu.bme.mit.theta.analysis.algorithm.cegar.Portfolio;
 import hu.bme.mit.theta.analysis.expr.ExprState;
 import hu.bme.mit.theta.analysis.expr.refinement.PruneStrategy;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.common.CliUtils;
 import hu.bme.mit.theta.common.Utils;
 import hu.bme.mit.theta.common.logging.ConsoleLogger;
@@ -44,11 +50,16 @@ import hu.bme.mit.theta.solver.*;
 import hu.bme.mit.theta.solver.z3.*;
 import hu.bme.mit.theta.sts.STS;
 import hu.bme.mit.theta.sts.StsUtils;
-import hu.bme.mit.theta.sts.aiger.AigerParser;
+import hu.bme.mit.theta.sts.aiger.Aig;
+import hu.bme.mit.theta.sts.aiger.AigReader;
 import hu.bme.mit.theta.sts.aiger.AigerToSts;
 import hu.bme.mit.theta.sts.aiger.elements.AigerSystem;
+import hu.bme.mit.theta.sts.aiger.utils.AigSimulator;
+import hu.bme.mit.theta.sts.aiger.utils.AigerPreprocessor;
 import hu.bme.mit.theta.sts.aiger.utils.AigerCoi;
 import hu.bme.mit.theta.sts.analysis.StsAction;
+import hu.bme.mit.theta.sts.analysis.StsBmcChecker;
+import hu.bme.mit.theta.sts.analysis.StsIc3Checker;
 import hu.bme.mit.theta.sts.analysis.StsTraceConcretizer;
 import hu.bme.mit.theta.sts.dsl.StsDslManager;
 import hu.bme.mit.theta.sts.dsl.StsSpec;
@@ -61,13 +72,31 @@ import hu.bme.mit.theta.sts.analysis.config.StsConfigBuilder.Refinement;
 import hu.bme.mit.theta.sts.analysis.config.StsConfigBuilder.Search;
 
 /**
- * A command line interface for running a CEGAR configuration on an STS.
+ * A command line interface for running a CEGAR configuration, bounded model
+ * checking, k-induction or IC3 on an STS.
  */
 public class StsCli {
 	private static final String JAR_NAME = "theta-sts-cli.jar";
+	private static final int SIMULATION_BATCHES = 16;
 	private final String[] args;
 	private final TableWriter writer;
 
+	enum Algorithm {
+		CEGAR, BMC, KINDUCTION, IC3
+	}
+
+	@Parameter(names = "--algorithm", description = "Algorithm (the CEGAR options only apply to CEGAR)")
+	Algorithm algorithm = Algorithm.CEGAR;
+
+	@Parameter(names = "--maxbound", description = "Maximal bound for BMC and k-induction (0: unlimited)")
+	Integer maxBound = 0;
+
+	@Parameter(names = "--simulate", description = "Depth of random simulation on AIGER models before checking (0 disables)")
+	Integer simulationDepth = 0;
+
+	@Parameter(names = "--preprocess", description = "Reduce AIGER models by structural hashing, rewriting and SAT sweeping")
+	boolean preprocess = false;
+
 	@Parameter(names = {"--domain"}, description = "Abstract domain")
 	Domain domain = Domain.PRED_CART;
 
@@ -89,6 +118,27 @@ public class StsCli {
 	@Parameter(names = "--prunestrategy", description = "Strategy for pruning the ARG after refinement")
 	PruneStrategy pruneStrategy = PruneStrategy.LAZY;
 
+	@Parameter(names = "--threads", description = "Number of threads for building the ARG")
+	Integer threads = 1;
+
+	@Parameter(names = "--predcache", description = "Number of cached predicate abstraction results (0 disables caching)")
+	Integer predCacheSize = 0;
+
+	@Parameter(names = "--maxargsize", description = "Maximal number of ARG nodes (0: unlimited)")
+	Integer maxArgSize = 0;
+
+	@Parameter(names = "--tracecache", description = "Cache infeasible counterexamples (for interpolation based refinements)")
+	boolean traceCache = false;
+
+	@Parameter(names = "--incrementalitp", description = "Check counterexamples incrementally (for SEQ_ITP and MULTI_SEQ refinements)")
+	boolean incrementalItp = false;
+
+	@Parameter(names = "--portfolio", description = "Run a portfolio of domains, refinements and searches in parallel (overrides --domain, --refinement, --search and --predsplit)")
+	boolean portfolio = false;
+
+	@Parameter(names = "--portfoliotimeout", description = "Time budget of each portfolio member in milliseconds (0: unlimited)")
+	Long portfolioTimeout = 0L;
+
 	@Parameter(names = {"--loglevel"}, description = "Detailedness of logging")
 	Logger.Level logLevel = Level.SUBSTEP;
 
@@ -108,6 +158,7 @@ public class StsCli {
 	boolean versionInfo = false;
 
 	private Logger logger;
+	private Aig aig = null;
 
 	public StsCli(final String[] args) {
 		this.args = args;
@@ -143,8 +194,21 @@ public class StsCli {
 		try {
 			final Stopwatch sw = Stopwatch.createStarted();
 			final STS sts = loadModel();
-			final StsConfig<?, ?, ?> configuration = buildConfiguration(sts);
-			final SafetyResult<?, ?> status = check(configuration);
+			final Optional<AigSimulator.Counterexample> simulatedCex = simulate();
+			final SafetyResult<?, ?> status;
+			if (simulatedCex.isPresent()) {
+				// The BMC run is cheap at a known depth and yields a trace of the STS
+				status = checkBmc(sts, simulatedCex.get().getDepth(), false, logger);
+			} else if (portfolio) {
+				status = checkPortfolio(sts);
+			} else if (algorithm == Algorithm.IC3) {
+				status = checkIc3(sts, logger);
+			} else if (algorithm != Algorithm.CEGAR) {
+				status = checkBmc(sts, maxBound, algorithm == Algorithm.KINDUCTION, logger);
+			} else {
+				final StsConfig<?, ?, ?> configuration = buildConfiguration(sts);
+				status = check(configuration);
+			}
 			sw.stop();
 			printResult(status, sts, sw.elapsed(TimeUnit.MILLISECONDS));
 			if (status.isUnsafe() && cexfile != null) {
@@ -166,14 +230,24 @@ public class StsCli {
 
 	private void printHeader() {
 		Stream.of("Result", "TimeMs", "AlgoTimeMs", "AbsTimeMs", "RefTimeMs", "Iterations",
-				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CexLen", "Vars", "Size").forEach(writer::cell);
+				"ArgSize", "ArgDepth", "ArgMeanBranchFactor", "CachedChecks", "SolverChecks", "CheckedTraces",
+				"SkippedTraces", "TraceCacheHits", "TraceCacheNodes", "CexLen", "Vars", "Size").forEach(writer::cell);
 		writer.newRow();
 	}
 
 	private STS loadModel() throws Exception {
 		try {
-			if (model.endsWith(".aag")) {
-				final AigerSystem aigerSystem = AigerParser.parse(model);
+			if (model.endsWith(".aag") || model.endsWith(".aig")) {
+				aig = AigReader.read(model);
+				if (preprocess) {
+					final AigerPreprocessor.Result result = AigerPreprocessor.builder()
+							.sweep(Z3SolverFactory.getInstance()).build().apply(aig);
+					logger.write(Level.MAINSTEP, "Preprocessing: inputs %d -> %d, latches %d -> %d, and gates %d -> %d%n",
+							result.getInputsBefore(), result.getInputsAfter(), result.getLatchesBefore(),
+							result.getLatchesAfter(), result.getAndsBefore(), result.getAndsAfter());
+					aig = result.getAig();
+				}
+				final AigerSystem aigerSystem = aig.toAigerSystem();
 				AigerCoi.apply(aigerSystem);
 				return AigerToSts.createSts(aigerSystem);
 			} else {
@@ -192,26 +266,113 @@ public class StsCli {
 
 	private StsConfig<?, ?, ?> buildConfiguration(final STS sts) throws Exception {
 		try {
-			return new StsConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
-					.initPrec(initPrec).search(search)
-					.predSplit(predSplit).pruneStrategy(pruneStrategy).logger(logger).build(sts);
+			return buildConfiguration(sts, domain, refinement, search, predSplit, logger);
 		} catch (final Exception ex) {
 			throw new Exception("Could not create configuration: " + ex.getMessage(), ex);
 		}
 	}
 
+	private StsConfig<?, ?, ?> buildConfiguration(final STS sts, final Domain domain, final Refinement refinement,
+												  final Search search, final PredSplit predSplit, final Logger logger) {
+		return new StsConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
+				.initPrec(initPrec).search(search)
+				.predSplit(predSplit).pruneStrategy(pruneStrategy).threads(threads).predCacheSize(predCacheSize)
+				.maxArgSize(maxArgSize).traceCache(traceCache).incrementalItp(incrementalItp).logger(logger).build(sts);
+	}
+
+	private Optional<AigSimulator.Counterexample> simulate() {
+		if (aig == null || simulationDepth == 0) {
+			return Optional.empty();
+		}
+		final Stopwatch sw = Stopwatch.createStarted();
+		final Optional<AigSimulator.Counterexample> cex = AigSimulator.create(aig)
+				.findCounterexample(simulationDepth, SIMULATION_BATCHES);
+		if (cex.isPresent()) {
+			logger.write(Level.MAINSTEP, "Simulation found a counterexample of depth %d in %d ms%n",
+					cex.get().getDepth(), sw.elapsed(TimeUnit.MILLISECONDS));
+		} else {
+			logger.write(Level.MAINSTEP, "Simulation found no counterexample up to depth %d in %d ms%n",
+					simulationDepth, sw.elapsed(TimeUnit.MILLISECONDS));
+		}
+		return cex;
+	}
+
+	private SafetyResult<?, ?> checkBmc(final STS sts, final int bound, final boolean induction,
+										final Logger logger) throws Exception {
+		try {
+			return StsBmcChecker.builder(sts, Z3SolverFactory.getInstance()).maxBound(bound).induction(induction)
+					.logger(logger).build().check(UnitPrec.getInstance());
+		} catch (final Exception ex) {
+			throw new Exception("Error while running algorithm: " + ex.getMessage(), ex);
+		}
+	}
+
+	private SafetyResult<?, ?> checkIc3(final STS sts, final Logger logger) throws Exception {
+		try {
+			return StsIc3Checker.builder(sts, Z3SolverFactory.getInstance()).logger(logger).build()
+					.check(UnitPrec.getInstance());
+		} catch (final Exception ex) {
+			throw new Exception("Error while running algorithm: " + ex.getMessage(), ex);
+		}
+	}
+
+	private SafetyResult<?, ?> checkPortfolio(final STS sts) throws Exception {
+		final List<Portfolio.Member> members = new ArrayList<>();
+		addMember(members, sts, Domain.EXPL, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, sts, Domain.PRED_CART, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, sts, Domain.PRED_BOOL, Refinement.BW_BIN_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, sts, Domain.PRED_CART, Refinement.SEQ_ITP, Search.DFS, PredSplit.CONJUNCTS);
+		// Shallow bugs are usually found faster without abstraction
+		members.add(Portfolio.Member.of(Algorithm.KINDUCTION.name(), () -> StsBmcChecker
+				.builder(sts, Z3SolverFactory.getInstance()).maxBound(maxBound).induction(true).build()
+				.check(UnitPrec.getInstance()), portfolioTimeout));
+		members.add(Portfolio.Member.of(Algorithm.IC3.name(), () -> StsIc3Checker
+				.builder(sts, Z3SolverFactory.getInstance()).build().check(UnitPrec.getInstance()), portfolioTimeout));
+		try {
+			return Portfolio.create(members, logger).check();
+		} catch (final Exception ex) {
+			throw new Exception("Error while running portfolio: " + ex.getMessage(), ex);
+		}
+	}
+
+	private void addMember(final List<Portfolio.Member> members, final STS sts, final Domain domain,
+						   final Refinement refinement, final Search search, final PredSplit predSplit) {
+		final String name = String.join("_", domain.name(), refinement.name(), search.name(), predSplit.name());
+		// Members build their configuration (and thus their solvers) on their own thread
+		members.add(Portfolio.Member.of(name, () -> buildConfiguration(sts, domain, refinement, search, predSplit,
+				NullLogger.getInstance()).check(), portfolioTimeout));
+	}
+
 	private void printResult(final SafetyResult<?, ?> status, final STS sts, final long totalTimeMs) {
-		final CegarStatistics stats = (CegarStatistics) status.getStats().get();
 		if (benchmarkMode) {
 			writer.cell(status.isSafe());
 			writer.cell(totalTimeMs);
-			writer.cell(stats.getAlgorithmTimeMs());
-			writer.cell(stats.getAbstractorTimeMs());
-			writer.cell(stats.getRefinerTimeMs());
-			writer.cell(stats.getIterations());
-			writer.cell(status.getArg().size());
-			writer.cell(status.getArg().getDepth());
-			writer.cell(status.getArg().getMeanBranchingFactor());
+			final Statistics statistics = status.getStats().get();
+			if (statistics instanceof CegarStatistics) {
+				final CegarStatistics stats = (CegarStatistics) statistics;
+				writer.cell(stats.getAlgorithmTimeMs());
+				writer.cell(stats.getAbstractorTimeMs());
+				writer.cell(stats.getRefinerTimeMs());
+				writer.cell(stats.getIterations());
+				writer.cell(status.getArg().size());
+				writer.cell(status.getArg().getDepth());
+				writer.cell(status.getArg().getMeanBranchingFactor());
+				// Only predicate abstraction reports the checks of its partial order
+				writer.cell(getStatOrEmpty(stats, "CachedChecks"));
+				writer.cell(getStatOrEmpty(stats, "SolverChecks"));
+				// Only the multi-trace refiner reports the checked and skipped traces
+				writer.cell(getStatOrEmpty(stats, "CheckedTraces"));
+				writer.cell(getStatOrEmpty(stats, "SkippedTraces"));
+				// Only the trace cache reports its hits and size
+				writer.cell(getStatOrEmpty(stats, "TraceCacheHits"));
+				writer.cell(getStatOrEmpty(stats, "TraceCacheNodes"));
+			} else {
+				// BMC, k-induction and IC3 have no abstraction, refinement and ARG
+				writer.cell(statistics.get("AlgorithmTimeMs"));
+				for (int i = 0; i < 10; i++) {
+					writer.cell("");
+				}
+			}
 			if (status.isUnsafe()) {
 				writer.cell(status.asUnsafe().getTrace().length() + "");
 			} else {
@@ -223,6 +384,10 @@ public class StsCli {
 		}
 	}
 
+	private static Object getStatOrEmpty(final Statistics stats, final String key) {
+		return stats.keySet().contains(key) ? stats.get(key) : "";
+	}
+
 	private void printError(final Throwable ex) {
 		final String message = ex.getMessage() == null ? "" : ex.getMessage();
 		if (benchmarkMode) {
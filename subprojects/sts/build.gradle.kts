@@ -6,4 +6,6 @@ plugins {
 dependencies {
     compile(project(":theta-common"))
     compile(project(":theta-core"))
+    compile(project(":theta-solver"))
+    testImplementation(project(":theta-solver-z3"))
 }
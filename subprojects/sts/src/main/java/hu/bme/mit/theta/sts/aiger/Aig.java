@@ -0,0 +1,303 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import hu.bme.mit.theta.sts.aiger.elements.AigerNode;
+import hu.bme.mit.theta.sts.aiger.elements.AigerSystem;
+import hu.bme.mit.theta.sts.aiger.elements.AigerWire;
+import hu.bme.mit.theta.sts.aiger.elements.AndGate;
+import hu.bme.mit.theta.sts.aiger.elements.FalseConst;
+import hu.bme.mit.theta.sts.aiger.elements.InputVar;
+import hu.bme.mit.theta.sts.aiger.elements.Latch;
+import hu.bme.mit.theta.sts.aiger.elements.OutputVar;
+
+/**
+ * A compact, immutable and-inverter graph with a single bad state literal,
+ * stored in int arrays in the layout of the binary AIGER format. Variable 0
+ * is the constant false, followed by the inputs, the latches and the and
+ * gates. A literal is twice its variable, plus one if it is negated. The and
+ * gates are topologically ordered, i.e., the inputs of a gate are smaller
+ * literals than the gate itself.
+ * <p>
+ * Compared to {@link AigerSystem}, this representation has no objects per
+ * node, so it is suitable for simulation and other passes over large
+ * circuits. It can be converted to an {@link AigerSystem} (and then to an STS)
+ * with {@link #toAigerSystem()}.
+ */
+public final class Aig {
+
+	private final int nInputs;
+	private final int[] latchNexts;
+	private final int[] latchResets;
+	// Two input literals for each and gate
+	private final int[] andInputs;
+	private final int bad;
+
+	private Aig(final int nInputs, final int[] latchNexts, final int[] latchResets, final int[] andInputs,
+				final int bad) {
+		this.nInputs = nInputs;
+		this.latchNexts = latchNexts;
+		this.latchResets = latchResets;
+		this.andInputs = andInputs;
+		this.bad = bad;
+	}
+
+	/**
+	 * Create an AIG. The arrays are copied.
+	 *
+	 * @param nInputs     Number of inputs
+	 * @param latchNexts  Next state literal of each latch
+	 * @param latchResets Initial value of each latch: 0, 1, or the literal of
+	 *                    the latch itself if it is uninitialized
+	 * @param andInputs   Input literals of the and gates, two for each gate
+	 * @param bad         Literal that is true in bad states
+	 * @return AIG
+	 */
+	public static Aig create(final int nInputs, final int[] latchNexts, final int[] latchResets,
+							 final int[] andInputs, final int bad) {
+		checkArgument(nInputs >= 0, "Number of inputs must be non-negative");
+		checkNotNull(latchNexts);
+		checkNotNull(latchResets);
+		checkNotNull(andInputs);
+		checkArgument(latchNexts.length == latchResets.length, "Latch arrays must have the same length");
+		checkArgument(andInputs.length % 2 == 0, "And gates must have two inputs");
+		final Aig aig = new Aig(nInputs, latchNexts.clone(), latchResets.clone(), andInputs.clone(), bad);
+
+		final int maxLit = 2 * aig.getMaxVar() + 1;
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			checkArgument(0 <= latchNexts[i] && latchNexts[i] <= maxLit, "Invalid latch literal");
+			final int reset = latchResets[i];
+			checkArgument(reset == 0 || reset == 1 || reset == 2 * aig.getLatchVar(i), "Invalid latch reset");
+		}
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			final int lhs = 2 * aig.getAndVar(i);
+			checkArgument(0 <= andInputs[2 * i] && andInputs[2 * i] < lhs, "And gates are not topologically ordered");
+			checkArgument(0 <= andInputs[2 * i + 1] && andInputs[2 * i + 1] < lhs,
+					"And gates are not topologically ordered");
+		}
+		checkArgument(0 <= bad && bad <= maxLit, "Invalid bad literal");
+		return aig;
+	}
+
+	/**
+	 * Create an AIG from the object representation. The and gates are
+	 * renumbered in topological order.
+	 *
+	 * @param system AIGER system
+	 * @return AIG
+	 */
+	public static Aig of(final AigerSystem system) {
+		checkNotNull(system);
+		final List<InputVar> inputs = new ArrayList<>();
+		final List<Latch> latches = new ArrayList<>();
+		final List<AndGate> andGates = new ArrayList<>();
+		for (final AigerNode node : system.getNodes()) {
+			if (node instanceof InputVar) {
+				inputs.add((InputVar) node);
+			} else if (node instanceof Latch) {
+				latches.add((Latch) node);
+			} else if (node instanceof AndGate) {
+				andGates.add((AndGate) node);
+			}
+		}
+
+		final Map<AigerNode, Integer> vars = new HashMap<>();
+		for (int i = 0; i < inputs.size(); i++) {
+			vars.put(inputs.get(i), 1 + i);
+		}
+		for (int i = 0; i < latches.size(); i++) {
+			vars.put(latches.get(i), 1 + inputs.size() + i);
+		}
+
+		// Number the gates in topological order with an iterative DFS
+		final int firstAndVar = 1 + inputs.size() + latches.size();
+		final List<AndGate> order = new ArrayList<>(andGates.size());
+		final Deque<AndGate> stack = new ArrayDeque<>();
+		final Set<AndGate> onStack = new HashSet<>();
+		for (final AndGate root : andGates) {
+			if (vars.containsKey(root)) {
+				continue;
+			}
+			stack.push(root);
+			onStack.add(root);
+			while (!stack.isEmpty()) {
+				final AndGate andGate = stack.peek();
+				AndGate pending = null;
+				for (final AigerWire wire : andGate.getInWires()) {
+					final AigerNode source = wire.getSource();
+					if (source instanceof AndGate && !vars.containsKey(source)) {
+						pending = (AndGate) source;
+						break;
+					}
+				}
+				if (pending == null) {
+					stack.pop();
+					onStack.remove(andGate);
+					vars.put(andGate, firstAndVar + order.size());
+					order.add(andGate);
+				} else {
+					checkArgument(!onStack.contains(pending), "Cyclic and gates");
+					stack.push(pending);
+					onStack.add(pending);
+				}
+			}
+		}
+
+		final int[] latchNexts = new int[latches.size()];
+		for (int i = 0; i < latches.size(); i++) {
+			latchNexts[i] = lit(vars, latches.get(i).getInWire());
+		}
+		final int[] andInputs = new int[2 * order.size()];
+		for (int i = 0; i < order.size(); i++) {
+			andInputs[2 * i] = lit(vars, order.get(i).getInWire1());
+			andInputs[2 * i + 1] = lit(vars, order.get(i).getInWire2());
+		}
+		final int bad = lit(vars, system.getOutput().getInWire());
+		return create(inputs.size(), latchNexts, new int[latches.size()], andInputs, bad);
+	}
+
+	private static int lit(final Map<AigerNode, Integer> vars, final AigerWire wire) {
+		final AigerNode source = wire.getSource();
+		final int var;
+		if (source instanceof FalseConst) {
+			var = 0;
+		} else {
+			checkArgument(vars.containsKey(source), "Unknown node: " + source.getName());
+			var = vars.get(source);
+		}
+		return lit(var, !wire.isPonated());
+	}
+
+	public int getNumInputs() {
+		return nInputs;
+	}
+
+	public int getNumLatches() {
+		return latchNexts.length;
+	}
+
+	public int getNumAnds() {
+		return andInputs.length / 2;
+	}
+
+	public int getMaxVar() {
+		return nInputs + getNumLatches() + getNumAnds();
+	}
+
+	public int getInputVar(final int i) {
+		return 1 + i;
+	}
+
+	public int getLatchVar(final int i) {
+		return 1 + nInputs + i;
+	}
+
+	public int getAndVar(final int i) {
+		return 1 + nInputs + getNumLatches() + i;
+	}
+
+	public int getLatchNext(final int i) {
+		return latchNexts[i];
+	}
+
+	public int getLatchReset(final int i) {
+		return latchResets[i];
+	}
+
+	public int getAndInput1(final int i) {
+		return andInputs[2 * i];
+	}
+
+	public int getAndInput2(final int i) {
+		return andInputs[2 * i + 1];
+	}
+
+	public int getBad() {
+		return bad;
+	}
+
+	public static int var(final int lit) {
+		return lit >> 1;
+	}
+
+	public static boolean isNegated(final int lit) {
+		return (lit & 1) == 1;
+	}
+
+	public static int lit(final int var, final boolean negated) {
+		return 2 * var + (negated ? 1 : 0);
+	}
+
+	/**
+	 * Convert to the object representation. Only latches initialized to 0
+	 * are supported there.
+	 */
+	public AigerSystem toAigerSystem() {
+		final AigerNode[] nodes = new AigerNode[getMaxVar() + 1];
+		nodes[0] = new FalseConst();
+		for (int i = 0; i < nInputs; i++) {
+			nodes[getInputVar(i)] = new InputVar(i + 1, getInputVar(i));
+		}
+		for (int i = 0; i < getNumLatches(); i++) {
+			if (latchResets[i] != 0) {
+				throw new UnsupportedOperationException("Only latches initialized to 0 are supported.");
+			}
+			nodes[getLatchVar(i)] = new Latch(i + 1, getLatchVar(i));
+		}
+		for (int i = 0; i < getNumAnds(); i++) {
+			nodes[getAndVar(i)] = new AndGate(i + 1, getAndVar(i));
+		}
+
+		for (int i = 0; i < getNumLatches(); i++) {
+			final Latch latch = (Latch) nodes[getLatchVar(i)];
+			final AigerWire wire = wire(nodes, latchNexts[i], latch);
+			latch.setInWire(wire);
+		}
+		final OutputVar outputVar = new OutputVar(1);
+		outputVar.setInWire(wire(nodes, bad, outputVar));
+		for (int i = 0; i < getNumAnds(); i++) {
+			final AndGate andGate = (AndGate) nodes[getAndVar(i)];
+			andGate.setInWire1(wire(nodes, andInputs[2 * i], andGate));
+			andGate.setInWire2(wire(nodes, andInputs[2 * i + 1], andGate));
+		}
+
+		final List<AigerNode> nodeList = new ArrayList<>(nodes.length);
+		for (final AigerNode node : nodes) {
+			nodeList.add(node);
+		}
+		return new AigerSystem(nodeList, outputVar);
+	}
+
+	private static AigerWire wire(final AigerNode[] nodes, final int lit, final AigerNode target) {
+		final AigerNode source = nodes[var(lit)];
+		final AigerWire wire = new AigerWire(source, target, !isNegated(lit));
+		source.addOutWire(wire);
+		return wire;
+	}
+
+}
@@ -0,0 +1,303 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Integer.parseInt;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for binary (.aig) and textual (.aag) AIGER files, producing
+ * an {@link Aig}. The and gates of binary files are decoded directly from
+ * their delta encoding, without building objects per node. Textual files are
+ * renumbered to the binary layout. The system must have a single property,
+ * either an output or a bad state literal (AIGER 1.9). Invariant constraints,
+ * justice and fairness properties are not supported. Symbols and comments
+ * are ignored.
+ */
+public final class AigReader {
+
+	private final InputStream in;
+
+	private AigReader(final InputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Read a binary or textual AIGER file, based on its header.
+	 *
+	 * @param fileName Path of the AIGER file
+	 * @return AIG
+	 * @throws IOException
+	 */
+	public static Aig read(final String fileName) throws IOException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Read a binary or textual AIGER system from a stream, based on its
+	 * header. The stream is not closed.
+	 */
+	public static Aig read(final InputStream in) throws IOException {
+		return new AigReader(checkNotNull(in)).read();
+	}
+
+	private Aig read() throws IOException {
+		final String[] header = readTokens();
+		if (header.length < 6 || !(header[0].equals("aig") || header[0].equals("aag"))) {
+			throw new IOException("Invalid AIGER header");
+		}
+		final boolean binary = header[0].equals("aig");
+		final int maxVar = parseInt(header[1]);
+		final int nInputs = parseInt(header[2]);
+		final int nLatches = parseInt(header[3]);
+		final int nOutputs = parseInt(header[4]);
+		final int nAnds = parseInt(header[5]);
+		final int nBads = header.length > 6 ? parseInt(header[6]) : 0;
+		for (int i = 7; i < header.length; i++) {
+			if (parseInt(header[i]) != 0) {
+				throw new UnsupportedOperationException("Constraints, justice and fairness are not supported.");
+			}
+		}
+		if (nOutputs + nBads != 1) {
+			throw new UnsupportedOperationException("Only a single output or bad state literal is supported.");
+		}
+
+		return binary ? readBinary(maxVar, nInputs, nLatches, nAnds)
+				: readAscii(maxVar, nInputs, nLatches, nAnds);
+	}
+
+	private Aig readBinary(final int maxVar, final int nInputs, final int nLatches, final int nAnds)
+			throws IOException {
+		if (maxVar != nInputs + nLatches + nAnds) {
+			throw new IOException("Invalid header in binary AIGER file");
+		}
+
+		final int[] latchNexts = new int[nLatches];
+		final int[] latchResets = new int[nLatches];
+		for (int i = 0; i < nLatches; i++) {
+			final String[] tokens = readTokens();
+			latchNexts[i] = parseInt(tokens[0]);
+			latchResets[i] = tokens.length > 1 ? parseInt(tokens[1]) : 0;
+		}
+
+		// The property is either the output or the bad state literal
+		final int bad = readInt();
+
+		final int[] andInputs = new int[2 * nAnds];
+		for (int i = 0; i < nAnds; i++) {
+			final int lhs = 2 * (nInputs + nLatches + 1 + i);
+			final int rhs0 = lhs - readDelta();
+			final int rhs1 = rhs0 - readDelta();
+			andInputs[2 * i] = rhs0;
+			andInputs[2 * i + 1] = rhs1;
+		}
+
+		return create(nInputs, latchNexts, latchResets, andInputs, bad);
+	}
+
+	private Aig readAscii(final int maxVar, final int nInputs, final int nLatches, final int nAnds)
+			throws IOException {
+		// Maps variables of the file to variables in the binary layout
+		final int[] varMap = new int[maxVar + 1];
+		Arrays.fill(varMap, -1);
+		varMap[0] = 0;
+
+		for (int i = 0; i < nInputs; i++) {
+			define(varMap, readInt(), 1 + i);
+		}
+
+		final int[] latchLits = new int[nLatches];
+		final int[] latchNexts = new int[nLatches];
+		final int[] latchResets = new int[nLatches];
+		for (int i = 0; i < nLatches; i++) {
+			final String[] tokens = readTokens();
+			if (tokens.length < 2) {
+				throw new IOException("Invalid latch: " + String.join(" ", tokens));
+			}
+			latchLits[i] = parseInt(tokens[0]);
+			latchNexts[i] = parseInt(tokens[1]);
+			latchResets[i] = tokens.length > 2 ? parseInt(tokens[2]) : 0;
+			define(varMap, latchLits[i], 1 + nInputs + i);
+		}
+
+		final int bad = readInt();
+
+		// Gates of the file, indexed by their variable
+		final int[] gateOf = new int[maxVar + 1];
+		Arrays.fill(gateOf, -1);
+		final int[] gateInputs = new int[2 * nAnds];
+		final int[] gateLhs = new int[nAnds];
+		for (int i = 0; i < nAnds; i++) {
+			final String[] tokens = readTokens();
+			if (tokens.length < 3) {
+				throw new IOException("Invalid and gate: " + String.join(" ", tokens));
+			}
+			gateLhs[i] = parseInt(tokens[0]);
+			gateInputs[2 * i] = parseInt(tokens[1]);
+			gateInputs[2 * i + 1] = parseInt(tokens[2]);
+			checkLit(gateLhs[i], maxVar);
+			if ((gateLhs[i] & 1) != 0 || varMap[gateLhs[i] >> 1] != -1 || gateOf[gateLhs[i] >> 1] != -1) {
+				throw new IOException("Invalid and gate: " + gateLhs[i]);
+			}
+			gateOf[gateLhs[i] >> 1] = i;
+		}
+
+		// Number the gates in topological order with an iterative DFS
+		final int[] order = new int[nAnds];
+		int nOrdered = 0;
+		final int[] stack = new int[nAnds];
+		final boolean[] onStack = new boolean[nAnds];
+		for (int root = 0; root < nAnds; root++) {
+			if (varMap[gateLhs[root] >> 1] != -1) {
+				continue;
+			}
+			int top = 0;
+			stack[top++] = root;
+			onStack[root] = true;
+			while (top > 0) {
+				final int gate = stack[top - 1];
+				int pending = -1;
+				for (int j = 0; j < 2 && pending == -1; j++) {
+					final int lit = gateInputs[2 * gate + j];
+					checkLit(lit, maxVar);
+					final int var = lit >> 1;
+					if (varMap[var] == -1) {
+						pending = gateOf[var];
+						if (pending == -1) {
+							throw new IOException("Undefined literal: " + lit);
+						} else if (onStack[pending]) {
+							throw new IOException("Cyclic and gates at literal: " + lit);
+						}
+					}
+				}
+				if (pending == -1) {
+					top--;
+					onStack[gate] = false;
+					varMap[gateLhs[gate] >> 1] = 1 + nInputs + nLatches + nOrdered;
+					order[nOrdered++] = gate;
+				} else {
+					stack[top++] = pending;
+					onStack[pending] = true;
+				}
+			}
+		}
+
+		// The larger input comes first, as in binary files
+		final int[] andInputs = new int[2 * nAnds];
+		for (int i = 0; i < nAnds; i++) {
+			final int gate = order[i];
+			final int rhs0 = mapLit(varMap, gateInputs[2 * gate], maxVar);
+			final int rhs1 = mapLit(varMap, gateInputs[2 * gate + 1], maxVar);
+			andInputs[2 * i] = Math.max(rhs0, rhs1);
+			andInputs[2 * i + 1] = Math.min(rhs0, rhs1);
+		}
+		for (int i = 0; i < nLatches; i++) {
+			latchNexts[i] = mapLit(varMap, latchNexts[i], maxVar);
+			if (latchResets[i] == latchLits[i]) {
+				latchResets[i] = 2 * (1 + nInputs + i);
+			} else if (latchResets[i] != 0 && latchResets[i] != 1) {
+				throw new IOException("Invalid latch reset: " + latchResets[i]);
+			}
+		}
+
+		return create(nInputs, latchNexts, latchResets, andInputs, mapLit(varMap, bad, maxVar));
+	}
+
+	private static void define(final int[] varMap, final int lit, final int var) throws IOException {
+		checkLit(lit, varMap.length - 1);
+		if ((lit & 1) != 0 || lit == 0 || varMap[lit >> 1] != -1) {
+			throw new IOException("Invalid definition of literal: " + lit);
+		}
+		varMap[lit >> 1] = var;
+	}
+
+	private static int mapLit(final int[] varMap, final int lit, final int maxVar) throws IOException {
+		checkLit(lit, maxVar);
+		final int var = varMap[lit >> 1];
+		if (var == -1) {
+			throw new IOException("Undefined literal: " + lit);
+		}
+		return 2 * var + (lit & 1);
+	}
+
+	private static void checkLit(final int lit, final int maxVar) throws IOException {
+		if (lit < 0 || (lit >> 1) > maxVar) {
+			throw new IOException("Literal out of range: " + lit);
+		}
+	}
+
+	private static Aig create(final int nInputs, final int[] latchNexts, final int[] latchResets,
+							  final int[] andInputs, final int bad) throws IOException {
+		try {
+			return Aig.create(nInputs, latchNexts, latchResets, andInputs, bad);
+		} catch (final IllegalArgumentException e) {
+			throw new IOException("Invalid AIGER system: " + e.getMessage(), e);
+		}
+	}
+
+	// Tokens may be separated by any whitespace, as written by other tools
+	private String[] readTokens() throws IOException {
+		return readLine().trim().split("\\s+");
+	}
+
+	private int readInt() throws IOException {
+		return parseInt(readLine().trim());
+	}
+
+	private String readLine() throws IOException {
+		final StringBuilder sb = new StringBuilder();
+		int c = in.read();
+		if (c == -1) {
+			throw new EOFException("Unexpected end of AIGER file");
+		}
+		while (c != '\n' && c != -1) {
+			if (c != '\r') {
+				sb.append((char) c);
+			}
+			c = in.read();
+		}
+		return sb.toString();
+	}
+
+	private int readDelta() throws IOException {
+		// Unsigned LEB128: 7 bits per byte, the highest bit marks continuation
+		int result = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.read();
+			if (b == -1) {
+				throw new EOFException("Unexpected end of and gates");
+			}
+			if (shift > 28) {
+				throw new IOException("Delta too large");
+			}
+			result |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return result;
+	}
+
+}
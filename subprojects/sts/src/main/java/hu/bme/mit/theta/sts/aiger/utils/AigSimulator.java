@@ -0,0 +1,278 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import hu.bme.mit.theta.sts.aiger.Aig;
+
+/**
+ * Bit-parallel random simulation of an {@link Aig}. Each variable is
+ * represented by a 64-bit word, whose bits are the values of the variable in
+ * 64 independent simulation runs, so a single pass over the and gates
+ * simulates 64 runs. Inputs and uninitialized latches get random values.
+ * <p>
+ * Simulation can find shallow counterexamples cheaply, before handing the
+ * system to a complete (e.g., SAT-based) checker, and it can filter out
+ * candidate equivalences and invariants that are violated in some reachable
+ * state (see {@link AigerPreprocessor}).
+ */
+public final class AigSimulator {
+
+	private final Aig aig;
+	private final Random random;
+	// Values of the variables in the current step
+	private final long[] values;
+	private final long[] nextLatches;
+
+	private AigSimulator(final Aig aig, final long seed) {
+		this.aig = checkNotNull(aig);
+		this.random = new Random(seed);
+		this.values = new long[aig.getMaxVar() + 1];
+		this.nextLatches = new long[aig.getNumLatches()];
+	}
+
+	public static AigSimulator create(final Aig aig) {
+		return new AigSimulator(aig, 0);
+	}
+
+	public static AigSimulator create(final Aig aig, final long seed) {
+		return new AigSimulator(aig, seed);
+	}
+
+	/**
+	 * Simulate batches of 64 runs up to a given depth and return the first
+	 * (shortest within its batch) run reaching a bad state.
+	 *
+	 * @param maxDepth Maximal number of transitions in a run
+	 * @param batches  Number of batches of 64 runs
+	 * @return Counterexample, if found
+	 */
+	public Optional<Counterexample> findCounterexample(final int maxDepth, final int batches) {
+		checkArgument(maxDepth >= 0, "Depth must be non-negative");
+		checkArgument(batches >= 0, "Number of batches must be non-negative");
+		final int nInputs = aig.getNumInputs();
+		final long[][] inputs = new long[maxDepth + 1][];
+
+		for (int batch = 0; batch < batches; batch++) {
+			final long[] initLatches = reset();
+			for (int depth = 0; depth <= maxDepth; depth++) {
+				inputs[depth] = randomInputs();
+				evalAnds();
+				final long bad = lit(aig.getBad());
+				if (bad != 0) {
+					final int lane = Long.numberOfTrailingZeros(bad);
+					final boolean[] init = new boolean[aig.getNumLatches()];
+					for (int i = 0; i < init.length; i++) {
+						init[i] = bit(initLatches[i], lane);
+					}
+					final boolean[][] steps = new boolean[depth + 1][nInputs];
+					for (int step = 0; step <= depth; step++) {
+						for (int i = 0; i < nInputs; i++) {
+							steps[step][i] = bit(inputs[step][i], lane);
+						}
+					}
+					return Optional.of(new Counterexample(init, steps));
+				}
+				step();
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Filter candidate invariants by simulation. A candidate is kept if it
+	 * holds in every simulated state.
+	 *
+	 * @param candidates Literals of the candidates
+	 * @param depth      Number of transitions in a run
+	 * @param batches    Number of batches of 64 runs
+	 * @return Literals of the candidates that were not violated
+	 */
+	public int[] filterInvariants(final int[] candidates, final int depth, final int batches) {
+		checkNotNull(candidates);
+		checkArgument(depth >= 0, "Depth must be non-negative");
+		checkArgument(batches >= 0, "Number of batches must be non-negative");
+		final int maxLit = 2 * aig.getMaxVar() + 1;
+		for (final int candidate : candidates) {
+			checkArgument(0 <= candidate && candidate <= maxLit, "Invalid literal");
+		}
+		final boolean[] violated = new boolean[candidates.length];
+		int nViolated = 0;
+
+		for (int batch = 0; batch < batches && nViolated < candidates.length; batch++) {
+			reset();
+			for (int step = 0; step <= depth && nViolated < candidates.length; step++) {
+				randomInputs();
+				evalAnds();
+				for (int i = 0; i < candidates.length; i++) {
+					if (!violated[i] && lit(candidates[i]) != -1L) {
+						violated[i] = true;
+						nViolated++;
+					}
+				}
+				step();
+			}
+		}
+
+		final int[] result = new int[candidates.length - nViolated];
+		int n = 0;
+		for (int i = 0; i < candidates.length; i++) {
+			if (!violated[i]) {
+				result[n++] = candidates[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Group the variables by their simulated values to get candidate
+	 * equivalences. Two variables are candidates if they have the same (or
+	 * complementary) values in every simulated state. Candidates are not
+	 * necessarily equivalent, as simulation does not cover all states, but
+	 * other variables are surely not equivalent in reachable states.
+	 *
+	 * @param depth   Number of transitions in a run
+	 * @param batches Number of batches of 64 runs
+	 * @return For each variable, the literal of the smallest variable that
+	 * is a candidate for being equivalent to it (possibly itself)
+	 */
+	public int[] equivalenceCandidates(final int depth, final int batches) {
+		checkArgument(depth >= 0, "Depth must be non-negative");
+		checkArgument(batches >= 0, "Number of batches must be non-negative");
+		final int nVars = values.length;
+		final long[] signatures = new long[nVars];
+		// The phase of a variable is its value in the first run of the first
+		// state, so that complementary variables get the same signature
+		final boolean[] phases = new boolean[nVars];
+
+		for (int batch = 0; batch < batches; batch++) {
+			reset();
+			for (int step = 0; step <= depth; step++) {
+				randomInputs();
+				evalAnds();
+				if (batch == 0 && step == 0) {
+					for (int v = 0; v < nVars; v++) {
+						phases[v] = (values[v] & 1L) != 0;
+					}
+				}
+				for (int v = 0; v < nVars; v++) {
+					final long value = phases[v] ? ~values[v] : values[v];
+					signatures[v] = signatures[v] * 0x9E3779B97F4A7C15L + value;
+				}
+				step();
+			}
+		}
+
+		final int[] candidates = new int[nVars];
+		final Map<Long, Integer> representatives = new HashMap<>();
+		for (int v = 0; v < nVars; v++) {
+			final Integer rep = representatives.putIfAbsent(signatures[v], v);
+			if (rep == null) {
+				candidates[v] = Aig.lit(v, false);
+			} else {
+				candidates[v] = Aig.lit(rep, phases[v] != phases[rep]);
+			}
+		}
+		return candidates;
+	}
+
+	private long[] reset() {
+		Arrays.fill(values, 0);
+		final long[] init = new long[aig.getNumLatches()];
+		for (int i = 0; i < init.length; i++) {
+			final int reset = aig.getLatchReset(i);
+			init[i] = reset == 0 ? 0 : reset == 1 ? -1L : random.nextLong();
+			values[aig.getLatchVar(i)] = init[i];
+		}
+		return init;
+	}
+
+	private long[] randomInputs() {
+		final long[] inputs = new long[aig.getNumInputs()];
+		for (int i = 0; i < inputs.length; i++) {
+			inputs[i] = random.nextLong();
+			values[aig.getInputVar(i)] = inputs[i];
+		}
+		return inputs;
+	}
+
+	private void evalAnds() {
+		for (int i = 0, n = aig.getNumAnds(); i < n; i++) {
+			values[aig.getAndVar(i)] = lit(aig.getAndInput1(i)) & lit(aig.getAndInput2(i));
+		}
+	}
+
+	private void step() {
+		for (int i = 0; i < nextLatches.length; i++) {
+			nextLatches[i] = lit(aig.getLatchNext(i));
+		}
+		for (int i = 0; i < nextLatches.length; i++) {
+			values[aig.getLatchVar(i)] = nextLatches[i];
+		}
+	}
+
+	private long lit(final int lit) {
+		// Negation flips all 64 bits
+		return values[lit >> 1] ^ -(long) (lit & 1);
+	}
+
+	private static boolean bit(final long word, final int lane) {
+		return ((word >>> lane) & 1L) != 0;
+	}
+
+	/**
+	 * A simulated run reaching a bad state.
+	 */
+	public static final class Counterexample {
+		private final boolean[] initLatches;
+		private final boolean[][] inputs;
+
+		private Counterexample(final boolean[] initLatches, final boolean[][] inputs) {
+			this.initLatches = initLatches;
+			this.inputs = inputs;
+		}
+
+		/**
+		 * Gets the number of transitions before reaching the bad state.
+		 */
+		public int getDepth() {
+			return inputs.length - 1;
+		}
+
+		/**
+		 * Gets the initial value of a latch.
+		 */
+		public boolean getInitLatch(final int latch) {
+			return initLatches[latch];
+		}
+
+		/**
+		 * Gets the value of an input in a given step.
+		 */
+		public boolean getInput(final int step, final int input) {
+			return inputs[step][input];
+		}
+	}
+
+}
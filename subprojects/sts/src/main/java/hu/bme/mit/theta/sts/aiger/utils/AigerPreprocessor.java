@@ -0,0 +1,660 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger.utils;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.And;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Bool;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Iff;
+import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+
+import hu.bme.mit.theta.common.Utils;
+import hu.bme.mit.theta.core.decl.ConstDecl;
+import hu.bme.mit.theta.core.decl.Decls;
+import hu.bme.mit.theta.core.type.Expr;
+import hu.bme.mit.theta.core.type.booltype.BoolType;
+import hu.bme.mit.theta.solver.Solver;
+import hu.bme.mit.theta.solver.SolverFactory;
+import hu.bme.mit.theta.sts.aiger.Aig;
+import hu.bme.mit.theta.sts.aiger.elements.AigerSystem;
+
+/**
+ * Preprocessing pipeline for AIGER systems, reducing the number of nodes and
+ * latches before the translation to an STS. The passes are the following.
+ * <ul>
+ * <li>Structural hashing: and gates with the same inputs are merged, and
+ * trivial gates (with constant, equal or complementary inputs) are
+ * eliminated. This is applied each time the AIG is rebuilt.</li>
+ * <li>SAT sweeping: candidate equivalences are obtained by random
+ * simulation, and they are proved with a solver. The proof is combinational
+ * (it holds for any values of the latches and inputs), so it is sound in
+ * every state. Proved equivalent gates are merged.</li>
+ * <li>Rewriting: trees of and gates (where inner gates have a single,
+ * non-negated fanout) are collapsed to multi-input conjunctions, simplified,
+ * and rebuilt as balanced trees with structural hashing.</li>
+ * <li>Constant latches: latches that keep their constant initial value in
+ * every simulated state are candidates, and they are proved by induction
+ * with a solver (each candidate must hold in the next state if all of them
+ * hold in the current one, otherwise it is dropped until a fixpoint). Proved
+ * latches are replaced by constants. This is only done with SAT sweeping
+ * enabled.</li>
+ * <li>Latch merging: latches with the same next state function and the
+ * same initial value are merged, and latches that always keep their initial
+ * value are replaced by constants.</li>
+ * <li>Cone-of-influence reduction: gates, latches and inputs not affecting
+ * the property are removed.</li>
+ * </ul>
+ */
+public final class AigerPreprocessor {
+
+	private final boolean rewrite;
+	private final SolverFactory sweepSolverFactory;
+	private final int simulationDepth;
+	private final int simulationBatches;
+
+	private AigerPreprocessor(final Builder builder) {
+		this.rewrite = builder.rewrite;
+		this.sweepSolverFactory = builder.sweepSolverFactory;
+		this.simulationDepth = builder.simulationDepth;
+		this.simulationBatches = builder.simulationBatches;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Preprocess an AIGER system. The parameter is not modified, the result
+	 * can be converted back with {@link Aig#toAigerSystem()}.
+	 */
+	public Result apply(final AigerSystem system) {
+		return apply(Aig.of(system));
+	}
+
+	/**
+	 * Preprocess an AIG.
+	 */
+	public Result apply(final Aig aig) {
+		checkNotNull(aig);
+		Aig current = rebuild(aig, noSubstitution(aig));
+		int mergedNodes = 0;
+		int satChecks = 0;
+		if (sweepSolverFactory != null && current.getNumAnds() > 0) {
+			final int[] substitution = noSubstitution(current);
+			satChecks = sweep(current, substitution);
+			for (final int lit : substitution) {
+				if (lit != -1) {
+					mergedNodes++;
+				}
+			}
+			current = rebuild(current, substitution);
+		}
+		// Balancing after sweeping, as it can break up equivalent subgraphs
+		if (rewrite) {
+			current = rebuild(rewrite(current), noSubstitution(current));
+		}
+		int mergedLatches = 0;
+		if (sweepSolverFactory != null && current.getNumLatches() > 0) {
+			final int[] substitution = noSubstitution(current);
+			satChecks += findConstantLatches(current, substitution);
+			for (final int lit : substitution) {
+				if (lit != -1) {
+					mergedLatches++;
+				}
+			}
+			current = rebuild(current, substitution);
+		}
+		// Merging latches can make further latches equivalent
+		while (true) {
+			final int[] substitution = noSubstitution(current);
+			final int merged = mergeLatches(current, substitution);
+			if (merged == 0) {
+				break;
+			}
+			mergedLatches += merged;
+			current = rebuild(current, substitution);
+		}
+		return new Result(aig, current, mergedNodes, mergedLatches, satChecks);
+	}
+
+	private static int[] noSubstitution(final Aig aig) {
+		final int[] substitution = new int[aig.getMaxVar() + 1];
+		Arrays.fill(substitution, -1);
+		return substitution;
+	}
+
+	////
+
+	/**
+	 * Rebuild an AIG with structural hashing, substituting variables and
+	 * removing everything outside the cone of influence of the property.
+	 *
+	 * @param aig          AIG
+	 * @param substitution For each variable, a literal of a smaller variable
+	 *                     to replace it with, or -1 to keep it
+	 */
+	private static Aig rebuild(final Aig aig, final int[] substitution) {
+		final int nVars = aig.getMaxVar() + 1;
+		final int firstLatchVar = aig.getLatchVar(0);
+		final int firstAndVar = aig.getAndVar(0);
+
+		// Cone of influence
+		final boolean[] reached = new boolean[nVars];
+		final Deque<Integer> queue = new ArrayDeque<>();
+		queue.add(Aig.var(aig.getBad()));
+		while (!queue.isEmpty()) {
+			final int var = queue.remove();
+			if (reached[var]) {
+				continue;
+			}
+			reached[var] = true;
+			if (substitution[var] != -1) {
+				queue.add(Aig.var(substitution[var]));
+			} else if (var >= firstAndVar) {
+				queue.add(Aig.var(aig.getAndInput1(var - firstAndVar)));
+				queue.add(Aig.var(aig.getAndInput2(var - firstAndVar)));
+			} else if (var >= firstLatchVar) {
+				queue.add(Aig.var(aig.getLatchNext(var - firstLatchVar)));
+			}
+		}
+
+		final int[] map = new int[nVars];
+		int nInputs = 0;
+		for (int i = 0; i < aig.getNumInputs(); i++) {
+			if (reached[aig.getInputVar(i)]) {
+				map[aig.getInputVar(i)] = Aig.lit(1 + nInputs++, false);
+			}
+		}
+		final List<Integer> latches = new ArrayList<>();
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			final int var = aig.getLatchVar(i);
+			if (reached[var] && substitution[var] == -1) {
+				map[var] = Aig.lit(1 + nInputs + latches.size(), false);
+				latches.add(i);
+			}
+		}
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			final int var = aig.getLatchVar(i);
+			if (reached[var] && substitution[var] != -1) {
+				map[var] = mapLit(map, substitution[var]);
+			}
+		}
+
+		final Strash strash = new Strash(nInputs, latches.size());
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			final int var = aig.getAndVar(i);
+			if (!reached[var]) {
+				continue;
+			}
+			if (substitution[var] != -1) {
+				map[var] = mapLit(map, substitution[var]);
+			} else {
+				map[var] = strash.and(mapLit(map, aig.getAndInput1(i)), mapLit(map, aig.getAndInput2(i)));
+			}
+		}
+
+		final int[] latchNexts = new int[latches.size()];
+		final int[] latchResets = new int[latches.size()];
+		for (int i = 0; i < latches.size(); i++) {
+			final int latch = latches.get(i);
+			latchNexts[i] = mapLit(map, aig.getLatchNext(latch));
+			final int reset = aig.getLatchReset(latch);
+			latchResets[i] = reset == 0 || reset == 1 ? reset : map[aig.getLatchVar(latch)];
+		}
+		return strash.build(latchNexts, latchResets, mapLit(map, aig.getBad()));
+	}
+
+	/**
+	 * Collapse trees of and gates and rebuild them as balanced trees.
+	 */
+	private static Aig rewrite(final Aig aig) {
+		final int nVars = aig.getMaxVar() + 1;
+		final int firstAndVar = aig.getAndVar(0);
+
+		// A gate is absorbed into its parent, if that is its only reference
+		final int[] refs = new int[nVars];
+		final int[] posAndRefs = new int[nVars];
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			for (final int lit : new int[]{aig.getAndInput1(i), aig.getAndInput2(i)}) {
+				refs[Aig.var(lit)]++;
+				if (!Aig.isNegated(lit)) {
+					posAndRefs[Aig.var(lit)]++;
+				}
+			}
+		}
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			refs[Aig.var(aig.getLatchNext(i))]++;
+		}
+		refs[Aig.var(aig.getBad())]++;
+
+		final int[] map = new int[nVars];
+		for (int var = 0; var < firstAndVar; var++) {
+			map[var] = Aig.lit(var, false);
+		}
+		final Strash strash = new Strash(aig.getNumInputs(), aig.getNumLatches());
+		final Deque<Integer> stack = new ArrayDeque<>();
+		final List<Integer> leaves = new ArrayList<>();
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			final int var = aig.getAndVar(i);
+			if (isAbsorbed(var, firstAndVar, refs, posAndRefs)) {
+				continue;
+			}
+			leaves.clear();
+			stack.push(aig.getAndInput1(i));
+			stack.push(aig.getAndInput2(i));
+			while (!stack.isEmpty()) {
+				final int lit = stack.pop();
+				final int leafVar = Aig.var(lit);
+				if (!Aig.isNegated(lit) && isAbsorbed(leafVar, firstAndVar, refs, posAndRefs)) {
+					stack.push(aig.getAndInput1(leafVar - firstAndVar));
+					stack.push(aig.getAndInput2(leafVar - firstAndVar));
+				} else {
+					leaves.add(mapLit(map, lit));
+				}
+			}
+			map[var] = strash.andAll(leaves);
+		}
+
+		final int[] latchNexts = new int[aig.getNumLatches()];
+		final int[] latchResets = new int[aig.getNumLatches()];
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			latchNexts[i] = mapLit(map, aig.getLatchNext(i));
+			latchResets[i] = aig.getLatchReset(i);
+		}
+		return strash.build(latchNexts, latchResets, mapLit(map, aig.getBad()));
+	}
+
+	private static boolean isAbsorbed(final int var, final int firstAndVar, final int[] refs,
+									  final int[] posAndRefs) {
+		return var >= firstAndVar && refs[var] == 1 && posAndRefs[var] == 1;
+	}
+
+	/**
+	 * Prove candidate equivalences of and gates with a solver.
+	 *
+	 * @return Number of solver checks
+	 */
+	private int sweep(final Aig aig, final int[] substitution) {
+		final int[] candidates = AigSimulator.create(aig).equivalenceCandidates(simulationDepth, simulationBatches);
+		final List<ConstDecl<BoolType>> consts = createConsts(aig);
+		final Solver solver = createSolver(aig, consts);
+
+		int checks = 0;
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			final int var = aig.getAndVar(i);
+			final int candidate = candidates[var];
+			if (Aig.var(candidate) == var) {
+				continue;
+			}
+			final Expr<BoolType> equivalence = Iff(consts.get(var).getRef(), litExpr(consts, candidate));
+			solver.push();
+			solver.add(Not(equivalence));
+			final boolean equivalent = solver.check().isUnsat();
+			solver.pop();
+			checks++;
+			if (equivalent) {
+				substitution[var] = candidate;
+				// Proved equivalences help the later checks
+				solver.add(equivalence);
+			}
+		}
+		return checks;
+	}
+
+	/**
+	 * Prove by induction that latches keep their constant initial value, if
+	 * simulation suggests so.
+	 *
+	 * @return Number of solver checks
+	 */
+	private int findConstantLatches(final Aig aig, final int[] substitution) {
+		// A candidate literal is true if the latch has its initial value
+		final List<Integer> latches = new ArrayList<>();
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			final int reset = aig.getLatchReset(i);
+			if (reset == 0 || reset == 1) {
+				latches.add(Aig.lit(aig.getLatchVar(i), reset == 0));
+			}
+		}
+		final int[] candidates = latches.stream().mapToInt(Integer::intValue).toArray();
+		final int[] invariants = AigSimulator.create(aig).filterInvariants(candidates, simulationDepth,
+				simulationBatches);
+		if (invariants.length == 0) {
+			return 0;
+		}
+
+		final List<ConstDecl<BoolType>> consts = createConsts(aig);
+		final Solver solver = createSolver(aig, consts);
+		final int firstLatchVar = aig.getLatchVar(0);
+
+		List<Integer> remaining = Arrays.stream(invariants).boxed().collect(Collectors.toList());
+		int checks = 0;
+		boolean changed = true;
+		while (changed && !remaining.isEmpty()) {
+			changed = false;
+			solver.push();
+			for (final int lit : remaining) {
+				solver.add(litExpr(consts, lit));
+			}
+			final List<Integer> kept = new ArrayList<>();
+			for (final int lit : remaining) {
+				final int next = aig.getLatchNext(Aig.var(lit) - firstLatchVar) ^ (lit & 1);
+				solver.push();
+				solver.add(Not(litExpr(consts, next)));
+				final boolean holds = solver.check().isUnsat();
+				solver.pop();
+				checks++;
+				if (holds) {
+					kept.add(lit);
+				} else {
+					changed = true;
+				}
+			}
+			solver.pop();
+			remaining = kept;
+		}
+
+		for (final int lit : remaining) {
+			substitution[Aig.var(lit)] = aig.getLatchReset(Aig.var(lit) - firstLatchVar);
+		}
+		return checks;
+	}
+
+	private static List<ConstDecl<BoolType>> createConsts(final Aig aig) {
+		final List<ConstDecl<BoolType>> consts = new ArrayList<>(aig.getMaxVar() + 1);
+		for (int var = 0; var <= aig.getMaxVar(); var++) {
+			consts.add(Decls.Const("v" + var, Bool()));
+		}
+		return consts;
+	}
+
+	/**
+	 * Create a solver with the definitions of the and gates, where the
+	 * inputs and latches are unconstrained.
+	 */
+	private Solver createSolver(final Aig aig, final List<ConstDecl<BoolType>> consts) {
+		final Solver solver = sweepSolverFactory.createSolver();
+		solver.add(Not(consts.get(0).getRef()));
+		for (int i = 0; i < aig.getNumAnds(); i++) {
+			solver.add(Iff(consts.get(aig.getAndVar(i)).getRef(),
+					And(litExpr(consts, aig.getAndInput1(i)), litExpr(consts, aig.getAndInput2(i)))));
+		}
+		return solver;
+	}
+
+	private static Expr<BoolType> litExpr(final List<ConstDecl<BoolType>> consts, final int lit) {
+		final Expr<BoolType> ref = consts.get(Aig.var(lit)).getRef();
+		return Aig.isNegated(lit) ? Not(ref) : ref;
+	}
+
+	/**
+	 * Merge latches with the same next state literal and the same constant
+	 * initial value, and replace latches with constants if their next state
+	 * literal is their initial value.
+	 *
+	 * @return Number of merged latches
+	 */
+	private static int mergeLatches(final Aig aig, final int[] substitution) {
+		final Map<Long, Integer> latches = new HashMap<>();
+		int merged = 0;
+		for (int i = 0; i < aig.getNumLatches(); i++) {
+			final int reset = aig.getLatchReset(i);
+			if (reset != 0 && reset != 1) {
+				continue;
+			}
+			if (aig.getLatchNext(i) == reset) {
+				substitution[aig.getLatchVar(i)] = reset;
+				merged++;
+				continue;
+			}
+			final long key = ((long) aig.getLatchNext(i) << 1) | reset;
+			final Integer other = latches.putIfAbsent(key, i);
+			if (other != null) {
+				substitution[aig.getLatchVar(i)] = Aig.lit(aig.getLatchVar(other), false);
+				merged++;
+			}
+		}
+		return merged;
+	}
+
+	private static int mapLit(final int[] map, final int lit) {
+		return map[Aig.var(lit)] ^ (lit & 1);
+	}
+
+	////
+
+	/**
+	 * Builds and gates with structural hashing on top of a fixed set of inputs
+	 * and latches.
+	 */
+	private static final class Strash {
+		private final int nInputs;
+		private final int nLatches;
+		private final Map<Long, Integer> table;
+		private final List<Integer> andInputs;
+		// Level of each and gate (inputs and latches are on level 0)
+		private final List<Integer> levels;
+
+		private Strash(final int nInputs, final int nLatches) {
+			this.nInputs = nInputs;
+			this.nLatches = nLatches;
+			this.table = new HashMap<>();
+			this.andInputs = new ArrayList<>();
+			this.levels = new ArrayList<>();
+		}
+
+		private int and(final int lit1, final int lit2) {
+			final int a = Math.max(lit1, lit2);
+			final int b = Math.min(lit1, lit2);
+			if (b == 0 || (a ^ b) == 1) {
+				return 0;
+			} else if (b == 1 || a == b) {
+				return a;
+			}
+			final long key = ((long) a << 32) | b;
+			final Integer existing = table.get(key);
+			if (existing != null) {
+				return existing;
+			}
+			final int lit = Aig.lit(1 + nInputs + nLatches + levels.size(), false);
+			andInputs.add(a);
+			andInputs.add(b);
+			levels.add(1 + Math.max(level(a), level(b)));
+			table.put(key, lit);
+			return lit;
+		}
+
+		/**
+		 * Build the conjunction of literals as a balanced tree, always joining
+		 * the two lowest subtrees.
+		 */
+		private int andAll(final List<Integer> lits) {
+			final int[] sorted = lits.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+			final PriorityQueue<Integer> queue = new PriorityQueue<>(
+					(l1, l2) -> l1.equals(l2) ? 0 : level(l1) != level(l2) ? Integer.compare(level(l1), level(l2))
+							: Integer.compare(l1, l2));
+			for (int i = 0; i < sorted.length; i++) {
+				if (sorted[i] == 0 || (i > 0 && (sorted[i] ^ sorted[i - 1]) == 1)) {
+					return 0;
+				} else if (sorted[i] != 1) {
+					queue.add(sorted[i]);
+				}
+			}
+			if (queue.isEmpty()) {
+				return 1;
+			}
+			while (queue.size() > 1) {
+				final int and = and(queue.remove(), queue.remove());
+				if (and == 0) {
+					return 0;
+				}
+				queue.add(and);
+			}
+			return queue.remove();
+		}
+
+		private int level(final int lit) {
+			final int var = Aig.var(lit);
+			final int firstAndVar = 1 + nInputs + nLatches;
+			return var < firstAndVar ? 0 : levels.get(var - firstAndVar);
+		}
+
+		private Aig build(final int[] latchNexts, final int[] latchResets, final int bad) {
+			checkArgument(latchNexts.length == nLatches);
+			final int[] inputs = andInputs.stream().mapToInt(Integer::intValue).toArray();
+			return Aig.create(nInputs, latchNexts, latchResets, inputs, bad);
+		}
+	}
+
+	////
+
+	/**
+	 * Result of the preprocessing, with statistics.
+	 */
+	public static final class Result {
+		private final Aig original;
+		private final Aig aig;
+		private final int mergedNodes;
+		private final int mergedLatches;
+		private final int satChecks;
+
+		private Result(final Aig original, final Aig aig, final int mergedNodes, final int mergedLatches,
+					   final int satChecks) {
+			this.original = original;
+			this.aig = aig;
+			this.mergedNodes = mergedNodes;
+			this.mergedLatches = mergedLatches;
+			this.satChecks = satChecks;
+		}
+
+		/**
+		 * Gets the preprocessed AIG.
+		 */
+		public Aig getAig() {
+			return aig;
+		}
+
+		public int getInputsBefore() {
+			return original.getNumInputs();
+		}
+
+		public int getInputsAfter() {
+			return aig.getNumInputs();
+		}
+
+		public int getLatchesBefore() {
+			return original.getNumLatches();
+		}
+
+		public int getLatchesAfter() {
+			return aig.getNumLatches();
+		}
+
+		public int getAndsBefore() {
+			return original.getNumAnds();
+		}
+
+		public int getAndsAfter() {
+			return aig.getNumAnds();
+		}
+
+		/**
+		 * Gets the number of and gates merged by SAT sweeping.
+		 */
+		public int getMergedNodes() {
+			return mergedNodes;
+		}
+
+		public int getMergedLatches() {
+			return mergedLatches;
+		}
+
+		public int getSatChecks() {
+			return satChecks;
+		}
+
+		@Override
+		public String toString() {
+			return Utils.lispStringBuilder(getClass().getSimpleName())
+					.add("inputs " + getInputsBefore() + " -> " + getInputsAfter())
+					.add("latches " + getLatchesBefore() + " -> " + getLatchesAfter())
+					.add("ands " + getAndsBefore() + " -> " + getAndsAfter())
+					.add("merged " + mergedNodes).add("satchecks " + satChecks).toString();
+		}
+	}
+
+	////
+
+	public static final class Builder {
+		private boolean rewrite;
+		private SolverFactory sweepSolverFactory;
+		private int simulationDepth;
+		private int simulationBatches;
+
+		private Builder() {
+			this.rewrite = true;
+			this.sweepSolverFactory = null;
+			this.simulationDepth = 16;
+			this.simulationBatches = 4;
+		}
+
+		/**
+		 * Collapse and balance trees of and gates.
+		 */
+		public Builder rewrite(final boolean rewrite) {
+			this.rewrite = rewrite;
+			return this;
+		}
+
+		/**
+		 * Enable SAT sweeping with a given solver factory.
+		 */
+		public Builder sweep(final SolverFactory solverFactory) {
+			this.sweepSolverFactory = checkNotNull(solverFactory);
+			return this;
+		}
+
+		/**
+		 * Set the random simulation for finding candidate equivalences.
+		 *
+		 * @param depth   Number of transitions in a run
+		 * @param batches Number of batches of 64 runs
+		 */
+		public Builder simulation(final int depth, final int batches) {
+			checkArgument(depth >= 0, "Depth must be non-negative");
+			checkArgument(batches > 0, "Number of batches must be positive");
+			this.simulationDepth = depth;
+			this.simulationBatches = batches;
+			return this;
+		}
+
+		public AigerPreprocessor build() {
+			return new AigerPreprocessor(this);
+		}
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+@RunWith(Parameterized.class)
+public class AigReaderTest {
+
+	@Parameter(value = 0)
+	public String name;
+
+	@Parameter(value = 1)
+	public int nodes;
+
+	@Parameters
+	public static Collection<Object[]> data() {
+		return Arrays.asList(new Object[][]{
+
+				{"coi1", 8},
+
+				{"simple", 6},
+
+				{"simple3", 7},
+
+				{"hw1_false", 5},
+
+				{"hw2_true", 4},
+
+		});
+	}
+
+	@Test
+	public void test() throws IOException {
+		final Aig binary = AigReader.read("src/test/resources/" + name + ".aig");
+		final Aig ascii = AigReader.read("src/test/resources/" + name + ".aag");
+
+		Assert.assertEquals(ascii.getNumInputs(), binary.getNumInputs());
+		Assert.assertEquals(ascii.getNumLatches(), binary.getNumLatches());
+		Assert.assertEquals(ascii.getNumAnds(), binary.getNumAnds());
+		for (int i = 0; i < ascii.getNumLatches(); i++) {
+			Assert.assertEquals(ascii.getLatchNext(i), binary.getLatchNext(i));
+			Assert.assertEquals(ascii.getLatchReset(i), binary.getLatchReset(i));
+		}
+		for (int i = 0; i < ascii.getNumAnds(); i++) {
+			Assert.assertEquals(ascii.getAndInput1(i), binary.getAndInput1(i));
+			Assert.assertEquals(ascii.getAndInput2(i), binary.getAndInput2(i));
+		}
+		Assert.assertEquals(ascii.getBad(), binary.getBad());
+
+		Assert.assertEquals(nodes, binary.toAigerSystem().getNodes().size());
+		Assert.assertEquals(nodes, AigerParser.parse("src/test/resources/" + name + ".aag").getNodes().size());
+	}
+
+	@Test
+	public void testWhitespace() throws IOException {
+		final Aig ascii = AigReader.read("src/test/resources/" + name + ".aag");
+		final String text = new String(Files.readAllBytes(Paths.get("src/test/resources/" + name + ".aag")),
+				StandardCharsets.US_ASCII);
+		final StringBuilder sb = new StringBuilder();
+		for (final String line : text.split("\n")) {
+			sb.append(' ').append(line.replace(" ", " \t ")).append("  \r\n");
+		}
+		final Aig spaced = AigReader.read(new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.US_ASCII)));
+
+		Assert.assertEquals(ascii.getNumLatches(), spaced.getNumLatches());
+		Assert.assertEquals(ascii.getNumAnds(), spaced.getNumAnds());
+		for (int i = 0; i < ascii.getNumLatches(); i++) {
+			Assert.assertEquals(ascii.getLatchNext(i), spaced.getLatchNext(i));
+			Assert.assertEquals(ascii.getLatchReset(i), spaced.getLatchReset(i));
+		}
+		for (int i = 0; i < ascii.getNumAnds(); i++) {
+			Assert.assertEquals(ascii.getAndInput1(i), spaced.getAndInput1(i));
+			Assert.assertEquals(ascii.getAndInput2(i), spaced.getAndInput2(i));
+		}
+		Assert.assertEquals(ascii.getBad(), spaced.getBad());
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import hu.bme.mit.theta.sts.aiger.utils.AigSimulator;
+
+public class AigSimulatorTest {
+
+	@Test
+	public void testCounterexample() throws IOException {
+		// A three-stage shift register of the input, bad if the last stage is set
+		final Aig aig = AigReader.read("src/test/resources/hw1_false.aig");
+		final AigSimulator simulator = AigSimulator.create(aig);
+
+		Assert.assertFalse(simulator.findCounterexample(2, 16).isPresent());
+
+		final Optional<AigSimulator.Counterexample> cex = simulator.findCounterexample(5, 16);
+		Assert.assertTrue(cex.isPresent());
+		Assert.assertEquals(3, cex.get().getDepth());
+		Assert.assertTrue(cex.get().getInput(0, 0));
+	}
+
+	@Test
+	public void testSafe() throws IOException {
+		final Aig aig = AigReader.read("src/test/resources/hw2_true.aig");
+		Assert.assertFalse(AigSimulator.create(aig).findCounterexample(10, 16).isPresent());
+	}
+
+	@Test
+	public void testFilterInvariants() throws IOException {
+		// The latch is always false, the input is unconstrained
+		final Aig aig = AigReader.read("src/test/resources/hw2_true.aig");
+		final int input = Aig.lit(aig.getInputVar(0), false);
+		final int latch = Aig.lit(aig.getLatchVar(0), false);
+		final int[] candidates = {0, 1, input, input + 1, latch, latch + 1};
+
+		final int[] invariants = AigSimulator.create(aig).filterInvariants(candidates, 5, 4);
+		Assert.assertArrayEquals(new int[]{1, latch + 1}, invariants);
+	}
+
+}
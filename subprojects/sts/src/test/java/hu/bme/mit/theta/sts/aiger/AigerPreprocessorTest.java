@@ -0,0 +1,88 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.sts.aiger;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import hu.bme.mit.theta.solver.z3.Z3SolverFactory;
+import hu.bme.mit.theta.sts.aiger.elements.AigerSystem;
+import hu.bme.mit.theta.sts.aiger.utils.AigerPreprocessor;
+
+@RunWith(Parameterized.class)
+public class AigerPreprocessorTest {
+
+	@Parameter(value = 0)
+	public String path;
+
+	@Parameter(value = 1)
+	public int latchesOld;
+
+	@Parameter(value = 2)
+	public int andsOld;
+
+	@Parameter(value = 3)
+	public int latchesNew;
+
+	@Parameter(value = 4)
+	public int andsNew;
+
+	@Parameters
+	public static Collection<Object[]> data() {
+		return Arrays.asList(new Object[][]{
+
+				{"coi1.aag", 2, 3, 1, 1},
+
+				{"coi2.aag", 1, 2, 0, 0},
+
+				{"constprop1.aag", 2, 2, 1, 0},
+
+				{"constprop2.aag", 2, 2, 2, 1},
+
+				{"simple.aag", 1, 2, 1, 2},
+
+				{"hw2_true.aag", 1, 1, 0, 0},
+
+				{"sweep.aag", 1, 7, 1, 4},
+
+				{"constlatch.aag", 2, 3, 1, 1},
+
+		});
+	}
+
+	@Test
+	public void test() throws IOException {
+		final AigerSystem system = AigerParser.parse("src/test/resources/" + path);
+		final AigerPreprocessor.Result result = AigerPreprocessor.builder().sweep(Z3SolverFactory.getInstance())
+				.build().apply(system);
+
+		Assert.assertEquals(latchesOld, result.getLatchesBefore());
+		Assert.assertEquals(andsOld, result.getAndsBefore());
+		Assert.assertEquals(latchesNew, result.getLatchesAfter());
+		Assert.assertEquals(andsNew, result.getAndsAfter());
+		Assert.assertEquals(1 + result.getInputsAfter() + latchesNew + andsNew,
+				result.getAig().toAigerSystem().getNodes().size());
+	}
+
+}
@@ -2,14 +2,20 @@ package hu.bme.mit.theta.xsts.analysis.config;
 
 import hu.bme.mit.theta.analysis.*;
 import hu.bme.mit.theta.analysis.algorithm.ArgBuilder;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.ArgNodeComparators;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
+import hu.bme.mit.theta.analysis.algorithm.Statistics;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Abstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.BasicAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.CegarChecker;
+import hu.bme.mit.theta.analysis.algorithm.cegar.ParallelAbstractor;
 import hu.bme.mit.theta.analysis.algorithm.cegar.Refiner;
+import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterion;
 import hu.bme.mit.theta.analysis.algorithm.cegar.abstractor.StopCriterions;
 import hu.bme.mit.theta.analysis.expl.*;
+import hu.bme.mit.theta.analysis.expr.ExprAction;
+import hu.bme.mit.theta.analysis.expr.ExprState;
 import hu.bme.mit.theta.analysis.expr.ExprStatePredicate;
 import hu.bme.mit.theta.analysis.expr.refinement.*;
 import hu.bme.mit.theta.analysis.pred.*;
@@ -19,13 +25,16 @@ import hu.bme.mit.theta.analysis.prod2.Prod2State;
 import hu.bme.mit.theta.analysis.prod2.prod2explpred.ItpRefToProd2ExplPredPrec;
 import hu.bme.mit.theta.analysis.prod2.prod2explpred.Prod2ExplPredPreStrengtheningOperator;
 import hu.bme.mit.theta.analysis.prod2.prod2explpred.Prod2ExplPredStrengtheningOperator;
+import hu.bme.mit.theta.analysis.reachedset.ReachedSetIndex;
 import hu.bme.mit.theta.analysis.waitlist.PriorityWaitlist;
+import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.common.logging.Logger;
 import hu.bme.mit.theta.common.logging.NullLogger;
 import hu.bme.mit.theta.core.decl.VarDecl;
 import hu.bme.mit.theta.core.type.Expr;
 import hu.bme.mit.theta.core.type.booltype.BoolType;
 import hu.bme.mit.theta.solver.ItpSolver;
+import hu.bme.mit.theta.solver.Solver;
 import hu.bme.mit.theta.solver.SolverFactory;
 import hu.bme.mit.theta.xsts.XSTS;
 import hu.bme.mit.theta.xsts.analysis.*;
@@ -34,9 +43,14 @@ import hu.bme.mit.theta.xsts.analysis.initprec.XstsEmptyInitPrec;
 import hu.bme.mit.theta.xsts.analysis.initprec.XstsInitPrec;
 import hu.bme.mit.theta.xsts.analysis.initprec.XstsPropInitPrec;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.function.Predicate;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static hu.bme.mit.theta.core.type.booltype.BoolExprs.Not;
 
 public class XstsConfigBuilder {
@@ -100,6 +114,11 @@ public class XstsConfigBuilder {
 	private int maxEnum = 0;
 	private InitPrec initPrec = InitPrec.EMPTY;
 	private PruneStrategy pruneStrategy = PruneStrategy.LAZY;
+	private int threads = 1;
+	private int predCacheSize = 0;
+	private int maxArgSize = 0;
+	private boolean traceCache = false;
+	private boolean incrementalItp = false;
 
 	public XstsConfigBuilder(final Domain domain, final Refinement refinement, final SolverFactory solverFactory) {
 		this.domain = domain;
@@ -137,40 +156,92 @@ public class XstsConfigBuilder {
 		return this;
 	}
 
+	/**
+	 * Number of threads used for building the ARG and, with MULTI_SEQ
+	 * refinement, for checking the counterexamples. Each additional thread
+	 * uses its own solver.
+	 */
+	public XstsConfigBuilder threads(final int threads) {
+		checkArgument(threads > 0, "Number of threads must be positive");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Maximal number of predicate abstraction results cached and reused
+	 * between CEGAR iterations. Zero disables caching.
+	 */
+	public XstsConfigBuilder predCacheSize(final int predCacheSize) {
+		checkArgument(predCacheSize >= 0, "Cache size must not be negative");
+		this.predCacheSize = predCacheSize;
+		return this;
+	}
+
+	/**
+	 * Maximal number of ARG nodes, over which the algorithm stops with an
+	 * exception. Zero is unlimited.
+	 */
+	public XstsConfigBuilder maxArgSize(final int maxArgSize) {
+		checkArgument(maxArgSize >= 0, "ARG size limit must not be negative");
+		this.maxArgSize = maxArgSize;
+		return this;
+	}
+
+	/**
+	 * Cache the refutations of infeasible counterexamples for interpolation
+	 * based refinements, so that repeated counterexamples (and with sequence
+	 * interpolation, counterexamples with an infeasible prefix) are not
+	 * checked again.
+	 */
+	public XstsConfigBuilder traceCache(final boolean traceCache) {
+		this.traceCache = traceCache;
+		return this;
+	}
+
+	/**
+	 * Check counterexamples for sequence interpolation incrementally, keeping
+	 * the solver frames of the common prefix of consecutive counterexamples.
+	 */
+	public XstsConfigBuilder incrementalItp(final boolean incrementalItp) {
+		this.incrementalItp = incrementalItp;
+		return this;
+	}
+
 	public XstsConfig<? extends State, ? extends Action, ? extends Prec> build(final XSTS xsts) {
 		final ItpSolver solver = solverFactory.createItpSolver();
+		// The incremental checker keeps its assertions, so it cannot share the solver with the abstractor
+		final ItpSolver refinerSolver = incrementalItp ? solverFactory.createItpSolver() : solver;
 		LTS<XstsState, XstsAction> lts = XstsLts.create(xsts);
 		final Expr<BoolType> negProp = Not(xsts.getProp());
 
 		if (domain == Domain.EXPL) {
-			final Predicate<XstsState<ExplState>> target = new XstsStatePredicate<ExplStatePredicate, ExplState>(new ExplStatePredicate(negProp, solver));
-			final Analysis<XstsState<ExplState>, XstsAction, ExplPrec> analysis = XstsAnalysis.create(ExplStmtAnalysis.create(solver, xsts.getInitFormula(), maxEnum));
-			final ArgBuilder<XstsState<ExplState>, XstsAction, ExplPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<XstsState<ExplState>, XstsAction, ExplPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex())
-					.logger(logger).build();
-
+			final Function<Solver, ArgBuilder<XstsState<ExplState>, XstsAction, ExplPrec>> argBuilderFactory = s -> {
+				final Predicate<XstsState<ExplState>> target = new XstsStatePredicate<ExplStatePredicate, ExplState>(new ExplStatePredicate(negProp, s));
+				final Analysis<XstsState<ExplState>, XstsAction, ExplPrec> analysis = XstsAnalysis.create(ExplStmtAnalysis.create(s, xsts.getInitFormula(), maxEnum));
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final Abstractor<XstsState<ExplState>, XstsAction, ExplPrec> abstractor = createAbstractor(argBuilderFactory, solver,
+					() -> ExplReachedSetIndex.create(n -> n.getState().getState()));
+
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
 			Refiner<XstsState<ExplState>, XstsAction, ExplPrec> refiner = null;
 
 			switch (refinement) {
 				case FW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case BW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case SEQ_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, refinerSolver), true, componentStatistics),
 							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
 					break;
 				case MULTI_SEQ:
-					refiner = MultiExprTraceRefiner.create(ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver),
-							JoiningPrecRefiner.create(new ItpRefToExplPrec()), pruneStrategy, logger);
+					refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, s), true, componentStatistics),
+							JoiningPrecRefiner.create(new ItpRefToExplPrec()), componentStatistics);
 					break;
 				case UNSAT_CORE:
 					refiner = SingleExprTraceRefiner.create(ExprTraceUnsatCoreChecker.create(xsts.getInitFormula(), negProp, solver),
@@ -181,104 +252,89 @@ public class XstsConfigBuilder {
 			}
 
 			final SafetyChecker<XstsState<ExplState>, XstsAction, ExplPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					logger, maxArgSize, componentStatistics);
 			final ExplPrec prec = initPrec.builder.createExpl(xsts);
 			return XstsConfig.create(checker, prec);
 
 		} else if (domain == Domain.PRED_BOOL || domain == Domain.PRED_CART || domain == Domain.PRED_SPLIT) {
-			PredAbstractors.PredAbstractor predAbstractor = null;
-			switch (domain) {
-				case PRED_BOOL:
-					predAbstractor = PredAbstractors.booleanAbstractor(solver);
-					break;
-				case PRED_SPLIT:
-					predAbstractor = PredAbstractors.booleanSplitAbstractor(solver);
-					break;
-				case PRED_CART:
-					predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-					break;
-				default:
-					throw new UnsupportedOperationException(domain + " domain is not supported.");
-			}
-			final Predicate<XstsState<PredState>> target = new XstsStatePredicate<ExprStatePredicate, PredState>(new ExprStatePredicate(negProp, solver));
-			final Analysis<XstsState<PredState>, XstsAction, PredPrec> analysis = XstsAnalysis.create(PredAnalysis.create(solver, predAbstractor,
-					xsts.getInitFormula()));
-			final ArgBuilder<XstsState<PredState>, XstsAction, PredPrec> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<XstsState<PredState>, XstsAction, PredPrec> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex())
-					.logger(logger).build();
-
-			ExprTraceChecker<ItpRefutation> exprTraceChecker = null;
-			switch (refinement) {
-				case FW_BIN_ITP:
-					exprTraceChecker = ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver);
-					break;
-				case BW_BIN_ITP:
-					exprTraceChecker = ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver);
-					break;
-				case SEQ_ITP:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver);
-					break;
-				case MULTI_SEQ:
-					exprTraceChecker = ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver);
-					break;
-				default:
-					throw new UnsupportedOperationException(
-							domain + " domain does not support " + refinement + " refinement.");
-			}
+			final Function<PredAbstractors.PredAbstractor, PredAbstractors.PredAbstractor> predCaching = createPredCaching();
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
+			final Function<Solver, ArgBuilder<XstsState<PredState>, XstsAction, PredPrec>> argBuilderFactory = s -> {
+				final Predicate<XstsState<PredState>> target = new XstsStatePredicate<ExprStatePredicate, PredState>(new ExprStatePredicate(negProp, s));
+				final PredAnalysis predAnalysis = PredAnalysis.create(s, predCaching.apply(createPredAbstractor(s)),
+						xsts.getInitFormula());
+				componentStatistics.add(predAnalysis.getPartialOrd()::getStatistics);
+				final Analysis<XstsState<PredState>, XstsAction, PredPrec> analysis = XstsAnalysis.create(predAnalysis);
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final Abstractor<XstsState<PredState>, XstsAction, PredPrec> abstractor = createAbstractor(argBuilderFactory, solver,
+					() -> PredReachedSetIndex.create(n -> n.getState().getState()));
+
 			Refiner<XstsState<PredState>, XstsAction, PredPrec> refiner;
 			if (refinement == Refinement.MULTI_SEQ) {
-				refiner = MultiExprTraceRefiner.create(exprTraceChecker,
-						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), pruneStrategy, logger);
+				refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, s), true, componentStatistics),
+						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), componentStatistics);
 			} else {
+				final ExprTraceChecker<ItpRefutation> exprTraceChecker;
+				switch (refinement) {
+					case FW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics);
+						break;
+					case BW_BIN_ITP:
+						exprTraceChecker = withTraceCache(ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics);
+						break;
+					case SEQ_ITP:
+						exprTraceChecker = withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, refinerSolver), true, componentStatistics);
+						break;
+					default:
+						throw new UnsupportedOperationException(
+								domain + " domain does not support " + refinement + " refinement.");
+				}
 				refiner = SingleExprTraceRefiner.create(exprTraceChecker,
 						JoiningPrecRefiner.create(new ItpRefToPredPrec(predSplit.splitter)), pruneStrategy, logger);
 			}
 
 			final SafetyChecker<XstsState<PredState>, XstsAction, PredPrec> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					logger, maxArgSize, componentStatistics);
 
 			final PredPrec prec = initPrec.builder.createPred(xsts);
 			return XstsConfig.create(checker, prec);
 		} else if (domain == Domain.PROD) {
-			final PredAbstractors.PredAbstractor predAbstractor = PredAbstractors.cartesianAbstractor(solver);
-			final Predicate<XstsState<Prod2State<ExplState, PredState>>> target = new XstsStatePredicate<ExprStatePredicate, Prod2State<ExplState, PredState>>(new ExprStatePredicate(negProp, solver));
-			final Analysis<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> analysis
-					= XstsAnalysis.create(Prod2Analysis.create(
-					ExplStmtAnalysis.create(solver, xsts.getInitFormula(), maxEnum),
-					PredAnalysis.create(solver, predAbstractor, xsts.getInitFormula()),
-					Prod2ExplPredPreStrengtheningOperator.create(),
-					Prod2ExplPredStrengtheningOperator.create(solver)));
-			final ArgBuilder<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> argBuilder = ArgBuilder.create(lts, analysis, target,
-					true);
-			final Abstractor<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> abstractor = BasicAbstractor.builder(argBuilder)
-					.waitlist(PriorityWaitlist.create(search.comparator))
-					.stopCriterion(refinement == Refinement.MULTI_SEQ ? StopCriterions.fullExploration()
-							: StopCriterions.firstCex())
-					.logger(logger).build();
-
+			final Function<PredAbstractors.PredAbstractor, PredAbstractors.PredAbstractor> predCaching = createPredCaching();
+			final Function<Solver, ArgBuilder<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>>> argBuilderFactory = s -> {
+				final PredAbstractors.PredAbstractor predAbstractor = predCaching.apply(PredAbstractors.cartesianAbstractor(s));
+				final Predicate<XstsState<Prod2State<ExplState, PredState>>> target = new XstsStatePredicate<ExprStatePredicate, Prod2State<ExplState, PredState>>(new ExprStatePredicate(negProp, s));
+				final Analysis<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> analysis
+						= XstsAnalysis.create(Prod2Analysis.create(
+						ExplStmtAnalysis.create(s, xsts.getInitFormula(), maxEnum),
+						PredAnalysis.create(s, predAbstractor, xsts.getInitFormula()),
+						Prod2ExplPredPreStrengtheningOperator.create(),
+						Prod2ExplPredStrengtheningOperator.create(s)));
+				return ArgBuilder.create(lts, analysis, target, true);
+			};
+			final Abstractor<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> abstractor = createAbstractor(argBuilderFactory, solver,
+					() -> ExplReachedSetIndex.create(n -> n.getState().getState().getState1()));
+
+			final List<Supplier<? extends Statistics>> componentStatistics = new ArrayList<>();
 			Refiner<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> refiner = null;
 
 			final Set<VarDecl<?>> ctrlVars = xsts.getCtrlVars();
 			switch (refinement) {
 				case FW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceFwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(ItpRefToProd2ExplPredPrec.create(ctrlVars, predSplit.splitter)), pruneStrategy, logger);
 					break;
 				case BW_BIN_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(ExprTraceBwBinItpChecker.create(xsts.getInitFormula(), negProp, solver), false, componentStatistics),
 							JoiningPrecRefiner.create(ItpRefToProd2ExplPredPrec.create(ctrlVars, predSplit.splitter)), pruneStrategy, logger);
 					break;
 				case SEQ_ITP:
-					refiner = SingleExprTraceRefiner.create(ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver),
+					refiner = SingleExprTraceRefiner.create(withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, refinerSolver), true, componentStatistics),
 							JoiningPrecRefiner.create(ItpRefToProd2ExplPredPrec.create(ctrlVars, predSplit.splitter)), pruneStrategy, logger);
 					break;
 				case MULTI_SEQ:
-					refiner = MultiExprTraceRefiner.create(ExprTraceSeqItpChecker.create(xsts.getInitFormula(), negProp, solver),
-							JoiningPrecRefiner.create(ItpRefToProd2ExplPredPrec.create(ctrlVars, predSplit.splitter)), pruneStrategy, logger);
+					refiner = createMultiRefiner(refinerSolver, s -> withTraceCache(createSeqItpChecker(xsts.getInitFormula(), negProp, s), true, componentStatistics),
+							JoiningPrecRefiner.create(ItpRefToProd2ExplPredPrec.create(ctrlVars, predSplit.splitter)), componentStatistics);
 					break;
 				default:
 					throw new UnsupportedOperationException(
@@ -286,7 +342,7 @@ public class XstsConfigBuilder {
 			}
 
 			final SafetyChecker<XstsState<Prod2State<ExplState, PredState>>, XstsAction, Prod2Prec<ExplPrec, PredPrec>> checker = CegarChecker.create(abstractor, refiner,
-					logger);
+					logger, maxArgSize, componentStatistics);
 			final Prod2Prec<ExplPrec, PredPrec> prec = initPrec.builder.createProd2ExplPred(xsts);
 			return XstsConfig.create(checker, prec);
 		} else {
@@ -294,5 +350,88 @@ public class XstsConfigBuilder {
 		}
 	}
 
+	private PredAbstractors.PredAbstractor createPredAbstractor(final Solver solver) {
+		switch (domain) {
+			case PRED_BOOL:
+				return PredAbstractors.booleanAbstractor(solver);
+			case PRED_SPLIT:
+				return PredAbstractors.booleanSplitAbstractor(solver);
+			case PRED_CART:
+				return PredAbstractors.cartesianAbstractor(solver);
+			default:
+				throw new UnsupportedOperationException(domain + " domain is not supported.");
+		}
+	}
+
+	private Function<PredAbstractors.PredAbstractor, PredAbstractors.PredAbstractor> createPredCaching() {
+		if (predCacheSize == 0) {
+			return Function.identity();
+		} else {
+			// Shared between the abstractors of all threads
+			final PredAbstractionCache cache = PredAbstractionCache.create(predCacheSize);
+			return predAbstractor -> PredAbstractors.cachingAbstractor(predAbstractor, cache);
+		}
+	}
+
+	private <S extends State, A extends Action, P extends Prec> Abstractor<S, A, P> createAbstractor(
+			final Function<Solver, ArgBuilder<S, A, P>> argBuilderFactory, final Solver solver,
+			final Supplier<? extends ReachedSetIndex<ArgNode<S, A>>> reachedSetIndex) {
+		final Waitlist<ArgNode<S, A>> waitlist = PriorityWaitlist.create(search.comparator);
+		final StopCriterion<S, A> stopCriterion = refinement == Refinement.MULTI_SEQ
+				? StopCriterions.fullExploration() : StopCriterions.firstCex();
+
+		if (threads == 1) {
+			return BasicAbstractor.builder(argBuilderFactory.apply(solver))
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		} else {
+			// Each thread gets its own solver, the first one is shared with the refiner
+			final List<ArgBuilder<S, A, P>> argBuilders = new ArrayList<>();
+			argBuilders.add(argBuilderFactory.apply(solver));
+			for (int i = 1; i < threads; i++) {
+				argBuilders.add(argBuilderFactory.apply(solverFactory.createSolver()));
+			}
+			return ParallelAbstractor.builder(argBuilders)
+					.reachedSetIndex(reachedSetIndex).waitlist(waitlist).stopCriterion(stopCriterion)
+					.maxArgSize(maxArgSize).logger(logger).build();
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> createSeqItpChecker(final Expr<BoolType> init, final Expr<BoolType> target,
+																final ItpSolver solver) {
+		if (incrementalItp) {
+			return ExprTraceIncrementalSeqItpChecker.create(init, target, solver);
+		} else {
+			return ExprTraceSeqItpChecker.create(init, target, solver);
+		}
+	}
+
+	private ExprTraceChecker<ItpRefutation> withTraceCache(final ExprTraceChecker<ItpRefutation> checker,
+														   final boolean sequence,
+														   final List<Supplier<? extends Statistics>> componentStatistics) {
+		if (!traceCache) {
+			return checker;
+		}
+		final ExprTraceCachingChecker cache = sequence
+				? ExprTraceCachingChecker.createWithPrefixes(checker)
+				: ExprTraceCachingChecker.create(checker);
+		componentStatistics.add(cache::getStatistics);
+		return cache;
+	}
+
+	private <S extends ExprState, A extends ExprAction, P extends Prec, R extends Refutation> Refiner<S, A, P> createMultiRefiner(
+			final ItpSolver solver, final Function<? super ItpSolver, ? extends ExprTraceChecker<R>> checkerFactory,
+			final PrecRefiner<S, A, P, R> precRefiner, final List<Supplier<? extends Statistics>> componentStatistics) {
+		final MultiExprTraceRefiner<S, A, P, R> refiner;
+		if (threads == 1) {
+			refiner = MultiExprTraceRefiner.create(checkerFactory.apply(solver), precRefiner, pruneStrategy, logger);
+		} else {
+			// Counterexamples are checked on as many threads as the ARG is built
+			refiner = MultiExprTraceRefiner.createParallel(checkerFactory, solverFactory::createItpSolver,
+					threads, precRefiner, pruneStrategy, logger);
+		}
+		componentStatistics.add(refiner::getStatistics);
+		return refiner;
+	}
 
 }
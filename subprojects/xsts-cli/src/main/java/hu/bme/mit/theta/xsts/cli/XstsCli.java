@@ -39,6 +39,8 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.SequenceInputStream;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
@@ -66,7 +68,7 @@ public class XstsCli {
 	@Parameter(names = {"--property"}, description = "Input property as a string or a file (*.prop)", required = true)
 	String property;
 
-	@Parameter(names = "--maxenum", description = "Maximal number of explicitly enumerated successors (0: unlimited)")
+	@Parameter(names = "--maxenum", description = "Maximal number of explicitly enumerated successor states, where unconstrained variables are left unknown instead of being enumerated (0: unlimited)")
 	Integer maxEnum = 0;
 
 	@Parameter(names = {"--initprec"}, description = "Initial precision")
@@ -75,6 +77,27 @@ public class XstsCli {
 	@Parameter(names = "--prunestrategy", description = "Strategy for pruning the ARG after refinement")
 	PruneStrategy pruneStrategy = PruneStrategy.LAZY;
 
+	@Parameter(names = "--threads", description = "Number of threads for building the ARG")
+	Integer threads = 1;
+
+	@Parameter(names = "--predcache", description = "Number of cached predicate abstraction results (0 disables caching)")
+	Integer predCacheSize = 0;
+
+	@Parameter(names = "--maxargsize", description = "Maximal number of ARG nodes (0: unlimited)")
+	Integer maxArgSize = 0;
+
+	@Parameter(names = "--tracecache", description = "Cache infeasible counterexamples (for interpolation based refinements)")
+	boolean traceCache = false;
+
+	@Parameter(names = "--incrementalitp", description = "Check counterexamples incrementally (for SEQ_ITP and MULTI_SEQ refinements)")
+	boolean incrementalItp = false;
+
+	@Parameter(names = "--portfolio", description = "Run a portfolio of domains, refinements and searches in parallel (overrides --domain, --refinement, --search and --predsplit)")
+	boolean portfolio = false;
+
+	@Parameter(names = "--portfoliotimeout", description = "Time budget of each portfolio member in milliseconds (0: unlimited)")
+	Long portfolioTimeout = 0L;
+
 	@Parameter(names = {"--loglevel"}, description = "Detailedness of logging")
 	Logger.Level logLevel = Logger.Level.SUBSTEP;
 
@@ -129,8 +152,13 @@ public class XstsCli {
 		try {
 			final Stopwatch sw = Stopwatch.createStarted();
 			final XSTS xsts = loadModel();
-			final XstsConfig<?, ?, ?> configuration = buildConfiguration(xsts);
-			final SafetyResult<?, ?> status = check(configuration);
+			final SafetyResult<?, ?> status;
+			if (portfolio) {
+				status = checkPortfolio(xsts);
+			} else {
+				final XstsConfig<?, ?, ?> configuration = buildConfiguration(xsts);
+				status = check(configuration);
+			}
 			sw.stop();
 			printResult(status, xsts, sw.elapsed(TimeUnit.MILLISECONDS));
 			if (status.isUnsafe() && cexfile != null) {
@@ -173,14 +201,42 @@ public class XstsCli {
 
 	private XstsConfig<?, ?, ?> buildConfiguration(final XSTS xsts) throws Exception {
 		try {
-			return new XstsConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
-					.maxEnum(maxEnum).initPrec(initPrec).pruneStrategy(pruneStrategy)
-					.search(search).predSplit(predSplit).logger(logger).build(xsts);
+			return buildConfiguration(xsts, domain, refinement, search, predSplit, logger);
 		} catch (final Exception ex) {
 			throw new Exception("Could not create configuration: " + ex.getMessage(), ex);
 		}
 	}
 
+	private XstsConfig<?, ?, ?> buildConfiguration(final XSTS xsts, final Domain domain, final Refinement refinement,
+												   final Search search, final PredSplit predSplit, final Logger logger) {
+		return new XstsConfigBuilder(domain, refinement, Z3SolverFactory.getInstance())
+				.maxEnum(maxEnum).initPrec(initPrec).pruneStrategy(pruneStrategy)
+				.search(search).predSplit(predSplit).threads(threads).predCacheSize(predCacheSize)
+				.maxArgSize(maxArgSize).traceCache(traceCache).incrementalItp(incrementalItp).logger(logger).build(xsts);
+	}
+
+	private SafetyResult<?, ?> checkPortfolio(final XSTS xsts) throws Exception {
+		final List<Portfolio.Member> members = new ArrayList<>();
+		addMember(members, xsts, Domain.EXPL, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, xsts, Domain.PRED_CART, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, xsts, Domain.PROD, Refinement.SEQ_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, xsts, Domain.PRED_BOOL, Refinement.BW_BIN_ITP, Search.BFS, PredSplit.WHOLE);
+		addMember(members, xsts, Domain.PRED_CART, Refinement.SEQ_ITP, Search.DFS, PredSplit.CONJUNCTS);
+		try {
+			return Portfolio.create(members, logger).check();
+		} catch (final Exception ex) {
+			throw new Exception("Error while running portfolio: " + ex.getMessage(), ex);
+		}
+	}
+
+	private void addMember(final List<Portfolio.Member> members, final XSTS xsts, final Domain domain,
+						   final Refinement refinement, final Search search, final PredSplit predSplit) {
+		final String name = String.join("_", domain.name(), refinement.name(), search.name(), predSplit.name());
+		// Members build their configuration (and thus their solvers) on their own thread
+		members.add(Portfolio.Member.of(name, () -> buildConfiguration(xsts, domain, refinement, search, predSplit,
+				NullLogger.getInstance()).check(), portfolioTimeout));
+	}
+
 	private void printResult(final SafetyResult<?, ?> status, final XSTS sts, final long totalTimeMs) {
 		final CegarStatistics stats = (CegarStatistics) status.getStats().get();
 		if (benchmarkMode) {
@@ -34,6 +34,7 @@ import hu.bme.mit.theta.xta.XtaProcess.LocKind;
 public final class XtaState<S extends State> implements ExprState {
 	private static final int HASH_SEED = 8291;
 	private volatile int hashCode = 0;
+	private volatile int locsHashCode = 0;
 
 	private final List<Loc> locs;
 	private final S state;
@@ -48,6 +49,11 @@ public final class XtaState<S extends State> implements ExprState {
 		urgent = locKind != LocKind.NORMAL;
 	}
 
+	private XtaState(final List<Loc> locs, final S state, final int locsHashCode) {
+		this(locs, state);
+		this.locsHashCode = locsHashCode;
+	}
+
 	private static final LocKind extractKind(final List<Loc> locs) {
 		boolean urgent = false;
 		for (final Loc loc : locs) {
@@ -84,6 +90,20 @@ public final class XtaState<S extends State> implements ExprState {
 		return locs;
 	}
 
+	/**
+	 * Gets the hash code of the location vector. It is computed only once
+	 * (and kept by {@link #withState(State)}), so it is cheaper than hashing
+	 * {@link #getLocs()}.
+	 */
+	public int getLocsHashCode() {
+		int result = locsHashCode;
+		if (result == 0) {
+			result = locs.hashCode();
+			locsHashCode = result;
+		}
+		return result;
+	}
+
 	public S getState() {
 		return state;
 	}
@@ -97,7 +117,7 @@ public final class XtaState<S extends State> implements ExprState {
 	}
 
 	public <S2 extends State> XtaState<S2> withState(final S2 state) {
-		return XtaState.of(this.locs, state);
+		return new XtaState<>(this.locs, state, getLocsHashCode());
 	}
 
 	@Override
@@ -120,7 +140,7 @@ public final class XtaState<S extends State> implements ExprState {
 		int result = hashCode;
 		if (result == 0) {
 			result = HASH_SEED;
-			result = 31 * result + locs.hashCode();
+			result = 31 * result + getLocsHashCode();
 			result = 31 * result + state.hashCode();
 			hashCode = result;
 		}
@@ -33,6 +33,15 @@ interface AlgorithmStrategy<S1 extends State, S2 extends State> {
 
 	boolean mightCover(final ArgNode<S1, XtaAction> coveree, ArgNode<S1, XtaAction> coverer);
 
+	/**
+	 * Gets a cheap estimate of how specific the label of a node is as a
+	 * coverer. Nodes with lower ranks are tried first when looking for a
+	 * covering node.
+	 */
+	default int getCoverageRank(final ArgNode<S1, XtaAction> coverer) {
+		return 0;
+	}
+
 	void cover(ArgNode<S1, XtaAction> coveree, ArgNode<S1, XtaAction> coverer,
 			   Collection<ArgNode<S1, XtaAction>> uncoveredNodes, final Builder stats);
 
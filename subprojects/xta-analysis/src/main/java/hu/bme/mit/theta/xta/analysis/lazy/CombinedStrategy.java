@@ -28,7 +28,7 @@ import hu.bme.mit.theta.analysis.prod2.Prod2Analysis;
 import hu.bme.mit.theta.analysis.prod2.Prod2Prec;
 import hu.bme.mit.theta.analysis.prod2.Prod2State;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
-import hu.bme.mit.theta.common.Tuple3;
+import hu.bme.mit.theta.common.Tuple2;
 import hu.bme.mit.theta.xta.XtaSystem;
 import hu.bme.mit.theta.xta.analysis.XtaAction;
 import hu.bme.mit.theta.xta.analysis.XtaAnalysis;
@@ -48,8 +48,9 @@ final class CombinedStrategy<S1 extends State, S2 extends State>
 		this.strategy1 = checkNotNull(strategy1);
 		this.strategy2 = checkNotNull(strategy2);
 		this.analysis = createAnalysis(system);
-		projection = s -> Tuple3.of(strategy1.getProjection().apply(s.getState().getState1()),
-				strategy2.getProjection().apply(s.getState().getState2()), s.getLocs());
+		// Locations are not part of the projection, the passed list is partitioned by them anyway
+		projection = s -> Tuple2.of(strategy1.getProjection().apply(s.getState().getState1()),
+				strategy2.getProjection().apply(s.getState().getState2()));
 	}
 
 	@Override
@@ -68,6 +69,11 @@ final class CombinedStrategy<S1 extends State, S2 extends State>
 		return strategy1.mightCover(coveree, coverer) && strategy2.mightCover(coveree, coverer);
 	}
 
+	@Override
+	public int getCoverageRank(final ArgNode<XtaState<Prod2State<S1, S2>>, XtaAction> coverer) {
+		return strategy1.getCoverageRank(coverer) + strategy2.getCoverageRank(coverer);
+	}
+
 	@Override
 	public void cover(final ArgNode<XtaState<Prod2State<S1, S2>>, XtaAction> coveree,
 					  final ArgNode<XtaState<Prod2State<S1, S2>>, XtaAction> coverer,
@@ -72,6 +72,11 @@ abstract class ItpExplStrategy<S extends State> implements AlgorithmStrategy<S,
 		return covereeExpl.isLeq(covererExpl);
 	}
 
+	@Override
+	public final int getCoverageRank(final ArgNode<S, XtaAction> coverer) {
+		return lens.get(coverer.getState()).getAbstrState().getDecls().size();
+	}
+
 	@Override
 	public final void cover(final ArgNode<S, XtaAction> coveree, final ArgNode<S, XtaAction> coverer,
 							final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
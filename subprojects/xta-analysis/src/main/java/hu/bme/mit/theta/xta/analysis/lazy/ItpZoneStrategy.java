@@ -69,6 +69,11 @@ abstract class ItpZoneStrategy<S extends State> implements AlgorithmStrategy<S,
 		return covereeZone.isLeq(covererZone);
 	}
 
+	@Override
+	public final int getCoverageRank(final ArgNode<S, XtaAction> coverer) {
+		return lens.get(coverer.getState()).getAbstrState().getNumClocks();
+	}
+
 	@Override
 	public final void cover(final ArgNode<S, XtaAction> coveree, final ArgNode<S, XtaAction> coverer,
 							final Collection<ArgNode<S, XtaAction>> uncoveredNodes, final Builder stats) {
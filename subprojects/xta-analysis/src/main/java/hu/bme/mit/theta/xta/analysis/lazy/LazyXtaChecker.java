@@ -20,15 +20,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import java.util.ArrayList;
 import java.util.Collection;
 
-import com.google.common.collect.Lists;
-
 import hu.bme.mit.theta.analysis.State;
 import hu.bme.mit.theta.analysis.algorithm.ARG;
 import hu.bme.mit.theta.analysis.algorithm.ArgNode;
 import hu.bme.mit.theta.analysis.algorithm.SafetyChecker;
 import hu.bme.mit.theta.analysis.algorithm.SafetyResult;
 import hu.bme.mit.theta.analysis.algorithm.SearchStrategy;
-import hu.bme.mit.theta.analysis.reachedset.Partition;
 import hu.bme.mit.theta.analysis.unit.UnitPrec;
 import hu.bme.mit.theta.analysis.waitlist.Waitlist;
 import hu.bme.mit.theta.xta.XtaSystem;
@@ -62,13 +59,13 @@ final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>
 	private final class CheckMethod {
 		final ARG<XtaState<S>, XtaAction> arg;
 		final LazyXtaStatistics.Builder stats;
-		final Partition<ArgNode<XtaState<S>, XtaAction>, ?> passed;
+		final PassedList<S> passed;
 		final Waitlist<ArgNode<XtaState<S>, XtaAction>> waiting;
 
 		public CheckMethod() {
 			arg = ARG.create(algorithmStrategy.getAnalysis().getPartialOrd());
 			stats = LazyXtaStatistics.builder(arg);
-			passed = Partition.of(n -> algorithmStrategy.getProjection().apply(n.getState()));
+			passed = PassedList.create(algorithmStrategy);
 			waiting = searchStrategy.createWaitlist();
 		}
 
@@ -102,7 +99,7 @@ final class LazyXtaChecker<S extends State> implements SafetyChecker<XtaState<S>
 		private void close(final ArgNode<XtaState<S>, XtaAction> coveree) {
 			stats.startClosing();
 
-			final Iterable<ArgNode<XtaState<S>, XtaAction>> candidates = Lists.reverse(passed.get(coveree));
+			final Iterable<ArgNode<XtaState<S>, XtaAction>> candidates = passed.getCandidates(coveree);
 			for (final ArgNode<XtaState<S>, XtaAction> coverer : candidates) {
 
 				stats.checkCoverage();
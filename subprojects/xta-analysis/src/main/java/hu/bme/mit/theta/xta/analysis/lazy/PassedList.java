@@ -0,0 +1,278 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.lazy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+import hu.bme.mit.theta.analysis.State;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaState;
+
+/**
+ * Passed list of {@link LazyXtaChecker}. Nodes are partitioned by their
+ * location vector, and then by the projection of the algorithm strategy. Only
+ * nodes of the same class can cover each other, so a coverage lookup only
+ * scans a single class. Location vectors are interned, each distinct vector
+ * is represented by a single object holding its classes. They are looked up
+ * by the hash code cached in the state (see {@link XtaState#getLocsHashCode()}),
+ * so the locations are only compared on a hash match, and not at all if the
+ * states share the same list.
+ * <p>
+ * Within a class, nodes are kept in buckets by their coverage rank (see
+ * {@link AlgorithmStrategy#getCoverageRank(ArgNode)}), so that nodes with
+ * weaker labels are tried first, and then by recency. Candidates are produced
+ * lazily, so a lookup that stops at the first covering node does not touch
+ * the rest of the class. As labels are refined after insertion, the rank of a
+ * node is checked when it is reached, and it is moved to the bucket of its new
+ * rank if that changed.
+ */
+final class PassedList<S extends State> {
+
+	private final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy;
+	private final Map<LocKey, LocVector> locVectors;
+	private long nextSeq;
+
+	private PassedList(final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy) {
+		this.algorithmStrategy = checkNotNull(algorithmStrategy);
+		locVectors = new HashMap<>();
+		nextSeq = 0;
+	}
+
+	public static <S extends State> PassedList<S> create(
+			final AlgorithmStrategy<XtaState<S>, XtaState<S>> algorithmStrategy) {
+		return new PassedList<>(algorithmStrategy);
+	}
+
+	public void add(final ArgNode<XtaState<S>, XtaAction> node) {
+		checkNotNull(node);
+		final LocVector locVector = locVectors.computeIfAbsent(LocKey.of(node.getState()), k -> new LocVector());
+		final Object key = algorithmStrategy.getProjection().apply(node.getState());
+		final RankedClass rankedClass = locVector.classes.computeIfAbsent(key, k -> new RankedClass());
+		final Entry entry = new Entry(node, algorithmStrategy.getCoverageRank(node), nextSeq);
+		nextSeq++;
+		rankedClass.bucket(entry.rank).add(entry);
+	}
+
+	/**
+	 * Gets the nodes that might cover a node, in the order they should be
+	 * tried. The nodes are produced lazily, the passed list must not be
+	 * modified while iterating.
+	 */
+	public Iterable<ArgNode<XtaState<S>, XtaAction>> getCandidates(final ArgNode<XtaState<S>, XtaAction> node) {
+		checkNotNull(node);
+		final LocVector locVector = locVectors.get(LocKey.of(node.getState()));
+		if (locVector == null) {
+			return Collections.emptyList();
+		}
+		final Object key = algorithmStrategy.getProjection().apply(node.getState());
+		final RankedClass rankedClass = locVector.classes.get(key);
+		if (rankedClass == null) {
+			return Collections.emptyList();
+		}
+		return () -> rankedClass.new CandidateIterator();
+	}
+
+	/**
+	 * Location vector with the hash code cached by the state.
+	 */
+	private static final class LocKey {
+		private final List<Loc> locs;
+		private final int hashCode;
+
+		private LocKey(final List<Loc> locs, final int hashCode) {
+			this.locs = locs;
+			this.hashCode = hashCode;
+		}
+
+		private static LocKey of(final XtaState<?> state) {
+			return new LocKey(state.getLocs(), state.getLocsHashCode());
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (obj instanceof LocKey) {
+				final LocKey that = (LocKey) obj;
+				return this.hashCode == that.hashCode && (this.locs == that.locs || this.locs.equals(that.locs));
+			} else {
+				return false;
+			}
+		}
+	}
+
+	private final class LocVector {
+		private final Map<Object, RankedClass> classes;
+
+		private LocVector() {
+			classes = new HashMap<>();
+		}
+	}
+
+	private final class Entry {
+		private final ArgNode<XtaState<S>, XtaAction> node;
+		private final int rank;
+		// Order of insertion into the passed list
+		private final long seq;
+		// Set when the node is moved to the bucket of its new rank
+		private boolean stale;
+
+		private Entry(final ArgNode<XtaState<S>, XtaAction> node, final int rank, final long seq) {
+			this.node = node;
+			this.rank = rank;
+			this.seq = seq;
+			stale = false;
+		}
+	}
+
+	private final class Bucket {
+		private final int rank;
+		// Ordered by insertion into the passed list
+		private final List<Entry> entries;
+		private int stale;
+
+		private Bucket(final int rank) {
+			this.rank = rank;
+			entries = new ArrayList<>();
+			stale = 0;
+		}
+
+		private void add(final Entry entry) {
+			if (stale > entries.size() / 2) {
+				compact();
+			}
+			int pos = entries.size();
+			while (pos > 0 && entries.get(pos - 1).seq > entry.seq) {
+				pos--;
+			}
+			entries.add(pos, entry);
+		}
+
+		private void compact() {
+			entries.removeIf(e -> e.stale);
+			stale = 0;
+		}
+	}
+
+	private final class RankedClass {
+		private final TreeMap<Integer, Bucket> buckets;
+
+		private RankedClass() {
+			buckets = new TreeMap<>();
+		}
+
+		private Bucket bucket(final int rank) {
+			return buckets.computeIfAbsent(rank, Bucket::new);
+		}
+
+		/**
+		 * Iterates the buckets in increasing order of rank, and each bucket
+		 * from the most recent entry.
+		 */
+		private final class CandidateIterator implements Iterator<ArgNode<XtaState<S>, XtaAction>> {
+			private Bucket bucket;
+			private int pos;
+			private ArgNode<XtaState<S>, XtaAction> next;
+			// The next node is only looked up when needed
+			private boolean advanced;
+
+			private CandidateIterator() {
+				bucket = null;
+				pos = -1;
+				next = null;
+				advanced = false;
+			}
+
+			@Override
+			public boolean hasNext() {
+				if (!advanced) {
+					advance();
+					advanced = true;
+				}
+				return next != null;
+			}
+
+			@Override
+			public ArgNode<XtaState<S>, XtaAction> next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				advanced = false;
+				return next;
+			}
+
+			private void advance() {
+				while (true) {
+					while (pos >= 0) {
+						final Entry entry = bucket.entries.get(pos);
+						pos--;
+						if (entry.stale) {
+							continue;
+						}
+						final int rank = algorithmStrategy.getCoverageRank(entry.node);
+						if (rank != entry.rank) {
+							entry.stale = true;
+							bucket.stale++;
+							bucket(rank).add(new Entry(entry.node, rank, entry.seq));
+							if (rank > bucket.rank) {
+								// Reached again in the bucket of its new rank
+								continue;
+							}
+						}
+						next = entry.node;
+						return;
+					}
+
+					final Map.Entry<Integer, Bucket> nextBucket;
+					if (bucket == null) {
+						nextBucket = buckets.firstEntry();
+					} else {
+						if (bucket.stale > 0) {
+							bucket.compact();
+							if (bucket.entries.isEmpty()) {
+								buckets.remove(bucket.rank);
+							}
+						}
+						nextBucket = buckets.higherEntry(bucket.rank);
+					}
+					if (nextBucket == null) {
+						next = null;
+						return;
+					}
+					bucket = nextBucket.getValue();
+					pos = bucket.entries.size() - 1;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ *  Copyright 2017 Budapest University of Technology and Economics
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package hu.bme.mit.theta.xta.analysis.lazy;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import hu.bme.mit.theta.analysis.Analysis;
+import hu.bme.mit.theta.analysis.algorithm.ARG;
+import hu.bme.mit.theta.analysis.algorithm.ArgNode;
+import hu.bme.mit.theta.analysis.unit.UnitPrec;
+import hu.bme.mit.theta.analysis.unit.UnitState;
+import hu.bme.mit.theta.xta.XtaProcess;
+import hu.bme.mit.theta.xta.XtaProcess.Loc;
+import hu.bme.mit.theta.xta.XtaProcess.LocKind;
+import hu.bme.mit.theta.xta.XtaSystem;
+import hu.bme.mit.theta.xta.analysis.XtaAction;
+import hu.bme.mit.theta.xta.analysis.XtaState;
+import hu.bme.mit.theta.xta.analysis.lazy.LazyXtaStatistics.Builder;
+
+public final class PassedListTest {
+
+	private List<Loc> locs1;
+	private List<Loc> locs2;
+	private ARG<XtaState<UnitState>, XtaAction> arg;
+	private RankStrategy strategy;
+	private PassedList<UnitState> passed;
+
+	@Before
+	public void setup() {
+		final XtaSystem system = XtaSystem.create();
+		final XtaProcess process = system.createProcess("P");
+		final Loc l1 = process.createLoc("L1", LocKind.NORMAL, ImmutableList.of());
+		final Loc l2 = process.createLoc("L2", LocKind.NORMAL, ImmutableList.of());
+		locs1 = ImmutableList.of(l1, l2);
+		locs2 = ImmutableList.of(l2, l1);
+		arg = ARG.create((s1, s2) -> false);
+		strategy = new RankStrategy();
+		passed = PassedList.create(strategy);
+	}
+
+	@Test
+	public void testPartition() {
+		final ArgNode<XtaState<UnitState>, XtaAction> n1 = node(locs1, 0);
+		final ArgNode<XtaState<UnitState>, XtaAction> n2 = node(locs2, 0);
+		final ArgNode<XtaState<UnitState>, XtaAction> n3 = node(locs1, 0);
+		passed.add(n1);
+		passed.add(n2);
+
+		// Equal location vectors are matched, not only the same list
+		assertEquals(ImmutableList.of(n1), ImmutableList.copyOf(passed.getCandidates(n3)));
+		assertEquals(ImmutableList.of(n2), ImmutableList.copyOf(passed.getCandidates(
+				node(ImmutableList.copyOf(locs2), 0))));
+
+		passed.add(n3);
+		assertEquals(ImmutableList.of(n3, n1), ImmutableList.copyOf(passed.getCandidates(n1)));
+	}
+
+	@Test
+	public void testOrder() {
+		final ArgNode<XtaState<UnitState>, XtaAction> n1 = node(locs1, 1);
+		final ArgNode<XtaState<UnitState>, XtaAction> n2 = node(locs1, 0);
+		final ArgNode<XtaState<UnitState>, XtaAction> n3 = node(locs1, 1);
+		final ArgNode<XtaState<UnitState>, XtaAction> n4 = node(locs1, 0);
+		passed.add(n1);
+		passed.add(n2);
+		passed.add(n3);
+		passed.add(n4);
+
+		// Lower ranks first, then the most recent first
+		assertEquals(ImmutableList.of(n4, n2, n3, n1), ImmutableList.copyOf(passed.getCandidates(n1)));
+
+		// Ranks are checked when the nodes are reached
+		strategy.ranks.put(n2, 2);
+		strategy.ranks.put(n1, 0);
+		assertEquals(ImmutableList.of(n4, n3, n1, n2), ImmutableList.copyOf(passed.getCandidates(n1)));
+		assertEquals(ImmutableList.of(n4, n1, n3, n2), ImmutableList.copyOf(passed.getCandidates(n1)));
+	}
+
+	@Test
+	public void testLazy() {
+		for (int i = 0; i < 10; i++) {
+			passed.add(node(locs1, i % 3));
+		}
+		strategy.rankQueries = 0;
+		final Iterator<ArgNode<XtaState<UnitState>, XtaAction>> candidates = passed.getCandidates(node(locs1, 0))
+				.iterator();
+		candidates.next();
+		assertEquals(1, strategy.rankQueries);
+	}
+
+	private ArgNode<XtaState<UnitState>, XtaAction> node(final List<Loc> locs, final int rank) {
+		final ArgNode<XtaState<UnitState>, XtaAction> node = arg.createInitNode(
+				XtaState.of(locs, UnitState.getInstance()), false);
+		strategy.ranks.put(node, rank);
+		return node;
+	}
+
+	private static final class RankStrategy implements AlgorithmStrategy<XtaState<UnitState>, XtaState<UnitState>> {
+		private final Map<ArgNode<XtaState<UnitState>, XtaAction>, Integer> ranks = new HashMap<>();
+		private int rankQueries = 0;
+
+		@Override
+		public Analysis<XtaState<UnitState>, XtaAction, UnitPrec> getAnalysis() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Function<XtaState<UnitState>, ?> getProjection() {
+			return s -> 0;
+		}
+
+		@Override
+		public boolean mightCover(final ArgNode<XtaState<UnitState>, XtaAction> coveree,
+								  final ArgNode<XtaState<UnitState>, XtaAction> coverer) {
+			return true;
+		}
+
+		@Override
+		public int getCoverageRank(final ArgNode<XtaState<UnitState>, XtaAction> coverer) {
+			rankQueries++;
+			return ranks.get(coverer);
+		}
+
+		@Override
+		public void cover(final ArgNode<XtaState<UnitState>, XtaAction> coveree,
+						  final ArgNode<XtaState<UnitState>, XtaAction> coverer,
+						  final Collection<ArgNode<XtaState<UnitState>, XtaAction>> uncoveredNodes,
+						  final Builder stats) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void block(final ArgNode<XtaState<UnitState>, XtaAction> node, final XtaAction action,
+						  final XtaState<UnitState> succState,
+						  final Collection<ArgNode<XtaState<UnitState>, XtaAction>> uncoveredNodes,
+						  final Builder stats) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}